@@ -0,0 +1,34 @@
+package frc.robot;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Shared setup for benchmarks that touch the HAL or the Driver Station, e.g. anything
+ * alliance-relative. Runs the simulation HAL, the same one the desktop simulator uses.
+ */
+public final class BenchmarkSetup {
+
+    private static boolean halInitialized = false;
+
+    private BenchmarkSetup() {}
+
+    /**
+     * Starts the simulation HAL once and sets the Driver Station alliance
+     */
+    public static synchronized void init(Alliance alliance) {
+        if (!halInitialized) {
+            HAL.initialize(500, 0);
+            halInitialized = true;
+        }
+
+        DriverStationSim.setAllianceStationId(
+            alliance == Alliance.Red ? AllianceStationID.Red1 : AllianceStationID.Blue1);
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+    }
+}
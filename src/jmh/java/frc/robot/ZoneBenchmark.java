@@ -0,0 +1,88 @@
+package frc.robot;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * The four zone checks RobotContainer runs every loop to pick the drive speed
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneBenchmark {
+
+    @Param({"Blue", "Red"})
+    public String alliance;
+
+    // Poses spread over the whole field so every branch gets taken
+    private static final int POSE_COUNT = 1024;
+    private final Pose2d[] poses = new Pose2d[POSE_COUNT];
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        BenchmarkSetup.init(Alliance.valueOf(alliance));
+
+        Random random = new Random(7790);
+        for (int i = 0; i < POSE_COUNT; i++) {
+            poses[i] = new Pose2d(random.nextDouble() * 17.55, random.nextDouble() * 8.05,
+                Rotation2d.fromRadians(random.nextDouble() * 2 * Math.PI));
+        }
+    }
+
+    private Pose2d nextPose() {
+        next = (next + 1) & (POSE_COUNT - 1);
+        return poses[next];
+    }
+
+    @Benchmark
+    public boolean reefZone() {
+        return RobotContainer.isInReefZone(nextPose());
+    }
+
+    @Benchmark
+    public boolean coralStationLeft() {
+        return RobotContainer.isInCoralStationLeft(nextPose());
+    }
+
+    @Benchmark
+    public boolean coralStationRight() {
+        return RobotContainer.isInCoralStationRight(nextPose());
+    }
+
+    @Benchmark
+    public boolean bargeZone() {
+        return RobotContainer.isInBargeZone(nextPose());
+    }
+
+    /** All four checks, as updateProximityStatus runs them */
+    @Benchmark
+    public int allZones() {
+        Pose2d pose = nextPose();
+        int zones = 0;
+        if (RobotContainer.isInReefZone(pose)) zones |= 1;
+        if (RobotContainer.isInCoralStationLeft(pose)) zones |= 2;
+        if (RobotContainer.isInCoralStationRight(pose)) zones |= 4;
+        if (RobotContainer.isInBargeZone(pose)) zones |= 8;
+        return zones;
+    }
+}
@@ -0,0 +1,101 @@
+package frc.robot.commands;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.BenchmarkSetup;
+import frc.robot.subsystems.TargetClass;
+import frc.robot.subsystems.swervedrive.PoseDrive;
+
+/**
+ * One loop of ProfileToPose: the profiled drive and theta math, up to the speeds it
+ * hands the drive. The drive is a stand-in that only keeps them, so the drive loop,
+ * the pathfinder and the simulated modules aren't running alongside and aren't counted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileToPoseBenchmark {
+
+    /** Stays where it starts and keeps the last speeds it was given */
+    private static final class StandInDrive implements PoseDrive {
+        private final Pose2d pose;
+        ChassisSpeeds speeds = new ChassisSpeeds();
+
+        StandInDrive(Pose2d pose) {
+            this.pose = pose;
+        }
+
+        @Override
+        public Pose2d getPose() {
+            return pose;
+        }
+
+        @Override
+        public ChassisSpeeds getRobotVelocity() {
+            return new ChassisSpeeds();
+        }
+
+        @Override
+        public boolean getCancel() {
+            return false;
+        }
+
+        @Override
+        public void driveTracked(ChassisSpeeds fieldVelocity, Pose2d from) {
+            speeds = fieldVelocity;
+        }
+
+        @Override
+        public void lock() {
+            speeds = new ChassisSpeeds();
+        }
+    }
+
+    private StandInDrive drive;
+    private ProfileToPose command;
+
+    @Setup
+    public void setup() {
+        BenchmarkSetup.init(Alliance.Blue);
+
+        // Far enough away that the drive profile is cruising, not settled at the goal
+        drive = new StandInDrive(new Pose2d(2, 2, Rotation2d.kZero));
+        TargetClass target = TargetClass.GetTargetByName("C630");
+        Pose2d targetPose = TargetClass.toPose2d(
+            new Pose2d(target.getX(), target.getY(), Rotation2d.fromRadians(target.getZ())));
+
+        command = new ProfileToPose(drive, () -> targetPose);
+        command.initialize();
+    }
+
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+        command.execute();
+        blackhole.consume(drive.speeds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        command.end(true);
+    }
+}
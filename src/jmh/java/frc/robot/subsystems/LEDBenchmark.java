@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.BenchmarkSetup;
+import frc.robot.Constants.LEDConstants;
+import frc.robot.util.LEDFrame;
+import frc.robot.util.LEDPattern;
+import frc.robot.util.LEDSegment;
+
+/**
+ * One compositor frame for each of the LED patterns: render into the frame,
+ * estimate the current draw, and write the changed LEDs to the strip buffer.
+ *
+ * Constructing LED also starts its compositor thread, which renders at a low rate
+ * in the background during the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LEDBenchmark {
+
+    @Param({"SOLID_RED", "RED_BREATHING", "RED_BLUE_GRADIENT", "LINED_UP_FLASH"})
+    public String patternName;
+
+    private LEDPattern pattern;
+    private LEDFrame frame;
+    private LEDSegment segment;
+    private AddressableLEDBuffer buffer;
+
+    // Advance time one compositor frame per call so animations actually change
+    private final double framePeriod = 1.0 / LEDConstants.COMPOSITOR_RATE_HZ;
+    private double elapsed = 0;
+
+    @Setup
+    public void setup() {
+        BenchmarkSetup.init(Alliance.Blue);
+
+        pattern = new LED().getPatternByName(patternName);
+        frame = new LEDFrame(LEDConstants.length);
+        segment = new LEDSegment(frame, 0, LEDConstants.length);
+        buffer = new AddressableLEDBuffer(LEDConstants.length);
+    }
+
+    private void renderNextFrame() {
+        elapsed += framePeriod;
+        // Keep flashes inside their active window
+        if (pattern.isFinished(elapsed)) {
+            elapsed = 0;
+        }
+        pattern.applyTo(segment, elapsed);
+    }
+
+    @Benchmark
+    public double render() {
+        renderNextFrame();
+        return frame.getEstimatedCurrentAmps();
+    }
+
+    @Benchmark
+    public boolean renderAndWrite() {
+        renderNextFrame();
+        return frame.writeTo(buffer, LEDConstants.DEFAULT_BRIGHTNESS);
+    }
+}
@@ -0,0 +1,59 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.BenchmarkSetup;
+
+/**
+ * Target lookup by name and the alliance flip, both run every loop while driving to a target
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetClassBenchmark {
+
+    // A first, middle and last case of the name switch, plus a source
+    @Param({"S530", "C631", "A511", "SL"})
+    public String name;
+
+    @Param({"Blue", "Red"})
+    public String alliance;
+
+    private Pose2d targetPose;
+
+    @Setup
+    public void setup() {
+        BenchmarkSetup.init(Alliance.valueOf(alliance));
+
+        TargetClass target = TargetClass.GetTargetByName(name);
+        targetPose = new Pose2d(target.getX(), target.getY(), Rotation2d.fromRadians(target.getZ()));
+    }
+
+    @Benchmark
+    public TargetClass getTargetByName() {
+        return TargetClass.GetTargetByName(name);
+    }
+
+    @Benchmark
+    public Pose2d toPose2d() {
+        return TargetClass.toPose2d(targetPose);
+    }
+}
@@ -0,0 +1,81 @@
+package frc.robot.subsystems.swervedrive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.BenchmarkSetup;
+
+/**
+ * The vision standard deviation heuristic, run for every camera result
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisionBenchmark {
+
+    // Tags seen in one frame; one tag takes the single-tag distance branch
+    @Param({"1", "2", "4"})
+    public int tagCount;
+
+    private Vision vision;
+    private PhotonPoseEstimator estimator;
+    private List<PhotonTrackedTarget> targets;
+    private Optional<EstimatedRobotPose> estimate;
+    private Matrix<N3, N1> stdDevs;
+
+    @Setup
+    public void setup() {
+        BenchmarkSetup.init(Alliance.Blue);
+
+        vision = new Vision();
+        estimator = new PhotonPoseEstimator(AprilTagFieldLayout.loadField(AprilTagFields.k2025ReefscapeWelded),
+            PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, new Transform3d());
+
+        // Blue reef tags, seen from in front of the reef
+        targets = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            targets.add(new PhotonTrackedTarget(0, 0, 1, 0, 17 + i, -1, -1,
+                new Transform3d(), new Transform3d(), 0.1, List.of(), List.of()));
+        }
+        estimate = Optional.of(new EstimatedRobotPose(new Pose3d(3.0, 4.0, 0.0, new Rotation3d()), 0.0,
+            targets, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR));
+        stdDevs = VecBuilder.fill(1.5, 1.5, 3);
+    }
+
+    @Benchmark
+    public Matrix<N3, N1> updateEstimationStdDevs() {
+        vision.updateEstimationStdDevs(estimate, targets, estimator, stdDevs);
+        return vision.getEstimationStdDevs();
+    }
+}
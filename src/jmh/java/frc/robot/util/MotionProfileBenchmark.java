@@ -0,0 +1,77 @@
+package frc.robot.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants.ElevatorConstants;
+
+/**
+ * The elevator's precomputed profile against recalculating a TrapezoidProfile every loop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotionProfileBenchmark {
+
+    @Param({"false", "true"})
+    public boolean sCurve;
+
+    private MotionProfile profile;
+    private final MotionProfile.State sample = new MotionProfile.State();
+    private double time = 0;
+
+    private final TrapezoidProfile trapezoid = new TrapezoidProfile(
+        new TrapezoidProfile.Constraints(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration));
+    private final TrapezoidProfile.State goal = new TrapezoidProfile.State(ElevatorConstants.L4Pose, 0);
+    private TrapezoidProfile.State setpoint = new TrapezoidProfile.State();
+
+    @Setup
+    public void setup() {
+        profile = sCurve
+            ? new MotionProfile(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration, ElevatorConstants.maxJerk)
+            : new MotionProfile(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration);
+        profile.generate(0, 0, ElevatorConstants.L4Pose);
+    }
+
+    /** What the elevator does every loop */
+    @Benchmark
+    public double sample() {
+        time += 0.02;
+        if (time > profile.getTotalTime()) {
+            time = 0;
+        }
+        return profile.sample(time, sample).position;
+    }
+
+    /** What the elevator does when the goal changes */
+    @Benchmark
+    public double generate() {
+        profile.generate(0, 0, ElevatorConstants.L4Pose);
+        return profile.getTotalTime();
+    }
+
+    /** The previous approach, for comparison */
+    @Benchmark
+    public double trapezoidCalculate() {
+        setpoint = trapezoid.calculate(0.02, setpoint, goal);
+        if (setpoint.position == goal.position) {
+            setpoint = new TrapezoidProfile.State();
+        }
+        return setpoint.position;
+    }
+}
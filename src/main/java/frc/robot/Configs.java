@@ -1,18 +1,88 @@
 package frc.robot;
 
+import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.config.ClosedLoopConfig.FeedbackSensor;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 
+import com.revrobotics.spark.config.SparkFlexConfig;
 import com.revrobotics.spark.config.SparkMaxConfig;
 
 import frc.robot.Constants.AlgaeArmConstants;
 import frc.robot.Constants.ClimberConstants;
+import frc.robot.Constants.DriveLoopConstants;
 import frc.robot.Constants.ElevatorConstants;
 import frc.robot.Constants.FunnelConstants;
 import frc.robot.Constants.ShooterArmConstants;
 
 public final class Configs {
 
+  /**
+   * Status frame periods. Every signal starts at IDLE and each device below only
+   * speeds up the signals its subsystem actually reads, leaving CAN bandwidth for
+   * the swerve modules. Signals that share a frame on the controller are sent at
+   * the fastest period requested for any of them.
+   */
+  public static final class StatusFrames {
+    public static final int FAST = 10;    // Active sensing (current spikes while intaking)
+    public static final int NORMAL = 20;  // Read every robot loop
+    public static final int SLOW = 100;   // Dashboard only
+    public static final int IDLE = 500;   // Not read at all
+
+    /**
+     * Sets every signal to IDLE so a device only pays for what it turns back up
+     */
+    static void idleAll(SparkMaxConfig config) {
+      config.signals
+          .primaryEncoderPositionPeriodMs(IDLE)
+          .primaryEncoderVelocityPeriodMs(IDLE)
+          .absoluteEncoderPositionPeriodMs(IDLE)
+          .absoluteEncoderVelocityPeriodMs(IDLE)
+          .analogVoltagePeriodMs(IDLE)
+          .analogPositionPeriodMs(IDLE)
+          .analogVelocityPeriodMs(IDLE)
+          .appliedOutputPeriodMs(IDLE)
+          .outputCurrentPeriodMs(IDLE)
+          .busVoltagePeriodMs(IDLE)
+          .motorTemperaturePeriodMs(IDLE);
+    }
+
+    /**
+     * Creates a config that only changes the output current period, for switching rates at runtime
+     */
+    static SparkMaxConfig currentOnly(int periodMs) {
+      SparkMaxConfig config = new SparkMaxConfig();
+      config.signals.outputCurrentPeriodMs(periodMs);
+      return config;
+    }
+  }
+
+  /**
+   * Signal rates for the swerve modules, applied on top of YAGSL's own config. The
+   * drive loop runs odometry from the drive and angle encoders every tick, so they
+   * report once per tick.
+   */
+  public static final class Swerve {
+    static final int LOOP_PERIOD_MS = (int) Math.round(DriveLoopConstants.PERIOD * 1000);
+
+    public static final SparkFlexConfig driveSignals = new SparkFlexConfig();
+    public static final SparkMaxConfig angleSignals = new SparkMaxConfig();
+
+    static {
+      driveSignals.signals
+          .primaryEncoderPositionPeriodMs(LOOP_PERIOD_MS)
+          .primaryEncoderVelocityPeriodMs(LOOP_PERIOD_MS);
+      angleSignals.signals
+          .primaryEncoderPositionPeriodMs(LOOP_PERIOD_MS)
+          .primaryEncoderVelocityPeriodMs(LOOP_PERIOD_MS);
+    }
+  }
+
+  /**
+   * MAXMotion limits are in RPM and RPM/s, while the roboRIO profiles use
+   * rotations per second, so the same constants drive both modes.
+   */
+  static final double MAXMOTION_PER_MINUTE = 60.0;
+
   public static final class Elevator {
     public static final SparkMaxConfig elevatorConfig = new SparkMaxConfig();
 
@@ -30,7 +100,18 @@ public final class Configs {
           .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
           // Set PID values for position control
           .pid(ElevatorConstants.P, ElevatorConstants.I, ElevatorConstants.D)
-          .outputRange(-1, 1);
+          .outputRange(-1, 1)
+          .maxMotion
+          // Only used with ElevatorConstants.USE_MAXMOTION
+          .maxVelocity(ElevatorConstants.maxVelocity * MAXMOTION_PER_MINUTE)
+          .maxAcceleration(ElevatorConstants.maxAcceleration * MAXMOTION_PER_MINUTE);
+
+      // Position and velocity every loop (velocity for the feedforward fit); applied output stays fast for the follower
+      StatusFrames.idleAll(elevatorConfig);
+      elevatorConfig.signals
+          .primaryEncoderPositionPeriodMs(StatusFrames.NORMAL)
+          .primaryEncoderVelocityPeriodMs(StatusFrames.NORMAL)
+          .appliedOutputPeriodMs(StatusFrames.FAST);
     }
   }
   
@@ -43,6 +124,10 @@ public final class Configs {
 
     elevatorSlaveConfig
       .follow(ElevatorConstants.ID, true);
+
+      // Follower only reports applied output to the dashboard
+      StatusFrames.idleAll(elevatorSlaveConfig);
+      elevatorSlaveConfig.signals.appliedOutputPeriodMs(StatusFrames.SLOW);
     }
   }
 
@@ -51,9 +136,17 @@ public final class Configs {
   public static final class Climber {
     public static final SparkMaxConfig climberConfig = new SparkMaxConfig();
 
+    // Current and velocity while pulling in, for cage detection, and back to normal afterwards
+    public static final SparkMaxConfig climbingSignals = new SparkMaxConfig();
+    public static final SparkMaxConfig normalSignals = new SparkMaxConfig();
+
+    // Lower limit while a profiled move runs slack, full once the robot is hanging
+    public static final SparkMaxConfig freeCurrentLimit = new SparkMaxConfig();
+    public static final SparkMaxConfig loadedCurrentLimit = new SparkMaxConfig();
+
     static {
       // Configure basic settings of the climber motor
-      climberConfig.idleMode(IdleMode.kBrake).smartCurrentLimit(80).voltageCompensation(12);
+      climberConfig.idleMode(IdleMode.kBrake).smartCurrentLimit(ClimberConstants.LOADED_CURRENT_LIMIT).voltageCompensation(12);
 
       climberConfig
       .inverted(false)
@@ -61,11 +154,30 @@ public final class Configs {
       .feedbackSensor(FeedbackSensor.kPrimaryEncoder)
       // Set PID values for position control
       .pid(ClimberConstants.P, ClimberConstants.I, ClimberConstants.D)
+      // Stiffer gains for pulling the robot up
+      .pid(ClimberConstants.LOADED_P, ClimberConstants.LOADED_I, ClimberConstants.LOADED_D, ClosedLoopSlot.kSlot1)
       .outputRange(-1, 1)
+      .outputRange(-1, 1, ClosedLoopSlot.kSlot1)
       .maxMotion
       // Set MAXMotion parameters for position control
-      .maxVelocity(ClimberConstants.maxVelocity)
-      .maxAcceleration(ClimberConstants.maxAcceleration);
+      .maxVelocity(ClimberConstants.maxVelocity * MAXMOTION_PER_MINUTE)
+      .maxAcceleration(ClimberConstants.maxAcceleration * MAXMOTION_PER_MINUTE);
+
+      // Position every loop, current for the dashboard
+      StatusFrames.idleAll(climberConfig);
+      climberConfig.signals
+          .primaryEncoderPositionPeriodMs(StatusFrames.NORMAL)
+          .outputCurrentPeriodMs(StatusFrames.SLOW);
+
+      climbingSignals.signals
+          .primaryEncoderVelocityPeriodMs(StatusFrames.NORMAL)
+          .outputCurrentPeriodMs(StatusFrames.FAST);
+      normalSignals.signals
+          .primaryEncoderVelocityPeriodMs(StatusFrames.IDLE)
+          .outputCurrentPeriodMs(StatusFrames.SLOW);
+
+      freeCurrentLimit.smartCurrentLimit(ClimberConstants.FREE_CURRENT_LIMIT);
+      loadedCurrentLimit.smartCurrentLimit(ClimberConstants.LOADED_CURRENT_LIMIT);
     }
   }
 
@@ -80,7 +192,15 @@ public final class Configs {
 
       shooterConfig
       .inverted(true);
+
+      // Current every loop for coral detection
+      StatusFrames.idleAll(shooterConfig);
+      shooterConfig.signals.outputCurrentPeriodMs(StatusFrames.NORMAL);
     }
+
+    // Current rate while intaking, and back to normal afterwards
+    public static final SparkMaxConfig sensingSignals = StatusFrames.currentOnly(StatusFrames.FAST);
+    public static final SparkMaxConfig normalSignals = StatusFrames.currentOnly(StatusFrames.NORMAL);
   }
   public static final class ShooterArm {
     public static final SparkMaxConfig shooterArmConfig = new SparkMaxConfig();
@@ -103,9 +223,16 @@ public final class Configs {
           .outputRange(-1, 1)
           .maxMotion
           // Set MAXMotion parameters for position control
-          .maxVelocity(ShooterArmConstants.maxVelocity)
-          .maxAcceleration(ShooterArmConstants.maxAcceleration)
+          .maxVelocity(ShooterArmConstants.maxVelocity * MAXMOTION_PER_MINUTE)
+          .maxAcceleration(ShooterArmConstants.maxAcceleration * MAXMOTION_PER_MINUTE)
           .allowedClosedLoopError(ShooterArmConstants.allowedClosedLoopError);      
+
+      // Absolute position and velocity every loop for the profile and feedforward, applied output for its fit
+      StatusFrames.idleAll(shooterArmConfig);
+      shooterArmConfig.signals
+          .absoluteEncoderPositionPeriodMs(StatusFrames.NORMAL)
+          .absoluteEncoderVelocityPeriodMs(StatusFrames.NORMAL)
+          .appliedOutputPeriodMs(StatusFrames.NORMAL);
     }
   }
 
@@ -133,11 +260,22 @@ public final class Configs {
           
           .maxMotion
           // Set MAXMotion parameters for position control
-          .maxVelocity(AlgaeArmConstants.maxVelocity)
-          .maxAcceleration(AlgaeArmConstants.maxAcceleration)
+          .maxVelocity(AlgaeArmConstants.maxVelocity * MAXMOTION_PER_MINUTE)
+          .maxAcceleration(AlgaeArmConstants.maxAcceleration * MAXMOTION_PER_MINUTE)
           .allowedClosedLoopError(AlgaeArmConstants.allowedClosedLoopError);
-                
+
+      // Absolute position and velocity for the feedforward, applied output for its fit, current for algae detection
+      StatusFrames.idleAll(algaeArmConfig);
+      algaeArmConfig.signals
+          .absoluteEncoderPositionPeriodMs(StatusFrames.NORMAL)
+          .absoluteEncoderVelocityPeriodMs(StatusFrames.NORMAL)
+          .appliedOutputPeriodMs(StatusFrames.NORMAL)
+          .outputCurrentPeriodMs(StatusFrames.NORMAL);
     }
+
+    // Current rate while intaking, and back to normal afterwards
+    public static final SparkMaxConfig sensingSignals = StatusFrames.currentOnly(StatusFrames.FAST);
+    public static final SparkMaxConfig normalSignals = StatusFrames.currentOnly(StatusFrames.NORMAL);
   }
   public static final class AlgaeShooter {
     public static final SparkMaxConfig algaeShooterConfig = new SparkMaxConfig();
@@ -148,7 +286,15 @@ public final class Configs {
       
       algaeShooterConfig
       .inverted(false);
+
+      // Current every loop for algae detection
+      StatusFrames.idleAll(algaeShooterConfig);
+      algaeShooterConfig.signals.outputCurrentPeriodMs(StatusFrames.NORMAL);
     }
+
+    // Current rate while intaking, and back to normal afterwards
+    public static final SparkMaxConfig sensingSignals = StatusFrames.currentOnly(StatusFrames.FAST);
+    public static final SparkMaxConfig normalSignals = StatusFrames.currentOnly(StatusFrames.NORMAL);
   }
 
   public static final class Funnel {
@@ -170,9 +316,21 @@ public final class Configs {
           .outputRange(-1, 1)
           .maxMotion
           // Set MAXMotion parameters for position control
-          .maxVelocity(FunnelConstants.maxVelocity)
-          .maxAcceleration(FunnelConstants.maxAcceleration)
+          .maxVelocity(FunnelConstants.maxVelocity * MAXMOTION_PER_MINUTE)
+          .maxAcceleration(FunnelConstants.maxAcceleration * MAXMOTION_PER_MINUTE)
           .allowedClosedLoopError(FunnelConstants.allowedClosedLoopError);      
+
+      // Absolute position and motor velocity for the feedforward, the rest for the dashboard
+      StatusFrames.idleAll(funnelConfig);
+      funnelConfig.signals
+          .absoluteEncoderPositionPeriodMs(StatusFrames.NORMAL)
+          .primaryEncoderVelocityPeriodMs(StatusFrames.NORMAL)
+          .appliedOutputPeriodMs(StatusFrames.SLOW)
+          .outputCurrentPeriodMs(StatusFrames.SLOW);
     }
+
+    // Current rate while watching for a coral impact, and back to normal afterwards
+    public static final SparkMaxConfig sensingSignals = StatusFrames.currentOnly(StatusFrames.FAST);
+    public static final SparkMaxConfig normalSignals = StatusFrames.currentOnly(StatusFrames.SLOW);
   }
 }
\ No newline at end of file
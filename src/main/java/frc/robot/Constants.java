@@ -5,7 +5,9 @@
 package frc.robot;
 
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.util.Units;
@@ -49,6 +51,8 @@ public final class Constants
 
     // Current threshold for detecting algae
     public static final float currentThreshold = 15.0f;
+    public static final float releaseThreshold = 10.0f; // Filtered current below which the algae is gone
+    public static final float DEBOUNCE_TIME = 0.5f; // Time to debounce current threshold (seconds)
 
     public static final float angleOffset = 0.75f;
 
@@ -57,6 +61,9 @@ public final class Constants
 
     public static final float manualMultiplier = 0.01f;
 
+    // Arm counts as at its goal within this (rotations), e.g. to stop holding algae in once it is up
+    public static final float AT_GOAL_TOLERANCE = 0.02f;
+
 
     public static final float P = 2.0f;
     //public static final float P = 0.0f;
@@ -66,6 +73,9 @@ public final class Constants
     public static final float maxAcceleration = 50;
     public static final float allowedClosedLoopError = .005f;
 
+    // Profile on the SparkMax with MAXMotion instead of on the roboRIO
+    public static final boolean USE_MAXMOTION = false;
+
     public static final float L1ScoreAngle = 0.33f;
     
     // New feedforward constants
@@ -74,6 +84,12 @@ public final class Constants
     public static final float kV = 0.0f;  // Velocity feedforward
     public static final float kA = 0.0f;  // Acceleration feedforward
     public static final float feedforwardOffset = 0.75f; // Offset for zero position
+
+    // Feedforward is fitted online above this speed (same units as the feedforward's velocity)
+    public static final float FF_ID_MIN_VELOCITY = 0.2f;
+
+    // SysId tests stop this far from either end of travel
+    public static final float SYSID_MARGIN = 0.03f;
   }
 
     public static final class AlgaeShooterConstants{
@@ -82,6 +98,7 @@ public final class Constants
     
     public static final float outake = -0.4f;
     public static final float currentThreshold = 10f; // Current threshold for detecting algae
+    public static final float releaseThreshold = 7f; // Filtered current below which the algae is gone
     
     // Trigger control constants
     public static final float triggerThreshold = 0.25f;    // Minimum trigger value to activate
@@ -95,7 +112,11 @@ public final class Constants
     public static final float intake = 0.50f;
     public static final float outake = -.50f;
     public static final float currentThreshold = 15;
-    public static final float DEBOUNCE_TIME = 0.075f; // Time to debounce current threshold (seconds)
+    public static final float releaseThreshold = 10; // Filtered current below which the coral is gone
+    public static final float DETECT_TIME = 0.04f; // Filtered current above threshold before detecting, two unboosted 20 ms status frames (seconds)
+    public static final float DEBOUNCE_TIME = 0.075f; // Time to debounce current dropping below threshold (seconds)
+    public static final float riseRate = 200; // Filtered current rise that starts the detect timer early (amps/s)
+    public static final float RELEASE_ARM_TIME = 0.15f; // Outtake spin-up current ignored before a drop counts as the coral leaving (seconds)
   }
 
   public static final class ShooterArmConstants{
@@ -151,6 +172,9 @@ public final class Constants
     public static final float maxAcceleration = 3;
 
     public static final float allowedClosedLoopError = 0.005f;
+
+    // Profile on the SparkMax with MAXMotion instead of on the roboRIO
+    public static final boolean USE_MAXMOTION = false;
     
     // New feedforward constants
     public static final float kS = 0.0f;  // Static friction compensation
@@ -160,6 +184,12 @@ public final class Constants
     
     public static final float feedforwardOffset = 0.25f;
 
+    // Feedforward is fitted online above this speed (same units as the feedforward's velocity)
+    public static final float FF_ID_MIN_VELOCITY = 0.2f;
+
+    // SysId tests stop this far from either end of travel
+    public static final float SYSID_MARGIN = 0.03f;
+
     // PID position tolerance
     public static final float positionTolerance = 0.01f;
   }
@@ -176,9 +206,36 @@ public final class Constants
     public static final float I = 0.0f;
     public static final float D = 0.0f;
     
-    // Motion profile parameters
-    public static final float maxVelocity = 1000;
-    public static final float maxAcceleration = 1000;
+    // Motion profile parameters, while the strap is slack (motor rotations/s and /s^2)
+    public static final float maxVelocity = 80;
+    public static final float maxAcceleration = 300;
+
+    // Once the robot is hanging: slower, with stiffer slot 1 gains and a feedforward for its weight
+    public static final float loadedMaxVelocity = 50;
+    public static final float loadedMaxAcceleration = 100;
+    public static final float LOADED_P = 3.0f;
+    public static final float LOADED_I = 0.0f;
+    public static final float LOADED_D = 0.0f;
+    public static final float LOADED_FEEDFORWARD = -3.0f; // Volts, toward retracted
+
+    // Watch for the cage while retracting, then switch to the loaded climb and stop at latchPosition.
+    // Off until the cage thresholds and latchPosition are tuned; retracting then pulls all the way in.
+    public static final boolean AUTO_LATCH = false;
+
+    // Cage engagement: current this high while the winch runs slower than CAGE_VELOCITY (RPM)
+    public static final float CAGE_CURRENT_THRESHOLD = 35f;
+    public static final float CAGE_RELEASE_CURRENT = 25f;
+    public static final float CAGE_VELOCITY = 3000f;
+    public static final float CAGE_DETECT_TIME = 0.1f;
+    // Ignore the current while the winch spins up after starting to pull in (seconds)
+    public static final float CAGE_ARM_TIME = 0.3f;
+
+    // Current limits while moving slack and once loaded (amps)
+    public static final int FREE_CURRENT_LIMIT = 40;
+    public static final int LOADED_CURRENT_LIMIT = 80;
+
+    // Time for the pawl servo to swing clear of the ratchet (seconds)
+    public static final float PAWL_TRAVEL_TIME = 0.25f;
     
     
     public static final float min = 0;  // Max extended position
@@ -187,6 +244,7 @@ public final class Constants
     // Predefined positions (reversed from previous values to match Neo motor behavior)
     public static final float retractedPosition = 0f;      // Fully retracted
     public static final float extendedPosition = 109f;    // Fully extended
+    public static final float latchPosition = 6f;         // Climb stops here once on the cage
     
     // Tolerance for position control
     public static final float SETPOINT_TOLERANCE = 2.0f;
@@ -250,6 +308,13 @@ public final class Constants
     public static final float maxVelocity = 500;
     public static final float maxAcceleration = 70;
 
+    // Jerk-limited (S-curve) profile instead of a trapezoid; softer starts and stops
+    public static final boolean USE_S_CURVE = false;
+    public static final float maxJerk = 700;     // Only used with USE_S_CURVE (units/s^3)
+
+    // Profile on the SparkMax with MAXMotion instead of on the roboRIO (USE_S_CURVE doesn't apply)
+    public static final boolean USE_MAXMOTION = false;
+
     public static final float L1ScoreHeight = -18.782352447509766f;
     
     // Feedforward constants for ElevatorFeedforward
@@ -258,6 +323,12 @@ public final class Constants
     public static final float kG = 0;   // Gravity compensation (voltage)
     public static final float kV = 0.0f;   // Velocity feedforward (voltage per unit/s)  
     public static final float kA = 0.0f;  // Acceleration feedforward (voltage per unit/s²)
+
+    // Feedforward is fitted online above this speed (units/s)
+    public static final float FF_ID_MIN_VELOCITY = 0.5f;
+
+    // SysId tests stop this far from either end of travel
+    public static final float SYSID_MARGIN = 3.0f;
   }
 
   public static final class FunnelConstants {
@@ -293,6 +364,9 @@ public final class Constants
     public static final float maxVelocity = 6;
     public static final float maxAcceleration = 6;
     public static final float allowedClosedLoopError = 0.005f;
+
+    // Profile on the SparkMax with MAXMotion instead of on the roboRIO
+    public static final boolean USE_MAXMOTION = false;
     
     // New feedforward constants
     public static final float kS = 0.0f;  // Static friction compensation
@@ -309,11 +383,20 @@ public final class Constants
     public static final float currentThreshold = 3.0f;  // Current spike threshold (amps)
     public static final float currentNormalLevel = 0.25f; // Normal operating current (for comparison)
     public static final float currentSpikeDuration = 0.05f; // How long a spike needs to last (seconds)
+    public static final float currentReleaseThreshold = 2.0f; // Spike is over below this (amps)
     
     // Shaking parameters
     public static final float shakingAmplitude = 0.03f; // How far to move when shaking
     public static final float shakingFrequency = 3f; // Increased oscillations per second
     public static final float shakingDuration = 15f; // Extended max duration (will stop early when coral loaded)
+
+    // Shake adaptation: grow and sweep if the coral hasn't moved, calm down once it reaches the shooter
+    public static final float shakingEscalateTime = 1.0f; // Seconds of normal shaking before escalating
+    public static final float shakingRampTime = 1.0f; // Seconds to grow to the max amplitude
+    public static final float shakingMaxAmplitude = 0.05f;
+    public static final float shakingChirpEndFrequency = 8f; // Sweeps from shakingFrequency up to this (Hz)
+    public static final float shakingChirpSweepTime = 1.0f; // Seconds per sweep
+    public static final float shakingSettleAmplitude = 0.01f; // While the shooter pulls the coral in
     
     // Multiple detection methods
     public static final boolean USE_VELOCITY_DETECTION = true;
@@ -357,6 +440,12 @@ public final class Constants
     
     // Power headroom to prevent hitting exact power limit (0-1)
     public static final double POWER_SAFETY_MARGIN = 0.9;
+
+    // Gamma applied when writing the frame to the strip (1.0 = linear, matches the original look)
+    public static final double GAMMA = 1.0;
+
+    // Rate the LED compositor thread renders frames at (Hz), independent of the 50Hz robot loop
+    public static final double COMPOSITOR_RATE_HZ = 30.0;
     
     // Calculate max brightness based on power constraints
     // MAX_BRIGHTNESS = MAX_AMPERAGE / (number of LEDs * current per LED at full brightness)
@@ -818,6 +907,30 @@ public final class Constants
     public static final double AUTON_ROTATION_DELAY = 0.5;
   }
 
+  public static final class ThreadConstants {
+    // Real-time priorities (1-99, higher preempts lower); everything else isn't real-time
+    public static final int NOTIFIER_PRIORITY = 41; // HAL thread that wakes Notifiers, above what it wakes
+    public static final int CONTROL_PRIORITY = 40; // 100 Hz drive loop
+    public static final int MAIN_PRIORITY = 1; // Main robot loop, just above everything not real-time
+
+    // How often loop timing and garbage collection are posted (seconds)
+    public static final double TELEMETRY_PERIOD = 0.5;
+  }
+
+  public static final class DriveLoopConstants {
+    // Odometry and drive-to-pose tracking run this often, 100 Hz (seconds). The swerve encoders are set to
+    // report at the same rate; faster would mostly re-read old frames, and eight controllers at 4 ms would
+    // crowd the CAN bus
+    public static final double PERIOD = 0.01;
+
+    // Correction toward where the commanded speeds should have taken the robot since the command ran
+    public static final double TRANSLATION_KP = 3.0;
+    public static final double ROTATION_KP = 3.0;
+
+    // Stop if a tracking command hasn't asked for anything in this long, about three missed loops (seconds)
+    public static final double REQUEST_TIMEOUT = 0.06;
+  }
+
   public static final class ShakeModeConstants {
     // How far to oscillate in each direction (meters)
     public static final double SHAKE_AMPLITUDE_X = 0.1;  // Keeping small for stability
@@ -865,5 +978,202 @@ public final class Constants
     public static final double DEFAULT_FIRST_BALL_TIME = 0.0;
     public static final double DEFAULT_SECOND_BALL_TIME = 0.0;
     public static final double DEFAULT_THIRD_BALL_TIME = 0.0;
+
+    // The tuned waits in the order a routine's dynamicWait steps use them
+    public static final String[] SEQUENCE = {INITIAL_PLACEMENT_TIME, FIRST_BALL_TIME, SECOND_BALL_TIME, THIRD_BALL_TIME};
+
+    // Most time each condition-based wait can take (seconds); they end early once what they wait for happens
+    public static final double CORAL_RELEASE_BUDGET = 0.25;   // until the outtake current drops with the coral gone
+    public static final double ALGAE_HOLD_BUDGET = 1.0;       // until the algae arm is up at hold
+    public static final double L1_DUMP_BUDGET = 0.3;          // until the outtake current drops with the coral gone
+
+    // WaitBudgetReport: suggest a budget that covers this fraction of the waits that ended early, plus a margin
+    public static final double REPORT_PERCENTILE = 0.95;
+    public static final double REPORT_MARGIN = 0.05;          // seconds
+    public static final int REPORT_MIN_SAMPLES = 10;          // fewer than this and no suggestion is made
+  }
+
+  public static final class SimConstants {
+    // Mechanism physical properties used only by the simulation models. These are
+    // estimates from CAD; tune them if sim behavior drifts from the real robot.
+
+    // Elevator (two NEOs, encoder reads motor rotations, negative is up)
+    public static final double ELEVATOR_GEARING = 5.0;
+    public static final double ELEVATOR_DRUM_RADIUS = 0.04;      // meters
+    public static final double ELEVATOR_CARRIAGE_MASS = 8.0;     // kg
+    public static final double ELEVATOR_MAX_HEIGHT = 1.5;        // meters
+
+    // Coral shooter arm (absolute encoder on the arm shaft)
+    public static final double SHOOTER_ARM_GEARING = 25.0;
+    public static final double SHOOTER_ARM_LENGTH = 0.35;        // meters
+    public static final double SHOOTER_ARM_MASS = 3.0;           // kg
+
+    // Algae arm (absolute encoder on the arm shaft)
+    public static final double ALGAE_ARM_GEARING = 25.0;
+    public static final double ALGAE_ARM_LENGTH = 0.30;          // meters
+    public static final double ALGAE_ARM_MASS = 2.0;             // kg
+
+    // Funnel (absolute encoder on the pivot)
+    public static final double FUNNEL_GEARING = 45.0;
+    public static final double FUNNEL_LENGTH = 0.40;             // meters
+    public static final double FUNNEL_MASS = 3.0;                // kg
+
+    // Climber winch (encoder reads motor rotations)
+    public static final double CLIMBER_GEARING = 100.0;
+    public static final double CLIMBER_MOI = 0.01;               // kg*m^2 at the spool
+
+    // Coral shooter roller (stalls against the coral once it is grabbed)
+    public static final double SHOOTER_ROLLER_GEARING = 3.0;
+    public static final double SHOOTER_ROLLER_MOI = 0.0005;      // kg*m^2 at the roller
+
+    // Headless auton benchmark (AutonBenchmark)
+    public static final double BENCHMARK_MAX_TIME = 30.0;        // seconds before a run is called stuck
+    public static final double CORAL_LOAD_DELAY_MIN = 0.10;      // seconds at the station before coral drops in
+    public static final double CORAL_LOAD_DELAY_MAX = 0.60;
+  }
+
+  public static final class AutonConstants {
+    // Routine files, relative to the deploy directory (see AutonCompiler)
+    public static final String ROUTINE_DIRECTORY = "autos";
+
+    // Routine the chooser starts on
+    public static final String DEFAULT_ROUTINE = "Right";
+
+    // JIT warm-up while disabled (see AutonPrebuilder): passes over the hot paths, and
+    // simulated drive loops per pass
+    public static final int WARMUP_PASSES = 400;
+    public static final int WARMUP_STEPS_PER_PASS = 50;
+  }
+
+  public static final class ChoreoConstants {
+    // Trajectory files, relative to the deploy directory; where Choreo saves them
+    public static final String TRAJECTORY_DIRECTORY = "choreo";
+
+    // Feedback on top of the trajectory's own speeds, same gains as the PathPlanner controller
+    public static final double TRANSLATION_KP = 5.0;
+    public static final double ROTATION_KP = 5.15;
+
+    // Field Choreo's red alliance flip turns paths around the center of (meters)
+    public static final double FIELD_LENGTH = 17.548;
+    public static final double FIELD_WIDTH = 8.052;
+  }
+
+  public static final class PathfindingConstants {
+    // PathPlanner's navigation grid, relative to the deploy directory
+    public static final String NAVGRID_FILE = "pathplanner/navgrid.json";
+
+    // Open field planned on if the grid can't be read (meters)
+    public static final double FIELD_LENGTH = 17.548;
+    public static final double FIELD_WIDTH = 8.052;
+    public static final double DEFAULT_NODE_SIZE = 0.3;
+
+    // Start and goal closer than this get no path (meters)
+    public static final double MIN_PATH_LENGTH = 0.01;
+  }
+
+  public static final class ObstacleVisionConstants {
+    public static final String CAMERA_NAME = "objectcam";
+
+    // Looking forward over the bumper, tilted down at the floor
+    public static final Transform3d ROBOT_TO_CAMERA = new Transform3d(
+        new Translation3d(Units.inchesToMeters(10.0), 0.0, Units.inchesToMeters(20.0)),
+        new Rotation3d(0.0, Units.degreesToRadians(20.0), 0.0));
+
+    // Classes of the object detection model; anything else is taken for a robot
+    public static final int ALGAE_CLASS_ID = 0;
+    public static final int CORAL_CLASS_ID = 1;
+    public static final int ROBOT_CLASS_ID = 2;
+
+    // From the near edge touching the floor, at the bottom of a detection, to the middle (meters)
+    public static final double ROBOT_HALF_LENGTH = 0.45;
+    public static final double ALGAE_HALF_LENGTH = 0.2;
+
+    // Cells this close to something are blocked: its size plus half of ours (meters)
+    public static final double ROBOT_RADIUS = 1.05;
+    public static final double ALGAE_RADIUS = 0.65;
+
+    // How long something stays on the map after it was last seen (seconds)
+    public static final double ROBOT_HOLD_TIME = 0.75;
+    public static final double ALGAE_HOLD_TIME = 3.0;
+
+    // Detections farther than this are too rough to plan around (meters)
+    public static final double MAX_RANGE = 5.0;
+
+    // What the simulated camera sees: a defender by the reef and algae by the starting line
+    public static final Translation2d[] SIM_ROBOTS = {new Translation2d(6.2, 5.6)};
+    public static final double SIM_ROBOT_HEIGHT = 1.0;
+    public static final Translation2d[] SIM_ALGAE = {new Translation2d(7.0, 2.2), new Translation2d(7.0, 4.0)};
+  }
+
+  public static final class QueueConstants {
+    // Most targets that can be queued at once
+    public static final int CAPACITY = 16;
+
+    // Most edits from other threads (the operator UI) waiting to be applied
+    public static final int REQUEST_CAPACITY = 32;
+  }
+
+  public static final class CoordinatorConstants {
+    // Shooter arm angle above which the elevator can move (below it, only at intake height)
+    public static final float SHOOTER_ARM_CLEAR_ANGLE = 0.5f;
+
+    // Funnel counts as away from home once it is this far up from homePosition
+    public static final float FUNNEL_HOME_MARGIN = 0.02f;
+
+    // Time between collision checks when planning a move (seconds)
+    public static final double PLAN_STEP = 0.01;
+  }
+
+  public static final class DetectorConstants {
+    // How often game piece detectors sample motor current, matching StatusFrames.FAST (seconds)
+    public static final double SAMPLE_PERIOD = 0.01;
+
+    // Samples in the median filter; 3 drops single-sample spikes for one sample of delay
+    public static final int MEDIAN_SIZE = 3;
+
+    // Moving average time constant after the median filter (seconds)
+    public static final double FILTER_TIME_CONSTANT = 0.02;
+  }
+
+  public static final class IdentificationConstants {
+    // Applied output is a fraction of this, since every controller uses voltage compensation
+    public static final double NOMINAL_VOLTAGE = 12.0;
+
+    // Samples driven harder than this may be saturated or current limited, so aren't fitted (volts)
+    public static final double SATURATION_VOLTAGE = 11.0;
+
+    // Weight kept by past samples each update; 0.999 remembers roughly the last 1000 (20 seconds moving)
+    public static final double FORGETTING_FACTOR = 0.999;
+
+    // Starting covariance of the fit; large means the first samples move the gains freely
+    public static final double INITIAL_COVARIANCE = 100.0;
+
+    // Low-pass on the differentiated velocity used as acceleration (seconds)
+    public static final double ACCELERATION_TIME_CONSTANT = 0.04;
+
+    // SysId quasistatic ramp (volts per second), dynamic step (volts), and test timeout (seconds)
+    public static final double SYSID_RAMP_RATE = 0.5;
+    public static final double SYSID_STEP_VOLTAGE = 3.0;
+    public static final double SYSID_TIMEOUT = 6.0;
+
+    // Pause between SysId tests so the mechanism settles (seconds)
+    public static final double SYSID_PAUSE = 1.0;
+  }
+
+  public static final class MotorConfigConstants {
+    // Controllers are configured on this many threads at boot
+    public static final int CONFIG_THREADS = 4;
+
+    // Longest we wait at boot for every controller to finish configuring (seconds)
+    public static final double CONFIG_TIMEOUT = 5.0;
+
+    // Preferences prefix for the fingerprint of the config last persisted to each controller
+    public static final String FINGERPRINT_KEY_PREFIX = "MotorConfig/";
+
+    // MAXMotion goals are resent when the gravity feedforward moves this much (volts)
+    public static final double MAXMOTION_FF_TOLERANCE = 0.02;
+
+    // and at least this often, in case a frame was dropped (seconds)
+    public static final double MAXMOTION_RESEND_PERIOD = 0.5;
   }
-}
\ No newline at end of file
+}
@@ -12,6 +12,11 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DetectorConstants;
+import frc.robot.sim.SimBattery;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.RobotThreads;
+import frc.robot.util.WaitStats;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to each mode, as
@@ -28,6 +33,8 @@ public class Robot extends TimedRobot
 
   private Timer disabledTimer;
 
+  private RobotThreads.LoopMonitor loopMonitor;
+
   public Robot()
   {
     instance = this;
@@ -44,11 +51,17 @@ public class Robot extends TimedRobot
   @Override
   public void robotInit()
   {
+    // The main loop preempts everything but the drive loop; see RobotThreads
+    RobotThreads.apply(RobotThreads.Priority.MAIN);
+    loopMonitor = RobotThreads.monitor("Robot", getPeriod());
 
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
 
+    // Sample game piece detectors at the rate the controllers send current while sensing
+    addPeriodic(GamePieceDetector::sampleAll, DetectorConstants.SAMPLE_PERIOD);
+
     // Create a timer to disable motor brake a few seconds after disable.  This will let the robot stop
     // immediately when disabled, but then also let it be pushed more 
     disabledTimer = new Timer();
@@ -59,6 +72,7 @@ public class Robot extends TimedRobot
     }
 
     DriverStation.startDataLog(DataLogManager.getLog());
+    WaitStats.startLog(DataLogManager.getLog());
 
     WebServer.start(5800, Filesystem.getDeployDirectory().getPath());
   }
@@ -77,7 +91,11 @@ public class Robot extends TimedRobot
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    loopMonitor.start();
     CommandScheduler.getInstance().run();
+    loopMonitor.end();
+
+    RobotThreads.publishTelemetry();
   }
 
   /**
@@ -101,6 +119,7 @@ public class Robot extends TimedRobot
     }
 
     m_robotContainer.initializeRobotPoseForAuto();
+    m_robotContainer.prepareAutonomous();
   }
 
   /**
@@ -180,5 +199,7 @@ public class Robot extends TimedRobot
   @Override
   public void simulationPeriodic()
   {
+    // Mechanism models have added their current draw in simulationPeriodic; sag the battery for next loop
+    SimBattery.update();
   }
 }
@@ -25,10 +25,14 @@ import edu.wpi.first.wpilibj2.command.button.CommandJoystick;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants.AlgaeShooterConstants;
+import frc.robot.Constants.AutonConstants;
 import frc.robot.Constants.DriveToPoseConstants;
 import frc.robot.Constants.SpeedConstants;
 import frc.robot.Constants.ZoneConstants;
+import frc.robot.commands.AutonCompiler;
+import frc.robot.commands.AutonPrebuilder;
 import frc.robot.commands.CommandFactory;
+import frc.robot.commands.MotionCoordinator;
 import frc.robot.subsystems.ButtonBox;
 import frc.robot.subsystems.Climber;
 import frc.robot.subsystems.Elevator;
@@ -40,6 +44,8 @@ import frc.robot.subsystems.Coral.ShooterArm;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
 import frc.robot.util.DynamicWait;
 import frc.robot.util.Elastic;
+import frc.robot.util.LEDZone;
+import frc.robot.util.SparkConfigurator;
 import swervelib.SwerveInputStream;
 import frc.robot.subsystems.Funnel;
 import frc.robot.subsystems.LED;
@@ -137,16 +143,18 @@ public class RobotContainer {
   private final AlgaeShooter algaeShooter = new AlgaeShooter();
   private final Shooter shooter = new Shooter();
   private final ShooterArm shooterArm = new ShooterArm();
-  private final Climber climber = new Climber();
+  // Winch pawl, driven by the climber during profiled climbs and by the operator's A/B buttons
+  private final PaulServo servo = new PaulServo();
+  private final Climber climber = new Climber(servo);
   private final Elevator elevator = new Elevator(this);
 
   // Initialize funnel subsystem
   private final Funnel funnel = new Funnel();
-  
-  private final LED led = new LED();
 
+  // Moves the elevator, arms and funnel together without them colliding
+  private final MotionCoordinator motionCoordinator = new MotionCoordinator(elevator, shooterArm, algaeArm, funnel);
   
-  private final PaulServo servo = new PaulServo();
+  private final LED led = new LED();
 
   private final ButtonBox buttonBox = new ButtonBox(drivebase);
   
@@ -246,14 +254,14 @@ public class RobotContainer {
   public Command driveFieldOrientedAnglularVelocity = drivebase.driveFieldOriented(driveAngularVelocity);
 
 
-  public Command leftAuto = CommandFactory.LeftAutonCommand(shooter, shooterArm, elevator, buttonBox, drivebase, this, funnel, algaeArm, algaeShooter);
-
-  public Command leftCenterAuto = CommandFactory.LeftCenterAutonCommand(shooter, shooterArm, elevator, buttonBox, drivebase, this, funnel);
-  public Command rightCenterAuto = CommandFactory.RightCenterAutonCommand(shooter, shooterArm, elevator, buttonBox, drivebase, this, funnel);
+  // Autos are read from deploy/autos; each one's commands are only built once it is selected
+  private final AutonCompiler autonCompiler = new AutonCompiler(shooter, shooterArm, elevator, buttonBox, drivebase, this, funnel, algaeArm, algaeShooter);
+  private final AutonPrebuilder autonPrebuilder = new AutonPrebuilder(autonCompiler, drivebase);
 
-  public Command rightAuto = CommandFactory.RightAutonCommand(shooter, shooterArm, elevator, buttonBox, drivebase, this, funnel, algaeArm, algaeShooter);
+  SendableChooser<String> chooser = new SendableChooser<>();
 
-  SendableChooser<Command> chooser = new SendableChooser<>();
+  // Auto picked without the dashboard (headless sim runs); overrides the chooser when set
+  private String selectedAutoOverride = null;
 
   // Add tracking variables for autonomous pose initialization
   private String lastSelectedAuto = "";
@@ -264,15 +272,24 @@ public class RobotContainer {
    * The container for the robot. Contains subsystems, OI devices, and commands.
    */
   public RobotContainer() {
+    // Subsystems configure their controllers in parallel; wait for them all before binding anything
+    SparkConfigurator.awaitAll();
+
     // Set up the Funnel-AlgaeArm safety connection
     funnel.setAlgaeArmReference(algaeArm);
     
     // Set RobotContainer reference for the shooter
     shooter.setRobotContainer(this);
+
+    // In simulation, coral drops into the shooter while the robot is at a coral station
+    shooter.setSimCoralAvailable(coralStationLeftTrigger().or(coralStationRightTrigger()));
     
     // Configure the trigger bindings
     configureBindings();
 
+    // The D* Lite planner thread waits for the robot to be built before it runs
+    drivebase.startPathfinding();
+
     //UsbCamera camera = CameraServer.startAutomaticCapture();'
     
     
@@ -426,11 +443,10 @@ public class RobotContainer {
 
     //driverXbox.rightBumper().onTrue(CommandFactory.scoreBasedOnQueueCommandDriveAutoNOSHOOT(shooter, shooterArm, elevator, buttonBox, drivebase, this));
 
-    driverXbox.rightBumper().whileTrue(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox));
+    // Drives and raises to the front target, then on to the next one each time a coral is released
+    driverXbox.rightBumper().whileTrue(CommandFactory.pipelinedScoreCommand(shooter, shooterArm, elevator, buttonBox, drivebase, motionCoordinator));
     driverXbox.leftBumper().onTrue(CommandFactory.setIntakeCommand(shooter, shooterArm, elevator, funnel, algaeArm, algaeShooter, this, led));
 
-    driverXbox.rightBumper().whileTrue(drivebase.driveToPoseProfiled(buttonBox));
-
 
 
     driverXbox.x().onTrue(shooter.shooterIntakeCommand());
@@ -446,6 +462,10 @@ public class RobotContainer {
     driverXbox.y().whileTrue(led.runPattern("MANUAL_SHOOTING_PATTERN").repeatedly());
     driverXbox.y().onFalse(shooter.shooterZeroSpeedCommand().alongWith(led.setAlliancePattern()));
 
+    // Coral loaded shows on the top zone so it stays visible alongside alliance, distance and shooting patterns
+    shooter.coralLoadedTrigger().onTrue(led.runZonePattern(LEDZone.TOP, "CORAL_LOADED_PATTERN"));
+    shooter.coralLoadedTrigger().onFalse(led.clearZonePattern(LEDZone.TOP));
+
 
 
     driverXbox.a().whileTrue(CommandFactory.algaeRemoveBasedOnQueueCommandDriveCommand(shooter, shooterArm, elevator, buttonBox, drivebase, this));
@@ -453,21 +473,21 @@ public class RobotContainer {
     driverXbox.a().onFalse(drivebase.stopDriveToPoseCommand());
 
 
-    driverXbox.b().onTrue(CommandFactory.setElevatorZero(shooter, shooterArm, elevator));
+    driverXbox.b().onTrue(CommandFactory.setElevatorZero(shooter, shooterArm, elevator, motionCoordinator));
 
     driverXbox.pov(0).onTrue(CommandFactory.ballDown(shooter, shooterArm, elevator));
     driverXbox.pov(180).onTrue(CommandFactory.scoreL1CommandNOSHOOT(shooter, shooterArm, elevator, algaeArm, algaeShooter, funnel));
     
-    driverXbox.rightStick().onTrue(CommandFactory.pullOffHighAboveBall(shooter, shooterArm, elevator));
-    driverXbox.leftStick().onTrue(CommandFactory.pullOffLowBall(shooter, shooterArm, elevator));
+    driverXbox.rightStick().onTrue(CommandFactory.pullOffHighAboveBall(shooter, shooterArm, elevator, motionCoordinator));
+    driverXbox.leftStick().onTrue(CommandFactory.pullOffLowBall(shooter, shooterArm, elevator, motionCoordinator));
 
     driverXbox.pov(90).onTrue(CommandFactory.setAlgaeIntakeCommand(algaeArm, algaeShooter));
     driverXbox.pov(270).onTrue(CommandFactory.algaeStowCommand(algaeArm, algaeShooter));
 
 
-    opXbox.pov(180).onTrue(CommandFactory.setClimbPositionNoArm(algaeArm, funnel, climber));
+    opXbox.pov(180).onTrue(CommandFactory.setClimbPositionNoArm(algaeArm, funnel, climber, motionCoordinator));
 
-    opXbox.start().onTrue(CommandFactory.setClimbPositionArmOnly(elevator, shooterArm));
+    opXbox.start().onTrue(CommandFactory.setClimbPositionArmOnly(elevator, shooterArm, motionCoordinator));
 
     opXbox.pov(90).onTrue(algaeArm.algaeArmHoldCommand());
 
@@ -508,10 +528,13 @@ public class RobotContainer {
     }));
 
 
-    chooser.addOption("Left", leftAuto);
-    chooser.addOption("Left Center", leftCenterAuto);
-    chooser.addOption("Right Center", rightCenterAuto);
-    chooser.setDefaultOption("Right", rightAuto);
+    for (String name : autonCompiler.getRoutineNames()) {
+      if (name.equals(AutonConstants.DEFAULT_ROUTINE)) {
+        chooser.setDefaultOption(autonCompiler.getLabel(name), name);
+      } else {
+        chooser.addOption(autonCompiler.getLabel(name), name);
+      }
+    }
      
     SmartDashboard.putData(chooser);
   }
@@ -732,8 +755,11 @@ public class RobotContainer {
 
   /**
    * Check if robot is inside the reef zone (circle)
+   *
+   * The zone checks only depend on the pose and alliance, so they are static and
+   * package-private for the zone benchmarks.
    */
-  private boolean isInReefZone(Pose2d robotPose) {
+  static boolean isInReefZone(Pose2d robotPose) {
     // Get alliance-relative reef center
     Pose2d reefCenter = TargetClass.toPose2d(new Pose2d(
         ZoneConstants.reefCenterX,
@@ -752,7 +778,7 @@ public class RobotContainer {
   /**
    * Check if robot is in left coral station
    */
-  private boolean isInCoralStationLeft(Pose2d robotPose) {
+  static boolean isInCoralStationLeft(Pose2d robotPose) {
     // Get alliance-relative coordinates for coral station left
     Pose2d minCorner = TargetClass.toPose2d(new Pose2d(
         ZoneConstants.LCoralStationMinX,
@@ -774,7 +800,7 @@ public class RobotContainer {
   /**
    * Check if robot is in right coral station
    */
-  private boolean isInCoralStationRight(Pose2d robotPose) {
+  static boolean isInCoralStationRight(Pose2d robotPose) {
     // Get alliance-relative coordinates for coral station right
     Pose2d minCorner = TargetClass.toPose2d(new Pose2d(
         ZoneConstants.RCoralStationMinX,
@@ -793,7 +819,7 @@ public class RobotContainer {
         Math.max(minCorner.getY(), maxCorner.getY()));
   }
   
-  private boolean isInBargeZone(Pose2d robotPose) {
+  static boolean isInBargeZone(Pose2d robotPose) {
     // Get alliance-relative coordinates for barge zone
     Pose2d minCorner = TargetClass.toPose2d(new Pose2d(
         ZoneConstants.BargeMinX,
@@ -815,7 +841,7 @@ public class RobotContainer {
   /**
    * Helper method to check if a point is inside a rectangle
    */
-  private boolean isInRectangularZone(Pose2d pose, double minX, double maxX, double minY, double maxY) {
+  static boolean isInRectangularZone(Pose2d pose, double minX, double maxX, double minY, double maxY) {
     return (pose.getX() >= minX && pose.getX() <= maxX &&
         pose.getY() >= minY && pose.getY() <= maxY);
   }
@@ -888,31 +914,17 @@ public class RobotContainer {
       lastAlliance = currentAlliance;
     }
     
-    Command selectedCommand = chooser.getSelected();
-    if (selectedCommand == null) {
+    String currentSelection = getSelectedAuto();
+    if (currentSelection == null || !autonCompiler.hasRoutine(currentSelection)) {
       SmartDashboard.putString("Auto Pose Status", "No autonomous selected");
       return;
     }
-    
-    String currentSelection;
-    
-    // Determine which auto is selected
-    if (selectedCommand == leftAuto) {
-      currentSelection = "Left";
-    } else if (selectedCommand == leftCenterAuto) {
-      currentSelection = "LeftCenter";
-    } else if (selectedCommand == rightCenterAuto) {
-      currentSelection = "RightCenter";
-    } else if (selectedCommand == rightAuto) {
-      currentSelection = "Right";
-    } else {
-      currentSelection = "Unknown";
-    }
+    String startPosition = autonCompiler.getStartPosition(currentSelection);
     
     // Only set the pose if the selection changed, alliance changed, or pose hasn't been initialized yet
     if (!currentSelection.equals(lastSelectedAuto) || !poseInitialized) {
       // Rest of the method remains the same
-      if (currentSelection.equals("Left")) {
+      if (startPosition.equals("Left")) {
         // Set pose for Left autonomous using constants
         Pose2d leftStartPose = new Pose2d(
             Constants.TargetClassConstants.LeftStartX,
@@ -924,30 +936,18 @@ public class RobotContainer {
         drivebase.resetOdometry(allianceRelativeLeftPose);
         
         SmartDashboard.putString("Auto Pose Initialized", "Left Start Position");
-      } else if (currentSelection.equals("LeftCenter")) {
-        // Set pose for Left Center autonomous
-        Pose2d leftCenterStartPose = new Pose2d(
-            Constants.TargetClassConstants.CenterStartX,
-            Constants.TargetClassConstants.CenterStartY,
-            new Rotation2d(Constants.TargetClassConstants.CenterStartZ));
-        
-        // Convert to alliance-relative coordinates
-        Pose2d allianceRelativeLeftCenterPose = TargetClass.toPose2d(leftCenterStartPose);
-        drivebase.resetOdometry(allianceRelativeLeftCenterPose);
-        
-        SmartDashboard.putString("Auto Pose Initialized", "Left Center Start Position");
-      } else if (currentSelection.equals("RightCenter")) {
-        // Set pose for Right Center autonomous
-        Pose2d rightCenterStartPose = new Pose2d(
+      } else if (startPosition.equals("Center")) {
+        // Set pose for the center autonomous routines
+        Pose2d centerStartPose = new Pose2d(
             Constants.TargetClassConstants.CenterStartX,
             Constants.TargetClassConstants.CenterStartY,
             new Rotation2d(Constants.TargetClassConstants.CenterStartZ));
         
         // Convert to alliance-relative coordinates
-        Pose2d allianceRelativeRightCenterPose = TargetClass.toPose2d(rightCenterStartPose);
-        drivebase.resetOdometry(allianceRelativeRightCenterPose);
+        Pose2d allianceRelativeCenterPose = TargetClass.toPose2d(centerStartPose);
+        drivebase.resetOdometry(allianceRelativeCenterPose);
         
-        SmartDashboard.putString("Auto Pose Initialized", "Right Center Start Position");
+        SmartDashboard.putString("Auto Pose Initialized", "Center Start Position");
       } else {
         // Default to Right autonomous pose
         Pose2d rightStartPose = new Pose2d(
@@ -1023,8 +1023,48 @@ public class RobotContainer {
   public Command getAutonomousCommand() {
     // Ensure pose is initialized before returning autonomous command
     initializeRobotPoseForAuto();
-    // Return the selected autonomous command
-    return chooser.getSelected();
+    // Build (or reuse) the selected autonomous command
+    String selected = getSelectedAuto();
+    if (selected == null || !autonCompiler.hasRoutine(selected)) {
+      DriverStation.reportError("No autonomous routine selected", false);
+      return Commands.none();
+    }
+    return autonCompiler.getRoutine(selected);
+  }
+
+  /**
+   * Builds the selected autonomous and warms up the code it runs; call every disabled loop.
+   */
+  public void prepareAutonomous() {
+    autonPrebuilder.disabledPeriodic(getSelectedAuto());
+  }
+
+  /**
+   * Selects the autonomous by name instead of through the dashboard chooser.
+   *
+   * @param name a routine file in deploy/autos without .json, e.g. Left, LeftCenter, RightCenter or Right
+   */
+  public void selectAutonomous(String name) {
+    if (!autonCompiler.hasRoutine(name)) {
+      throw new IllegalArgumentException("Unknown autonomous: " + name);
+    }
+    selectedAutoOverride = name;
+  }
+
+  public ButtonBox getButtonBox() {
+    return buttonBox;
+  }
+
+  public Shooter getShooter() {
+    return shooter;
+  }
+
+  public MotionCoordinator getMotionCoordinator() {
+    return motionCoordinator;
+  }
+
+  private String getSelectedAuto() {
+    return selectedAutoOverride != null ? selectedAutoOverride : chooser.getSelected();
   }
 
   public void setMotorBrake(boolean brake) {
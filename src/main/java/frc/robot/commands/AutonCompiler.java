@@ -0,0 +1,368 @@
+package frc.robot.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import choreo.Choreo;
+import choreo.trajectory.SwerveSample;
+import choreo.trajectory.Trajectory;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import frc.robot.Constants.AutonConstants;
+import frc.robot.Constants.ChoreoConstants;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.ButtonBox;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Funnel;
+import frc.robot.subsystems.TargetClass;
+import frc.robot.subsystems.Algae.AlgaeArm;
+import frc.robot.subsystems.Algae.AlgaeShooter;
+import frc.robot.subsystems.Coral.Shooter;
+import frc.robot.subsystems.Coral.ShooterArm;
+import frc.robot.subsystems.swervedrive.SwerveSubsystem;
+import frc.robot.util.DynamicWait;
+import frc.robot.util.PresampledTrajectory;
+
+/**
+ * Builds autonomous routines from files in the deploy directory.
+ *
+ * Each routine is a JSON file in deploy/autos, named after the routine (LeftCenter.json):
+ *   {
+ *     "name": "Left Center",
+ *     "start": "Center",
+ *     "steps": ["target S431", "dynamicWait", "scoreFirstBack", "clear", ...]
+ *   }
+ * name is what the dashboard chooser shows and start picks the starting pose (Left,
+ * Center or Right). Each step is an action, followed by its argument if it takes one:
+ *   target NAME     queue a TargetClass target on the button box
+ *   clear           clear the button box queue
+ *   scoreFirst      drive to and score the queued coral, first cycle from the starting line
+ *   scoreFirstBack  same, backing away first (center starts)
+ *   score           drive to and score the queued coral
+ *   source          drive to the queued coral station and intake
+ *   removeAlgae     drive to and pull off the queued algae
+ *   armLow          shooter arm to its low position
+ *   elevatorPickup  elevator to pickup height
+ *   dynamicWait     the next dashboard-tuned wait from DynamicWait, in WaitTimeConstants.SEQUENCE order
+ *   wait SECONDS    fixed wait
+ *   choreo NAME     follow deploy/choreo/NAME.traj (see {@link ChoreoFollower})
+ *
+ * Choreo event markers can be named raise (elevator and shooter arm to the queued
+ * target), armLow or elevatorPickup. Trajectories are loaded when the robot boots,
+ * before the routines that use them are checked.
+ *
+ * Files are read and checked when the robot boots, which is cheap: an unknown action
+ * or a target name TargetClass doesn't know is reported to the driver station and
+ * that routine is left out. The command graph is only built the first time a routine
+ * is asked for, and only for that routine. Changing an auto is a deploy, not a rebuild.
+ */
+public class AutonCompiler {
+
+    enum Action {
+        TARGET("target", true),
+        CLEAR("clear", false),
+        SCORE_FIRST("scoreFirst", false),
+        SCORE_FIRST_BACK("scoreFirstBack", false),
+        SCORE("score", false),
+        SOURCE("source", false),
+        REMOVE_ALGAE("removeAlgae", false),
+        ARM_LOW("armLow", false),
+        ELEVATOR_PICKUP("elevatorPickup", false),
+        DYNAMIC_WAIT("dynamicWait", false),
+        WAIT("wait", true),
+        CHOREO("choreo", true);
+
+        private static final Map<String, Action> byKeyword = new HashMap<>();
+        static {
+            for (Action action : values()) {
+                byKeyword.put(action.keyword, action);
+            }
+        }
+
+        final String keyword;
+        final boolean takesArgument;
+
+        Action(String keyword, boolean takesArgument) {
+            this.keyword = keyword;
+            this.takesArgument = takesArgument;
+        }
+    }
+
+    /** One checked step; the target is resolved once here instead of every time it is queued */
+    static final class Step {
+        final Action action;
+        final TargetClass target;
+        final double seconds;
+        final PresampledTrajectory trajectory;
+
+        Step(Action action, TargetClass target, double seconds, PresampledTrajectory trajectory) {
+            this.action = action;
+            this.target = target;
+            this.seconds = seconds;
+            this.trajectory = trajectory;
+        }
+    }
+
+    static final class Routine {
+        final String label;
+        final String start;
+        final List<Step> steps;
+
+        Routine(String label, String start, List<Step> steps) {
+            this.label = label;
+            this.start = start;
+            this.steps = steps;
+        }
+    }
+
+    private static final Set<String> START_POSITIONS = Set.of("Left", "Center", "Right");
+
+    private final Shooter shooter;
+    private final ShooterArm shooterArm;
+    private final Elevator elevator;
+    private final ButtonBox buttonBox;
+    private final SwerveSubsystem drivebase;
+    private final RobotContainer robotContainer;
+    private final Funnel funnel;
+    private final AlgaeArm algaeArm;
+    private final AlgaeShooter algaeShooter;
+
+    // Routine name (file name without .json) to its steps, in file name order
+    private final Map<String, Routine> routines = new LinkedHashMap<>();
+    private final Map<String, Command> compiled = new HashMap<>();
+    private final Map<String, PresampledTrajectory> trajectories = new HashMap<>();
+    // Choreo event marker names to what they do
+    private final Map<String, Supplier<Command>> events = new HashMap<>();
+
+    public AutonCompiler(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox,
+                         SwerveSubsystem drivebase, RobotContainer robotContainer, Funnel funnel,
+                         AlgaeArm algaeArm, AlgaeShooter algaeShooter) {
+        this.shooter = shooter;
+        this.shooterArm = shooterArm;
+        this.elevator = elevator;
+        this.buttonBox = buttonBox;
+        this.drivebase = drivebase;
+        this.robotContainer = robotContainer;
+        this.funnel = funnel;
+        this.algaeArm = algaeArm;
+        this.algaeShooter = algaeShooter;
+
+        events.put("raise", () -> robotContainer.getMotionCoordinator().moveCommand("Choreo Raise",
+            () -> elevator.getQueueHeight(buttonBox),
+            () -> shooterArm.getQueueAngle(buttonBox),
+            MotionCoordinator.UNCHANGED,
+            MotionCoordinator.UNCHANGED));
+        events.put(Action.ARM_LOW.keyword, () -> shooterArm.shooterArmScoreLOWCommand());
+        events.put(Action.ELEVATOR_PICKUP.keyword, () -> elevator.setElevatorPickupCommand());
+
+        loadTrajectories(new File(Filesystem.getDeployDirectory(), ChoreoConstants.TRAJECTORY_DIRECTORY));
+        loadRoutines(new File(Filesystem.getDeployDirectory(), AutonConstants.ROUTINE_DIRECTORY));
+    }
+
+    /**
+     * Reads every Choreo trajectory into sample arrays, reporting the ones that can't be used.
+     * Having none is fine; routines just can't use choreo steps.
+     */
+    private void loadTrajectories(File directory) {
+        File[] files = directory.listFiles((dir, fileName) -> fileName.endsWith(".traj"));
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - ".traj".length());
+            // Choreo reports why a file couldn't be read itself
+            Optional<Trajectory<SwerveSample>> trajectory = Choreo.loadTrajectory(name);
+            if (trajectory.isEmpty()) {
+                continue;
+            }
+            try {
+                trajectories.put(name, PresampledTrajectory.fromChoreo(name, trajectory.get()));
+            } catch (IllegalArgumentException e) {
+                DriverStation.reportError("Choreo " + file.getName() + ": " + e.getMessage(), false);
+            }
+        }
+    }
+
+    /**
+     * Reads and checks every routine file, reporting the ones that can't be used
+     */
+    private void loadRoutines(File directory) {
+        File[] files = directory.listFiles((dir, fileName) -> fileName.endsWith(".json"));
+        if (files == null) {
+            DriverStation.reportError("No autonomous routines in " + directory, false);
+            return;
+        }
+        Arrays.sort(files);
+
+        ObjectMapper mapper = new ObjectMapper();
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - ".json".length());
+            try {
+                routines.put(name, parse(mapper.readTree(file), name, trajectories));
+            } catch (IOException | IllegalArgumentException e) {
+                DriverStation.reportError("Autonomous " + file.getName() + ": " + e.getMessage(), false);
+            }
+        }
+    }
+
+    /**
+     * Checks one routine file
+     *
+     * @param name         routine name, the label if the file doesn't give one
+     * @param trajectories loaded Choreo trajectories by name, for choreo steps
+     * @throws IllegalArgumentException saying what is wrong with the file
+     */
+    static Routine parse(JsonNode root, String name, Map<String, PresampledTrajectory> trajectories) {
+        String label = root.path("name").asText(name);
+        String start = root.path("start").asText();
+        if (!START_POSITIONS.contains(start)) {
+            throw new IllegalArgumentException("start must be one of " + START_POSITIONS + ", not \"" + start + "\"");
+        }
+
+        JsonNode stepNodes = root.path("steps");
+        if (!stepNodes.isArray() || stepNodes.isEmpty()) {
+            throw new IllegalArgumentException("no steps");
+        }
+
+        List<Step> steps = new ArrayList<>(stepNodes.size());
+        for (int i = 0; i < stepNodes.size(); i++) {
+            steps.add(parseStep(stepNodes.get(i).asText(), i + 1, trajectories));
+        }
+        return new Routine(label, start, steps);
+    }
+
+    private static Step parseStep(String text, int number, Map<String, PresampledTrajectory> trajectories) {
+        String[] words = text.trim().split("\\s+");
+        Action action = Action.byKeyword.get(words[0]);
+        if (action == null) {
+            throw new IllegalArgumentException("step " + number + ": unknown action \"" + words[0] + "\"");
+        }
+        if (words.length != (action.takesArgument ? 2 : 1)) {
+            throw new IllegalArgumentException("step " + number + ": \"" + action.keyword + "\" takes "
+                + (action.takesArgument ? "one argument" : "no arguments"));
+        }
+
+        switch (action) {
+            case TARGET:
+                TargetClass target = TargetClass.GetTargetByName(words[1]);
+                if (target == null) {
+                    throw new IllegalArgumentException("step " + number + ": unknown target \"" + words[1] + "\"");
+                }
+                return new Step(action, target, 0, null);
+            case WAIT:
+                try {
+                    return new Step(action, null, Double.parseDouble(words[1]), null);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("step " + number + ": \"" + words[1] + "\" is not a number of seconds");
+                }
+            case CHOREO:
+                PresampledTrajectory trajectory = trajectories.get(words[1]);
+                if (trajectory == null) {
+                    throw new IllegalArgumentException("step " + number + ": no Choreo trajectory \"" + words[1] + "\"");
+                }
+                return new Step(action, null, 0, trajectory);
+            default:
+                return new Step(action, null, 0, null);
+        }
+    }
+
+    /** Routine names in file name order; the ones that failed to load are left out */
+    public Set<String> getRoutineNames() {
+        return routines.keySet();
+    }
+
+    public boolean hasRoutine(String name) {
+        return routines.containsKey(name);
+    }
+
+    /** Name the dashboard shows for a routine */
+    public String getLabel(String name) {
+        return routines.get(name).label;
+    }
+
+    /** Starting position of a routine: Left, Center or Right */
+    public String getStartPosition(String name) {
+        return routines.get(name).start;
+    }
+
+    /**
+     * Returns a routine's command, building it the first time it is asked for
+     *
+     * @throws IllegalArgumentException if there is no such routine
+     */
+    public Command getRoutine(String name) {
+        Command command = compiled.get(name);
+        if (command == null) {
+            Routine routine = routines.get(name);
+            if (routine == null) {
+                throw new IllegalArgumentException("Unknown autonomous: " + name);
+            }
+            command = compile(routine);
+            compiled.put(name, command);
+        }
+        return command;
+    }
+
+    private Command compile(Routine routine) {
+        Command[] commands = new Command[routine.steps.size()];
+        // Which tuned wait each dynamicWait uses is fixed here, so nothing has to be reset between runs
+        int waitIndex = 0;
+        for (int i = 0; i < commands.length; i++) {
+            Step step = routine.steps.get(i);
+            commands[i] = step.action == Action.DYNAMIC_WAIT
+                ? DynamicWait.sequenceWaitCommand(waitIndex++)
+                : compileStep(step);
+        }
+
+        Command command = Commands.sequence(commands);
+        command.setName(routine.label);
+        command.addRequirements(shooter, shooterArm, elevator, funnel);
+        return command;
+    }
+
+    private Command compileStep(Step step) {
+        switch (step.action) {
+            case TARGET:
+                return new InstantCommand(() -> buttonBox.addTarget(step.target));
+            case CLEAR:
+                return new InstantCommand(() -> buttonBox.clearTargets());
+            case SCORE_FIRST:
+                return CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRST(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer);
+            case SCORE_FIRST_BACK:
+                return CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRSTBACKAUTO(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer);
+            case SCORE:
+                return CommandFactory.scoreBasedOnQueueCommandDriveAuto(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer);
+            case SOURCE:
+                return CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter);
+            case REMOVE_ALGAE:
+                return CommandFactory.algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer);
+            case ARM_LOW:
+                return shooterArm.shooterArmScoreLOWCommand();
+            case ELEVATOR_PICKUP:
+                return elevator.setElevatorPickupCommand();
+            case WAIT:
+                return Commands.waitSeconds(step.seconds);
+            case CHOREO:
+                return new ChoreoFollower(drivebase, step.trajectory, events);
+            default:
+                throw new IllegalStateException("No command for " + step.action);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package frc.robot.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.AutonConstants;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.TargetClass;
+import frc.robot.subsystems.Coral.ShooterArm;
+import frc.robot.subsystems.swervedrive.PoseDrive;
+import frc.robot.subsystems.swervedrive.SwerveSubsystem;
+import frc.robot.subsystems.swervedrive.Vision;
+import frc.robot.util.GeomUtil;
+import frc.robot.util.RobotThreads;
+
+/**
+ * Gets the autonomous ready while the robot is disabled.
+ *
+ * The selected routine's command graph is built as soon as the chooser changes,
+ * instead of in autonomousInit, so enabling only has to schedule it.
+ *
+ * The first time through, ProfileToPose, the vision std dev heuristic and the target
+ * lookups start out interpreted and only get compiled once they have run a few
+ * thousand times, which would otherwise be during the first auton cycle. A low
+ * priority thread runs them on made-up inputs until they are compiled. ProfileToPose
+ * drives a made-up robot instead of the drivebase, and the rest only reads, so it is
+ * safe next to the robot loop. It stops when the robot is enabled and picks up where
+ * it left off the next time it is disabled.
+ */
+public class AutonPrebuilder {
+
+    private static final String[] TARGET_NAMES = buildTargetNames();
+
+    private final AutonCompiler compiler;
+    private final Vision vision;
+    // A copy of the drive's kinematics; the drive's own isn't safe to use from another thread
+    private final SwerveDriveKinematics kinematics;
+    private final double maxSpeed;
+
+    private String builtRoutine = null;
+    private Thread warmupThread = null;
+    private volatile int warmupPassesDone = 0;
+    // Results of the warm-up, kept so the JIT can't drop the work that made them
+    private volatile double warmupSink = 0;
+
+    public AutonPrebuilder(AutonCompiler compiler, SwerveSubsystem drivebase) {
+        this.compiler = compiler;
+        this.vision = drivebase.getVision();
+        this.kinematics = new SwerveDriveKinematics(drivebase.getSwerveDriveConfiguration().moduleLocationsMeters);
+        this.maxSpeed = drivebase.getSwerveDrive().getMaximumChassisVelocity();
+    }
+
+    /**
+     * Call every disabled loop with the selected routine
+     *
+     * @param selected routine name, or null if none is selected
+     */
+    public void disabledPeriodic(String selected) {
+        if (selected != null && !selected.equals(builtRoutine) && compiler.hasRoutine(selected)) {
+            double start = Timer.getFPGATimestamp();
+            compiler.getRoutine(selected);
+            builtRoutine = selected;
+            SmartDashboard.putString("Auto Prebuild", String.format("%s built in %.0f ms",
+                compiler.getLabel(selected), (Timer.getFPGATimestamp() - start) * 1000));
+        }
+
+        if (warmupPassesDone < AutonConstants.WARMUP_PASSES && (warmupThread == null || !warmupThread.isAlive())) {
+            warmupThread = RobotThreads.newThread("AutonWarmup", RobotThreads.Priority.LOW, this::runWarmup);
+            warmupThread.start();
+        }
+    }
+
+    private void runWarmup() {
+        double start = Timer.getFPGATimestamp();
+        WarmupDrive drive = new WarmupDrive(kinematics, maxSpeed);
+
+        while (warmupPassesDone < AutonConstants.WARMUP_PASSES && DriverStation.isDisabled()) {
+            int pass = warmupPassesDone;
+            double sum = warmupTargets();
+
+            // A different start and goal each pass so no branch is left cold
+            Pose2d robotPose = new Pose2d(2 + (pass % 7), 1 + (pass % 5), Rotation2d.fromDegrees(pass * 37 % 360));
+            Pose2d targetPose = new Pose2d(4 + (pass % 3), 4 - (pass % 4) * 0.5, Rotation2d.fromDegrees(pass * 61 % 360));
+            sum += vision.warmup(robotPose);
+            sum += warmupDrive(drive, robotPose, targetPose);
+
+            warmupSink += sum;
+            warmupPassesDone = pass + 1;
+        }
+
+        if (warmupPassesDone >= AutonConstants.WARMUP_PASSES) {
+            SmartDashboard.putString("Auto Warmup", String.format("Done in %.1f s", Timer.getFPGATimestamp() - start));
+        } else {
+            SmartDashboard.putString("Auto Warmup", "Paused at pass " + warmupPassesDone);
+        }
+    }
+
+    /**
+     * What queueing and planning a target does: lookup by name, codes, alliance pose,
+     * elevator height and arm angle
+     */
+    private static double warmupTargets() {
+        double sum = 0;
+        for (String name : TARGET_NAMES) {
+            TargetClass target = TargetClass.GetTargetByName(name);
+            if (target == null) {
+                continue;
+            }
+            String decoded = TargetClass.decode(target.getCode());
+            sum += decoded == null ? 0 : decoded.length();
+            sum += TargetClass.toPose2d(new Pose2d(target.getX(), target.getY(), new Rotation2d(target.getZ()))).getX();
+            double height = Elevator.getTargetHeight(target);
+            double angle = ShooterArm.getTargetAngle(target);
+            sum += Double.isNaN(height) ? 0 : height;
+            sum += Double.isNaN(angle) ? 0 : angle;
+        }
+        return sum;
+    }
+
+    /**
+     * Runs ProfileToPose, as it runs every loop, to drive the made-up robot from one
+     * pose to another
+     */
+    private static double warmupDrive(WarmupDrive drive, Pose2d robotPose, Pose2d targetPose) {
+        drive.reset(robotPose);
+        ProfileToPose command = new ProfileToPose(drive, () -> targetPose);
+        command.initialize();
+        for (int step = 0; step < AutonConstants.WARMUP_STEPS_PER_PASS && !command.isFinished(); step++) {
+            command.execute();
+        }
+        command.end(false);
+        return drive.getPose().getX() + drive.moduleSpeedSum;
+    }
+
+    /**
+     * A made-up robot that goes exactly where it is told, 20 ms per command, and works
+     * out module states from a copy of the drive's kinematics like the drive loop does
+     */
+    private static final class WarmupDrive implements PoseDrive {
+
+        private final SwerveDriveKinematics kinematics;
+        private final double maxSpeed;
+        private Pose2d pose = Pose2d.kZero;
+        private ChassisSpeeds velocity = new ChassisSpeeds();
+        double moduleSpeedSum = 0;
+
+        WarmupDrive(SwerveDriveKinematics kinematics, double maxSpeed) {
+            this.kinematics = kinematics;
+            this.maxSpeed = maxSpeed;
+        }
+
+        void reset(Pose2d pose) {
+            this.pose = pose;
+            velocity = new ChassisSpeeds();
+            moduleSpeedSum = 0;
+        }
+
+        @Override
+        public Pose2d getPose() {
+            return pose;
+        }
+
+        @Override
+        public ChassisSpeeds getRobotVelocity() {
+            return velocity;
+        }
+
+        @Override
+        public boolean getCancel() {
+            return false;
+        }
+
+        @Override
+        public void driveTracked(ChassisSpeeds fieldVelocity, Pose2d from) {
+            velocity = ChassisSpeeds.fromFieldRelativeSpeeds(fieldVelocity, from.getRotation());
+            SwerveModuleState[] states = kinematics.toSwerveModuleStates(velocity);
+            SwerveDriveKinematics.desaturateWheelSpeeds(states, maxSpeed);
+            moduleSpeedSum += states[0].speedMetersPerSecond;
+            pose = pose.exp(GeomUtil.multiply(GeomUtil.toTwist2d(velocity), 0.02));
+        }
+
+        @Override
+        public void lock() {
+            velocity = new ChassisSpeeds();
+        }
+    }
+
+    /** Every name TargetClass knows, plus the ones it doesn't in the same form */
+    private static String[] buildTargetNames() {
+        List<String> names = new ArrayList<>(List.of("SL", "SR", "CL", "CC", "CR", "Processor"));
+        for (char letter : new char[] {'C', 'A', 'S'}) {
+            for (int face = 1; face <= 6; face++) {
+                for (int level = 0; level <= 3; level++) {
+                    for (int side = 0; side <= 1; side++) {
+                        names.add("" + letter + face + level + side);
+                    }
+                }
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+}
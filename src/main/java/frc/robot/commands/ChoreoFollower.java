@@ -0,0 +1,166 @@
+package frc.robot.commands;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.ChoreoConstants;
+import frc.robot.subsystems.swervedrive.SwerveSubsystem;
+import frc.robot.util.PresampledTrajectory;
+
+/**
+ * Follows a Choreo trajectory.
+ *
+ * Each loop the trajectory is interpolated at the elapsed time. Its speeds are driven
+ * with proportional feedback on the pose error, and its planned module forces are
+ * passed to the drive as feedforward. On the red alliance the trajectory is turned
+ * around the center of the field the same way Choreo flips it, so one file serves
+ * both alliances.
+ *
+ * Event markers run the command registered under the marker's name when the path
+ * passes them. The follower runs those commands itself instead of scheduling them,
+ * so they can't interrupt the routine the path is part of. Any still running when
+ * the path ends are interrupted. The robot is stopped at the end, like ProfileToPose.
+ */
+public class ChoreoFollower extends Command {
+
+    private final SwerveSubsystem drivebase;
+    private final PresampledTrajectory trajectory;
+    private final Command[] eventCommands;
+    private final boolean[] eventRunning;
+
+    private final Timer timer = new Timer();
+    private final double[] robotForcesX;
+    private final double[] robotForcesY;
+    private boolean flip;
+    private int index;
+    private int nextEvent;
+
+    /**
+     * @param events commands for event marker names; markers with no command are skipped
+     */
+    public ChoreoFollower(SwerveSubsystem drivebase, PresampledTrajectory trajectory, Map<String, Supplier<Command>> events) {
+        this.drivebase = drivebase;
+        this.trajectory = trajectory;
+        robotForcesX = new double[trajectory.getModuleCount()];
+        robotForcesY = new double[trajectory.getModuleCount()];
+
+        eventCommands = new Command[trajectory.eventNames.length];
+        eventRunning = new boolean[eventCommands.length];
+        for (int i = 0; i < eventCommands.length; i++) {
+            Supplier<Command> event = events.get(trajectory.eventNames[i]);
+            if (event == null) {
+                DriverStation.reportWarning("Choreo " + trajectory.name + ": no command for event \""
+                    + trajectory.eventNames[i] + "\"", false);
+                continue;
+            }
+            eventCommands[i] = event.get();
+            addRequirements(eventCommands[i].getRequirements());
+        }
+
+        setName("Choreo " + trajectory.name);
+        addRequirements(drivebase);
+    }
+
+    @Override
+    public void initialize() {
+        flip = DriverStation.getAlliance().orElse(DriverStation.Alliance.Blue) == DriverStation.Alliance.Red;
+        index = 0;
+        nextEvent = 0;
+        timer.restart();
+    }
+
+    @Override
+    public void execute() {
+        double time = timer.get();
+        index = trajectory.indexAt(time, index);
+        int next = Math.min(index + 1, trajectory.length - 1);
+        double span = trajectory.time[next] - trajectory.time[index];
+        double t = span > 0 ? MathUtil.clamp((time - trajectory.time[index]) / span, 0, 1) : 0;
+
+        double x = MathUtil.interpolate(trajectory.x[index], trajectory.x[next], t);
+        double y = MathUtil.interpolate(trajectory.y[index], trajectory.y[next], t);
+        double heading = trajectory.heading[index]
+            + MathUtil.angleModulus(trajectory.heading[next] - trajectory.heading[index]) * t;
+        double vx = MathUtil.interpolate(trajectory.vx[index], trajectory.vx[next], t);
+        double vy = MathUtil.interpolate(trajectory.vy[index], trajectory.vy[next], t);
+        double omega = MathUtil.interpolate(trajectory.omega[index], trajectory.omega[next], t);
+
+        // Turning the path around the field center negates x and y and everything along them
+        double sign = 1;
+        if (flip) {
+            x = ChoreoConstants.FIELD_LENGTH - x;
+            y = ChoreoConstants.FIELD_WIDTH - y;
+            heading += Math.PI;
+            vx = -vx;
+            vy = -vy;
+            sign = -1;
+        }
+
+        Pose2d pose = drivebase.getPose();
+        double robotHeading = pose.getRotation().getRadians();
+        ChassisSpeeds speeds = ChassisSpeeds.fromFieldRelativeSpeeds(
+            vx + ChoreoConstants.TRANSLATION_KP * (x - pose.getX()),
+            vy + ChoreoConstants.TRANSLATION_KP * (y - pose.getY()),
+            omega + ChoreoConstants.ROTATION_KP * MathUtil.angleModulus(heading - robotHeading),
+            pose.getRotation());
+
+        // Module forces are field relative; the drive wants them relative to the robot
+        double cos = Math.cos(robotHeading);
+        double sin = Math.sin(robotHeading);
+        for (int module = 0; module < robotForcesX.length; module++) {
+            double fx = sign * MathUtil.interpolate(trajectory.forceX[module][index], trajectory.forceX[module][next], t);
+            double fy = sign * MathUtil.interpolate(trajectory.forceY[module][index], trajectory.forceY[module][next], t);
+            robotForcesX[module] = fx * cos + fy * sin;
+            robotForcesY[module] = -fx * sin + fy * cos;
+        }
+        drivebase.driveWithModuleForces(speeds, robotForcesX, robotForcesY);
+
+        runEvents(time);
+    }
+
+    /**
+     * Starts the events the path has reached and runs the ones already started
+     */
+    private void runEvents(double time) {
+        while (nextEvent < eventCommands.length && trajectory.eventTimes[nextEvent] <= time) {
+            if (eventCommands[nextEvent] != null) {
+                eventCommands[nextEvent].initialize();
+                eventRunning[nextEvent] = true;
+            }
+            nextEvent++;
+        }
+
+        for (int i = 0; i < nextEvent; i++) {
+            if (eventRunning[i]) {
+                eventCommands[i].execute();
+                if (eventCommands[i].isFinished()) {
+                    eventCommands[i].end(false);
+                    eventRunning[i] = false;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return timer.hasElapsed(trajectory.getTotalTime());
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        timer.stop();
+        for (int i = 0; i < eventCommands.length; i++) {
+            if (eventRunning[i]) {
+                eventCommands[i].end(true);
+                eventRunning[i] = false;
+            }
+        }
+        drivebase.drive(new ChassisSpeeds());
+    }
+}
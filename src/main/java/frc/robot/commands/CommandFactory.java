@@ -1,9 +1,16 @@
 package frc.robot.commands;
 
+import java.util.function.BooleanSupplier;
+
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
 import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.Constants.AlgaeArmConstants;
+import frc.robot.Constants.ElevatorConstants;
+import frc.robot.Constants.FunnelConstants;
+import frc.robot.Constants.ShooterArmConstants;
+import frc.robot.Constants.WaitTimeConstants;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.ButtonBox;
 import frc.robot.subsystems.Elevator;
@@ -16,7 +23,7 @@ import frc.robot.subsystems.Coral.ShooterArm;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
 import frc.robot.subsystems.Climber;
 
-import frc.robot.util.DynamicWait;
+import frc.robot.util.BudgetedWait;
 
 public class CommandFactory {
 
@@ -73,11 +80,14 @@ public class CommandFactory {
       return command;
   }
 
-  public static Command setElevatorZero(Shooter shooter, ShooterArm shooterArm, Elevator elevator) {
+  public static Command setElevatorZero(Shooter shooter, ShooterArm shooterArm, Elevator elevator, MotionCoordinator coordinator) {
       
-    Command command  = shooterArm.shooterArmScoreLOWCommand() //Will make this straight up at some point
-    .andThen(new WaitUntilCommand(shooterArm.isClearToElevate()))
-      .andThen(elevator.setfullElevatorRetractCommand());
+    // Arm up and elevator down together; the elevator only waits if the arm starts below clear
+    Command command = coordinator.moveCommand("Elevator Zero",
+        () -> ElevatorConstants.downPosition,
+        () -> ShooterArmConstants.scoreAngleLOW, //Will make this straight up at some point
+        MotionCoordinator.UNCHANGED,
+        MotionCoordinator.UNCHANGED);
 
 
     command.addRequirements(shooter, shooterArm, elevator);
@@ -90,7 +100,7 @@ public static Command setAlgaeIntakeCommand(AlgaeArm algaeArm, AlgaeShooter alga
         .andThen(algaeShooter.algaeShooterIntakeCommand())
         .andThen(new WaitUntilCommand(algaeShooter.algaeLoadedTrigger()))
         .andThen(algaeArm.algaeArmHoldCommand())
-        .andThen(new WaitCommand(1))
+        .andThen(new BudgetedWait("Algae Hold", algaeArm.atGoalTrigger(), WaitTimeConstants.ALGAE_HOLD_BUDGET))
         .andThen(algaeShooter.algaeShooterZeroSpeedCommand());
 
     command.addRequirements(algaeArm, algaeShooter);
@@ -106,50 +116,67 @@ public static Command algaeStowCommand(AlgaeArm algaeArm, AlgaeShooter algaeShoo
     return command;
 }
 
-  public static Command setClimbPositionNoArm(AlgaeArm algaeArm, Funnel funnel, Climber climber) {
+  public static Command setClimbPositionNoArm(AlgaeArm algaeArm, Funnel funnel, Climber climber, MotionCoordinator coordinator) {
 
-    Command command = algaeArm.algaeArmStraightOutCommand()
-    .andThen(funnel.funnelFullUpCommand())
+    // Funnel starts up as soon as the algae arm is out of its way
+    MotionCoordinator.CoordinatedMove move = coordinator.moveCommand("Climb Funnel",
+        MotionCoordinator.UNCHANGED,
+        MotionCoordinator.UNCHANGED,
+        () -> AlgaeArmConstants.straightOutAngle,
+        () -> FunnelConstants.fullUpPosition);
     // Add climber control - this will enable position mode temporarily
-    .andThen(climber.climberFullExtendCommand());
+    Command command = move
+    .andThen(climber.climberFullExtendCommand().onlyIf(move::hasSafePath));
 
     command.addRequirements(algaeArm, funnel, climber);
 
     return command;
   }
 
-  public static Command setClimbPositionArmOnly(Elevator elevator, ShooterArm shooterArm) {
-    Command command = elevator.setElevatorPickupCommand()
-    .andThen(new WaitUntilCommand(elevator.isClearToIntake()))
-    .andThen(shooterArm.shooterArmLoadCommand());
+  public static Command setClimbPositionArmOnly(Elevator elevator, ShooterArm shooterArm, MotionCoordinator coordinator) {
+    // Arm swings down as soon as the elevator reaches intake height
+    Command command = coordinator.moveCommand("Climb Arm",
+        () -> ElevatorConstants.pickupPose,
+        () -> ShooterArmConstants.loadAngle,
+        MotionCoordinator.UNCHANGED,
+        MotionCoordinator.UNCHANGED);
 
     command.addRequirements(shooterArm, elevator);
 
     return command;
   }
 
-  public static Command pullOffHighAboveBall(Shooter shooter, ShooterArm shooterArm, Elevator elevator) {
+  public static Command pullOffHighAboveBall(Shooter shooter, ShooterArm shooterArm, Elevator elevator, MotionCoordinator coordinator) {
       
-    Command command  = shooterArm.shooterArmScoreLOWCommand()
-    .andThen(new WaitUntilCommand(shooterArm.isClearToElevate()))
-    .andThen(elevator.setElevatorHighBallCommand())
-    .andThen(new WaitUntilCommand(elevator.isAtSetpoint()))
-    .andThen(shooterArm.shooterArmPreBallCommand())
-    .andThen(shooter.shooterOutakeCommand());
+    MotionCoordinator.CoordinatedMove move = coordinator.moveCommand("High Ball",
+        () -> ElevatorConstants.highBallPose,
+        () -> ShooterArmConstants.scoreAngleLOW,
+        MotionCoordinator.UNCHANGED,
+        MotionCoordinator.UNCHANGED);
+    // Nothing else runs from wherever a move without a safe path left the mechanisms
+    Command command  = move
+    .andThen(new WaitUntilCommand(elevator.isAtSetpoint())
+        .andThen(shooterArm.shooterArmPreBallCommand())
+        .andThen(shooter.shooterOutakeCommand())
+        .onlyIf(move::hasSafePath));
 
     command.addRequirements(shooter, shooterArm, elevator);
 
     return command;
   }
 
-  public static Command pullOffLowBall(Shooter shooter, ShooterArm shooterArm, Elevator elevator) {
+  public static Command pullOffLowBall(Shooter shooter, ShooterArm shooterArm, Elevator elevator, MotionCoordinator coordinator) {
       
-    Command command  = shooterArm.shooterArmScoreLOWCommand()
-    .andThen(new WaitUntilCommand(shooterArm.isClearToElevate()))
-    .andThen(elevator.setElevatorLowBallCommand())
-    .andThen(new WaitUntilCommand(elevator.isAtSetpoint()))
-    .andThen(shooterArm.shooterArmPreLowBallCommand())
-    .andThen(shooter.shooterOutakeCommand());
+    MotionCoordinator.CoordinatedMove move = coordinator.moveCommand("Low Ball",
+        () -> ElevatorConstants.lowBallPose,
+        () -> ShooterArmConstants.scoreAngleLOW,
+        MotionCoordinator.UNCHANGED,
+        MotionCoordinator.UNCHANGED);
+    Command command  = move
+    .andThen(new WaitUntilCommand(elevator.isAtSetpoint())
+        .andThen(shooterArm.shooterArmPreLowBallCommand())
+        .andThen(shooter.shooterOutakeCommand())
+        .onlyIf(move::hasSafePath));
 
 
 
@@ -183,7 +210,7 @@ public static Command algaeStowCommand(AlgaeArm algaeArm, AlgaeShooter algaeShoo
 
   public static Command finishL1ScoreCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, AlgaeArm algaeArm, AlgaeShooter algaeShooter, Funnel funnel) {
 
-    Command command = new WaitCommand(0.3)
+    Command command = new BudgetedWait("L1 Dump Delay", shooter.coralReleasedTrigger(), WaitTimeConstants.L1_DUMP_BUDGET)
     .andThen(funnel.funnelL1DumpCommand())
     .andThen(elevator.setElevatorL1Command())
     .andThen(new WaitUntilCommand(elevator.isClearToIntake()))
@@ -195,20 +222,56 @@ public static Command algaeStowCommand(AlgaeArm algaeArm, AlgaeShooter algaeShoo
     return command;
   }
   
-public static Command scoreBasedOnQueueCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox){
-
-  Command command = shooterArm.shooterArmBasedOnQueueCommand(buttonBox)
-    .andThen(new WaitUntilCommand(shooterArm.isClearToElevateBasedOnQueue(buttonBox)))
-    .andThen(elevator.elevatorBasedOnQueueCommand(buttonBox));
+public static Command scoreBasedOnQueueCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, MotionCoordinator coordinator){
+
+  // Arm and elevator to the queued level together
+  Command command = coordinator.moveCommand("Score Queue",
+      () -> elevator.getQueueHeight(buttonBox),
+      () -> shooterArm.getQueueAngle(buttonBox),
+      MotionCoordinator.UNCHANGED,
+      MotionCoordinator.UNCHANGED);
     
     command.addRequirements(shooter, shooterArm, elevator);
     return command; 
 }
 
+/**
+ * Teleop scoring that works down the queue: drives to the front target while the elevator
+ * and arm move to its level. Once a shot has let the coral go, it releases that target
+ * (ButtonBox.releaseCurrentTarget) and starts over for the next one, without the button being
+ * pressed again. It also starts over if the front target changes under it. The shooter isn't
+ * required, so shooting doesn't interrupt it.
+ */
+public static Command pipelinedScoreCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, MotionCoordinator coordinator){
+
+  int[] frontVersion = {0};
+  BooleanSupplier advanced = () -> buttonBox.getFrontVersion() != frontVersion[0];
+
+  // A release left over from an earlier shot clears when the next outtake starts, so this waits for a new one
+  Command shot = new WaitUntilCommand(shooter.coralReleasedTrigger().negate())
+  .andThen(new WaitUntilCommand(shooter.coralReleasedTrigger()));
+
+  Command command = new InstantCommand(() -> frontVersion[0] = buttonBox.getFrontVersion())
+  .andThen(Commands.deadline(shot,
+      drivebase.driveToPoseProfiled(buttonBox)
+      .alongWith(coordinator.moveCommand("Score Queue",
+          () -> elevator.getQueueHeight(buttonBox),
+          () -> shooterArm.getQueueAngle(buttonBox),
+          MotionCoordinator.UNCHANGED,
+          MotionCoordinator.UNCHANGED)))
+      .until(advanced))
+  .andThen(buttonBox.releaseCurrentTargetCommand()
+      .onlyIf(() -> !advanced.getAsBoolean() && buttonBox.isCurrentTargetCoral()))
+  .repeatedly();
+
+    command.addRequirements(shooterArm, elevator);
+    return command; 
+}
+
 public static Command scoreBasedOnQueueCommandDriveAutoNOSHOOT(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer){
 
   Command command = drivebase.startDriveToPose(buttonBox, elevator)
-  .alongWith(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox));
+  .alongWith(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox, robotContainer.getMotionCoordinator()));
     
     command.addRequirements(shooter, shooterArm, elevator, drivebase);
     return command; 
@@ -217,10 +280,10 @@ public static Command scoreBasedOnQueueCommandDriveAutoNOSHOOT(Shooter shooter,
 public static Command scoreBasedOnQueueCommandDriveAutoFIRST(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer){
 
   Command command = drivebase.startDriveToPose(buttonBox, elevator)
-  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox))
+  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox, robotContainer.getMotionCoordinator()))
   .andThen(new WaitUntilCommand(robotContainer.linedUpTrigger()))
   .andThen(shooter.shooterOutakeCommand())
-  .andThen(new WaitCommand(.25))
+  .andThen(new BudgetedWait("Coral Release", shooter.coralReleasedTrigger(), WaitTimeConstants.CORAL_RELEASE_BUDGET))
   .andThen(shooter.shooterZeroSpeedCommand());
     
     command.addRequirements(shooter, shooterArm, elevator);
@@ -230,10 +293,10 @@ public static Command scoreBasedOnQueueCommandDriveAutoFIRST(Shooter shooter, Sh
 public static Command scoreBasedOnQueueCommandDriveAutoFIRSTBACKAUTO(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer){
 
   Command command = drivebase.startSlowDriveToPose(buttonBox, elevator)
-  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox))
+  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox, robotContainer.getMotionCoordinator()))
   .andThen(new WaitUntilCommand(robotContainer.linedUpTrigger()))
   .andThen(shooter.shooterOutakeCommand())
-  .andThen(new WaitCommand(.25))
+  .andThen(new BudgetedWait("Coral Release", shooter.coralReleasedTrigger(), WaitTimeConstants.CORAL_RELEASE_BUDGET))
   .andThen(shooter.shooterZeroSpeedCommand());
     
     command.addRequirements(shooter, shooterArm, elevator);
@@ -244,10 +307,10 @@ public static Command scoreBasedOnQueueCommandDriveAuto(Shooter shooter, Shooter
 
   Command command = drivebase.startDriveToPose(buttonBox, elevator)
   .andThen(new WaitUntilCommand(robotContainer.approachingTrigger()))
-  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox))
+  .andThen(CommandFactory.scoreBasedOnQueueCommand(shooter, shooterArm, elevator, buttonBox, robotContainer.getMotionCoordinator()))
   .andThen(new WaitUntilCommand(robotContainer.linedUpTrigger()))
   .andThen(shooter.shooterOutakeCommand())
-  .andThen(new WaitCommand(.25))
+  .andThen(new BudgetedWait("Coral Release", shooter.coralReleasedTrigger(), WaitTimeConstants.CORAL_RELEASE_BUDGET))
   .andThen(shooter.shooterZeroSpeedCommand());
     
     command.addRequirements(shooter, shooterArm, elevator);
@@ -256,9 +319,9 @@ public static Command scoreBasedOnQueueCommandDriveAuto(Shooter shooter, Shooter
 
 public static Command sourceDriveAuto(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, RobotContainer robotContainer, SwerveSubsystem drivebase, Funnel funnel, AlgaeArm algaeArm, AlgaeShooter algaeShooter) {
 
-  // Use startFastDriveToPoseWithRotationDelay instead of the regular one for faster source driving
+  // Use startFastDriveToPoseWithRotationDelay instead of the regular one for faster source driving.
+  // The intake gets ready on the way in and waits for the coral itself, so nothing has to stand in for it
   Command command = drivebase.startFastDriveToPoseWithRotationDelay(buttonBox, elevator)
-  .andThen(new WaitCommand(.75))
   //.andThen(new WaitUntilCommand(robotContainer.linedUpTrigger()))
   //.andThen(new WaitCommand(1.25));
   .andThen(CommandFactory.setIntakeCommandFORAUTOONLY(shooter, shooterArm, elevator, drivebase, robotContainer, funnel, algaeArm, algaeShooter));
@@ -268,139 +331,6 @@ public static Command sourceDriveAuto(Shooter shooter, ShooterArm shooterArm, El
   return command; 
 }
 
-public static Command LeftAutonCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer, Funnel funnel, AlgaeArm algaeArm, AlgaeShooter algaeShooter){
-
-  Command command = new InstantCommand(() -> buttonBox.addTarget("S530"))
-  .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRST(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(shooterArm.shooterArmScoreLOWCommand())
-  .andThen(elevator.setElevatorPickupCommand())
-
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("SL")))
-  .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("C630")))
-  .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAuto(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(shooterArm.shooterArmScoreLOWCommand())
-  .andThen(elevator.setElevatorPickupCommand())
-  
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("SL")))
-  .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("C631")))
-  .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAuto(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(shooterArm.shooterArmScoreLOWCommand())
-  .andThen(elevator.setElevatorPickupCommand())
-
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("SL")))
-  .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()));
-    
-  command.addRequirements(shooter, shooterArm, elevator, funnel);
-  return command; 
-}
-
-public static Command RightAutonCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer, Funnel funnel, AlgaeArm algaeArm, AlgaeShooter algaeShooter){
-
-    Command command = new InstantCommand(() -> buttonBox.addTarget("S331"))
-    .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRST(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-    .andThen(shooterArm.shooterArmScoreLOWCommand())
-    .andThen(elevator.setElevatorPickupCommand())
-
-    .andThen(new InstantCommand(() -> buttonBox.addTarget("SR")))
-    .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-    
-    .andThen(new InstantCommand(() -> buttonBox.addTarget("C230")))
-    .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAuto(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-    .andThen(shooterArm.shooterArmScoreLOWCommand())
-    .andThen(elevator.setElevatorPickupCommand())
-
-    .andThen(new InstantCommand(() -> buttonBox.addTarget("SR")))
-    .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-    
-    .andThen(new InstantCommand(() -> buttonBox.addTarget("C231")))
-    .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAuto(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-    .andThen(shooterArm.shooterArmScoreLOWCommand())
-    .andThen(elevator.setElevatorPickupCommand())
-
-    .andThen(new InstantCommand(() -> buttonBox.addTarget("SR")))
-    .andThen(CommandFactory.sourceDriveAuto(shooter, shooterArm, elevator, buttonBox, robotContainer, drivebase, funnel, algaeArm, algaeShooter))
-    .andThen(new InstantCommand(() -> buttonBox.clearTargets()));
-    
-    command.addRequirements(shooter, shooterArm, elevator, funnel);
-    return command; 
-}
-
-public static Command LeftCenterAutonCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer, Funnel funnel){
-
-  Command command = new InstantCommand(() -> buttonBox.addTarget("S431"))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRSTBACKAUTO(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(shooterArm.shooterArmScoreLOWCommand())
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A511")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A510")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A500")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A411")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A410")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A400")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A311")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A310")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A300")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> DynamicWait.resetAutoCounter()));
-  
-  command.addRequirements(shooter, shooterArm, elevator, funnel);
-  return command; 
-}
-public static Command RightCenterAutonCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer, Funnel funnel){
-
-  Command command = new InstantCommand(() -> buttonBox.addTarget("S430"))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(CommandFactory.scoreBasedOnQueueCommandDriveAutoFIRSTBACKAUTO(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(shooterArm.shooterArmScoreLOWCommand())
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A311")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A310")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A300")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A411")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A410")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A400")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A511")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A510")))
-  .andThen(new InstantCommand(() -> buttonBox.addTarget("A500")))
-  .andThen(DynamicWait.dynamicIncrementWaitCommand())
-  .andThen(algaeRemoveBasedOnQueueCommandDriveAutoCommand(shooter, shooterArm, elevator, buttonBox, drivebase, robotContainer))
-  .andThen(new InstantCommand(() -> buttonBox.clearTargets()))
-  .andThen(new InstantCommand(() -> DynamicWait.resetAutoCounter()));
-  
-  command.addRequirements(shooter, shooterArm, elevator, funnel);
-  return command; 
-}
-
 public static Command algaeRemoveBasedOnQueueCommand(Shooter shooter, ShooterArm shooterArm, Elevator elevator, ButtonBox buttonBox, SwerveSubsystem drivebase, RobotContainer robotContainer) {
     Command command = shooterArm.shooterArmScoreLOWCommand()
     .andThen(new WaitUntilCommand(shooterArm.isClearToElevate()))
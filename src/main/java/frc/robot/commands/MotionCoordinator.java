@@ -0,0 +1,227 @@
+package frc.robot.commands;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.AlgaeArmConstants;
+import frc.robot.Constants.CoordinatorConstants;
+import frc.robot.Constants.ElevatorConstants;
+import frc.robot.Constants.FunnelConstants;
+import frc.robot.Constants.ShooterArmConstants;
+import frc.robot.subsystems.Elevator;
+import frc.robot.subsystems.Funnel;
+import frc.robot.subsystems.Algae.AlgaeArm;
+import frc.robot.subsystems.Coral.ShooterArm;
+import frc.robot.util.JointMotionPlanner;
+
+/**
+ * Moves the elevator, shooter arm, algae arm and funnel together without them hitting
+ * each other.
+ *
+ * The interlocks that used to be checked one step at a time (ShooterArm.isClearToElevate,
+ * Elevator.isClearToIntake, Funnel.isSafeToMove) are keep-out regions here:
+ * - the shooter arm can only be below SHOOTER_ARM_CLEAR_ANGLE while the elevator is at intake height
+ * - the funnel can only leave home while the algae arm is down out of its way
+ *
+ * A move sets every mechanism's goal at once. {@link JointMotionPlanner} works out how
+ * long each one has to wait for the others to get out of its way, so mechanisms that
+ * used to move in sequence now move together wherever that is safe. Mechanisms don't
+ * always keep to the plan, so every loop the rest of the move is checked again from
+ * where they really are: a delayed mechanism only starts if that stays clear, and it
+ * waits while a slow one gets out of its way. If even waiting would collide, every
+ * mechanism holds where it is and the move gives up.
+ *
+ * A move with no safe path doesn't move anything and ends at once. Steps after it that
+ * assume the mechanisms got there are gated on {@link CoordinatedMove#hasSafePath}.
+ */
+public class MotionCoordinator {
+
+    private static final int ELEVATOR = 0;
+    private static final int SHOOTER_ARM = 1;
+    private static final int ALGAE_ARM = 2;
+    private static final int FUNNEL = 3;
+    private static final int AXES = 4;
+
+    /** Leaves a mechanism where it is */
+    public static final DoubleSupplier UNCHANGED = () -> Double.NaN;
+
+    private final Elevator elevator;
+    private final ShooterArm shooterArm;
+    private final AlgaeArm algaeArm;
+    private final Funnel funnel;
+
+    public MotionCoordinator(Elevator elevator, ShooterArm shooterArm, AlgaeArm algaeArm, Funnel funnel) {
+        this.elevator = elevator;
+        this.shooterArm = shooterArm;
+        this.algaeArm = algaeArm;
+        this.funnel = funnel;
+    }
+
+    /**
+     * Creates a planner with each mechanism's profile limits and the keep-out regions between them
+     */
+    private static JointMotionPlanner createPlanner() {
+        JointMotionPlanner planner = new JointMotionPlanner(
+            new double[] {ElevatorConstants.maxVelocity, ShooterArmConstants.maxVelocity, AlgaeArmConstants.maxVelocity, FunnelConstants.maxVelocity},
+            new double[] {ElevatorConstants.maxAcceleration, ShooterArmConstants.maxAcceleration, AlgaeArmConstants.maxAcceleration, FunnelConstants.maxAcceleration},
+            CoordinatorConstants.PLAN_STEP);
+
+        // Shooter arm swung low only at intake height, same band as Elevator.isClearToIntake
+        planner.addKeepOut(ELEVATOR, SHOOTER_ARM, (height, angle) ->
+            angle < CoordinatorConstants.SHOOTER_ARM_CLEAR_ANGLE
+                && Math.abs(height - ElevatorConstants.pickupPose) > ElevatorConstants.INTAKE_CLEARANCE_MARGIN);
+
+        // Funnel away from home only with the algae arm down, same threshold as AlgaeArm.isSafeForFunnelExtension
+        planner.addKeepOut(FUNNEL, ALGAE_ARM, (funnelAngle, algaeAngle) ->
+            funnelAngle < FunnelConstants.homePosition - CoordinatorConstants.FUNNEL_HOME_MARGIN
+                && algaeAngle < FunnelConstants.SAFE_ALGAE_ARM_POSITION);
+
+        return planner;
+    }
+
+    /**
+     * Moves any of the mechanisms to new goals, in parallel where it's safe.
+     * Goals are read when the command starts; {@link #UNCHANGED} or NaN leaves a mechanism alone.
+     * The command ends once every goal has been sent; wait on the subsystem triggers for arrival.
+     *
+     * @param name used for the dashboard and warnings
+     */
+    public CoordinatedMove moveCommand(String name, DoubleSupplier elevatorGoal, DoubleSupplier shooterArmGoal,
+                               DoubleSupplier algaeArmGoal, DoubleSupplier funnelGoal) {
+        return new CoordinatedMove(name, new DoubleSupplier[] {elevatorGoal, shooterArmGoal, algaeArmGoal, funnelGoal});
+    }
+
+    private double getPosition(int axis) {
+        switch (axis) {
+            case ELEVATOR: return elevator.getPosition();
+            case SHOOTER_ARM: return shooterArm.getPosition();
+            case ALGAE_ARM: return algaeArm.getPosition();
+            default: return funnel.getPosition();
+        }
+    }
+
+    private void setGoal(int axis, double goal) {
+        switch (axis) {
+            case ELEVATOR: elevator.setGoal(goal); break;
+            case SHOOTER_ARM: shooterArm.setGoal(goal); break;
+            case ALGAE_ARM: algaeArm.setGoal(goal); break;
+            default: funnel.setGoal(goal); break;
+        }
+    }
+
+    public class CoordinatedMove extends Command {
+
+        private final String name;
+        private final DoubleSupplier[] goals;
+
+        // Each move has its own planner, since moves of different mechanisms can overlap
+        private final JointMotionPlanner planner = createPlanner();
+
+        private final double[] from = new double[AXES];
+        private final double[] to = new double[AXES];
+        private final boolean[] sent = new boolean[AXES];
+        private final double[] delays = new double[AXES];
+        private final Timer timer = new Timer();
+        private boolean planned;
+
+        CoordinatedMove(String name, DoubleSupplier[] goals) {
+            this.name = name;
+            this.goals = goals;
+        }
+
+        @Override
+        public void initialize() {
+            for (int i = 0; i < AXES; i++) {
+                from[i] = getPosition(i);
+                double goal = goals[i].getAsDouble();
+
+                // Mechanisms that aren't part of the move are planned as staying where they are
+                sent[i] = Double.isNaN(goal);
+                to[i] = sent[i] ? from[i] : goal;
+            }
+
+            planned = planner.plan(from, to);
+            if (!planned) {
+                DriverStation.reportWarning("Coordinated move \"" + name + "\" has no safe path, not moving", false);
+            }
+            SmartDashboard.putNumber("Coordinator/" + name + " Plan Time", planned ? planner.getTotalTime() : -1);
+
+            timer.restart();
+        }
+
+        @Override
+        public void execute() {
+            if (!planned) {
+                return;
+            }
+
+            double time = timer.get();
+
+            // Shift each moving mechanism's plan to where it really is, and start the due ones now
+            double lastArrival = time;
+            for (int i = 0; i < AXES; i++) {
+                if (sent[i]) {
+                    delays[i] = planner.getDelay(i) + time - planner.getPlannedTime(i, getPosition(i));
+                    lastArrival = Math.max(lastArrival, planner.getPlannedTime(i, to[i]) + delays[i] - planner.getDelay(i));
+                } else {
+                    delays[i] = Math.max(planner.getDelay(i), time);
+                }
+            }
+
+            if (planner.isClear(delays, time)) {
+                for (int i = 0; i < AXES; i++) {
+                    if (!sent[i] && time >= planner.getDelay(i)) {
+                        setGoal(i, to[i]);
+                        sent[i] = true;
+                    }
+                }
+                return;
+            }
+
+            // Starting now would collide. Waiting for the moving ones to arrive is fine if that is clear.
+            for (int i = 0; i < AXES; i++) {
+                if (!sent[i]) {
+                    delays[i] = Math.max(delays[i], lastArrival);
+                }
+            }
+            if (!planner.isClear(delays, time)) {
+                DriverStation.reportWarning("Coordinated move \"" + name + "\" went off its plan, holding", false);
+                for (int i = 0; i < AXES; i++) {
+                    if (sent[i] && from[i] != to[i]) {
+                        setGoal(i, getPosition(i));
+                    }
+                }
+                planned = false;
+            }
+        }
+
+        /**
+         * Whether the last run found a safe path and sent its goals; false if it gave up,
+         * before moving or by holding partway, so what comes after it shouldn't run
+         */
+        public boolean hasSafePath() {
+            return planned;
+        }
+
+        @Override
+        public boolean isFinished() {
+            if (!planned) {
+                return true;
+            }
+            for (boolean axisSent : sent) {
+                if (!axisSent) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            timer.stop();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.Constants.DriveToPoseConstants;
 import frc.robot.subsystems.ButtonBox;
 import frc.robot.subsystems.TargetClass;
+import frc.robot.subsystems.swervedrive.PoseDrive;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
 import frc.robot.util.GeomUtil;
 
@@ -39,7 +40,7 @@ public class ProfileToPose extends Command {
     private static final double ffMinRadius = 0.01;
     private static final double ffMaxRadius = 0.08;
 
-    private SwerveSubsystem swerve;
+    private PoseDrive swerve;
     private Supplier<Pose2d> target;
     private ButtonBox buttonBox; // Added ButtonBox reference
     private boolean useButtonBox = false; // Flag to determine which source to use
@@ -61,9 +62,12 @@ public class ProfileToPose extends Command {
     private final Timer commandTimer = new Timer();
     private boolean useRotationDelay = false;
     private double rotationDelaySeconds = DriveToPoseConstants.AUTON_ROTATION_DELAY;
+
+    // Front of the ButtonBox queue this run is driving to
+    private int targetVersion = 0;
     
     // Original constructor for backward compatibility
-    public ProfileToPose(SwerveSubsystem swerve, Supplier<Pose2d> target) {
+    public ProfileToPose(PoseDrive swerve, Supplier<Pose2d> target) {
         this.swerve = swerve;
         this.target = target;
         this.useButtonBox = false;
@@ -76,7 +80,7 @@ public class ProfileToPose extends Command {
     }
     
     // New constructor that accepts ButtonBox directly
-    public ProfileToPose(SwerveSubsystem swerve, ButtonBox buttonBox) {
+    public ProfileToPose(PoseDrive swerve, ButtonBox buttonBox) {
         this.swerve = swerve;
         this.buttonBox = buttonBox;
         this.useButtonBox = true;
@@ -120,15 +124,11 @@ public class ProfileToPose extends Command {
             return new Pose2d(); // Return origin if buttonBox is null
         }
         
-        TargetClass target = buttonBox.peekNextTarget();
+        // ButtonBox plans the alliance-relative pose when the target reaches the front
+        TargetClass target = buttonBox.getPlannedTarget();
         if (target != null) {
-            Pose2d targetPose = new Pose2d(
-                new Translation2d(target.getX(), target.getY()),
-                Rotation2d.fromRadians(target.getZ())
-            );
-            
             SmartDashboard.putString("Drive Target", target.getName());
-            return TargetClass.toPose2d(targetPose);
+            return buttonBox.getPlannedPose();
         } else {
             SmartDashboard.putString("Drive Target", "NULL");
             return swerve.getPose(); // Return current pose to effectively stop movement
@@ -158,6 +158,9 @@ public class ProfileToPose extends Command {
             return;
         }
         SmartDashboard.putBoolean("Null Target Detected", false);
+        if (useButtonBox) {
+            targetVersion = buttonBox.getFrontVersion();
+        }
         
         // Normal initialization continues if target is valid
         Pose2d currentPose = robot.get();
@@ -248,6 +251,11 @@ public class ProfileToPose extends Command {
             running = false;
             return;
         }
+
+        // The front target was released; head for the next one from where we are, without stopping
+        if (useButtonBox && buttonBox.getFrontVersion() != targetVersion) {
+            initialize();
+        }
         
         // Regular execution continues
         // Get current pose and target pose
@@ -329,9 +337,8 @@ public class ProfileToPose extends Command {
             MathUtil.interpolate(
                 thetaVelocity, omegaFF.getAsDouble() * 4.69/Math.hypot(10.75, 10.75), thetaS);
 
-        // Command speeds (ROBOT RELATIVE)
-        swerve.drive(ChassisSpeeds.fromFieldRelativeSpeeds(
-                driveVelocity.getX(), driveVelocity.getY(), thetaVelocity, currentPose.getRotation()));
+        // Command speeds (FIELD RELATIVE); the drive loop holds them on course between runs
+        swerve.driveTracked(new ChassisSpeeds(driveVelocity.getX(), driveVelocity.getY(), thetaVelocity), currentPose);
                 
         // Log current distance for debugging
         SmartDashboard.putNumber("Distance to Target", currentDistance);
@@ -120,15 +120,11 @@ public class SlowProfileToPose extends Command {
             return new Pose2d(); // Return origin if buttonBox is null
         }
         
-        TargetClass target = buttonBox.peekNextTarget();
+        // ButtonBox plans the alliance-relative pose when the target reaches the front
+        TargetClass target = buttonBox.getPlannedTarget();
         if (target != null) {
-            Pose2d targetPose = new Pose2d(
-                new Translation2d(target.getX(), target.getY()),
-                Rotation2d.fromRadians(target.getZ())
-            );
-            
             SmartDashboard.putString("Drive Target", target.getName());
-            return TargetClass.toPose2d(targetPose);
+            return buttonBox.getPlannedPose();
         } else {
             SmartDashboard.putString("Drive Target", "NULL");
             return swerve.getPose(); // Return current pose to effectively stop movement
@@ -329,9 +325,8 @@ public class SlowProfileToPose extends Command {
             MathUtil.interpolate(
                 thetaVelocity, omegaFF.getAsDouble() * 4.69/Math.hypot(10.75, 10.75), thetaS);
 
-        // Command speeds (ROBOT RELATIVE)
-        swerve.drive(ChassisSpeeds.fromFieldRelativeSpeeds(
-                driveVelocity.getX(), driveVelocity.getY(), thetaVelocity, currentPose.getRotation()));
+        // Command speeds (FIELD RELATIVE); the drive loop holds them on course between runs
+        swerve.driveTracked(new ChassisSpeeds(driveVelocity.getX(), driveVelocity.getY(), thetaVelocity), currentPose);
                 
         // Log current distance for debugging
         SmartDashboard.putNumber("Distance to Target", currentDistance);
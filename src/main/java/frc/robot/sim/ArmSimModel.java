@@ -0,0 +1,92 @@
+package frc.robot.sim;
+
+import com.revrobotics.sim.SparkAbsoluteEncoderSim;
+import com.revrobotics.sim.SparkMaxSim;
+import com.revrobotics.spark.SparkMax;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.SingleJointedArmSim;
+
+/**
+ * Simulates a pivot read by an absolute encoder on its shaft (ShooterArm, AlgaeArm
+ * and Funnel) through the motor's SparkMaxSim, so the subsystem's periodic() runs
+ * unchanged.
+ *
+ * Encoder positions are converted to angles the same way the subsystems compute
+ * their feedforward: (position - feedforwardOffset) rotations, minus 90 degrees, is
+ * the angle above horizontal.
+ */
+public class ArmSimModel {
+
+    private final SparkMaxSim sparkSim;
+    private final SparkAbsoluteEncoderSim encoderSim;
+    private final SingleJointedArmSim armSim;
+
+    private final double gearing;
+    private final double feedforwardOffset;
+
+    /**
+     * @param motor             the pivot motor
+     * @param gearing           motor rotations per pivot rotation
+     * @param length            pivot length in meters
+     * @param mass              pivot mass in kg
+     * @param minPosition       lower hard stop, in encoder rotations
+     * @param maxPosition       upper hard stop, in encoder rotations
+     * @param feedforwardOffset the subsystem's feedforward offset, in encoder rotations
+     * @param startingPosition  where the pivot starts, in encoder rotations
+     */
+    public ArmSimModel(SparkMax motor, double gearing, double length, double mass,
+                       double minPosition, double maxPosition, double feedforwardOffset, double startingPosition) {
+        this.gearing = gearing;
+        this.feedforwardOffset = feedforwardOffset;
+
+        DCMotor gearbox = DCMotor.getNEO(1);
+        sparkSim = new SparkMaxSim(motor, gearbox);
+        encoderSim = sparkSim.getAbsoluteEncoderSim();
+        armSim = new SingleJointedArmSim(
+            gearbox,
+            gearing,
+            SingleJointedArmSim.estimateMOI(length, mass),
+            length,
+            positionToRadians(minPosition),
+            positionToRadians(maxPosition),
+            true,
+            positionToRadians(startingPosition));
+
+        encoderSim.setPosition(startingPosition);
+    }
+
+    private double positionToRadians(double position) {
+        return (position - feedforwardOffset) * 2.0 * Math.PI - Math.PI / 2.0;
+    }
+
+    private double radiansToPosition(double radians) {
+        return (radians + Math.PI / 2.0) / (2.0 * Math.PI) + feedforwardOffset;
+    }
+
+    /**
+     * Steps the physics and feeds the result back into the SparkMax
+     *
+     * @param dt step length in seconds
+     */
+    public void update(double dt) {
+        double busVoltage = RobotController.getBatteryVoltage();
+
+        armSim.setInput(sparkSim.getAppliedOutput() * busVoltage);
+        armSim.update(dt);
+
+        // Pivot rotations per minute, and motor RPM through the gearing
+        double pivotRPM = armSim.getVelocityRadPerSec() / (2.0 * Math.PI) * 60.0;
+        sparkSim.iterate(pivotRPM * gearing, busVoltage, dt);
+        encoderSim.setPosition(radiansToPosition(armSim.getAngleRads()));
+        encoderSim.setVelocity(pivotRPM);
+        sparkSim.setMotorCurrent(armSim.getCurrentDrawAmps());
+
+        SimBattery.addCurrent(armSim.getCurrentDrawAmps());
+    }
+
+    public double getAngleRads() {
+        return armSim.getAngleRads();
+    }
+}
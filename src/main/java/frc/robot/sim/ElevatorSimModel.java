@@ -0,0 +1,64 @@
+package frc.robot.sim;
+
+import com.revrobotics.sim.SparkMaxSim;
+import com.revrobotics.spark.SparkMax;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Simulates the elevator through the leader's SparkMaxSim, so Elevator.periodic()
+ * runs unchanged.
+ *
+ * The elevator encoder reads motor rotations and goes negative as the elevator
+ * rises, so positive motor output drives the carriage down.
+ */
+public class ElevatorSimModel {
+
+    private final SparkMaxSim sparkSim;
+    private final ElevatorSim elevatorSim;
+
+    // Carriage travel per motor rotation
+    private final double metersPerRotation;
+
+    public ElevatorSimModel(SparkMax leader) {
+        DCMotor gearbox = DCMotor.getNEO(2);
+        sparkSim = new SparkMaxSim(leader, gearbox);
+        elevatorSim = new ElevatorSim(
+            gearbox,
+            SimConstants.ELEVATOR_GEARING,
+            SimConstants.ELEVATOR_CARRIAGE_MASS,
+            SimConstants.ELEVATOR_DRUM_RADIUS,
+            0.0,
+            SimConstants.ELEVATOR_MAX_HEIGHT,
+            true,
+            0.0);
+        metersPerRotation = 2.0 * Math.PI * SimConstants.ELEVATOR_DRUM_RADIUS / SimConstants.ELEVATOR_GEARING;
+    }
+
+    /**
+     * Steps the physics and feeds the result back into the SparkMax
+     *
+     * @param dt step length in seconds
+     */
+    public void update(double dt) {
+        double busVoltage = RobotController.getBatteryVoltage();
+
+        // Up is positive in the model, negative on the encoder
+        elevatorSim.setInput(-sparkSim.getAppliedOutput() * busVoltage);
+        elevatorSim.update(dt);
+
+        double motorRPM = -elevatorSim.getVelocityMetersPerSecond() / metersPerRotation * 60.0;
+        sparkSim.iterate(motorRPM, busVoltage, dt);
+        sparkSim.getRelativeEncoderSim().setPosition(-elevatorSim.getPositionMeters() / metersPerRotation);
+        sparkSim.setMotorCurrent(elevatorSim.getCurrentDrawAmps());
+
+        SimBattery.addCurrent(elevatorSim.getCurrentDrawAmps());
+    }
+
+    public double getHeightMeters() {
+        return elevatorSim.getPositionMeters();
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.sim;
+
+import java.util.function.BooleanSupplier;
+
+import com.revrobotics.sim.SparkMaxSim;
+import com.revrobotics.spark.SparkMax;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+
+/**
+ * Simulates a roller that detects its game piece by current (the coral shooter)
+ * through its SparkMaxSim, so the subsystem's current debounce runs unchanged.
+ *
+ * With no piece the roller spins freely and draws little current. When a piece is
+ * available and the roller runs in its intake direction, the piece is grabbed and
+ * the roller stalls against it, which pushes the current past the detection
+ * threshold the same way it does on the robot. Running the other way ejects it.
+ */
+public class RollerSimModel {
+
+    private final SparkMaxSim sparkSim;
+    private final DCMotorSim rollerSim;
+    private final DCMotor gearbox;
+
+    private final double gearing;
+    private final double intakeDirection;
+
+    // Whether a piece is in reach of the roller; always by default
+    private BooleanSupplier pieceAvailable = () -> true;
+    private boolean holdingPiece = false;
+
+    /**
+     * @param motor         the roller motor
+     * @param gearing       motor rotations per roller rotation
+     * @param moi           roller moment of inertia in kg*m^2
+     * @param intakeSpeed   the duty cycle the subsystem intakes at, used for its sign
+     */
+    public RollerSimModel(SparkMax motor, double gearing, double moi, double intakeSpeed) {
+        this.gearing = gearing;
+        this.intakeDirection = Math.signum(intakeSpeed);
+
+        gearbox = DCMotor.getNEO(1);
+        sparkSim = new SparkMaxSim(motor, gearbox);
+        rollerSim = new DCMotorSim(LinearSystemId.createDCMotorSystem(gearbox, moi, gearing), gearbox);
+    }
+
+    /**
+     * Sets when a game piece can be picked up, e.g. only while at a coral station
+     */
+    public void setPieceAvailable(BooleanSupplier pieceAvailable) {
+        this.pieceAvailable = pieceAvailable;
+    }
+
+    public boolean isHoldingPiece() {
+        return holdingPiece;
+    }
+
+    /**
+     * Steps the physics and feeds the result back into the SparkMax
+     *
+     * @param dt step length in seconds
+     */
+    public void update(double dt) {
+        double busVoltage = RobotController.getBatteryVoltage();
+        double inputVoltage = sparkSim.getAppliedOutput() * busVoltage;
+        double direction = Math.signum(inputVoltage) * intakeDirection;
+
+        if (!holdingPiece && direction > 0 && pieceAvailable.getAsBoolean()) {
+            holdingPiece = true;
+        } else if (holdingPiece && direction < 0) {
+            holdingPiece = false;
+        }
+
+        double currentAmps;
+        if (holdingPiece && direction > 0) {
+            // Stalled against the piece
+            rollerSim.setState(rollerSim.getAngularPositionRad(), 0.0);
+            currentAmps = Math.abs(gearbox.getCurrent(0.0, inputVoltage));
+        } else {
+            rollerSim.setInputVoltage(inputVoltage);
+            rollerSim.update(dt);
+            currentAmps = Math.abs(rollerSim.getCurrentDrawAmps());
+        }
+
+        double motorRPM = Units.radiansPerSecondToRotationsPerMinute(rollerSim.getAngularVelocityRadPerSec()) * gearing;
+        sparkSim.iterate(motorRPM, busVoltage, dt);
+        sparkSim.setMotorCurrent(currentAmps);
+
+        SimBattery.addCurrent(currentAmps);
+    }
+}
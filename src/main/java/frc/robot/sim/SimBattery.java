@@ -0,0 +1,28 @@
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+
+/**
+ * Sags the simulated battery voltage under the load of the simulated mechanisms.
+ *
+ * Each mechanism model adds its current draw during simulationPeriodic, and
+ * Robot.simulationPeriodic applies the total once per loop.
+ */
+public final class SimBattery {
+
+    private static double totalCurrentAmps = 0;
+
+    private SimBattery() {}
+
+    /** Adds a mechanism's current draw for this loop */
+    public static void addCurrent(double amps) {
+        totalCurrentAmps += amps;
+    }
+
+    /** Applies this loop's total draw to the roboRIO input voltage and starts the next loop */
+    public static void update() {
+        RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(totalCurrentAmps));
+        totalCurrentAmps = 0;
+    }
+}
@@ -0,0 +1,71 @@
+package frc.robot.sim;
+
+import com.revrobotics.sim.SparkMaxSim;
+import com.revrobotics.spark.SparkMax;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+
+/**
+ * Simulates the climber winch through its SparkMaxSim, so Climber.periodic() runs
+ * unchanged.
+ *
+ * The spool is modeled as an inertia between hard stops at the climber's min and
+ * max encoder positions. The robot's weight on the strap is not modeled.
+ */
+public class WinchSimModel {
+
+    private final SparkMaxSim sparkSim;
+    private final DCMotorSim spoolSim;
+
+    private final double gearing;
+    private final double minPosition;
+    private final double maxPosition;
+
+    /**
+     * @param motor       the winch motor
+     * @param gearing     motor rotations per spool rotation
+     * @param moi         spool moment of inertia in kg*m^2
+     * @param minPosition lower hard stop, in motor rotations
+     * @param maxPosition upper hard stop, in motor rotations
+     */
+    public WinchSimModel(SparkMax motor, double gearing, double moi, double minPosition, double maxPosition) {
+        this.gearing = gearing;
+        this.minPosition = minPosition;
+        this.maxPosition = maxPosition;
+
+        DCMotor gearbox = DCMotor.getNEO(1);
+        sparkSim = new SparkMaxSim(motor, gearbox);
+        spoolSim = new DCMotorSim(LinearSystemId.createDCMotorSystem(gearbox, moi, gearing), gearbox);
+    }
+
+    /**
+     * Steps the physics and feeds the result back into the SparkMax
+     *
+     * @param dt step length in seconds
+     */
+    public void update(double dt) {
+        double busVoltage = RobotController.getBatteryVoltage();
+
+        spoolSim.setInputVoltage(sparkSim.getAppliedOutput() * busVoltage);
+        spoolSim.update(dt);
+
+        // Stop dead at either end of the strap
+        double motorRotations = spoolSim.getAngularPositionRotations() * gearing;
+        double clamped = MathUtil.clamp(motorRotations, minPosition, maxPosition);
+        if (clamped != motorRotations) {
+            spoolSim.setState(Units.rotationsToRadians(clamped / gearing), 0.0);
+        }
+
+        double motorRPM = Units.radiansPerSecondToRotationsPerMinute(spoolSim.getAngularVelocityRadPerSec()) * gearing;
+        sparkSim.iterate(motorRPM, busVoltage, dt);
+        sparkSim.getRelativeEncoderSim().setPosition(clamped);
+        sparkSim.setMotorCurrent(spoolSim.getCurrentDrawAmps());
+
+        SimBattery.addCurrent(spoolSim.getCurrentDrawAmps());
+    }
+}
@@ -6,8 +6,6 @@ import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkClosedLoopController;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 
 import edu.wpi.first.math.MathUtil;
@@ -16,13 +14,25 @@ import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
 import frc.robot.Constants.AlgaeArmConstants;
+import frc.robot.Constants.DetectorConstants;
 import frc.robot.Constants.FunnelConstants;
+import frc.robot.Constants.IdentificationConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.util.FeedforwardEstimator;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.MechanismSysId;
+import frc.robot.util.OnboardProfile;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.StatusFrameBoost;
+import frc.robot.sim.ArmSimModel;
 
 public class AlgaeArm extends SubsystemBase {
 
@@ -35,18 +45,34 @@ public class AlgaeArm extends SubsystemBase {
     // Algae piece detection
     public static boolean algaeLoaded = false;
     private boolean isIntaking = false;
-    
-    // Debounce timer variables
-    private double currentAboveThresholdStartTime = 0;
-    private double currentBelowThresholdStartTime = 0;
-    private final double DEBOUNCE_TIME = 0.5; // 0.5 seconds for debouncing
+
 
     private SparkMax algaeArmMotor = new SparkMax(AlgaeArmConstants.ID, MotorType.kBrushless);
 
+    // Filtered current detection, sampled faster than the loop by Robot
+    private final GamePieceDetector algaeDetector = new GamePieceDetector(
+            "Algae Arm", this::getCurrentDraw, AlgaeArmConstants.currentThreshold, AlgaeArmConstants.releaseThreshold)
+        .withFilter(DetectorConstants.MEDIAN_SIZE, DetectorConstants.FILTER_TIME_CONSTANT)
+        .withDebounce(AlgaeArmConstants.DEBOUNCE_TIME, AlgaeArmConstants.DEBOUNCE_TIME);
+
+    // Physics model, only created in simulation
+    private ArmSimModel sim;
+
+    // Faster current frames while intaking so algae detection sees fresh samples
+    private final StatusFrameBoost currentBoost = new StatusFrameBoost(
+        algaeArmMotor, Configs.AlgaeArm.sensingSignals, Configs.AlgaeArm.normalSignals);
+
     private SparkClosedLoopController algaeArmController = algaeArmMotor.getClosedLoopController();
 
     private AbsoluteEncoder algaeArmEncoder = algaeArmMotor.getAbsoluteEncoder();
     
+    // Fits kS/kG/kV/kA from normal driving, in the same units as armFeedforward
+    private final FeedforwardEstimator feedforwardEstimator =
+        new FeedforwardEstimator("Algae Arm", AlgaeArmConstants.FF_ID_MIN_VELOCITY);
+
+    // Set while a SysId test drives the motor directly
+    private boolean isCharacterizing = false;
+    
     // Add ArmFeedforward controller
     private final ArmFeedforward armFeedforward = new ArmFeedforward(
         AlgaeArmConstants.kS, 
@@ -71,8 +97,16 @@ public class AlgaeArm extends SubsystemBase {
     private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
     private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
 
+    // Used instead of m_profile with AlgaeArmConstants.USE_MAXMOTION
+    private final OnboardProfile onboardProfile = new OnboardProfile(algaeArmController);
+
     public AlgaeArm() {
-        algaeArmMotor.configure(Configs.AlgaeArm.algaeArmConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        if (RobotBase.isSimulation()) {
+            sim = new ArmSimModel(algaeArmMotor, SimConstants.ALGAE_ARM_GEARING, SimConstants.ALGAE_ARM_LENGTH, SimConstants.ALGAE_ARM_MASS,
+                AlgaeArmConstants.min, AlgaeArmConstants.max, AlgaeArmConstants.feedforwardOffset, AlgaeArmConstants.stowedUpAngle);
+        }
+
+        SparkConfigurator.configure("Algae Arm", algaeArmMotor, Configs.AlgaeArm.algaeArmConfig);
     }
 
     /**
@@ -91,46 +125,21 @@ public class AlgaeArm extends SubsystemBase {
         return encoderToRadians(encoderPosition) - kHorizontalReferenceRad;
     }
 
+    /**
+     * Encoder velocity in rotations per second; the encoder reports RPM
+     */
+    private double getEncoderVelocity() {
+        return algaeArmEncoder.getVelocity() / 60.0;
+    }
+
     // Method to get the current draw from the motor
     private double getCurrentDraw() {
         return algaeArmMotor.getOutputCurrent();
     }
 
-    // Method to check if algae is loaded based on current draw with debouncing
+    // Method to check if algae is loaded, from the filtered current detector
     public boolean checkAlgaeLoaded() {
-        double currentDraw = getCurrentDraw();
-        double currentTime = Timer.getFPGATimestamp();
-        
-        if (currentDraw > AlgaeArmConstants.currentThreshold) {
-            // Reset the "below threshold" timer since we're above threshold
-            currentBelowThresholdStartTime = currentTime;
-            
-            // If this is the first time we're above threshold, start timing
-            if (currentAboveThresholdStartTime == 0) {
-                currentAboveThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been above threshold long enough
-            if (currentTime - currentAboveThresholdStartTime >= DEBOUNCE_TIME) {
-                return algaeLoaded = true;
-            }
-        } else {
-            // Reset the "above threshold" timer since we're below threshold
-            currentAboveThresholdStartTime = 0;
-            
-            // If this is the first time we're below threshold, start timing
-            if (currentBelowThresholdStartTime == 0) {
-                currentBelowThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been below threshold long enough
-            if (currentTime - currentBelowThresholdStartTime >= DEBOUNCE_TIME) {
-                return algaeLoaded = false;
-            }
-        }
-        
-        // Return the current state if we haven't debounced yet
-        return algaeLoaded;
+        return algaeLoaded = algaeDetector.isDetected();
     }
     
     public Trigger algaeLoadedTrigger() { 
@@ -154,6 +163,10 @@ public class AlgaeArm extends SubsystemBase {
         return new Trigger(this::isSafeForFunnelExtension);
     }
 
+    public Trigger atGoalTrigger() {
+        return new Trigger(() -> Math.abs(algaeArmEncoder.getPosition() - algaeArmDesiredAngle) <= AlgaeArmConstants.AT_GOAL_TOLERANCE);
+    }
+
     // Define desired positions for the arm
     private void stowUp() {
         algaeArmDesiredAngle = AlgaeArmConstants.stowedUpAngle;
@@ -200,6 +213,34 @@ public class AlgaeArm extends SubsystemBase {
         return new InstantCommand(() -> scoreL1Postion());
     }
     
+    /**
+     * Moves to an angle, used by the MotionCoordinator
+     */
+    public void setGoal(double angle) {
+        algaeArmDesiredAngle = angle;
+        isIntaking = false;
+    }
+
+    public double getPosition() {
+        return algaeArmEncoder.getPosition();
+    }
+
+    /**
+     * Runs the SysId tests, stopping short of either end of travel
+     */
+    public Command sysIdCommand() {
+        return MechanismSysId.characterize(this, "algae-arm",
+                volts -> {
+                    isCharacterizing = true;
+                    algaeArmMotor.setVoltage(volts);
+                },
+                algaeArmEncoder::getPosition,
+                this::getEncoderVelocity,
+                () -> algaeArmEncoder.getPosition() >= AlgaeArmConstants.max - AlgaeArmConstants.SYSID_MARGIN,
+                () -> algaeArmEncoder.getPosition() <= AlgaeArmConstants.min + AlgaeArmConstants.SYSID_MARGIN)
+            .finallyDo(() -> isCharacterizing = false);
+    }
+
     public void moveAmount(final double amount) {
         if (Math.abs(amount) < 0.2) {
             return;
@@ -213,6 +254,8 @@ public class AlgaeArm extends SubsystemBase {
 
     @Override
     public void periodic() {
+        currentBoost.setBoosted(isIntaking);
+
         if (!isInitialized) {
             algaeArmDesiredAngle = AlgaeArmConstants.stowedUpAngle;
             m_setpoint = new TrapezoidProfile.State(AlgaeArmConstants.stowedUpAngle, 0);
@@ -225,6 +268,12 @@ public class AlgaeArm extends SubsystemBase {
             algaeArmDesiredAngle = (float)algaeArmEncoder.getPosition();
         }
 
+        if (isCharacterizing) {
+            // Hold wherever SysId leaves the arm
+            algaeArmDesiredAngle = algaeArmEncoder.getPosition();
+            m_setpoint = new TrapezoidProfile.State(algaeArmEncoder.getPosition(), 0);
+        }
+
         // Check if algae is loaded
         checkAlgaeLoaded();
         
@@ -239,12 +288,24 @@ public class AlgaeArm extends SubsystemBase {
         // Set goal for motion profile
         m_goal = new TrapezoidProfile.State(algaeArmDesiredAngle, 0);
         
-        // Calculate next setpoint
-        m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
+        // Calculate next setpoint (the SparkMax does this itself with MAXMotion)
+        if (!AlgaeArmConstants.USE_MAXMOTION) {
+            m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
+        }
         
         // Convert positions to radians for feedforward
         double currentPositionRad = encoderToFeedforwardRadians(algaeArmEncoder.getPosition() - AlgaeArmConstants.feedforwardOffset);
-        double currentVelocityRad = algaeArmEncoder.getVelocity() * kEncoderToRadians;
+        double currentVelocityRad = getEncoderVelocity() * kEncoderToRadians;
+
+        // Fit the feedforward from what the motor is actually doing
+        if (DriverStation.isEnabled()) {
+            feedforwardEstimator.update(
+                algaeArmMotor.getAppliedOutput() * IdentificationConstants.NOMINAL_VOLTAGE,
+                Math.cos(currentPositionRad),
+                currentVelocityRad,
+                Timer.getFPGATimestamp());
+        }
+        feedforwardEstimator.publish();
         
         // Calculate the feedforward output using radians
         double feedforwardOutput = armFeedforward.calculate(
@@ -267,6 +328,17 @@ public class AlgaeArm extends SubsystemBase {
         
         SmartDashboard.putNumber("Algae Arm Feedforward", feedforwardOutput);
 
+        if (isCharacterizing) {
+            // SysId is driving the motor
+            return;
+        }
+
+        if (AlgaeArmConstants.USE_MAXMOTION) {
+            // The SparkMax profiles to the goal; gravity still comes from our feedforward model
+            onboardProfile.setGoal(algaeArmDesiredAngle, armFeedforward.calculate(currentPositionRad, 0));
+            return;
+        }
+
         // Set motor position using the profile's position and feedforward
         algaeArmController.setReference(
             m_setpoint.position, 
@@ -276,4 +348,9 @@ public class AlgaeArm extends SubsystemBase {
             ArbFFUnits.kVoltage
         );
     }
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(TimedRobot.kDefaultPeriod);
+    }
 }
\ No newline at end of file
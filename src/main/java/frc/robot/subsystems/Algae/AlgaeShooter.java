@@ -1,11 +1,8 @@
 package frc.robot.subsystems.Algae;
 
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.SparkMax;
 
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
@@ -13,24 +10,31 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
 import frc.robot.Constants.AlgaeShooterConstants;
+import frc.robot.Constants.DetectorConstants;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.StatusFrameBoost;
 
 public class AlgaeShooter extends SubsystemBase {
 
     private SparkMax algaeShooterMotor = new SparkMax(AlgaeShooterConstants.ID, MotorType.kBrushless);
 
+    // Faster current frames while intaking so algae detection sees fresh samples
+    private final StatusFrameBoost currentBoost = new StatusFrameBoost(
+        algaeShooterMotor, Configs.AlgaeShooter.sensingSignals, Configs.AlgaeShooter.normalSignals);
+
     public static boolean algaeLoaded;
     private boolean isLoading;
     private double currentSpeed = 0;
     
-    // Debounce timer variables
-    private double currentAboveThresholdStartTime = 0;
-    private double currentBelowThresholdStartTime = 0;
+    // Filtered current detection, sampled faster than the loop by Robot
+    private final GamePieceDetector algaeDetector = new GamePieceDetector(
+            "Algae Shooter", this::getCurrentDraw, AlgaeShooterConstants.currentThreshold, AlgaeShooterConstants.releaseThreshold)
+        .withFilter(DetectorConstants.MEDIAN_SIZE, DetectorConstants.FILTER_TIME_CONSTANT)
+        .withDebounce(AlgaeShooterConstants.DEBOUNCE_TIME, AlgaeShooterConstants.DEBOUNCE_TIME);
 
     public AlgaeShooter() {
-        algaeShooterMotor.configure(
-                Configs.AlgaeShooter.algaeShooterConfig,
-                ResetMode.kResetSafeParameters,
-                PersistMode.kPersistParameters);
+        SparkConfigurator.configure("Algae Shooter", algaeShooterMotor, Configs.AlgaeShooter.algaeShooterConfig);
 
         algaeLoaded = false;
         isLoading = false;
@@ -56,41 +60,9 @@ public class AlgaeShooter extends SubsystemBase {
         return algaeShooterMotor.getOutputCurrent();
     }
 
-    // Method to check if algae is loaded based on current draw with debouncing
+    // Method to check if algae is loaded, from the filtered current detector
     public boolean checkAlgaeLoaded() {
-        double currentDraw = getCurrentDraw();
-        double currentTime = Timer.getFPGATimestamp();
-        
-        if (currentDraw > AlgaeShooterConstants.currentThreshold) {
-            // Reset the "below threshold" timer since we're above threshold
-            currentBelowThresholdStartTime = currentTime;
-            
-            // If this is the first time we're above threshold, start timing
-            if (currentAboveThresholdStartTime == 0) {
-                currentAboveThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been above threshold long enough
-            if (currentTime - currentAboveThresholdStartTime >= AlgaeShooterConstants.DEBOUNCE_TIME) {
-                return algaeLoaded = true;
-            }
-        } else {
-            // Reset the "above threshold" timer since we're below threshold
-            currentAboveThresholdStartTime = 0;
-            
-            // If this is the first time we're below threshold, start timing
-            if (currentBelowThresholdStartTime == 0) {
-                currentBelowThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been below threshold long enough
-            if (currentTime - currentBelowThresholdStartTime >= AlgaeShooterConstants.DEBOUNCE_TIME) {
-                return algaeLoaded = false;
-            }
-        }
-        
-        // Return the current state if we haven't debounced yet
-        return algaeLoaded;
+        return algaeLoaded = algaeDetector.isDetected();
     }
     
     public Trigger algaeLoadedTrigger() { 
@@ -129,6 +101,7 @@ public class AlgaeShooter extends SubsystemBase {
     
     @Override
     public void periodic() {
+        currentBoost.setBoosted(isLoading);
         checkAlgaeLoaded();
         algaeLoadedTrigger();
         
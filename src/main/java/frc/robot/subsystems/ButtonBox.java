@@ -1,33 +1,187 @@
 package frc.robot.subsystems;
 
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.networktables.IntegerArrayPublisher;
+import edu.wpi.first.networktables.IntegerArraySubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
 
 import java.util.function.BooleanSupplier;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
+import frc.robot.Constants.QueueConstants;
 import frc.robot.Constants.TargetClassConstants;
+import frc.robot.subsystems.Coral.ShooterArm;
 import frc.robot.subsystems.swervedrive.SwerveSubsystem;
+import frc.robot.util.LockFreeIntQueue;
 
+/**
+ * Queue of targets picked on the button box.
+ *
+ * The front target is planned whenever the queue changes: the alliance-relative pose to
+ * drive to, the elevator height and the shooter arm angle, so the commands that read it
+ * every loop don't redo the work. The front version counts every change of front target,
+ * so a running command can tell that it should move on.
+ *
+ * The queue belongs to the main robot thread and holds at most QueueConstants.CAPACITY
+ * targets. Other threads hand edits over through {@link #submit}, a lock-free queue that
+ * periodic drains. An operator UI does the same by writing [sequence, operation, code]
+ * to ButtonBox/Request in NetworkTables; the listener thread submits it the moment it
+ * arrives, and the sequence number tells repeated writes apart. Targets are coded as
+ * numbers by TargetClass.encode.
+ *
+ * Every change makes a new snapshot, [version, code, code, ...], that other threads can
+ * read without locking and that is published to ButtonBox/Queue. The readable Target
+ * List string is only rebuilt once per loop, however many edits there were.
+ */
 public class ButtonBox extends SubsystemBase {
 
-    private Queue<TargetClass> targetQueue = new LinkedList<>();
+    private final ArrayDeque<TargetClass> targetQueue = new ArrayDeque<>();
     private TargetClass lastAddedTarget = null; // Store the last target that was added
     private final SwerveSubsystem swerveSubsystem;
 
+    // Plan for the front of the queue
+    private TargetClass plannedTarget = null;
+    private Pose2d plannedPose = null;
+    private double plannedHeight = Double.NaN;
+    private double plannedAngle = Double.NaN;
+    private Alliance plannedAlliance = null;
+    private int frontVersion = 0;
+
+    // Edits from other threads, each an operation and target code packed by pack()
+    public static final int ADD = 1;
+    public static final int DELETE_FIRST = 2;
+    public static final int DELETE_LAST = 3;
+    public static final int CLEAR = 4;
+    public static final int REQUEUE_LAST = 5;
+    private final LockFreeIntQueue requests = new LockFreeIntQueue(QueueConstants.REQUEST_CAPACITY);
+    private long lastRequestSequence = Long.MIN_VALUE; // only touched by the NetworkTables listener
+
+    // Snapshot of the queue for other threads and the dashboard
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("ButtonBox");
+    private final IntegerArraySubscriber requestSubscriber = table.getIntegerArrayTopic("Request").subscribe(new long[0]);
+    private final IntegerArrayPublisher queuePublisher = table.getIntegerArrayTopic("Queue").publish();
+    private volatile int[] snapshot = {0};
+    private int version = 0;
+    private boolean queueStringStale = true;
+
     public ButtonBox(SwerveSubsystem swerveSubsystem) {
         this.swerveSubsystem = swerveSubsystem;
+        replan(false);
+
+        // A request retained from before boot was already handled, so only newer ones count
+        long[] retained = requestSubscriber.get();
+        if (retained.length > 0) {
+            lastRequestSequence = retained[0];
+        }
+
+        // Operator UI edits go straight into the request queue from the NetworkTables thread
+        NetworkTableInstance.getDefault().addListener(requestSubscriber,
+            EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::onRequest);
+    }
+
+    @Override
+    public void periodic() {
+        applyRequests();
+
+        // Poses are alliance-relative, so replan if the alliance shows up or changes
+        if (DriverStation.getAlliance().orElse(Alliance.Blue) != plannedAlliance) {
+            replan(false);
+        }
+
+        if (queueStringStale) {
+            SmartDashboard.putString("Target List", String.join(", ", getQueueString()));
+            queueStringStale = false;
+        }
+    }
+
+    /**
+     * Queues an edit from any thread; it is applied at the start of the next loop
+     *
+     * @param operation ADD, DELETE_FIRST, DELETE_LAST, CLEAR or REQUEUE_LAST
+     * @param code      target code from TargetClass.encode, for ADD
+     * @return false if too many edits are already waiting
+     */
+    public boolean submit(int operation, int code) {
+        return requests.offer(pack(operation, code));
+    }
+
+    private static int pack(int operation, int code) {
+        return (operation << 16) | (code & 0xFFFF);
+    }
+
+    private void onRequest(NetworkTableEvent event) {
+        long[] request = event.valueData.value.getIntegerArray();
+        if (request.length < 3 || request[0] == lastRequestSequence) {
+            return;
+        }
+        lastRequestSequence = request[0];
+        // Anything else could pack to an operation periodic doesn't know, or to the queue's EMPTY
+        long operation = request[1];
+        long code = request[2];
+        if (operation < ADD || operation > REQUEUE_LAST
+                || (operation == ADD && (code < 0 || code > 0xFFFF || !TargetClass.isValidCode((int) code)))) {
+            DriverStation.reportWarning("ButtonBox request ignored, no operation " + operation + " with code " + code, false);
+            return;
+        }
+        if (!submit((int) operation, operation == ADD ? (int) code : 0)) {
+            DriverStation.reportWarning("ButtonBox request dropped, too many waiting", false);
+        }
+    }
+
+    /**
+     * Applies the edits other threads have submitted, in the order they were submitted
+     */
+    private void applyRequests() {
+        for (int request = requests.poll(); request != LockFreeIntQueue.EMPTY; request = requests.poll()) {
+            int code = request & 0xFFFF;
+            switch (request >>> 16) {
+                case ADD:
+                    String name = TargetClass.decode(code);
+                    if (name != null) {
+                        addTarget(name);
+                    }
+                    break;
+                case DELETE_FIRST:
+                    deleteFirstTarget();
+                    break;
+                case DELETE_LAST:
+                    deleteLastTarget();
+                    break;
+                case CLEAR:
+                    clearTargets();
+                    break;
+                case REQUEUE_LAST:
+                    requeueLastTarget();
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 
     public void addTarget(TargetClass target) {
+        if (target == null) {
+            return;
+        }
+        if (targetQueue.size() >= QueueConstants.CAPACITY) {
+            DriverStation.reportWarning("Target queue full, " + target.getName() + " not added", false);
+            return;
+        }
         targetQueue.add(target);
         lastAddedTarget = target; // Save reference to last added target
-        updateDashboard();
+        replan(false);
     }
 
     public void addTarget(String targetName) {
@@ -41,7 +195,7 @@ public class ButtonBox extends SubsystemBase {
         if (swerveSubsystem != null) {
             swerveSubsystem.clearTargetVisualization();
         }
-        updateDashboard();
+        replan(false);
     }
     
     public IntSupplier currentLevelSupplier = () -> {
@@ -64,20 +218,21 @@ public class ButtonBox extends SubsystemBase {
         if(targetQueue.isEmpty()) {
             return;
         }
-        if (targetQueue instanceof LinkedList) {
-            ((LinkedList<TargetClass>) targetQueue).removeLast();
-        }
-        updateDashboard();
+        targetQueue.pollLast();
+        replan(false);
     }
 
     public void deleteFirstTarget() {
-        targetQueue.poll();
-        updateDashboard();
+        if (targetQueue.poll() != null) {
+            replan(true);
+        }
     }
 
     public TargetClass getNextTarget() {
         TargetClass target = targetQueue.poll();
-        updateDashboard();
+        if (target != null) {
+            replan(true);
+        }
         return target;
     }
 
@@ -85,6 +240,76 @@ public class ButtonBox extends SubsystemBase {
         return targetQueue.peek();
 
     }
+
+    /**
+     * Drops the front target once it has been scored, so the next one is planned
+     */
+    public void releaseCurrentTarget() {
+        deleteFirstTarget();
+    }
+
+    public Command releaseCurrentTargetCommand() {
+        return new InstantCommand(() -> releaseCurrentTarget());
+    }
+
+    /**
+     * Recomputes the plan for the front of the queue
+     *
+     * @param frontRemoved the front target was taken off, so it counts as a new front even if
+     *                     the same target is queued again behind it
+     */
+    private void replan(boolean frontRemoved) {
+        TargetClass previousFront = plannedTarget;
+        plannedAlliance = DriverStation.getAlliance().orElse(Alliance.Blue);
+
+        plannedTarget = targetQueue.peek();
+        if (plannedTarget != null) {
+            plannedPose = TargetClass.toPose2d(
+                new Pose2d(plannedTarget.getX(), plannedTarget.getY(), Rotation2d.fromRadians(plannedTarget.getZ())));
+            plannedHeight = Elevator.getTargetHeight(plannedTarget);
+            plannedAngle = ShooterArm.getTargetAngle(plannedTarget);
+        } else {
+            plannedPose = null;
+            plannedHeight = Double.NaN;
+            plannedAngle = Double.NaN;
+        }
+
+        if (frontRemoved || plannedTarget != previousFront) {
+            frontVersion++;
+        }
+        updateDashboard();
+    }
+
+    /** The front target, or null if the queue is empty */
+    public TargetClass getPlannedTarget() {
+        return plannedTarget;
+    }
+
+    /** Alliance-relative pose of the front target, or null if the queue is empty */
+    public Pose2d getPlannedPose() {
+        return plannedPose;
+    }
+
+    /** Elevator height for the front target, or NaN if it doesn't need the elevator to move */
+    public double getPlannedHeight() {
+        return plannedHeight;
+    }
+
+    /** Shooter arm angle for the front target, or NaN if it doesn't need the arm to move */
+    public double getPlannedAngle() {
+        return plannedAngle;
+    }
+
+    /** Changes every time the front of the queue does */
+    public int getFrontVersion() {
+        return frontVersion;
+    }
+
+    /** Whether the front target is a coral scoring position on the reef */
+    public boolean isCurrentTargetCoral() {
+        TargetClass target = targetQueue.peek();
+        return target != null && !target.isSource() && target.getName().startsWith("C");
+    }
     
     
     public Command getNextTargetCommand() {
@@ -103,10 +328,33 @@ public class ButtonBox extends SubsystemBase {
         return arr;
     }
 
+    /**
+     * Takes a new snapshot of the queue and publishes it; the Target List string follows in periodic
+     */
     public void updateDashboard() {
-        String[] queueArray = getQueueString();
-        String queueString = String.join(", ", queueArray);
-        SmartDashboard.putString("Target List", queueString);
+        version++;
+        int[] codes = new int[targetQueue.size() + 1];
+        long[] published = new long[codes.length];
+        codes[0] = version;
+        published[0] = version;
+        int i = 1;
+        for (TargetClass target : targetQueue) {
+            codes[i] = target.getCode();
+            published[i] = codes[i];
+            i++;
+        }
+        snapshot = codes;
+        queuePublisher.set(published);
+        queueStringStale = true;
+    }
+
+    /**
+     * Latest snapshot of the queue, safe to read from any thread; don't modify it
+     *
+     * @return [version, code of the front target, code of the next, ...]
+     */
+    public int[] getSnapshot() {
+        return snapshot;
     }
 
     public boolean hasQueue() {
@@ -114,9 +362,9 @@ public class ButtonBox extends SubsystemBase {
     }
 
     public void requeueLastTarget() {
-        if (lastAddedTarget != null) {
+        if (lastAddedTarget != null && targetQueue.size() < QueueConstants.CAPACITY) {
             targetQueue.add(lastAddedTarget);
-            updateDashboard();
+            replan(false);
         }
     }
     
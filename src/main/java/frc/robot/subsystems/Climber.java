@@ -4,10 +4,9 @@ import java.util.function.DoubleSupplier;
 
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 
@@ -15,45 +14,103 @@ import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.cscore.UsbCamera;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
 import frc.robot.Constants.ClimberConstants;
+import frc.robot.Constants.DetectorConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.util.Elastic;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.StatusFrameBoost;
+import frc.robot.sim.WinchSimModel;
 
 public class Climber extends SubsystemBase {
 
     private SparkMax climberMotor = new SparkMax(ClimberConstants.ID, MotorType.kBrushless);
+
+    // Physics model, only created in simulation
+    private WinchSimModel sim;
     
     // Add encoder and closed loop controller for position control
     private RelativeEncoder m_encoder;
     private SparkClosedLoopController climberClosedLoopController;
     
-    // Add profile for smooth motion control
+    // Pawl on the winch ratchet; engaged it lets the winch pull in but not pay out
+    private final PaulServo pawl;
+
+    // Free profile while the strap is slack, slower higher-torque one once the robot is hanging
     private final TrapezoidProfile m_profile = new TrapezoidProfile(
         new TrapezoidProfile.Constraints(ClimberConstants.maxVelocity, ClimberConstants.maxAcceleration));
+    private final TrapezoidProfile m_loadedProfile = new TrapezoidProfile(
+        new TrapezoidProfile.Constraints(ClimberConstants.loadedMaxVelocity, ClimberConstants.loadedMaxAcceleration));
     private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
     private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+
+    /**
+     * MANUAL: driven by moveWithPower
+     * EXTENDING: paying out to grab the cage, pawl disengaged
+     * RETRACTING: pulling in on the free profile, watching for the cage to take the weight if AUTO_LATCH is on
+     * CLIMBING: on the cage, loaded profile to the latch point
+     * LATCHED: at the latch point, motor off and the pawl holding the robot
+     */
+    public enum ClimbState {
+        MANUAL,
+        EXTENDING,
+        RETRACTING,
+        CLIMBING,
+        LATCHED
+    }
+
+    private ClimbState state = ClimbState.MANUAL;
+
+    // Profiled moves wait for the pawl servo to finish moving
+    private double motionStartTime = 0;
+
+    // Current rises and the winch slows once the strap takes the robot's weight
+    private final GamePieceDetector cageDetector = new GamePieceDetector(
+            "Climber Cage", this::getCurrentDraw, ClimberConstants.CAGE_CURRENT_THRESHOLD, ClimberConstants.CAGE_RELEASE_CURRENT)
+        .withFilter(DetectorConstants.MEDIAN_SIZE, DetectorConstants.FILTER_TIME_CONSTANT)
+        .withDebounce(ClimberConstants.CAGE_DETECT_TIME, 0)
+        .withStallVelocity(() -> m_encoder.getVelocity(), ClimberConstants.CAGE_VELOCITY)
+        .latching();
+
+    // Current and velocity frames for cage detection while pulling in
+    private final StatusFrameBoost climbSignals;
+    private boolean loadedCurrentLimit = true;
     
     // Position control variables
     public float climberDesiredPosition = 0;
-    private double kDt = 0.02; // 20ms periodic time
-    private boolean isInManualMode = true; // Default to manual mode
     private boolean isInitialized = false;
 
+    // Created once in the constructor
+    private final Trigger atSetpointTrigger;
+    private final Trigger fullyRetractedTrigger;
+    private final Trigger fullyExtendedTrigger;
+    private final Trigger cageEngagedTrigger;
+    private final Trigger latchedTrigger;
+
     private boolean cameraOn = false;
     
     // Track manual control input
     private double manualPower = 0;
 
-    public Climber() {
-        climberMotor.configure(
-                Configs.Climber.climberConfig,
-                ResetMode.kResetSafeParameters,
-                PersistMode.kPersistParameters);
+    public Climber(PaulServo pawl) {
+        this.pawl = pawl;
+
+        if (RobotBase.isSimulation()) {
+            sim = new WinchSimModel(climberMotor, SimConstants.CLIMBER_GEARING, SimConstants.CLIMBER_MOI,
+                ClimberConstants.min, ClimberConstants.max);
+        }
+
+        SparkConfigurator.configure("Climber", climberMotor, Configs.Climber.climberConfig);
         
         // Get encoder and closed loop controller references
         m_encoder = climberMotor.getEncoder();
@@ -61,13 +118,39 @@ public class Climber extends SubsystemBase {
         
         // Reset encoder position
         m_encoder.setPosition(0);
+
+        climbSignals = new StatusFrameBoost(climberMotor, Configs.Climber.climbingSignals, Configs.Climber.normalSignals);
+
+        atSetpointTrigger = new Trigger(this::isAtSetpointBoolean);
+        fullyRetractedTrigger = new Trigger(() -> isNear(ClimberConstants.retractedPosition));
+        fullyExtendedTrigger = new Trigger(() -> isNear(ClimberConstants.extendedPosition));
+        cageEngagedTrigger = new Trigger(() -> state == ClimbState.CLIMBING || state == ClimbState.LATCHED);
+        latchedTrigger = new Trigger(() -> state == ClimbState.LATCHED);
+    }
+
+    private double getCurrentDraw() {
+        return climberMotor.getOutputCurrent();
+    }
+
+    /**
+     * Starts a profiled move, from wherever the winch is if it was being driven by hand
+     */
+    private void startProfiledMove(ClimbState newState, float position) {
+        if (state == ClimbState.MANUAL || state == ClimbState.LATCHED) {
+            m_setpoint = new TrapezoidProfile.State(m_encoder.getPosition(), 0);
+        }
+        state = newState;
+        climberDesiredPosition = position;
+        manualPower = 0; // Clear manual power
     }
 
     // Position control methods
     public void setFullRetract() {
-        climberDesiredPosition = ClimberConstants.retractedPosition;
-        isInManualMode = false; // Switch to position control
-        manualPower = 0; // Clear manual power
+        // The pawl ratchets while pulling in and holds the robot if anything lets go
+        pawl.setEngage();
+        startProfiledMove(ClimbState.RETRACTING, ClimberConstants.retractedPosition);
+        motionStartTime = Timer.getFPGATimestamp();
+        cageDetector.reset();
     }
 
 
@@ -81,16 +164,18 @@ public class Climber extends SubsystemBase {
             Elastic.selectTab("Climber");
         }
 
-        climberDesiredPosition = ClimberConstants.extendedPosition;
-        isInManualMode = false; // Switch to position control
-        manualPower = 0; // Clear manual power
+        // Paying out needs the pawl clear of the ratchet first
+        double now = Timer.getFPGATimestamp();
+        motionStartTime = pawl.isEngaged() ? now + ClimberConstants.PAWL_TRAVEL_TIME : now;
+        pawl.setDisengage();
+        startProfiledMove(ClimbState.EXTENDING, ClimberConstants.extendedPosition);
     }
 
     // Original manual control methods - these should switch to manual mode
     private void setZero() {
         climberMotor.set(0);
         manualPower = 0;
-        isInManualMode = true; // Switch to manual control
+        state = ClimbState.MANUAL; // Switch to manual control
     }
 
 
@@ -102,10 +187,10 @@ public class Climber extends SubsystemBase {
             climbPower = 0;
         } else {
             climbPower = MathUtil.clamp(climbPower, -1, 1);
-            isInManualMode = true; // Switch to manual control only with significant input
+            state = ClimbState.MANUAL; // Switch to manual control only with significant input
         }
         // Only set motor power directly when in manual mode
-        if (isInManualMode) {
+        if (state == ClimbState.MANUAL) {
             climberMotor.set(climbPower);
         }
         manualPower = climbPower;
@@ -127,35 +212,37 @@ public class Climber extends SubsystemBase {
     
     // Position feedback methods
     public Trigger isAtSetpoint() {
-        return new Trigger(() -> {
-            boolean atSetpoint = m_encoder.getPosition() >= climberDesiredPosition - ClimberConstants.SETPOINT_TOLERANCE &&
-                               m_encoder.getPosition() <= climberDesiredPosition + ClimberConstants.SETPOINT_TOLERANCE;
-            SmartDashboard.putBoolean("Climber At Setpoint", atSetpoint);
-            return atSetpoint;
-        });
+        return atSetpointTrigger;
     }
     
     public boolean isAtSetpointBoolean() {
-        return m_encoder.getPosition() >= climberDesiredPosition - ClimberConstants.SETPOINT_TOLERANCE &&
-               m_encoder.getPosition() <= climberDesiredPosition + ClimberConstants.SETPOINT_TOLERANCE;
+        return isNear(climberDesiredPosition);
     }
     
     public Trigger isFullyRetracted() {
-        return new Trigger(() -> {
-            boolean retracted = m_encoder.getPosition() >= ClimberConstants.retractedPosition - ClimberConstants.SETPOINT_TOLERANCE &&
-                               m_encoder.getPosition() <= ClimberConstants.retractedPosition + ClimberConstants.SETPOINT_TOLERANCE;
-            SmartDashboard.putBoolean("Climber Fully Retracted", retracted);
-            return retracted;
-        });
+        return fullyRetractedTrigger;
     }
     
     public Trigger isFullyExtended() {
-        return new Trigger(() -> {
-            boolean extended = m_encoder.getPosition() >= ClimberConstants.extendedPosition - ClimberConstants.SETPOINT_TOLERANCE &&
-                              m_encoder.getPosition() <= ClimberConstants.extendedPosition + ClimberConstants.SETPOINT_TOLERANCE;
-            SmartDashboard.putBoolean("Climber Fully Extended", extended);
-            return extended;
-        });
+        return fullyExtendedTrigger;
+    }
+
+    // True once the strap has taken the robot's weight
+    public Trigger cageEngagedTrigger() {
+        return cageEngagedTrigger;
+    }
+
+    // True once the climb has stopped at the latch point
+    public Trigger latchedTrigger() {
+        return latchedTrigger;
+    }
+
+    public ClimbState getState() {
+        return state;
+    }
+
+    private boolean isNear(double position) {
+        return Math.abs(m_encoder.getPosition() - position) <= ClimberConstants.SETPOINT_TOLERANCE;
     }
 
     @Override
@@ -164,32 +251,103 @@ public class Climber extends SubsystemBase {
         if (!isInitialized) {
             climberDesiredPosition = (float) m_encoder.getPosition();
             isInitialized = true;
-            isInManualMode = true; // Default to manual mode on startup
+            state = ClimbState.MANUAL; // Default to manual mode on startup
         }
         
         // Dashboard updates
         SmartDashboard.putNumber("Climber Current Position", m_encoder.getPosition());
         SmartDashboard.putNumber("Climber Desired Position", climberDesiredPosition);
-        SmartDashboard.putBoolean("Climber Manual Mode", isInManualMode);
+        SmartDashboard.putBoolean("Climber Manual Mode", state == ClimbState.MANUAL);
         SmartDashboard.putNumber("Climber Manual Power", manualPower);
 
         SmartDashboard.putNumber("Climber OutputPower", climberMotor.getOutputCurrent());
         
-        // Only use position control when not in manual mode
-        if (!isInManualMode) {
-            float desiredPosition = (float) MathUtil.clamp(climberDesiredPosition, 
-                                                         ClimberConstants.min, 
-                                                         ClimberConstants.max);
-            
-            // Use trapezoid profile for smooth motion
-            m_goal = new TrapezoidProfile.State(desiredPosition, 0);
-            m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
-            
-
-            // Set the motor to the profile setpoint
-            climberClosedLoopController.setReference(m_setpoint.position, 
-                                                  ControlType.kPosition, 
-                                                  ClosedLoopSlot.kSlot0);
+        SmartDashboard.putString("Climber State", state.toString());
+        SmartDashboard.putBoolean("Climber At Setpoint", isAtSetpointBoolean());
+        SmartDashboard.putBoolean("Climber Fully Retracted", isNear(ClimberConstants.retractedPosition));
+        SmartDashboard.putBoolean("Climber Fully Extended", isNear(ClimberConstants.extendedPosition));
+
+        // Cage detection needs fast current and velocity while pulling in
+        boolean watchingForCage = ClimberConstants.AUTO_LATCH && state == ClimbState.RETRACTING;
+        climbSignals.setBoosted(watchingForCage || state == ClimbState.CLIMBING);
+
+        // Full current once there is weight on the strap or someone is driving it,
+        // less while a profiled move runs slack so a snag can't strip the winch.
+        // Without AUTO_LATCH nothing tells a slack retract from a loaded one, so it gets full current.
+        setLoadedCurrentLimit(state != ClimbState.EXTENDING && !watchingForCage);
+
+        double now = Timer.getFPGATimestamp();
+
+        switch (state) {
+            case MANUAL:
+                // moveWithPower drives the motor
+                return;
+
+            case LATCHED:
+                // Motor was stopped on the way in; the pawl is holding the robot
+                return;
+
+            case RETRACTING:
+                if (!ClimberConstants.AUTO_LATCH) {
+                    // Pull in to retractedPosition like any other profiled move
+                    break;
+                }
+                if (now - motionStartTime < ClimberConstants.CAGE_ARM_TIME) {
+                    // Spinning up draws current like a load would
+                    cageDetector.reset();
+                } else if (cageDetector.isDetected()) {
+                    // Robot is on the cage: slow down, add torque, and stop at the latch point
+                    state = ClimbState.CLIMBING;
+                    climberDesiredPosition = ClimberConstants.latchPosition;
+                }
+                break;
+
+            case CLIMBING:
+                if (m_encoder.getPosition() <= ClimberConstants.latchPosition + ClimberConstants.SETPOINT_TOLERANCE) {
+                    state = ClimbState.LATCHED;
+                    pawl.setEngage();
+                    climberMotor.set(0);
+                    return;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        if (now < motionStartTime) {
+            // Waiting for the pawl to swing clear
+            m_setpoint = new TrapezoidProfile.State(m_encoder.getPosition(), 0);
+            climberMotor.set(0);
+            return;
+        }
+
+        float desiredPosition = (float) MathUtil.clamp(climberDesiredPosition, 
+                                                     ClimberConstants.min, 
+                                                     ClimberConstants.max);
+        
+        // Use trapezoid profile for smooth motion
+        m_goal = new TrapezoidProfile.State(desiredPosition, 0);
+        boolean loaded = state == ClimbState.CLIMBING;
+        m_setpoint = (loaded ? m_loadedProfile : m_profile).calculate(TimedRobot.kDefaultPeriod, m_setpoint, m_goal);
+
+        // Loaded, the second slot's stiffer gains and a feedforward hold up the robot's weight
+        climberClosedLoopController.setReference(m_setpoint.position, 
+                                              ControlType.kPosition, 
+                                              loaded ? ClosedLoopSlot.kSlot1 : ClosedLoopSlot.kSlot0,
+                                              loaded ? ClimberConstants.LOADED_FEEDFORWARD : 0,
+                                              ArbFFUnits.kVoltage);
+    }
+
+    private void setLoadedCurrentLimit(boolean loaded) {
+        if (loaded != loadedCurrentLimit) {
+            loadedCurrentLimit = loaded;
+            SparkConfigurator.update(climberMotor, loaded ? Configs.Climber.loadedCurrentLimit : Configs.Climber.freeCurrentLimit);
         }
     }
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(TimedRobot.kDefaultPeriod);
+    }
 }
\ No newline at end of file
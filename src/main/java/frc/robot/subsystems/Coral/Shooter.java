@@ -1,10 +1,12 @@
 package frc.robot.subsystems.Coral;
 
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
+import java.util.function.BooleanSupplier;
+
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.SparkMax;
 
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -13,20 +15,43 @@ import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
+import frc.robot.Constants.DetectorConstants;
 import frc.robot.Constants.ShooterConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.RobotContainer;
+import frc.robot.sim.RollerSimModel;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.StatusFrameBoost;
 
 public class Shooter extends SubsystemBase {
 
     private SparkMax shooterMotor = new SparkMax(ShooterConstants.ID, MotorType.kBrushless);
 
+    // Faster current frames while intaking so coral detection sees fresh samples
+    private final StatusFrameBoost currentBoost = new StatusFrameBoost(
+        shooterMotor, Configs.Shooter.sensingSignals, Configs.Shooter.normalSignals);
+
+    private RollerSimModel sim;
+
     public static boolean coralLoaded;
 
+    // Coral is on the rollers but not yet seated; the funnel calms its shake for it
+    public static boolean coralEntering;
+
     private boolean isLoading;
+
+    // Set once the coral has been pushed out, and cleared when the next outtake starts
+    private boolean coralReleased;
+    private boolean isOuttaking;
+    private final Timer outtakeTimer = new Timer();
     
-    // Debounce timer variables
-    private double currentAboveThresholdStartTime = 0;
-    private double currentBelowThresholdStartTime = 0;
+    // Filtered current detection, sampled faster than the loop by Robot
+    private final GamePieceDetector coralDetector = new GamePieceDetector(
+            "Coral", this::getCurrentDraw, ShooterConstants.currentThreshold, ShooterConstants.releaseThreshold)
+        .withFilter(DetectorConstants.MEDIAN_SIZE, DetectorConstants.FILTER_TIME_CONSTANT)
+        .withDebounce(ShooterConstants.DETECT_TIME, ShooterConstants.DEBOUNCE_TIME)
+        .withRiseRate(ShooterConstants.riseRate);
 
     private boolean isL1Scoring = false; // Flag for L1 scoring
     
@@ -34,10 +59,12 @@ public class Shooter extends SubsystemBase {
     private RobotContainer robotContainer;
 
     public Shooter() {
-        shooterMotor.configure(
-                Configs.Shooter.shooterConfig,
-                ResetMode.kResetSafeParameters,
-                PersistMode.kPersistParameters);
+        if (RobotBase.isSimulation()) {
+            sim = new RollerSimModel(shooterMotor, SimConstants.SHOOTER_ROLLER_GEARING, SimConstants.SHOOTER_ROLLER_MOI,
+                ShooterConstants.intake);
+        }
+
+        SparkConfigurator.configure("Shooter", shooterMotor, Configs.Shooter.shooterConfig);
 
         coralLoaded = false;
         isLoading = false;
@@ -48,50 +75,30 @@ public class Shooter extends SubsystemBase {
         this.robotContainer = container;
     }
 
+    /**
+     * Sets when simulated coral can be picked up. Does nothing on the real robot.
+     */
+    public void setSimCoralAvailable(BooleanSupplier available) {
+        if (sim != null) {
+            sim.setPieceAvailable(available);
+        }
+    }
+
     // Method to get the current draw from the motor
     private double getCurrentDraw() {
         return shooterMotor.getOutputCurrent();
     }
 
-    // Method to check if the coral is loaded based on current draw with debouncing
+    // Method to check if the coral is loaded, from the filtered current detector
     public boolean checkCoralLoaded() {
-        double currentDraw = getCurrentDraw();
-        double currentTime = Timer.getFPGATimestamp();
-        
-        if (currentDraw > ShooterConstants.currentThreshold) {
-            // Reset the "below threshold" timer since we're above threshold
-            currentBelowThresholdStartTime = currentTime;
-            
-            // If this is the first time we're above threshold, start timing
-            if (currentAboveThresholdStartTime == 0) {
-                currentAboveThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been above threshold long enough
-            if (currentTime - currentAboveThresholdStartTime >= ShooterConstants.DEBOUNCE_TIME) {
-                // Check if we're transitioning from not loaded to loaded
-                if (!coralLoaded) {
-                    // Trigger rumble when coral becomes loaded
-                    if (robotContainer != null) {
-                        triggerCoralLoadedRumble();
-                    }
-                }
-                coralLoaded = true;
-            }
-        } else {
-            // Reset the "above threshold" timer since we're below threshold
-            currentAboveThresholdStartTime = 0;
-            
-            // If this is the first time we're below threshold, start timing
-            if (currentBelowThresholdStartTime == 0) {
-                currentBelowThresholdStartTime = currentTime;
-            }
-            
-            // Check if we've been below threshold long enough
-            if (currentTime - currentBelowThresholdStartTime >= ShooterConstants.DEBOUNCE_TIME) {
-                coralLoaded = false;
-            }
+        boolean loaded = coralDetector.isDetected();
+
+        // Trigger rumble when coral becomes loaded
+        if (loaded && !coralLoaded && robotContainer != null) {
+            triggerCoralLoadedRumble();
         }
+        coralLoaded = loaded;
+        coralEntering = !loaded && isLoading && coralDetector.getFilteredCurrent() >= ShooterConstants.releaseThreshold;
         return coralLoaded;
     }
     
@@ -129,18 +136,39 @@ public class Shooter extends SubsystemBase {
     public Trigger coralLoadedTrigger(){ 
         return new Trigger(this::checkCoralLoaded);
     }
+
+    /**
+     * Pushing the coral out holds the current up, so once the spin-up has passed, the
+     * current falling back to free running means the coral has left the rollers
+     */
+    private void checkCoralReleased() {
+        if (isOuttaking && !coralReleased && outtakeTimer.hasElapsed(ShooterConstants.RELEASE_ARM_TIME)
+                && coralDetector.getFilteredCurrent() < ShooterConstants.releaseThreshold) {
+            coralReleased = true;
+        }
+    }
+
+    // True from the coral leaving during an outtake until the next outtake starts
+    public Trigger coralReleasedTrigger() {
+        return new Trigger(() -> coralReleased);
+    }
     
     private void setZeroSpeed() {
         isLoading = false;
+        isOuttaking = false;
         shooterMotor.set(0);
     }
 
     private void setIntake() {
         isLoading = true;
+        isOuttaking = false;
         shooterMotor.set(ShooterConstants.intake);
     }
 
     private void setOutake() {
+        isOuttaking = true;
+        coralReleased = false;
+        outtakeTimer.restart();
         shooterMotor.set(ShooterConstants.outake);
     }
 
@@ -174,7 +202,9 @@ public class Shooter extends SubsystemBase {
 
     @Override
     public void periodic(){
+        currentBoost.setBoosted(isLoading || isOuttaking);
         checkCoralLoaded();
+        checkCoralReleased();
         
         // If coral is loaded and we're still trying to intake, stop the motor
         if(coralLoaded && isLoading){
@@ -183,5 +213,11 @@ public class Shooter extends SubsystemBase {
 
         SmartDashboard.putNumber("Current Draw", getCurrentDraw());
         SmartDashboard.putBoolean("Coral Loaded", coralLoaded);
+        SmartDashboard.putBoolean("Coral Released", coralReleased);
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(TimedRobot.kDefaultPeriod);
     }
 }
\ No newline at end of file
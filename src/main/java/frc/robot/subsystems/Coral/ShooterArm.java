@@ -2,16 +2,11 @@ package frc.robot.subsystems.Coral;
 
 import com.revrobotics.spark.SparkLowLevel.MotorType;
 
-import java.util.function.BooleanSupplier;
-import java.util.function.IntSupplier;
-
 import com.revrobotics.AbsoluteEncoder;
 import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkClosedLoopController;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 
 import edu.wpi.first.math.MathUtil;
@@ -19,14 +14,26 @@ import edu.wpi.first.math.controller.ArmFeedforward;
 // Restore trapezoidal profile import
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
+import frc.robot.Constants.CoordinatorConstants;
+import frc.robot.Constants.IdentificationConstants;
 import frc.robot.Constants.ShooterArmConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.subsystems.ButtonBox;
+import frc.robot.subsystems.TargetClass;
+import frc.robot.util.FeedforwardEstimator;
+import frc.robot.util.MechanismSysId;
+import frc.robot.util.OnboardProfile;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.sim.ArmSimModel;
 
 public class ShooterArm extends SubsystemBase {
 
@@ -37,10 +44,20 @@ public class ShooterArm extends SubsystemBase {
 
     private SparkMax shooterArmMotor = new SparkMax(ShooterArmConstants.ID, MotorType.kBrushless);
 
+    // Physics model, only created in simulation
+    private ArmSimModel sim;
+
     private SparkClosedLoopController shooterArmController = shooterArmMotor.getClosedLoopController();
 
     private AbsoluteEncoder shooterArmEncoder = shooterArmMotor.getAbsoluteEncoder();
     
+    // Fits kS/kG/kV/kA from normal driving, in the same units as armFeedforward
+    private final FeedforwardEstimator feedforwardEstimator =
+        new FeedforwardEstimator("Shooter Arm", ShooterArmConstants.FF_ID_MIN_VELOCITY);
+
+    // Set while a SysId test drives the motor directly
+    private boolean isCharacterizing = false;
+    
     // Keep ArmFeedforward controller
     private final ArmFeedforward armFeedforward = new ArmFeedforward(
         ShooterArmConstants.kS, 
@@ -59,6 +76,9 @@ public class ShooterArm extends SubsystemBase {
     private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
     private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
 
+    // Used instead of m_profile with ShooterArmConstants.USE_MAXMOTION
+    private final OnboardProfile onboardProfile = new OnboardProfile(shooterArmController);
+
     // Conversion factors to convert between encoder units and radians
     private final double kEncoderToRadians = 2.0 * Math.PI; // Adjust this value based on your encoder's range
     
@@ -82,9 +102,21 @@ public class ShooterArm extends SubsystemBase {
         return encoderToRadians(encoderPosition) - kHorizontalReferenceRad;
     }
 
+    /**
+     * Encoder velocity in rotations per second; the encoder reports RPM
+     */
+    private double getEncoderVelocity() {
+        return shooterArmEncoder.getVelocity() / 60.0;
+    }
+
     public ShooterArm() {
-        shooterArmMotor.configure(Configs.ShooterArm.shooterArmConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        shooterArmDesiredAngle = (float)(shooterArmEncoder.getPosition());
+        if (RobotBase.isSimulation()) {
+            sim = new ArmSimModel(shooterArmMotor, SimConstants.SHOOTER_ARM_GEARING, SimConstants.SHOOTER_ARM_LENGTH, SimConstants.SHOOTER_ARM_MASS,
+                ShooterArmConstants.min, ShooterArmConstants.max, ShooterArmConstants.feedforwardOffset, ShooterArmConstants.loadAngle);
+        }
+
+        // The starting angle is read on the first periodic, after RobotContainer has waited out the config
+        SparkConfigurator.configure("Shooter Arm", shooterArmMotor, Configs.ShooterArm.shooterArmConfig);
     }
 
     private void setScoreLOW() {
@@ -190,36 +222,75 @@ public class ShooterArm extends SubsystemBase {
         return command;
     }
     
-    public Command shooterArmBasedOnQueueCommand(ButtonBox buttonBox) {
+    /**
+     * Angle for the level at the front of the queue
+     *
+     * @return the angle, or NaN if the queue doesn't need the arm to move
+     */
+    public double getQueueAngle(ButtonBox buttonBox) {
+        return buttonBox.getPlannedAngle();
+    }
+
+    /**
+     * Angle for a target's level; ButtonBox plans this for the front target
+     *
+     * @return the angle, or NaN if the target doesn't need the arm to move
+     */
+    public static double getTargetAngle(TargetClass target) {
+        if (target == null) {
+            return Double.NaN;
+        }
 
-        IntSupplier currentLevelSupplier = buttonBox.currentLevelSupplier;
-        BooleanSupplier currentSideSupplier = buttonBox.currentisLeftSupplier;
+        int level = target.getLevel();
+        if (level == 1 || level == 2) {
+            return ShooterArmConstants.scoreAngleLOW;
+        } else if (level == 3) {
+            // Both sides of L4 use the same angle
+            return ShooterArmConstants.scoreAngleHIGH;
+        }
+        return Double.NaN;
+    }
 
-        Command command = new InstantCommand(() -> {
+    public Command shooterArmBasedOnQueueCommand(ButtonBox buttonBox) {
 
-            if (currentLevelSupplier != null && currentSideSupplier != null) {
-                if (currentLevelSupplier.getAsInt() == 0) {
-                    new InstantCommand();
-                } else if (currentLevelSupplier.getAsInt() == 1) {
-                    setScoreLOW();
-                } else if (currentLevelSupplier.getAsInt() == 2) {
-                    setScoreLOW();
-                } else if (currentLevelSupplier.getAsInt() == 3) {
-                    if (currentSideSupplier.getAsBoolean()) {
-                        // Left L4
-                        shooterArmDesiredAngle = ShooterArmConstants.scoreAngleHIGH;
-                    } else {
-                        // Right L4
-                        shooterArmDesiredAngle = ShooterArmConstants.scoreAngleHIGH;
-                    }
-                }
+        Command command = new InstantCommand(() -> {
+            double angle = getQueueAngle(buttonBox);
+            if (!Double.isNaN(angle)) {
+                setGoal(angle);
             }
         });
         return command;
     }
 
+    /**
+     * Moves to an angle, used by the MotionCoordinator
+     */
+    public void setGoal(double angle) {
+        shooterArmDesiredAngle = (float) angle;
+    }
+
+    public double getPosition() {
+        return shooterArmEncoder.getPosition();
+    }
+
+    /**
+     * Runs the SysId tests, stopping short of either end of travel
+     */
+    public Command sysIdCommand() {
+        return MechanismSysId.characterize(this, "shooter-arm",
+                volts -> {
+                    isCharacterizing = true;
+                    shooterArmMotor.setVoltage(volts);
+                },
+                shooterArmEncoder::getPosition,
+                this::getEncoderVelocity,
+                () -> shooterArmEncoder.getPosition() >= ShooterArmConstants.max - ShooterArmConstants.SYSID_MARGIN,
+                () -> shooterArmEncoder.getPosition() <= ShooterArmConstants.min + ShooterArmConstants.SYSID_MARGIN)
+            .finallyDo(() -> isCharacterizing = false);
+    }
+
     public Trigger isClearToElevate() {
-        return new Trigger(() -> shooterArmEncoder.getPosition() >= 0.5);
+        return new Trigger(() -> shooterArmEncoder.getPosition() >= CoordinatorConstants.SHOOTER_ARM_CLEAR_ANGLE);
     }
     
     /**
@@ -242,7 +313,7 @@ public class ShooterArm extends SubsystemBase {
             }
             
             // For all other cases, use the standard clearance condition
-            return shooterArmEncoder.getPosition() >= 0.5;
+            return shooterArmEncoder.getPosition() >= CoordinatorConstants.SHOOTER_ARM_CLEAR_ANGLE;
         });
     }
 
@@ -281,10 +352,12 @@ public class ShooterArm extends SubsystemBase {
         // Set goal for motion profile
         m_goal = new TrapezoidProfile.State(shooterArmDesiredAngle, 0);
         
-        // Calculate next setpoint
-        m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
+        // Calculate next setpoint (the SparkMax does this itself with MAXMotion)
+        if (!ShooterArmConstants.USE_MAXMOTION) {
+            m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
+        }
 
-        if (DriverStation.isDisabled()) {
+        if (DriverStation.isDisabled() || isCharacterizing) {
             shooterArmDesiredAngle = (float)shooterArmEncoder.getPosition();
             // Restore setpoint reset
             m_setpoint = new TrapezoidProfile.State(shooterArmEncoder.getPosition(), 0);
@@ -292,7 +365,17 @@ public class ShooterArm extends SubsystemBase {
         
         // Convert profile positions to radians for feedforward
         double currentPositonRad = encoderToFeedforwardRadians(shooterArmEncoder.getPosition() - ShooterArmConstants.feedforwardOffset);
-        double currentVelocityRad = shooterArmEncoder.getVelocity() * kEncoderToRadians;
+        double currentVelocityRad = getEncoderVelocity() * kEncoderToRadians;
+
+        // Fit the feedforward from what the motor is actually doing
+        if (DriverStation.isEnabled()) {
+            feedforwardEstimator.update(
+                shooterArmMotor.getAppliedOutput() * IdentificationConstants.NOMINAL_VOLTAGE,
+                Math.cos(currentPositonRad),
+                currentVelocityRad,
+                Timer.getFPGATimestamp());
+        }
+        feedforwardEstimator.publish();
         
         // Calculate the feedforward output using radians
         double feedforwardOutput = armFeedforward.calculate(
@@ -310,6 +393,17 @@ public class ShooterArm extends SubsystemBase {
         SmartDashboard.putNumber("Shooter Arm Profile Position", m_setpoint.position);
         SmartDashboard.putNumber("Shooter Arm Profile Velocity", m_setpoint.velocity);
         
+        if (isCharacterizing) {
+            // SysId is driving the motor
+            return;
+        }
+
+        if (ShooterArmConstants.USE_MAXMOTION) {
+            // The SparkMax profiles to the goal; gravity still comes from our feedforward model
+            onboardProfile.setGoal(shooterArmDesiredAngle, armFeedforward.calculate(currentPositonRad, 0));
+            return;
+        }
+
         // Use profiled position with feedforward
         shooterArmController.setReference(
             m_setpoint.position, 
@@ -319,4 +413,9 @@ public class ShooterArm extends SubsystemBase {
             ArbFFUnits.kVoltage
         );
     }
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(TimedRobot.kDefaultPeriod);
+    }
 }
\ No newline at end of file
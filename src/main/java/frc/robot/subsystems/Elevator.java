@@ -1,12 +1,7 @@
 package frc.robot.subsystems;
 
-import java.util.function.BooleanSupplier;
-import java.util.function.IntSupplier;
-
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkClosedLoopController;
@@ -15,17 +10,25 @@ import com.revrobotics.spark.SparkLowLevel.MotorType;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ElevatorFeedforward;
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
 import frc.robot.Constants.ElevatorConstants;
+import frc.robot.Constants.IdentificationConstants;
 import frc.robot.Constants.TargetClassConstants;
 import frc.robot.RobotContainer;
+import frc.robot.util.FeedforwardEstimator;
+import frc.robot.util.MechanismSysId;
+import frc.robot.util.MotionProfile;
+import frc.robot.util.OnboardProfile;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.sim.ElevatorSimModel;
 
 public class Elevator extends SubsystemBase {
 
@@ -41,13 +44,22 @@ public class Elevator extends SubsystemBase {
 
     private SparkMax elevatorSlave = new SparkMax(ElevatorConstants.slaveID, MotorType.kBrushless);
 
+    // Physics model, only created in simulation
+    private ElevatorSimModel sim;
+
     private SparkClosedLoopController elevatorClosedLoopController = elevatorMotor.getClosedLoopController();
     
-    private final TrapezoidProfile m_profile = new TrapezoidProfile(new TrapezoidProfile.Constraints(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration));
+    // Whole profile is computed when the goal changes, then sampled at the real time since
+    private final MotionProfile m_profile = ElevatorConstants.USE_S_CURVE
+        ? new MotionProfile(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration, ElevatorConstants.maxJerk)
+        : new MotionProfile(ElevatorConstants.maxVelocity, ElevatorConstants.maxAcceleration);
+
+    private double m_profileStartTime = 0;
 
-    private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
+    // Used instead of m_profile with ElevatorConstants.USE_MAXMOTION
+    private final OnboardProfile m_onboardProfile = new OnboardProfile(elevatorClosedLoopController);
 
-    private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+    private final MotionProfile.State m_setpoint = new MotionProfile.State();
 
     // Add ElevatorFeedforward controller
     private final ElevatorFeedforward m_feedforward = new ElevatorFeedforward(
@@ -57,6 +69,13 @@ public class Elevator extends SubsystemBase {
         ElevatorConstants.kA
     );
 
+    // Fits kS/kG/kV/kA from normal driving, up positive like m_feedforward
+    private final FeedforwardEstimator m_feedforwardEstimator =
+        new FeedforwardEstimator("Elevator", ElevatorConstants.FF_ID_MIN_VELOCITY);
+
+    // Set while a SysId test drives the motor directly
+    private boolean isCharacterizing = false;
+
     private RelativeEncoder m_encoder;
     
     private RobotContainer robotContainer;
@@ -75,21 +94,18 @@ public class Elevator extends SubsystemBase {
     private Trigger fullyRaisedTrigger;
 
     public Elevator(RobotContainer robotContainer) {
+        if (RobotBase.isSimulation()) {
+            sim = new ElevatorSimModel(elevatorMotor);
+        }
+
         this.robotContainer = robotContainer;
         
         m_encoder = elevatorMotor.getEncoder();
         m_encoder.setPosition(0);
         
 
-        elevatorMotor.configure(
-                Configs.Elevator.elevatorConfig,
-                ResetMode.kResetSafeParameters,
-                PersistMode.kPersistParameters);
-
-        elevatorSlave.configure(
-                Configs.ElevatorSlave.elevatorSlaveConfig,
-                ResetMode.kResetSafeParameters,
-                PersistMode.kPersistParameters);
+        SparkConfigurator.configure("Elevator", elevatorMotor, Configs.Elevator.elevatorConfig);
+        SparkConfigurator.configure("Elevator Slave", elevatorSlave, Configs.ElevatorSlave.elevatorSlaveConfig);
     }
 
     private void setFullRetract() {
@@ -274,31 +290,75 @@ public class Elevator extends SubsystemBase {
             }
         }
 
-    public Command elevatorBasedOnQueueCommand(ButtonBox buttonBox) {
+    /**
+     * Height for the level and side at the front of the queue
+     *
+     * @return the height, or NaN if the queue doesn't need the elevator to move
+     */
+    public double getQueueHeight(ButtonBox buttonBox) {
+        return buttonBox.getPlannedHeight();
+    }
+
+    /**
+     * Height for a target's level and side; ButtonBox plans this for the front target
+     *
+     * @return the height, or NaN if the target doesn't need the elevator to move
+     */
+    public static double getTargetHeight(TargetClass target) {
+        if (target == null) {
+            return Double.NaN;
+        }
+        int level = target.getLevel();
+        boolean isLeft = target.isLeft();
+
+        if (level == 1) {
+            return isLeft ? ElevatorConstants.L2LPose : ElevatorConstants.L2RPose;
+        } else if (level == 2) {
+            return isLeft ? ElevatorConstants.L3LPose : ElevatorConstants.L3RPose;
+        } else if (level == 3) {
+            return ElevatorConstants.L4Pose;
+        }
+        return Double.NaN;
+    }
 
-        IntSupplier currentLevelSupplier = buttonBox.currentLevelSupplier;
-        BooleanSupplier currentSideSupplier = buttonBox.currentisLeftSupplier;
+    public Command elevatorBasedOnQueueCommand(ButtonBox buttonBox) {
 
         Command command = new InstantCommand(() -> {
-
-            if (currentLevelSupplier.getAsInt() == 0 && currentSideSupplier.getAsBoolean() == true) {
-                new InstantCommand();
-            } else if (currentLevelSupplier.getAsInt() == 0 && currentSideSupplier.getAsBoolean() == false) {
-                new InstantCommand();
-            } else if (currentLevelSupplier.getAsInt() == 1 && currentSideSupplier.getAsBoolean() == true) {
-                setL2L();
-            } else if (currentLevelSupplier.getAsInt() == 1 && currentSideSupplier.getAsBoolean() == false) {
-                setL2R();
-            } else if (currentLevelSupplier.getAsInt() == 2 && currentSideSupplier.getAsBoolean() == true) {
-                setL3L();
-            } else if (currentLevelSupplier.getAsInt() == 2 && currentSideSupplier.getAsBoolean() == false) {
-                setL3R();
-            } else if (currentLevelSupplier.getAsInt() == 3) {
-                setL4();
+            double height = getQueueHeight(buttonBox);
+            if (!Double.isNaN(height)) {
+                setGoal(height);
             }
         });
         return command;
     }
+
+    /**
+     * Moves to a height, used by the MotionCoordinator
+     */
+    public void setGoal(double height) {
+        elevatorDesiredPosition = (float) height;
+    }
+
+    public double getPosition() {
+        return m_encoder.getPosition();
+    }
+
+    /**
+     * Runs the SysId tests, up positive to match the feedforward, stopping short of either end
+     */
+    public Command sysIdCommand() {
+        return MechanismSysId.characterize(this, "elevator",
+                volts -> {
+                    isCharacterizing = true;
+                    elevatorMotor.setVoltage(-volts);
+                },
+                () -> -m_encoder.getPosition(),
+                () -> -m_encoder.getVelocity() / 60.0,
+                () -> m_encoder.getPosition() <= ElevatorConstants.min + ElevatorConstants.SYSID_MARGIN,
+                () -> m_encoder.getPosition() >= ElevatorConstants.max - ElevatorConstants.SYSID_MARGIN)
+            .finallyDo(() -> isCharacterizing = false);
+    }
+
     public Trigger isAtHome() {
         return new Trigger(() -> {
             boolean atHome = m_encoder.getPosition() >= -1;
@@ -522,24 +582,60 @@ public class Elevator extends SubsystemBase {
         // Update drive speed based on elevator position
         robotContainer.setDriveSpeedBasedOnElevatorAndCloseness();
 
-        if(DriverStation.isDisabled()){
+        double now = Timer.getFPGATimestamp();
+
+        // Height is negative going up and the motor pushes down with positive volts, so the
+        // feedforward and its fit work in up-positive units and are negated going to the motor
+        if (DriverStation.isEnabled()) {
+            m_feedforwardEstimator.update(
+                -elevatorMotor.getAppliedOutput() * IdentificationConstants.NOMINAL_VOLTAGE,
+                1,
+                -m_encoder.getVelocity() / 60.0,    // RPM to up-positive units per second
+                now);
+        }
+        m_feedforwardEstimator.publish();
+
+        if(DriverStation.isDisabled() || isCharacterizing){
             elevatorDesiredPosition = (float)m_encoder.getPosition();
+            // Hold wherever the elevator is so enabling doesn't jump
+            m_profile.generate(m_encoder.getPosition(), 0, m_encoder.getPosition());
+            m_profileStartTime = now;
         }
 
       desiredTotalHeight = (float)MathUtil.clamp(elevatorDesiredPosition, ElevatorConstants.min, ElevatorConstants.max);
 
-        m_goal = new TrapezoidProfile.State(desiredTotalHeight, 0);
+        if (isCharacterizing) {
+            // SysId is driving the motor
+            return;
+        }
 
-        m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
+        if (ElevatorConstants.USE_MAXMOTION) {
+            // The SparkMax profiles the move itself, so only send the goal and gravity
+            double gravityFeedforward = m_feedforward.calculate(0);
+            SmartDashboard.putNumber("Elevator Feedforward", gravityFeedforward);
+            m_onboardProfile.setGoal(desiredTotalHeight, -gravityFeedforward);
+            return;
+        }
+
+        // New goal: replan from where the profile is right now so the setpoint stays continuous
+        if (desiredTotalHeight != m_profile.getGoal()) {
+            m_profile.sample(now - m_profileStartTime, m_setpoint);
+            m_profile.generate(m_setpoint.position, m_setpoint.velocity, m_setpoint.acceleration, desiredTotalHeight);
+            m_profileStartTime = now;
+        }
+
+        // Sample at the measured time, so an overrun loop doesn't fall behind the profile
+        m_profile.sample(now - m_profileStartTime, m_setpoint);
 
         // Calculate feedforward using the motion profile's desired velocity and acceleration
         double feedforwardOutput = m_feedforward.calculate(
-            m_setpoint.velocity,  // Velocity from motion profile
-            0                     // Acceleration (assumed to be zero for simplicity)
+            -m_setpoint.velocity,      // Velocity from motion profile, up positive
+            -m_setpoint.acceleration   // Acceleration from motion profile, for kA
         );
         
         // Log feedforward value to SmartDashboard
         SmartDashboard.putNumber("Elevator Feedforward", feedforwardOutput);
+        SmartDashboard.putNumber("Elevator Profile Time Left", Math.max(0, m_profile.getTotalTime() - (now - m_profileStartTime)));
 
         // Apply PID control with the feedforward
         elevatorClosedLoopController.setReference(
@@ -589,4 +685,9 @@ public class Elevator extends SubsystemBase {
     public Trigger getIsFullyRaisedTrigger() {
         return fullyRaisedTrigger;
     }
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(kDt);
+    }
 }
\ No newline at end of file
@@ -6,8 +6,6 @@ import com.revrobotics.spark.ClosedLoopSlot;
 import com.revrobotics.spark.SparkClosedLoopController;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
 
 import edu.wpi.first.math.MathUtil;
@@ -16,15 +14,25 @@ import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Configs;
+import frc.robot.Constants.DetectorConstants;
 import frc.robot.Constants.FunnelConstants;
+import frc.robot.Constants.SimConstants;
 import frc.robot.subsystems.Algae.AlgaeArm;
 import frc.robot.subsystems.Coral.Shooter;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.OnboardProfile;
+import frc.robot.util.SparkConfigurator;
+import frc.robot.util.Waveform;
+import frc.robot.util.StatusFrameBoost;
+import frc.robot.sim.ArmSimModel;
 
 public class Funnel extends SubsystemBase {
     
@@ -33,6 +41,20 @@ public class Funnel extends SubsystemBase {
     private double kDt = 0.02; // 20ms periodic loop time
     
     private SparkMax funnelMotor = new SparkMax(FunnelConstants.ID, MotorType.kBrushless);
+
+    // Physics model, only created in simulation
+    private ArmSimModel sim;
+
+    // Faster current frames while watching for a coral impact
+    private final StatusFrameBoost currentBoost = new StatusFrameBoost(
+        funnelMotor, Configs.Funnel.sensingSignals, Configs.Funnel.normalSignals);
+
+    // Filtered current detection of a coral landing, sampled faster than the loop by Robot
+    private final GamePieceDetector coralImpactDetector = new GamePieceDetector(
+            "Funnel Coral", funnelMotor::getOutputCurrent, FunnelConstants.currentThreshold, FunnelConstants.currentReleaseThreshold)
+        .withFilter(DetectorConstants.MEDIAN_SIZE, DetectorConstants.FILTER_TIME_CONSTANT)
+        .withDebounce(FunnelConstants.currentSpikeDuration, 0)
+        .latching();
     private SparkClosedLoopController funnelController = funnelMotor.getClosedLoopController();
     private AbsoluteEncoder funnelEncoder = funnelMotor.getAbsoluteEncoder();
     
@@ -56,7 +78,11 @@ public class Funnel extends SubsystemBase {
     private boolean isMonitoringForCoral = false;
     private double shakeStartTime = 0;
     private double baseShakePosition = 0;
-    private double coralDetectionTime = 0;
+
+    // Offset from baseShakePosition; reshaped while shaking depending on how the coral is doing
+    private final Waveform shakeWaveform = new Waveform(
+            Waveform.Shape.SINE, FunnelConstants.shakingAmplitude, FunnelConstants.shakingFrequency)
+        .withSweep(FunnelConstants.shakingChirpEndFrequency, FunnelConstants.shakingChirpSweepTime);
     private boolean bypassProfilerForShaking = false; // New flag to bypass profiler during shaking
     
     // Trapezoidal motion profile objects
@@ -68,12 +94,20 @@ public class Funnel extends SubsystemBase {
     );
     private TrapezoidProfile.State m_goal = new TrapezoidProfile.State();
     private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
+
+    // Used instead of m_profile with FunnelConstants.USE_MAXMOTION
+    private final OnboardProfile onboardProfile = new OnboardProfile(funnelController);
     
     // Reference to the AlgaeArm subsystem for safety checks
     private AlgaeArm algaeArm;
     
     public Funnel() {
-        funnelMotor.configure(Configs.Funnel.funnelConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        if (RobotBase.isSimulation()) {
+            sim = new ArmSimModel(funnelMotor, SimConstants.FUNNEL_GEARING, SimConstants.FUNNEL_LENGTH, SimConstants.FUNNEL_MASS,
+                FunnelConstants.min, FunnelConstants.max, FunnelConstants.feedforwardOffset, FunnelConstants.homePosition);
+        }
+
+        SparkConfigurator.configure("Funnel", funnelMotor, Configs.Funnel.funnelConfig);
         funnelDesiredAngle = FunnelConstants.homePosition;
     }
     
@@ -191,6 +225,7 @@ public class Funnel extends SubsystemBase {
             isShaking = true;
             shakeStartTime = Timer.getFPGATimestamp();
             baseShakePosition = funnelEncoder.getPosition();
+            shakeWaveform.start(shakeStartTime);
             bypassProfilerForShaking = true; // Enable profiler bypass for more intense shaking
         }
     }
@@ -203,20 +238,35 @@ public class Funnel extends SubsystemBase {
     
     /**
      * Update the shaking motion of the funnel
-     * This creates an oscillating movement to help coral settle into position
+     * This creates an oscillating movement to help coral settle into position.
+     * Once the shooter starts pulling the coral in, the shake calms down so it doesn't
+     * bounce back out; if the coral still hasn't moved after a while, the shake grows
+     * and sweeps its frequency to find one that frees it.
      */
     private void updateShaking() {
         if (!isShaking) return;
         
         double currentTime = Timer.getFPGATimestamp();
         double elapsedTime = currentTime - shakeStartTime;
-        
-        // Calculate shake position using sine wave
-        double oscillation = Math.sin(elapsedTime * 2 * Math.PI * FunnelConstants.shakingFrequency) 
-                            * FunnelConstants.shakingAmplitude;
+
+        if (Shooter.coralEntering) {
+            // Coral is on the rollers: small steady shake to help it seat
+            shakeWaveform.setShape(Waveform.Shape.SINE);
+            shakeWaveform.setAmplitude(FunnelConstants.shakingSettleAmplitude);
+        } else if (elapsedTime > FunnelConstants.shakingEscalateTime) {
+            // Coral is hung up: ramp the amplitude and sweep through frequencies
+            double ramp = Math.min(1, (elapsedTime - FunnelConstants.shakingEscalateTime) / FunnelConstants.shakingRampTime);
+            shakeWaveform.setShape(Waveform.Shape.CHIRP);
+            shakeWaveform.setAmplitude(FunnelConstants.shakingAmplitude
+                + ramp * (FunnelConstants.shakingMaxAmplitude - FunnelConstants.shakingAmplitude));
+        } else {
+            shakeWaveform.setShape(Waveform.Shape.SINE);
+            shakeWaveform.setAmplitude(FunnelConstants.shakingAmplitude);
+        }
         
         // Set funnel position to oscillate around the base position
-        funnelDesiredAngle = baseShakePosition + oscillation;
+        funnelDesiredAngle = MathUtil.clamp(baseShakePosition + shakeWaveform.sample(currentTime),
+            FunnelConstants.min, FunnelConstants.max);
         
         // Stop shaking after max duration as a safety feature
         if (elapsedTime > FunnelConstants.shakingDuration) {
@@ -229,25 +279,31 @@ public class Funnel extends SubsystemBase {
      * This method is now used when manually monitoring is enabled.
      */
     private void detectCoralImpact() {
-        if (!isMonitoringForCoral || isShaking || coralDetected) return;
-        
-        // Get current motor output current
-        double current = funnelMotor.getOutputCurrent();
+        if (!isMonitoringForCoral || isShaking || coralDetected) {
+            // Only a spike while monitoring counts, so start fresh each time monitoring does
+            coralImpactDetector.reset();
+            return;
+        }
         
-        // Check for current spike detection logic
-        if (current > FunnelConstants.currentThreshold) {
-            if (coralDetectionTime == 0) {
-                coralDetectionTime = Timer.getFPGATimestamp();
-            }
-            if (Timer.getFPGATimestamp() - coralDetectionTime >= FunnelConstants.currentSpikeDuration) {
-                coralDetected = true;
-                startShaking();
-            }
-        } else {
-            coralDetectionTime = 0; // reset if spike not sustained
+        if (coralImpactDetector.isDetected()) {
+            coralDetected = true;
+            startShaking();
         }
     }
     
+    /**
+     * Moves to an angle, used by the MotionCoordinator, which handles the algae arm clearance itself
+     */
+    public void setGoal(double angle) {
+        funnelDesiredAngle = angle;
+        isMonitoringForCoral = false;
+        stopShaking();
+    }
+
+    public double getPosition() {
+        return funnelEncoder.getPosition();
+    }
+
     // Manual control method with safety check
     public void moveAmount(final double amount) {
         if (Math.abs(amount) < 0.2) {
@@ -284,7 +340,7 @@ public class Funnel extends SubsystemBase {
     // Reset coral detection state (call when coral is transferred or removed)
     public void resetCoralDetection() {
         coralDetected = false;
-        coralDetectionTime = 0;
+        coralImpactDetector.reset();
         stopShaking();
     }
     
@@ -295,6 +351,8 @@ public class Funnel extends SubsystemBase {
     
     @Override
     public void periodic() {
+        currentBoost.setBoosted(isMonitoringForCoral);
+
         if (!isInitialized) {
             funnelDesiredAngle = FunnelConstants.homePosition;
             m_setpoint = new TrapezoidProfile.State(FunnelConstants.homePosition, 0);
@@ -317,12 +375,9 @@ public class Funnel extends SubsystemBase {
         // Process shaking logic if active
         if (isShaking) {
             updateShaking();
-        } else {
-            // Only detect coral if not shaking
-            if (isMonitoringForCoral) {
-                detectCoralImpact();
-            }
         }
+        // Only detects coral while monitoring and not shaking
+        detectCoralImpact();
         
         // Set goal for motion profile
         m_goal = new TrapezoidProfile.State(funnelDesiredAngle, 0);
@@ -338,7 +393,22 @@ public class Funnel extends SubsystemBase {
             0                      // Zero acceleration for now
         );
         
-        
+        if (bypassProfilerForShaking) {
+            // Stream the shake straight to the controller; a profile would round it off.
+            // The profile picks up from here once shaking stops.
+            m_setpoint = new TrapezoidProfile.State(funnelDesiredAngle, 0);
+            onboardProfile.invalidate();
+            funnelController.setReference(
+                funnelDesiredAngle,
+                ControlType.kPosition,
+                ClosedLoopSlot.kSlot0,
+                feedforwardOutput,
+                ArbFFUnits.kVoltage
+            );
+        } else if (FunnelConstants.USE_MAXMOTION) {
+            // The SparkMax profiles to the goal; gravity still comes from our feedforward model
+            onboardProfile.setGoal(funnelDesiredAngle, armFeedforward.calculate(currentPositionRad, 0));
+        } else {
             m_setpoint = m_profile.calculate(kDt, m_setpoint, m_goal);
             // Set the motor position to the trapezoidal profile setpoint with feedforward
             funnelController.setReference(
@@ -348,6 +418,7 @@ public class Funnel extends SubsystemBase {
                 feedforwardOutput,
                 ArbFFUnits.kVoltage
             );
+        }
         
         // Update dashboard with all relevant values
         SmartDashboard.putNumber("Funnel Desired Angle", funnelDesiredAngle);
@@ -356,6 +427,8 @@ public class Funnel extends SubsystemBase {
         SmartDashboard.putNumber("Funnel Current Draw", funnelMotor.getOutputCurrent());
         SmartDashboard.putNumber("Funnel Velocity", funnelMotor.getEncoder().getVelocity());
         SmartDashboard.putBoolean("Funnel Shaking", isShaking);
+        SmartDashboard.putString("Funnel Shake Shape", shakeWaveform.getShape().toString());
+        SmartDashboard.putNumber("Funnel Shake Amplitude", isShaking ? shakeWaveform.getAmplitude() : 0);
         SmartDashboard.putBoolean("Funnel Coral Detected", coralDetected);
         SmartDashboard.putBoolean("Funnel Monitoring For Coral", isMonitoringForCoral);
         SmartDashboard.putNumber("Funnel Profile Velocity", m_setpoint.velocity);
@@ -404,4 +477,9 @@ public class Funnel extends SubsystemBase {
         // Convert to radians then adjust for the coordinate system
         return encoderToRadians(encoderPosition) - kHorizontalReferenceRad;
     }
-}
+
+    @Override
+    public void simulationPeriodic() {
+        sim.update(TimedRobot.kDefaultPeriod);
+    }
+}
\ No newline at end of file
@@ -1,14 +1,18 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.AddressableLED;
-import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.LEDConstants;
+import frc.robot.util.LEDCompositor;
+import frc.robot.util.LEDCompositor.Layer;
+import frc.robot.util.LEDFrame;
+import frc.robot.util.LEDPattern;
+import frc.robot.util.LEDSegment;
+import frc.robot.util.LEDZone;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Commands;
 
@@ -16,13 +20,14 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class LED extends SubsystemBase {
-  
+
     private final AddressableLED led;
-    private final AddressableLEDBuffer buffer;
-    private final AddressableLEDBuffer tempBuffer; // For power calculations
 
-    private final Color reefColor = new Color(196, 97, 140);
-    private final Color algaeColor = new Color(0, 255, 222);
+    // Renders and writes the strip on its own thread; we only post patterns to it
+    private final LEDCompositor compositor;
+
+    private final int[] reefColor = {196, 97, 140};
+    private final int[] algaeColor = {0, 255, 222};
 
     // Map to store patterns by name
     private final Map<String, LEDPattern> patternMap = new HashMap<>();
@@ -32,60 +37,27 @@ public class LED extends SubsystemBase {
     private final LEDPattern solidBlue;
     private final LEDPattern solidHoldingAlgae;
     private final LEDPattern solidShoot;
-    private final LEDPattern solidReef;  // Add solid reef color pattern
+    private final LEDPattern solidReef;
 
     private final LEDPattern blueBreathing;
     private final LEDPattern redBreathing;
-    private final LEDPattern redBlueGradient; // New gradient pattern
-    
-    // Add coral loaded pattern
-    private final LEDPattern coralLoadedPattern;
-    
-    // Add default flash patterns
-    
-    private LEDPattern currentPattern;
-    private LEDPattern normalPattern; // Pattern to return to after flashing
-    
-    private double currentBrightness = LEDConstants.DEFAULT_BRIGHTNESS;
-
-    private boolean distanceBasedBreathingEnabled = false;
-
-    // Define our own LEDPattern interface since it's not standard in WPILib
-    private interface LEDPattern {
-        void applyTo(AddressableLEDBuffer buffer);
-        
-        // Helper method to create solid color pattern
-        static LEDPattern solid(Color color) {
-            return buffer -> {
-                // Apply current dynamic brightness to solid colors
-                for (int i = 0; i < buffer.getLength(); i++) {
-                    buffer.setLED(i, color);
-                }
-            };
-        }
-    }
+    private final LEDPattern redBlueGradient;
 
-    private final Timer distanceBreathingTimer = new Timer();
-    // Add a new timer for distance-based mode
-    private Timer distancePatternTimer = new Timer();
+    private final LEDPattern coralLoadedPattern;
 
-    // Add fields for continuous phase updating
-    private double distancePhase = 0.0;
-    private double lastDistanceUpdateTime = 0.0;
+    // Created once and driven by currentDistanceToTarget, instead of a new lambda every loop
+    private final LEDPattern distanceBreathePattern;
 
-    // Remove smoothedDistance and DISTANCE_SMOOTHING_ALPHA
+    // Written by the main thread, read by the compositor thread
+    private volatile double currentDistanceToTarget = 0.0;
 
     public LED() {
 
       led = new AddressableLED(LEDConstants.port);
-      buffer = new AddressableLEDBuffer(LEDConstants.length);
-      tempBuffer = new AddressableLEDBuffer(LEDConstants.length); // For calculations
       led.setLength(LEDConstants.length);
       led.start();
-      
-      distanceBreathingTimer.reset();
-      distanceBreathingTimer.start();
-      lastDistanceUpdateTime = Timer.getFPGATimestamp();
+
+      compositor = new LEDCompositor(led, LEDConstants.length, LEDConstants.COMPOSITOR_RATE_HZ);
 
       // Create solid alliance color patterns
       solidRed = LEDPattern.solid(Color.kRed);
@@ -94,207 +66,105 @@ public class LED extends SubsystemBase {
       solidShoot = LEDPattern.solid(Color.kAqua);
 
       solidHoldingAlgae = LEDPattern.solid(algaeColor);
-      solidReef = LEDPattern.solid(reefColor);  // Initialize solid reef color
-      
+      solidReef = LEDPattern.solid(reefColor);
+
       // Create breathing patterns
       blueBreathing = createBreathingPattern(Color.kBlue);
       redBreathing = createBreathingPattern(Color.kRed);
-      
+
       // Create coral loaded pattern - bright green pulsing
       coralLoadedPattern = createBreathingPattern(Color.kGreen);
-      
+
       // Create red-blue gradient pattern
       redBlueGradient = createRedBlueGradientPattern();
-      
+
+      distanceBreathePattern = createDistanceBreathePattern();
+
       // Create lined up flash pattern
-      LEDPattern linedUpFlash = createFlashPattern(Color.kGreen, LEDConstants.linedUpFlashCount);
-      
+      LEDPattern linedUpFlash = LEDPattern.flash(Color.kGreen, LEDConstants.linedUpFlashCount);
+
       // Initialize pattern map with all available patterns
       patternMap.put("SOLID_RED", solidRed);
       patternMap.put("SOLID_BLUE", solidBlue);
       patternMap.put("SOLID_ALGAE", solidHoldingAlgae);
-      patternMap.put("SOLID_REEF", solidReef);  // Add solid reef to patterns
+      patternMap.put("SOLID_REEF", solidReef);
       patternMap.put("BLUE_BREATHING", blueBreathing);
       patternMap.put("RED_BREATHING", redBreathing);
       patternMap.put("RED_BLUE_GRADIENT", redBlueGradient);
       patternMap.put("INTAKE_PATTERN", redBlueGradient);
 
-      // Replace INTAKEN_PATTERN with CORAL_LOADED_PATTERN
       patternMap.put("CORAL_LOADED_PATTERN", coralLoadedPattern);
 
       patternMap.put("MANUAL_SHOOTING_PATTERN", solidShoot);
-      patternMap.put("LINED_UP_FLASH", linedUpFlash); // Add the flash pattern to the map
+      patternMap.put("LINED_UP_FLASH", linedUpFlash);
+
 
-      
       // Start with gradient pattern by default until alliance is known
-      currentPattern = redBlueGradient;
-      
-      // Apply initial pattern immediately to ensure LEDs light up even without computer
-      currentPattern.applyTo(buffer);
-      led.setData(buffer);
+      compositor.post(Layer.BASE, redBlueGradient);
+
+      // Start rendering immediately to ensure LEDs light up even without computer
+      compositor.start();
     }
-    
-    // Add this flag to prevent periodic from overriding custom patterns
-    private boolean customPatternActive = false;
-    
-    // Add a class variable to track the current distance
-    private double currentDistanceToTarget = 0.0;
-
-    // Add these fields at the class level
-    private boolean isFlashing = false;
-    private Color flashColor = Color.kGreen; // Default flash color
-    private boolean flashState = true;
-    private double flashNextChangeTime = 0;
-    private int flashCurrentCycles = 0;
-    private int flashMaxCycles = 3; // Default to 3 flashes
-    private LEDPattern previousPattern = null;
-  
+
     @Override
     public void periodic() {
-      // Check if robot is disabled
-      boolean currentlyDisabled = DriverStation.isDisabled();
-      
+      // Only picks the base layer here; all rendering happens on the compositor thread
+      compositor.post(Layer.BASE, selectAlliancePattern(DriverStation.isDisabled()));
+
+      SmartDashboard.putNumber("LED Frame Time (ms)", compositor.getLastRenderSeconds() * 1000.0);
+    }
+
+    /**
+     * Picks the base pattern from alliance and robot state
+     *
+     * @param disabled whether to use the disabled (breathing) variant
+     */
+    private LEDPattern selectAlliancePattern(boolean disabled) {
+      if (!DriverStation.isDSAttached()) {
+        return redBlueGradient;
+      }
+
       // Check if alliance information is available
       var allianceOption = DriverStation.getAlliance();
-      
-      // Handle manual flashing mode
-      if (isFlashing) {
-          double currentTime = Timer.getFPGATimestamp();
-          
-          if (currentTime >= flashNextChangeTime) {
-              flashState = !flashState; // Toggle flash state
-              
-              if (!flashState) { // Just turned OFF
-                  flashCurrentCycles++;
-                  
-                  // Check if we've finished all cycles
-                  if (flashCurrentCycles >= flashMaxCycles) {
-                      // End flashing and restore previous pattern
-                      isFlashing = false;
-                      currentPattern = previousPattern;
-                      customPatternActive = false;
-                      SmartDashboard.putString("LED Pattern", "Previous");
-                  }
-              }
-              
-              // Set next change time
-              flashNextChangeTime = currentTime + (flashState ? 
-                  LEDConstants.FLASH_ON_DURATION : LEDConstants.FLASH_OFF_DURATION);
-              
-              // Update pattern immediately for this cycle
-              if (isFlashing) {
-                  // Create a solid pattern of the current flash state
-                  LEDPattern flashPattern = buffer -> {
-                      if (flashState) {
-                          for (int i = 0; i < buffer.getLength(); i++) {
-                              buffer.setLED(i, flashColor);
-                          }
-                      } else {
-                          for (int i = 0; i < buffer.getLength(); i++) {
-                              buffer.setLED(i, Color.kBlack);
-                          }
-                      }
-                  };
-                  
-                  // Apply the pattern
-                  flashPattern.applyTo(tempBuffer);
-                  adjustBrightnessForPower();
-                  applyPatternWithBrightness();
-                  led.setData(buffer);
-                  
-                  // Log flash state
-                  SmartDashboard.putBoolean("Flash State", flashState);
-                  SmartDashboard.putNumber("Flash Cycle", flashCurrentCycles);
-              }
-          }
-          
-          // Skip the rest of periodic when flashing
-          return;
-      }
-      
-      // If distance-based breathing is enabled, update the pattern with current distance
-      if (distanceBasedBreathingEnabled) {
-          // Update phase using integration dt/period
-          double currentTime = Timer.getFPGATimestamp();
-          double dt = currentTime - lastDistanceUpdateTime;
-          lastDistanceUpdateTime = currentTime;
-          double lockedPeriod = LEDConstants.DISTANCE_BREATHE_MIN_PERIOD +
-              ((currentDistanceToTarget - LEDConstants.DISTANCE_BREATHE_MIN_DISTANCE) /
-              (LEDConstants.DISTANCE_BREATHE_MAX_DISTANCE - LEDConstants.DISTANCE_BREATHE_MIN_DISTANCE))
-              * (LEDConstants.DISTANCE_BREATHE_MAX_PERIOD - LEDConstants.DISTANCE_BREATHE_MIN_PERIOD);
-          double period = Math.max(LEDConstants.DISTANCE_BREATHE_MIN_PERIOD,
-                             Math.min(lockedPeriod, LEDConstants.DISTANCE_BREATHE_MAX_PERIOD));
-          // Increment phase by dt/period so that phase mod 1 gives correct cycle position
-          distancePhase += dt / period;
-      }
-      // Select the appropriate pattern based on conditions (only if not in distance breathing mode)
-      else if (normalPattern == null && !customPatternActive) {
-        // ...existing pattern selection code...
-        if (allianceOption.isPresent()) {
-          Alliance alliance = allianceOption.get();
-          
-          if (currentlyDisabled) {
-            // Robot is disabled - use breathing patterns
-            currentPattern = (alliance == Alliance.Blue) ? blueBreathing : redBreathing;
-          } else {
-            // Robot is enabled - use solid alliance colors
-            currentPattern = (alliance == Alliance.Blue) ? solidBlue : solidRed;
-          }
+
+      if (allianceOption.isPresent()) {
+        Alliance alliance = allianceOption.get();
+
+        if (disabled) {
+          // Robot is disabled - use breathing patterns
+          return (alliance == Alliance.Blue) ? blueBreathing : redBreathing;
         } else {
-          // No alliance information available, use gradient pattern
-          currentPattern = redBlueGradient;
+          // Robot is enabled - use solid alliance colors
+          return (alliance == Alliance.Blue) ? solidBlue : solidRed;
         }
       }
-      
-      if(!DriverStation.isDSAttached())
-        {
-            currentPattern = redBlueGradient;
-        }
-      // Apply current pattern to temp buffer for power calculations
-      currentPattern.applyTo(tempBuffer);
-      
-      // Calculate power and adjust brightness if needed
-      adjustBrightnessForPower();
-      
-      // Apply the current pattern with adjusted brightness
-      applyPatternWithBrightness();
-      
-      // Write the data to the LED strip
-      led.setData(buffer);
+
+      // No alliance information available, use gradient pattern
+      return redBlueGradient;
     }
-    
+
     /**
      * Creates a gradient pattern that transitions from red to blue
-     * 
+     *
      * @return A red-blue gradient LEDPattern
      */
     private LEDPattern createRedBlueGradientPattern() {
-      return new LEDPattern() {
-        private final Timer animationTimer = new Timer();
-        
-        {
-          // Initialize timer immediately
-          animationTimer.start();
-        }
-        
-        @Override
-        public void applyTo(AddressableLEDBuffer buffer) {
+      return (segment, elapsed) -> {
           // Make the gradient shift over time for a dynamic effect
-          double time = animationTimer.get() * 0.5; // Controls the speed of the animation
+          double time = elapsed * 0.5; // Controls the speed of the animation
           double cycle = (time % 1.0);
-          
-          int length = buffer.getLength();
-          
+
+          int length = segment.getLength();
+
           // Generate gradient
           for (int i = 0; i < length; i++) {
             // Calculate position in the gradient (0 to 1)
             double position = ((double)i / length + cycle) % 1.0;
-            
-            // Create color based on position
+
             // First half transitions from red to purple
             // Second half transitions from purple to blue
             double red, blue;
-            
+
             if (position < 0.5) {
               // 0.0 to 0.5: Red to Purple
               red = 1.0;
@@ -304,202 +174,35 @@ public class LED extends SubsystemBase {
               red = 1.0 - ((position - 0.5) * 2.0); // 1.0 to 0.0
               blue = 1.0;
             }
-            
-            // Apply a pulse/wave effect
-            double brightness = 0.5 + 0.5 * Math.sin(time * 2 * Math.PI + i * Math.PI / 20);
-            
-            // Create the color with gradient and wave effect
-            Color gradientColor = new Color(red * brightness, 0, blue * brightness);
-            buffer.setLED(i, gradientColor);
+
+            // Apply a pulse/wave effect (sin(2*pi*time + i*pi/20) from the lookup table)
+            double brightness = LEDFrame.wave(time + i / 40.0);
+
+            segment.setRGB(i, (int) (255 * red * brightness), 0, (int) (255 * blue * brightness));
           }
-        }
       };
     }
-        
+
     /**
-     * Calculates current draw based on RGB values and adjusts brightness if needed
+     * Maps a breathing phase (in cycles) to an intensity between the configured min and max
      */
-    private void adjustBrightnessForPower() {
-      double totalCurrentDraw = 0;
-      
-      // Calculate potential power consumption based on temp buffer
-      for (int i = 0; i < tempBuffer.getLength(); i++) {
-          double red = tempBuffer.getLED(i).red;
-          double green = tempBuffer.getLED(i).green;
-          double blue = tempBuffer.getLED(i).blue;
-          
-          // Calculate current for this LED (in mA)
-          double ledCurrent = (red * LEDConstants.MILLIAMPS_PER_RED) +
-                              (green * LEDConstants.MILLIAMPS_PER_GREEN) +
-                              (blue * LEDConstants.MILLIAMPS_PER_BLUE);
-          
-          totalCurrentDraw += ledCurrent;
-      }
-      
-      // Convert mA to A
-      totalCurrentDraw /= 1000.0;
-      
-      // Calculate max safe brightness based on current power draw
-      if (totalCurrentDraw > 0) {
-          // How much we can scale up (or need to scale down) our brightness
-          double maxSafeBrightness = (LEDConstants.MAX_AMPERAGE * LEDConstants.POWER_SAFETY_MARGIN) / totalCurrentDraw;
-          
-          // Gradually adjust brightness for smooth transitions
-          if (maxSafeBrightness < currentBrightness) {
-              // Need to reduce brightness immediately to stay within power budget
-              currentBrightness = maxSafeBrightness;
-          } else if (maxSafeBrightness > currentBrightness) {
-              // Can increase brightness, but do it gradually
-              currentBrightness += (maxSafeBrightness - currentBrightness) * 0.1;
-          }
-          
-          // Ensure brightness is within reasonable limits
-          currentBrightness = Math.max(0.05, Math.min(1.0, currentBrightness));
-      }
-  }
-  
-  /**
-   * Applies the current pattern with adjusted brightness
-   */
-  private void applyPatternWithBrightness() {
-      // No need to apply the pattern again, it's already in tempBuffer
-      
-      // Copy to main buffer with brightness adjustment
-      for (int i = 0; i < buffer.getLength(); i++) {
-          Color originalColor = tempBuffer.getLED(i);
-          Color adjustedColor = new Color(
-              originalColor.red * currentBrightness,
-              originalColor.green * currentBrightness,
-              originalColor.blue * currentBrightness
-          );
-          buffer.setLED(i, adjustedColor);
-      }
-  }
-  
+    private static double breathIntensity(double cycles) {
+      return LEDConstants.BREATHING_MIN_INTENSITY +
+          LEDFrame.wave(cycles) * (LEDConstants.BREATHING_MAX_INTENSITY - LEDConstants.BREATHING_MIN_INTENSITY);
+    }
+
     /**
      * Creates a breathing pattern in the specified color
-     * 
+     *
      * @param baseColor The base color for the breathing pattern
      * @return A breathing pattern LEDPattern
      */
     private LEDPattern createBreathingPattern(Color baseColor) {
-      return new LEDPattern() {
-        private final Timer breathingTimer = new Timer();
-        private boolean initialized = false;
-        
-        {
-          // Initialize timer
-          breathingTimer.start();
-        }
-        
-        @Override
-        public void applyTo(AddressableLEDBuffer buffer) {
-          if (!initialized) {
-            breathingTimer.reset();
-            initialized = true;
-          }
-          
-          // Calculate the phase of the breathing cycle (0 to 1)
-          double time = breathingTimer.get();
-          double cyclePosition = (time % LEDConstants.BREATHING_CYCLE_PERIOD) / LEDConstants.BREATHING_CYCLE_PERIOD;
-          
-          // Calculate brightness using a sine wave for smooth transitions
-          // sin function oscillates between -1 and 1, so we adjust to 0-1 range
-          double breathIntensity = (Math.sin(2 * Math.PI * cyclePosition) + 1) / 2;
-          
-          // Map to our desired min/max range
-          breathIntensity = LEDConstants.BREATHING_MIN_INTENSITY + 
-              breathIntensity * (LEDConstants.BREATHING_MAX_INTENSITY - LEDConstants.BREATHING_MIN_INTENSITY);
-          
-          // Apply the breathing effect to each LED
-          for (int i = 0; i < buffer.getLength(); i++) {
-            Color breathColor = new Color(
-                baseColor.red * breathIntensity,
-                baseColor.green * breathIntensity,
-                baseColor.blue * breathIntensity
-            );
-            buffer.setLED(i, breathColor);
-          }
-        }
-      };
-    }
-  
-    /**
-     * Create a flashing pattern that alternates between a color and black
-     * Tracks completed cycles rather than duration
-     */
-    private LEDPattern createFlashPattern(Color color, int flashCount) {
-        return new LEDPattern() {
-            private final Timer flashTimer = new Timer();
-            private boolean initialized = false;
-            private boolean isComplete = false;
-            private int completedCycles = 0;
-            private boolean isOn = true;
-            private double nextTransitionTime = 0.0;
-            
-            {
-                // Initialize timer
-                flashTimer.start();
-            }
-            
-            @Override
-            public void applyTo(AddressableLEDBuffer buffer) {
-                if (!initialized) {
-                    flashTimer.reset();
-                    isComplete = false;
-                    completedCycles = 0;
-                    isOn = true;
-                    nextTransitionTime = LEDConstants.FLASH_ON_DURATION;
-                    initialized = true;
-                }
-                
-                // If we've completed all flashes, return to normal pattern
-                if (isComplete) {
-                    // Flash sequence is done, switch back to normal pattern
-                    if (normalPattern != null) {
-                        currentPattern = normalPattern;
-                        normalPattern = null;
-                    }
-                    return;
-                }
-                
-                double currentTime = flashTimer.get();
-                
-                // Check if it's time to transition
-                if (currentTime >= nextTransitionTime) {
-                    if (isOn) {
-                        // Transition from ON to OFF
-                        isOn = false;
-                        nextTransitionTime = currentTime + LEDConstants.FLASH_OFF_DURATION;
-                    } else {
-                        // Transition from OFF to ON
-                        isOn = true;
-                        completedCycles++;
-                        
-                        // Check if we've completed all required flashes
-                        if (completedCycles >= flashCount) {
-                            isComplete = true;
-                            // Return the pattern to normal immediately at the end
-                            if (normalPattern != null) {
-                                currentPattern = normalPattern;
-                                normalPattern = null;
-                            }
-                            return;
-                        }
-                        
-                        nextTransitionTime = currentTime + LEDConstants.FLASH_ON_DURATION;
-                    }
-                }
-                
-                // Set all LEDs to either the flash color or black
-                for (int i = 0; i < buffer.getLength(); i++) {
-                    buffer.setLED(i, isOn ? color : Color.kBlack);
-                }
-            }
-        };
+      int[] color = LEDFrame.toRGB(baseColor);
+      return (segment, elapsed) -> segment.fill(color, breathIntensity(elapsed / LEDConstants.BREATHING_CYCLE_PERIOD));
     }
 
-    
+
     /**
      * Gets a pattern by its name
      * @param patternName The name of the pattern
@@ -508,32 +211,50 @@ public class LED extends SubsystemBase {
     public LEDPattern getPatternByName(String patternName) {
         return patternMap.getOrDefault(patternName, null);
     }
-    
+
 
     /**
      * Execute a pattern by name
-     * 
+     *
      * @param patternName The name of the pattern to run
      * @return Command that sets the pattern
      */
     public Command runPattern(String patternName) {
         return Commands.runOnce(() -> {
-            // Interrupt distance-based breathing
-            distanceBasedBreathingEnabled = false;
-            customPatternActive = true;  // FIXED: Set to true instead of false
-            normalPattern = null;
-            
             LEDPattern pattern = getPatternByName(patternName);
             if (pattern != null) {
-                currentPattern = pattern;
-                pattern.applyTo(tempBuffer);
-                adjustBrightnessForPower();
-                applyPatternWithBrightness();
-                led.setData(buffer);
+                // Replaces distance-based breathing or any other overlay
+                compositor.post(Layer.OVERLAY, pattern);
             }
         });
     }
-    
+
+    /**
+     * Runs a pattern by name on one zone of the strip, on top of the full-strip pattern
+     *
+     * @param zone        the zone to draw the pattern in
+     * @param patternName The name of the pattern to run
+     * @return Command that sets the zone pattern
+     */
+    public Command runZonePattern(LEDZone zone, String patternName) {
+        return Commands.runOnce(() -> {
+            LEDPattern pattern = getPatternByName(patternName);
+            if (pattern != null) {
+                compositor.post(Layer.OVERLAY, zone, pattern);
+            }
+        });
+    }
+
+    /**
+     * Clears the pattern on one zone, showing the full-strip pattern there again
+     *
+     * @param zone the zone to clear
+     * @return Command that clears the zone pattern
+     */
+    public Command clearZonePattern(LEDZone zone) {
+        return Commands.runOnce(() -> compositor.clear(Layer.OVERLAY, zone));
+    }
+
     /**
      * Creates a flash pattern command that temporarily shows a pattern and then returns to normal
      *
@@ -547,70 +268,60 @@ public class LED extends SubsystemBase {
         } else {
             // Use standard pattern
             return Commands.runOnce(() -> {
-                // Interrupt distance-based breathing
-                distanceBasedBreathingEnabled = false;
-                customPatternActive = true;
-                normalPattern = currentPattern;
-                
                 // Get the pattern from the map
                 LEDPattern pattern = getPatternByName(patternName);
-                
+
                 if (pattern != null) {
-                    currentPattern = pattern;
-                    pattern.applyTo(tempBuffer);
-                    adjustBrightnessForPower();
-                    applyPatternWithBrightness();
-                    led.setData(buffer);
-                    
+                    compositor.restart(Layer.OVERLAY, pattern);
+
                     SmartDashboard.putString("LED Pattern", patternName);
                 }
             });
         }
     }
-    
+
     /**
      * Gets the current estimated power consumption in amps
      * @return Current power consumption in amps
      */
     public double getCurrentPowerConsumption() {
-        double totalCurrentDraw = 0;
-        
-        for (int i = 0; i < buffer.getLength(); i++) {
-            Color color = buffer.getLED(i);
-            totalCurrentDraw += (color.red * LEDConstants.MILLIAMPS_PER_RED) +
-                               (color.green * LEDConstants.MILLIAMPS_PER_GREEN) +
-                               (color.blue * LEDConstants.MILLIAMPS_PER_BLUE);
-        }
-        
-        return totalCurrentDraw / 1000.0; // Convert mA to A
+        return compositor.getEstimatedCurrentAmps();
     }
 
-    // Updated helper method using distancePhase (modulo 1) as phase
+    // Breathing pattern whose period follows the distance to target
     private LEDPattern createDistanceBreathePattern() {
-        return buffer -> {
-            // Instead of using elapsed time, use our integrated phase value (mod 1)
-            double cyclePosition = distancePhase % 1.0;
-            double breathIntensity = (Math.sin(2 * Math.PI * cyclePosition) + 1) / 2;
-            breathIntensity = LEDConstants.BREATHING_MIN_INTENSITY +
-                breathIntensity * (LEDConstants.BREATHING_MAX_INTENSITY - LEDConstants.BREATHING_MIN_INTENSITY);
-            
-            for (int i = 0; i < buffer.getLength(); i++) {
-                buffer.setLED(i, new Color(
-                    reefColor.red * breathIntensity,
-                    reefColor.green * breathIntensity,
-                    reefColor.blue * breathIntensity));
+        return new LEDPattern() {
+            // Only touched on the compositor thread
+            private double distancePhase = 0.0;
+            private double lastElapsed = 0.0;
+
+            @Override
+            public void applyTo(LEDSegment segment, double elapsed) {
+                // Pattern was reposted, start integrating from here
+                if (elapsed < lastElapsed) {
+                    lastElapsed = elapsed;
+                }
+                double dt = elapsed - lastElapsed;
+                lastElapsed = elapsed;
+
+                double lockedPeriod = LEDConstants.DISTANCE_BREATHE_MIN_PERIOD +
+                    ((currentDistanceToTarget - LEDConstants.DISTANCE_BREATHE_MIN_DISTANCE) /
+                    (LEDConstants.DISTANCE_BREATHE_MAX_DISTANCE - LEDConstants.DISTANCE_BREATHE_MIN_DISTANCE))
+                    * (LEDConstants.DISTANCE_BREATHE_MAX_PERIOD - LEDConstants.DISTANCE_BREATHE_MIN_PERIOD);
+                double period = Math.max(LEDConstants.DISTANCE_BREATHE_MIN_PERIOD,
+                                   Math.min(lockedPeriod, LEDConstants.DISTANCE_BREATHE_MAX_PERIOD));
+                // Increment phase by dt/period so that phase mod 1 gives correct cycle position
+                distancePhase = (distancePhase + dt / period) % 1.0;
+
+                segment.fill(reefColor, breathIntensity(distancePhase));
             }
         };
     }
-    
-    // Modified command to activate and update distance-based breathing
+
+    // Activates and updates distance-based breathing
     public Command runDistanceBasedPatternWhenLoaded(double distance) {
-        customPatternActive = true;
-        distanceBasedBreathingEnabled = true;
         currentDistanceToTarget = distance;
-        distancePatternTimer.reset();
-        distancePatternTimer.start();
-        currentPattern = createDistanceBreathePattern();
+        compositor.post(Layer.OVERLAY, distanceBreathePattern);
         return Commands.none();
     }
 
@@ -620,28 +331,11 @@ public class LED extends SubsystemBase {
      */
     public Command setAlliancePattern() {
         return Commands.runOnce(() -> {
-            // Interrupt distance-based breathing
-            distanceBasedBreathingEnabled = false;
-            customPatternActive = false;
-            normalPattern = null;
-            
-            // Check if alliance information is available
-            var allianceOption = DriverStation.getAlliance();
-            
-            if (allianceOption.isPresent()) {
-                Alliance alliance = allianceOption.get();
-                // Use solid alliance colors
-                currentPattern = (alliance == Alliance.Blue) ? solidBlue : solidRed;
-            } else {
-                // No alliance information available, use gradient pattern
-                currentPattern = redBlueGradient;
-            }
-            
-            // Apply the pattern immediately
-            currentPattern.applyTo(tempBuffer);
-            adjustBrightnessForPower();
-            applyPatternWithBrightness();
-            led.setData(buffer);
+            // Interrupt distance-based breathing and any full-strip custom pattern
+            compositor.clear(Layer.OVERLAY, LEDZone.ALL);
+
+            // Use solid alliance colors
+            compositor.post(Layer.BASE, selectAlliancePattern(false));
         });
     }
 
@@ -659,22 +353,12 @@ public class LED extends SubsystemBase {
      */
     public Command flashLEDs(Color color, int count) {
         return Commands.runOnce(() -> {
-            // Save current pattern
-            previousPattern = currentPattern;
-            
-            // Set up flash state
-            isFlashing = true;
-            flashColor = color;
-            flashState = true; // Start with ON
-            flashCurrentCycles = 0;
-            flashMaxCycles = count;
-            flashNextChangeTime = Timer.getFPGATimestamp() + LEDConstants.FLASH_ON_DURATION;
-            
-            customPatternActive = true;
-            distanceBasedBreathingEnabled = false;
-            
+            // Return to the alliance pattern once the flash layer clears itself
+            compositor.clear(Layer.OVERLAY, LEDZone.ALL);
+            compositor.restart(Layer.FLASH, LEDPattern.flash(color, count));
+
             SmartDashboard.putString("LED Pattern", "Flashing");
             SmartDashboard.putNumber("Flash Count", count);
         });
     }
-}
\ No newline at end of file
+}
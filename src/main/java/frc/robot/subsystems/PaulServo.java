@@ -9,6 +9,8 @@ import edu.wpi.first.wpilibj.Servo;
 public class PaulServo extends SubsystemBase{
 
     Servo paulServo = new Servo(1);
+
+    private boolean engaged;
     
     public PaulServo(){
         setDisengage();
@@ -16,10 +18,16 @@ public class PaulServo extends SubsystemBase{
     
     public void setDisengage() {
         paulServo.set(.2);
+        engaged = false;
     }
 
     public void setEngage() {
         paulServo.set(0);
+        engaged = true;
+    }
+
+    public boolean isEngaged() {
+        return engaged;
     }
 
     public Command setDisengageCommand() {
@@ -21,9 +21,11 @@ public class TargetClass {
     private int face;
     private boolean isSource;
     private String name;
+    private int code;
 
     public TargetClass(String name) {
         this.name = name;
+        this.code = encode(name);
     }
 
     public double getX() {
@@ -79,6 +81,7 @@ public class TargetClass {
 
     public void setName(String name) {
         this.name = name;
+        this.code = encode(name);
     }
     public int getFace() {
         return face;
@@ -767,6 +770,67 @@ public class TargetClass {
         return target;
     }
 
+    // Two-letter targets; every other name is a letter and three digits
+    private static final String[] SHORT_NAMES = {"SL", "SR", "CL", "CC", "CR"};
+    private static final String CODE_LETTERS = "CAS";
+
+    /**
+     * Compact code for a target name, used to publish the queue as numbers:
+     * the two-letter names are 1 to 5, and a letter with three digits is the letter's
+     * place in CODE_LETTERS (C 1, A 2, S 3) times 1000 plus the digits, so C631 is 1631.
+     *
+     * @return the code, or 0 if the name isn't in that form
+     */
+    public static int encode(String name) {
+        for (int i = 0; i < SHORT_NAMES.length; i++) {
+            if (SHORT_NAMES[i].equals(name)) {
+                return i + 1;
+            }
+        }
+
+        if (name == null || name.length() != 4) {
+            return 0;
+        }
+        int letter = CODE_LETTERS.indexOf(name.charAt(0));
+        int code = (letter + 1) * 1000;
+        for (int i = 1; i < 4; i++) {
+            char digit = name.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return 0;
+            }
+            code += (digit - '0') * (i == 1 ? 100 : i == 2 ? 10 : 1);
+        }
+        return letter < 0 ? 0 : code;
+    }
+
+    /**
+     * Name for a code from {@link #encode}
+     *
+     * @return the name, or null if the code can't be one
+     */
+    public static String decode(int code) {
+        if (code >= 1 && code <= SHORT_NAMES.length) {
+            return SHORT_NAMES[code - 1];
+        }
+        int letter = code / 1000 - 1;
+        if (letter < 0 || letter >= CODE_LETTERS.length()) {
+            return null;
+        }
+        return CODE_LETTERS.charAt(letter) + String.format("%03d", code % 1000);
+    }
+
+    /**
+     * Whether a code from {@link #encode} names a target GetTargetByName knows
+     */
+    public static boolean isValidCode(int code) {
+        String name = decode(code);
+        return name != null && GetTargetByName(name) != null;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
     /**
      * Converts this target data into a Pose2d.
      * If on the red alliance, mirror the pose relative to the blue-origin field coordinate system.
@@ -0,0 +1,279 @@
+package frc.robot.subsystems.swervedrive;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.revrobotics.spark.SparkBase;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Configs;
+import frc.robot.Constants.DriveLoopConstants;
+import frc.robot.util.DoubleBuffer;
+import frc.robot.util.RobotThreads;
+import frc.robot.util.RobotThreads.Priority;
+import frc.robot.util.SparkConfigurator;
+import swervelib.SwerveDrive;
+import swervelib.SwerveModule;
+
+/**
+ * Drive control at 100 Hz, next to the 50 Hz command scheduler.
+ *
+ * A Notifier runs every DriveLoopConstants.PERIOD. Each tick it updates odometry and
+ * publishes the pose and velocity for the commands to read. While a drive-to-pose
+ * command is tracking, it also writes the module setpoints itself: the command's
+ * speeds, corrected for how far the robot has strayed from where those speeds should
+ * have taken it since the command last ran. The command still plans every 20 ms, but
+ * a bump or a slipping wheel is pushed back against within 10 ms instead of 20.
+ *
+ * On the real robot the swerve modules' encoders are set to report once per tick
+ * (Configs.Swerve); odometry can't be fresher than the frames it reads.
+ *
+ * Both handoffs are double-buffered ({@link DoubleBuffer}), so the 50 Hz side always
+ * reads one whole tick and the loop always reads one whole request, and neither waits
+ * on the other's work. Odometry, the published state and the modules have one writer
+ * at a time: the loop, or a reset or another kind of driving from the robot thread,
+ * which first stops the tracking and waits out a tick in progress.
+ *
+ * The loop's thread is the highest priority real-time thread the robot runs
+ * ({@link RobotThreads}), so the scheduler, vision and logging can't make it late.
+ *
+ * In simulation YAGSL's own odometry thread also steps the simulated drivetrain, so
+ * it keeps running, at the same period, and this loop leaves odometry to it.
+ */
+public class DriveLoop {
+
+    /** Pose and field relative velocity at a time */
+    private static final class Sample {
+        double timestamp;
+        double x;
+        double y;
+        double heading;
+        double vx;
+        double vy;
+        double omega;
+
+        static void copy(Sample from, Sample into) {
+            into.timestamp = from.timestamp;
+            into.x = from.x;
+            into.y = from.y;
+            into.heading = from.heading;
+            into.vx = from.vx;
+            into.vy = from.vy;
+            into.omega = from.omega;
+        }
+    }
+
+    private final SwerveDrive swerveDrive;
+    private final boolean updatesOdometry;
+    private final Notifier notifier;
+    private final RobotThreads.LoopMonitor monitor;
+
+    // One writer of odometry, the state and the modules at a time
+    private final ReentrantLock tickLock = new ReentrantLock();
+
+    // Loop to commands: what odometry said on the last tick
+    private final DoubleBuffer<Sample> state = new DoubleBuffer<>(Sample::new, Sample::copy);
+    // Commands to loop: the pose a command saw and the field speeds it asked for from there
+    private final DoubleBuffer<Sample> request = new DoubleBuffer<>(Sample::new, Sample::copy);
+    private volatile boolean tracking = false;
+
+    // Loop thread only
+    private final Sample loopRequest = new Sample();
+    private final ChassisSpeeds robotSpeeds = new ChassisSpeeds();
+    private boolean priorityApplied = false;
+    // Robot thread only
+    private final Sample readState = new Sample();
+
+    public DriveLoop(SwerveDrive swerveDrive) {
+        this.swerveDrive = swerveDrive;
+        updatesOdometry = RobotBase.isReal();
+        if (updatesOdometry) {
+            swerveDrive.stopOdometryThread();
+            for (SwerveModule module : swerveDrive.getModules()) {
+                if (module.getDriveMotor().getMotor() instanceof SparkBase drive) {
+                    SparkConfigurator.update(drive, Configs.Swerve.driveSignals);
+                }
+                if (module.getAngleMotor().getMotor() instanceof SparkBase angle) {
+                    SparkConfigurator.update(angle, Configs.Swerve.angleSignals);
+                }
+            }
+        } else {
+            swerveDrive.setOdometryPeriod(DriveLoopConstants.PERIOD);
+        }
+        publishState(Timer.getFPGATimestamp());
+
+        monitor = RobotThreads.monitor("DriveLoop", DriveLoopConstants.PERIOD);
+        RobotThreads.raiseNotifierPriority();
+        notifier = new Notifier(this::tick);
+        notifier.setName("DriveLoop");
+        notifier.startPeriodic(DriveLoopConstants.PERIOD);
+    }
+
+    private void tick() {
+        // The Notifier's thread is only ours once it calls us
+        if (!priorityApplied) {
+            RobotThreads.apply(Priority.CONTROL);
+            priorityApplied = true;
+        }
+        monitor.start();
+        double start = Timer.getFPGATimestamp();
+        tickLock.lock();
+        try {
+            if (updatesOdometry) {
+                swerveDrive.updateOdometry();
+            }
+            publishState(start);
+            if (tracking) {
+                track(start);
+            }
+        } finally {
+            tickLock.unlock();
+        }
+        monitor.end();
+    }
+
+    /**
+     * Reads the pose and velocity from odometry into the state; under the tick lock
+     */
+    private void publishState(double timestamp) {
+        Sample back = state.back();
+        Pose2d pose = swerveDrive.getPose();
+        ChassisSpeeds velocity = swerveDrive.getFieldVelocity();
+        back.timestamp = timestamp;
+        back.x = pose.getX();
+        back.y = pose.getY();
+        back.heading = pose.getRotation().getRadians();
+        back.vx = velocity.vxMetersPerSecond;
+        back.vy = velocity.vyMetersPerSecond;
+        back.omega = velocity.omegaRadiansPerSecond;
+        state.publish();
+    }
+
+    /**
+     * Drives the last request, corrected toward where it should have got the robot by
+     * now; under the tick lock
+     */
+    private void track(double now) {
+        request.read(loopRequest);
+        double elapsed = now - loopRequest.timestamp;
+        // The command stopped asking without handing the drive to anything else
+        if (elapsed > DriveLoopConstants.REQUEST_TIMEOUT) {
+            tracking = false;
+            robotSpeeds.vxMetersPerSecond = 0;
+            robotSpeeds.vyMetersPerSecond = 0;
+            robotSpeeds.omegaRadiansPerSecond = 0;
+            swerveDrive.drive(robotSpeeds);
+            return;
+        }
+
+        Pose2d pose = swerveDrive.getPose();
+        double heading = pose.getRotation().getRadians();
+        double vx = loopRequest.vx + DriveLoopConstants.TRANSLATION_KP
+            * (loopRequest.x + loopRequest.vx * elapsed - pose.getX());
+        double vy = loopRequest.vy + DriveLoopConstants.TRANSLATION_KP
+            * (loopRequest.y + loopRequest.vy * elapsed - pose.getY());
+        double omega = loopRequest.omega + DriveLoopConstants.ROTATION_KP
+            * MathUtil.angleModulus(loopRequest.heading + loopRequest.omega * elapsed - heading);
+
+        // Field to robot relative
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        robotSpeeds.vxMetersPerSecond = vx * cos + vy * sin;
+        robotSpeeds.vyMetersPerSecond = -vx * sin + vy * cos;
+        robotSpeeds.omegaRadiansPerSecond = omega;
+        swerveDrive.drive(robotSpeeds);
+    }
+
+    /**
+     * Has the loop drive field relative speeds until the next request, correcting
+     * toward where they take the robot from the pose they were worked out from.
+     * Robot thread; call every loop, or the loop stops the robot after
+     * DriveLoopConstants.REQUEST_TIMEOUT.
+     *
+     * @param fieldSpeeds field relative speeds
+     * @param from        the pose they were worked out from, as read from {@link #getPose}
+     */
+    public void track(ChassisSpeeds fieldSpeeds, Pose2d from) {
+        Sample back = request.back();
+        back.timestamp = Timer.getFPGATimestamp();
+        back.x = from.getX();
+        back.y = from.getY();
+        back.heading = from.getRotation().getRadians();
+        back.vx = fieldSpeeds.vxMetersPerSecond;
+        back.vy = fieldSpeeds.vyMetersPerSecond;
+        back.omega = fieldSpeeds.omegaRadiansPerSecond;
+        request.publish();
+        tracking = true;
+    }
+
+    /**
+     * Stops tracking so something else can write the modules; returns once the loop
+     * can't be writing them
+     */
+    public void release() {
+        if (!tracking) {
+            return;
+        }
+        tickLock.lock();
+        try {
+            tracking = false;
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a change to odometry (a reset, zeroing the gyro) between ticks and publishes
+     * the result, so the next {@link #getPose} already sees it
+     */
+    public void reset(Runnable change) {
+        tickLock.lock();
+        try {
+            tracking = false;
+            change.run();
+            publishState(Timer.getFPGATimestamp());
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    /**
+     * The pose from the last tick; robot thread
+     */
+    public Pose2d getPose() {
+        state.read(readState);
+        return new Pose2d(readState.x, readState.y, new Rotation2d(readState.heading));
+    }
+
+    /**
+     * The pose estimate at an earlier time, from the pose estimator's history, or empty
+     * if that is older than it keeps; any thread
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        // Odometry updates and vision measurements change the history under this lock
+        swerveDrive.odometryLock.lock();
+        try {
+            return swerveDrive.swerveDrivePoseEstimator.sampleAt(timestamp);
+        } finally {
+            swerveDrive.odometryLock.unlock();
+        }
+    }
+
+    /**
+     * The field relative velocity from the last tick; robot thread
+     */
+    public ChassisSpeeds getFieldVelocity() {
+        state.read(readState);
+        return new ChassisSpeeds(readState.vx, readState.vy, readState.omega);
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+}
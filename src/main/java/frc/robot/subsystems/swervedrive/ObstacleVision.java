@@ -0,0 +1,185 @@
+package frc.robot.subsystems.swervedrive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleFunction;
+
+import org.photonvision.PhotonCamera;
+import org.photonvision.estimation.TargetModel;
+import org.photonvision.simulation.PhotonCameraSim;
+import org.photonvision.simulation.SimCameraProperties;
+import org.photonvision.simulation.VisionSystemSim;
+import org.photonvision.simulation.VisionTargetSim;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Robot;
+import frc.robot.Constants.ObstacleVisionConstants;
+import frc.robot.util.ObstacleGrid;
+
+/**
+ * Robots and algae seen by the object detection camera, kept as an {@link ObstacleGrid}
+ * for the pathfinder to drive around.
+ *
+ * Each detection is projected onto the floor: the ray from the camera through the
+ * bottom middle of its box, where its near edge touches the floor, is followed down
+ * to the floor and pushed on by half the object's length to its middle, then moved
+ * onto the field with the robot's pose when the frame was taken. Following the bottom edge to the floor keeps
+ * the ray well below the horizon, where a fraction of a degree is centimeters and
+ * not meters. Finding the bottom edge's angle needs the camera's calibration, so
+ * nothing is marked until the camera has published it.
+ *
+ * Cells around what is seen are marked for a while; other robots move, so they are
+ * forgotten sooner than algae. Coral on the floor is low enough to drive over and is
+ * ignored, and anything else not in the model counts as a robot.
+ *
+ * In simulation the camera sees the robots and algae placed in
+ * ObstacleVisionConstants, labeled with their classes, through its own VisionSystemSim.
+ */
+public class ObstacleVision {
+
+    private final PhotonCamera camera;
+    private final ObstacleGrid grid;
+    private final List<Pose2d> seen = new ArrayList<>();
+
+    // Simulation
+    private VisionSystemSim visionSim;
+
+    public ObstacleVision(int width, int height, double nodeSize) {
+        camera = new PhotonCamera(ObstacleVisionConstants.CAMERA_NAME);
+        grid = new ObstacleGrid(width, height, nodeSize);
+
+        // ----- Simulation
+        if (Robot.isSimulation()) {
+            visionSim = new VisionSystemSim("obstacles");
+            for (Translation2d position : ObstacleVisionConstants.SIM_ROBOTS) {
+                visionSim.addVisionTargets("robot", new VisionTargetSim(
+                    new Pose3d(position.getX(), position.getY(), ObstacleVisionConstants.SIM_ROBOT_HEIGHT / 2, new Rotation3d()),
+                    new TargetModel(ObstacleVisionConstants.ROBOT_HALF_LENGTH * 2, ObstacleVisionConstants.ROBOT_HALF_LENGTH * 2,
+                        ObstacleVisionConstants.SIM_ROBOT_HEIGHT),
+                    ObstacleVisionConstants.ROBOT_CLASS_ID, 1.0f));
+            }
+            for (Translation2d position : ObstacleVisionConstants.SIM_ALGAE) {
+                visionSim.addVisionTargets("algae", new VisionTargetSim(
+                    new Pose3d(position.getX(), position.getY(), ObstacleVisionConstants.ALGAE_HALF_LENGTH, new Rotation3d()),
+                    new TargetModel(ObstacleVisionConstants.ALGAE_HALF_LENGTH * 2),
+                    ObstacleVisionConstants.ALGAE_CLASS_ID, 1.0f));
+            }
+
+            var cameraProp = new SimCameraProperties();
+            cameraProp.setCalibration(640, 480, Rotation2d.fromDegrees(70));
+            cameraProp.setFPS(30);
+            cameraProp.setAvgLatencyMs(35);
+            cameraProp.setLatencyStdDevMs(5);
+            PhotonCameraSim cameraSim = new PhotonCameraSim(camera, cameraProp);
+            visionSim.addCamera(cameraSim, ObstacleVisionConstants.ROBOT_TO_CAMERA);
+        }
+    }
+
+    /**
+     * Adds the camera's new detections and forgets old ones
+     *
+     * @param poseAt where the robot was at a timestamp, or empty if that is too long ago to know
+     * @return whether the occupied cells changed
+     */
+    public boolean update(DoubleFunction<Optional<Pose2d>> poseAt) {
+        Optional<Matrix<N3, N3>> intrinsics = camera.getCameraMatrix();
+        for (var result : camera.getAllUnreadResults()) {
+            seen.clear();
+            // The frame is from before this loop, and the robot has moved since
+            double timestamp = result.getTimestampSeconds();
+            Optional<Pose2d> robotPose = poseAt.apply(timestamp);
+            if (intrinsics.isPresent() && robotPose.isPresent()) {
+                for (PhotonTrackedTarget target : result.getTargets()) {
+                    addDetection(robotPose.get(), target, intrinsics.get(), timestamp);
+                }
+            }
+            SmartDashboard.putNumber("Obstacles Seen", seen.size());
+            if (Robot.isSimulation()) {
+                visionSim.getDebugField().getObject("Obstacles").setPoses(seen);
+            }
+        }
+        grid.decay(Timer.getFPGATimestamp());
+        return grid.takeChanged();
+    }
+
+    /**
+     * @param robotPose  where the robot was when the frame was taken
+     * @param intrinsics the camera matrix, for the angle of the detection's bottom edge
+     * @param seenAt     when the frame was taken; the hold times count from it
+     */
+    private void addDetection(Pose2d robotPose, PhotonTrackedTarget target, Matrix<N3, N3> intrinsics, double seenAt) {
+        int classId = target.getDetectedObjectClassID();
+        if (classId == ObstacleVisionConstants.CORAL_CLASS_ID) {
+            return;
+        }
+        boolean algae = classId == ObstacleVisionConstants.ALGAE_CLASS_ID;
+
+        // Bottom of the box in the image, where the object meets the floor (image y is down)
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (TargetCorner corner : target.getMinAreaRectCorners()) {
+            bottom = Math.max(bottom, corner.y);
+        }
+        if (bottom == Double.NEGATIVE_INFINITY) {
+            return;
+        }
+
+        // Ray through the bottom middle, camera frame (x forward, y left, z up); PhotonVision yaw is positive right
+        double focalY = intrinsics.get(1, 1);
+        double centerY = intrinsics.get(1, 2);
+        Translation3d ray = new Translation3d(1, -Math.tan(Math.toRadians(target.getYaw())),
+            -(bottom - centerY) / focalY)
+            .rotateBy(ObstacleVisionConstants.ROBOT_TO_CAMERA.getRotation());
+        Translation3d cameraPosition = ObstacleVisionConstants.ROBOT_TO_CAMERA.getTranslation();
+        double scale = -cameraPosition.getZ() / ray.getZ();
+        // At or above the horizon, the ray never reaches the floor
+        if (!(scale > 0)) {
+            return;
+        }
+
+        // The middle is past the near edge, on along the ray
+        Translation2d along = new Translation2d(ray.getX(), ray.getY());
+        double halfLength = algae ? ObstacleVisionConstants.ALGAE_HALF_LENGTH : ObstacleVisionConstants.ROBOT_HALF_LENGTH;
+        Translation2d robotToTarget = new Translation2d(
+            cameraPosition.getX() + ray.getX() * scale,
+            cameraPosition.getY() + ray.getY() * scale)
+            .plus(along.times(halfLength / along.getNorm()));
+        if (robotToTarget.getNorm() > ObstacleVisionConstants.MAX_RANGE) {
+            return;
+        }
+
+        Translation2d position = robotPose.getTranslation().plus(robotToTarget.rotateBy(robotPose.getRotation()));
+        if (algae) {
+            grid.mark(position.getX(), position.getY(), ObstacleVisionConstants.ALGAE_RADIUS,
+                seenAt + ObstacleVisionConstants.ALGAE_HOLD_TIME);
+        } else {
+            grid.mark(position.getX(), position.getY(), ObstacleVisionConstants.ROBOT_RADIUS,
+                seenAt + ObstacleVisionConstants.ROBOT_HOLD_TIME);
+        }
+        seen.add(new Pose2d(position, Rotation2d.kZero));
+    }
+
+    /**
+     * The occupied cells as an {@link ObstacleGrid} mask; live, so copy it to hand it on
+     */
+    public long[] getMask() {
+        return grid.getMask();
+    }
+
+    // ----- Simulation
+
+    public void simulationPeriodic(Pose2d robotSimPose) {
+        visionSim.update(robotSimPose);
+    }
+}
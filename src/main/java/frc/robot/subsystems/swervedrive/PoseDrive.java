@@ -0,0 +1,35 @@
+package frc.robot.subsystems.swervedrive;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * What ProfileToPose needs from a drivebase.
+ *
+ * {@link SwerveSubsystem} is the real one. Anything else that implements it, like the
+ * made-up robot the auton warm-up drives, can run the real command without the drive
+ * loop or the motors.
+ */
+public interface PoseDrive extends Subsystem {
+
+    /** The robot's pose on the field */
+    Pose2d getPose();
+
+    /** The robot's velocity, robot relative */
+    ChassisSpeeds getRobotVelocity();
+
+    /** Whether the driver has taken over from drive-to-pose */
+    boolean getCancel();
+
+    /**
+     * Drive field relative speeds, worked out from the given pose
+     *
+     * @param fieldVelocity velocity according to the field
+     * @param from          the pose the velocity was worked out from
+     */
+    void driveTracked(ChassisSpeeds fieldVelocity, Pose2d from);
+
+    /** Stop and hold still */
+    void lock();
+}
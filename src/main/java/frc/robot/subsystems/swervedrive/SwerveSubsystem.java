@@ -5,6 +5,7 @@
 package frc.robot.subsystems.swervedrive;
 
 import static edu.wpi.first.units.Units.Meter;
+import static edu.wpi.first.units.Units.Newtons;
 
 import com.pathplanner.lib.auto.AutoBuilder;
 import com.pathplanner.lib.commands.FollowPathCommand;
@@ -15,13 +16,16 @@ import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.Pathfinding;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.units.measure.MutForce;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
@@ -38,6 +42,8 @@ import frc.robot.commands.SlowProfileToPose;
 import frc.robot.subsystems.ButtonBox;
 import frc.robot.subsystems.Elevator;
 import frc.robot.subsystems.TargetClass;
+import frc.robot.util.DStarLitePathfinder;
+import frc.robot.util.Waveform;
 
 import java.io.File;
 import java.util.function.Supplier;
@@ -49,7 +55,7 @@ import swervelib.parser.SwerveDriveConfiguration;
 import swervelib.parser.SwerveParser;
 import swervelib.telemetry.SwerveDriveTelemetry;
 import swervelib.telemetry.SwerveDriveTelemetry.TelemetryVerbosity;
-public class SwerveSubsystem extends SubsystemBase
+public class SwerveSubsystem extends SubsystemBase implements PoseDrive
 {
 
   /**
@@ -62,6 +68,19 @@ public class SwerveSubsystem extends SubsystemBase
   private boolean isShaking = false;
   private double shakeStartTime = 0;
   private Command currentShakeCommand = null; // Track the current shake command
+
+  // Shake velocities: sine on X and rotation, square wave for a harder Y shake
+  private final Waveform shakeX = new Waveform(Waveform.Shape.SINE,
+      Constants.ShakeModeConstants.SHAKE_AMPLITUDE_X * Constants.ShakeModeConstants.SHAKE_FREQUENCY,
+      Constants.ShakeModeConstants.SHAKE_FREQUENCY);
+  private final Waveform shakeY = new Waveform(Waveform.Shape.SQUARE,
+      Constants.ShakeModeConstants.SHAKE_SPEED_Y,
+      Constants.ShakeModeConstants.SHAKE_FREQUENCY)
+      .withPhase(Constants.ShakeModeConstants.Y_PHASE_SHIFT);
+  private final Waveform shakeRotation = new Waveform(Waveform.Shape.SINE,
+      Constants.ShakeModeConstants.ANGULAR_SHAKE_AMPLITUDE * Constants.ShakeModeConstants.SHAKE_FREQUENCY,
+      Constants.ShakeModeConstants.SHAKE_FREQUENCY)
+      .withPhase(Constants.ShakeModeConstants.ROTATION_PHASE_SHIFT);
   
   private boolean isUsingQuest;
 
@@ -71,6 +90,23 @@ public class SwerveSubsystem extends SubsystemBase
 
   private Vision vision = new Vision();
 
+  /**
+   * Pathfinder PathPlanner uses, and the robots and algae seen for it to drive around;
+   * created with PathPlanner
+   */
+  private DStarLitePathfinder pathfinder;
+  private ObstacleVision obstacleVision;
+
+  /**
+   * Odometry and drive-to-pose tracking at 100 Hz
+   */
+  private DriveLoop driveLoop;
+
+  /**
+   * Feedforward force for each module, reused every loop by {@link #driveWithModuleForces}
+   */
+  private final MutForce[] moduleForces = {Newtons.mutable(0), Newtons.mutable(0), Newtons.mutable(0), Newtons.mutable(0)};
+
 
   /**
    * Initialize {@link SwerveDrive} with the directory provided.
@@ -101,6 +137,7 @@ public class SwerveSubsystem extends SubsystemBase
     swerveDrive.setModuleEncoderAutoSynchronize(false,
                                                 1); // Enable if you want to resynchronize your absolute encoders and motor encoders periodically when they are not moving.
 //    swerveDrive.pushOffsetsToEncoders(); // Set the absolute encoder to be used over the internal encoder and push the offsets onto it. Throws warning if not possible
+    driveLoop = new DriveLoop(swerveDrive);
     setupPathPlanner();
   }
 
@@ -117,6 +154,7 @@ public class SwerveSubsystem extends SubsystemBase
                                   Constants.MAX_SPEED,
                                   new Pose2d(new Translation2d(Meter.of(2), Meter.of(0)),
                                              Rotation2d.fromDegrees(0)));
+    driveLoop = new DriveLoop(swerveDrive);
   }
 
   @Override
@@ -129,6 +167,13 @@ public class SwerveSubsystem extends SubsystemBase
       addQuestVisionMeasurement();
     }
 
+    // Robots and algae in the way, handed to the pathfinder only when they change
+    if (obstacleVision != null && obstacleVision.update(driveLoop::getPoseAt)) {
+      pathfinder.setObstacleMask(obstacleVision.getMask());
+    }
+
+    SmartDashboard.putBoolean("Drive Loop Tracking", driveLoop.isTracking());
+
     SmartDashboard.putNumber("Battery Voltage", RobotController.getBatteryVoltage());
     SmartDashboard.putNumber("Match Time", DriverStation.getMatchTime());
 
@@ -143,6 +188,9 @@ public class SwerveSubsystem extends SubsystemBase
   public void simulationPeriodic()
   {
     vision.simulationPeriodic(getPose());
+    if (obstacleVision != null) {
+      obstacleVision.simulationPeriodic(getPose());
+    }
   }
 
   /**
@@ -167,6 +215,7 @@ public class SwerveSubsystem extends SubsystemBase
           this::getRobotVelocity,
           // ChassisSpeeds supplier. MUST BE ROBOT RELATIVE
           (speedsRobotRelative, moduleFeedForwards) -> {
+            driveLoop.release();
             if (enableFeedforward)
             {
               swerveDrive.drive(
@@ -212,12 +261,23 @@ public class SwerveSubsystem extends SubsystemBase
     }
 
     //Preload PathPlanner Path finding
-    // IF USING CUSTOM PATHFINDER ADD BEFORE THIS LINE
+    // D* Lite on its own thread once startPathfinding is called, repaired in place as the robot moves and obstacles change
+    pathfinder = new DStarLitePathfinder();
+    obstacleVision = new ObstacleVision(pathfinder.getWidth(), pathfinder.getHeight(), pathfinder.getNodeSize());
+    Pathfinding.setPathfinder(pathfinder);
     PathfindingCommand.warmupCommand().schedule();
     FollowPathCommand.warmupCommand().schedule();
   }
 
 
+  /**
+   * Starts the pathfinder's planner thread. Pathfinding requests made before this are planned once it runs.
+   */
+  public void startPathfinding()
+  {
+    pathfinder.start();
+  }
+
   /**
    * Get the path follower with events.
    *
@@ -386,6 +446,7 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void drive(Translation2d translation, double rotation, boolean fieldRelative)
   {
+    driveLoop.release();
     swerveDrive.drive(translation,
                       rotation,
                       fieldRelative,
@@ -399,6 +460,7 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void driveFieldOriented(ChassisSpeeds velocity)
   {
+    driveLoop.release();
     swerveDrive.driveFieldOriented(velocity);
   }
 
@@ -410,6 +472,7 @@ public class SwerveSubsystem extends SubsystemBase
   public Command driveFieldOriented(Supplier<ChassisSpeeds> velocity)
   {
     return run(() -> {
+      driveLoop.release();
       swerveDrive.driveFieldOriented(velocity.get());
     });
   }
@@ -421,9 +484,44 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void drive(ChassisSpeeds velocity)
   {
+    driveLoop.release();
     swerveDrive.drive(velocity);
   }
 
+  /**
+   * Drive field oriented speeds from a drive-to-pose controller. The 100 Hz drive loop writes them to the modules,
+   * correcting toward where they should take the robot from the pose they were worked out from until the next call.
+   * Call every loop; the drive stops if the calls stop.
+   *
+   * @param fieldVelocity Velocity according to the field.
+   * @param from          The pose the velocity was worked out from, from {@link #getPose()}.
+   */
+  public void driveTracked(ChassisSpeeds fieldVelocity, Pose2d from)
+  {
+    driveLoop.track(fieldVelocity, from);
+  }
+
+  /**
+   * Drive according to the chassis robot oriented velocity, adding a planned force at each module, as from a Choreo
+   * trajectory.
+   *
+   * @param velocity Robot oriented {@link ChassisSpeeds}
+   * @param forcesX  Robot relative x force each module should push with, in newtons, in module order.
+   * @param forcesY  Robot relative y force each module should push with, in newtons, in module order.
+   */
+  public void driveWithModuleForces(ChassisSpeeds velocity, double[] forcesX, double[] forcesY)
+  {
+    driveLoop.release();
+    SwerveModuleState[] states = swerveDrive.kinematics.toSwerveModuleStates(velocity);
+    for (int i = 0; i < states.length; i++)
+    {
+      // Only the part of the force along the wheel can be driven
+      double angle = states[i].angle.getRadians();
+      moduleForces[i].mut_replace(forcesX[i] * Math.cos(angle) + forcesY[i] * Math.sin(angle), Newtons);
+    }
+    swerveDrive.drive(velocity, states, moduleForces);
+  }
+
 
   /**
    * Get the swerve drive kinematics object.
@@ -444,17 +542,17 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void resetOdometry(Pose2d initialHolonomicPose)
   {
-    swerveDrive.resetOdometry(initialHolonomicPose);
+    driveLoop.reset(() -> swerveDrive.resetOdometry(initialHolonomicPose));
   }
 
   /**
-   * Gets the current pose (position and rotation) of the robot, as reported by odometry.
+   * Gets the current pose (position and rotation) of the robot, as reported by odometry on the drive loop's last tick.
    *
    * @return The robot's pose
    */
   public Pose2d getPose()
   {
-    return swerveDrive.getPose();
+    return driveLoop.getPose();
   }
 
   /**
@@ -464,6 +562,7 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void setChassisSpeeds(ChassisSpeeds chassisSpeeds)
   {
+    driveLoop.release();
     swerveDrive.setChassisSpeeds(chassisSpeeds);
   }
 
@@ -482,7 +581,7 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public void zeroGyro()
   {
-    swerveDrive.zeroGyro();
+    driveLoop.reset(swerveDrive::zeroGyro);
   }
 
   /**
@@ -582,7 +681,7 @@ public class SwerveSubsystem extends SubsystemBase
    */
   public ChassisSpeeds getFieldVelocity()
   {
-    return swerveDrive.getFieldVelocity();
+    return driveLoop.getFieldVelocity();
   }
 
   /**
@@ -615,11 +714,22 @@ public class SwerveSubsystem extends SubsystemBase
     return swerveDrive.swerveDriveConfiguration;
   }
 
+  /**
+   * Get the AprilTag vision pose estimation.
+   *
+   * @return {@link Vision} used for the pose estimate.
+   */
+  public Vision getVision()
+  {
+    return vision;
+  }
+
   /**
    * Lock the swerve drive to prevent it from moving.
    */
   public void lock()
   {
+    driveLoop.release();
     swerveDrive.lockPose();
   }
 
@@ -725,30 +835,20 @@ public class SwerveSubsystem extends SubsystemBase
    * @return ChassisSpeeds with appropriate oscillating values
    */
   private ChassisSpeeds getShakeMotion(boolean xShake, boolean yShake, boolean rotationShake) {
-    double time = Timer.getFPGATimestamp() - shakeStartTime;
-    
-    // Calculate X velocity if enabled (using traditional sine)
-    double xVelocity = xShake ? 
-        Constants.ShakeModeConstants.SHAKE_AMPLITUDE_X * 
-        Constants.ShakeModeConstants.SHAKE_FREQUENCY * 
-        Math.sin(2 * Math.PI * Constants.ShakeModeConstants.SHAKE_FREQUENCY * time) : 0;
+    double time = Timer.getFPGATimestamp();
     
-    // Use simpler square wave with direct speed values for Y
-    // This creates a more aggressive back-and-forth motion
-    double yDirection = Math.sin(2 * Math.PI * Constants.ShakeModeConstants.SHAKE_FREQUENCY * time) >= 0 ? 1.0 : -1.0;
-    double yVelocity = yShake ? yDirection * Constants.ShakeModeConstants.SHAKE_SPEED_Y : 0;
-    
-    // Calculate rotation velocity if enabled
-    double rotationalVelocity = rotationShake ? 
-        Constants.ShakeModeConstants.ANGULAR_SHAKE_AMPLITUDE * 
-        Constants.ShakeModeConstants.SHAKE_FREQUENCY * 
-        Math.sin(2 * Math.PI * Constants.ShakeModeConstants.SHAKE_FREQUENCY * time + 
-                Constants.ShakeModeConstants.ROTATION_PHASE_SHIFT) : 0;
+    // Every waveform advances each loop so they stay in phase whichever axes are enabled
+    double xVelocity = shakeX.sample(time);
+    double yVelocity = shakeY.sample(time);
+    double rotationalVelocity = shakeRotation.sample(time);
+
+    xVelocity = xShake ? xVelocity : 0;
+    yVelocity = yShake ? yVelocity : 0;
+    rotationalVelocity = rotationShake ? rotationalVelocity : 0;
 
     // Log shake values to SmartDashboard for debugging
     SmartDashboard.putNumber("Shake X Velocity", xVelocity);
     SmartDashboard.putNumber("Shake Y Velocity", yVelocity);
-    SmartDashboard.putNumber("Shake Direction", yDirection);
     SmartDashboard.putNumber("Shake Rotation Velocity", rotationalVelocity);
     
     return new ChassisSpeeds(xVelocity, yVelocity, rotationalVelocity);
@@ -768,6 +868,9 @@ public class SwerveSubsystem extends SubsystemBase
       Commands.runOnce(() -> {
         isShaking = true;
         shakeStartTime = Timer.getFPGATimestamp();
+        shakeX.start(shakeStartTime);
+        shakeY.start(shakeStartTime);
+        shakeRotation.start(shakeStartTime);
       }),
       
       // Run the shake continuously until command is manually canceled
@@ -777,6 +880,7 @@ public class SwerveSubsystem extends SubsystemBase
         
         // Use direct module states for more aggressive shaking if configured
         if (Constants.ShakeModeConstants.USE_OPEN_LOOP) {
+          driveLoop.release();
           swerveDrive.drive(
             new Translation2d(shakeMotion.vxMetersPerSecond, shakeMotion.vyMetersPerSecond),
             shakeMotion.omegaRadiansPerSecond, 
@@ -195,7 +195,7 @@ public class Vision {
      * @param estimator     The estimator that produced this pose
      * @param stdDevsOutput The output standard deviations to be updated
      */
-    private void updateEstimationStdDevs(
+    void updateEstimationStdDevs(
             Optional<EstimatedRobotPose> estimatedPose, 
             List<PhotonTrackedTarget> targets,
             PhotonPoseEstimator estimator,
@@ -205,7 +205,6 @@ public class Vision {
             stdDevsOutput = kSingleTagStdDevs;
         } else {
             // Pose present. Start running Heuristic
-            var estStdDevs = kSingleTagStdDevs;
             int numTags = 0;
             double avgDist = 0;
 
@@ -223,28 +222,58 @@ public class Vision {
                         .getDistance(estimatedPose.get().estimatedPose.toPose2d().getTranslation());
             }
 
-            if (numTags == 0) {
-                // No tags visible. Default to single-tag std devs
-                stdDevsOutput = kSingleTagStdDevs;
-            } else {
-                // One or more tags visible, run the full heuristic.
-                avgDist /= numTags;
-                // Decrease std devs if multiple targets are visible
-                if (numTags > 1)
-                    estStdDevs = kMultiTagStdDevs;
-                // Increase std devs based on (average) distance
-                if (numTags == 1 && avgDist > 4)
-                    estStdDevs = VecBuilder.fill(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
-                else
-                    estStdDevs = estStdDevs.times(1 + (avgDist * avgDist / 30));
-                stdDevsOutput = estStdDevs;
-            }
+            stdDevsOutput = stdDevsForTags(numTags, avgDist);
         }
         
         // Also update the common stdDevs for backward compatibility
         curStdDevs = stdDevsOutput;
     }
 
+    /**
+     * The heuristic behind {@link #updateEstimationStdDevs}: trust more tags and closer
+     * tags more
+     *
+     * @param numTags   tags used for the estimate
+     * @param totalDist sum of the distances from the estimate to those tags
+     */
+    private Matrix<N3, N1> stdDevsForTags(int numTags, double totalDist) {
+        if (numTags == 0) {
+            // No tags visible. Default to single-tag std devs
+            return kSingleTagStdDevs;
+        }
+        // One or more tags visible, run the full heuristic.
+        double avgDist = totalDist / numTags;
+        // Decrease std devs if multiple targets are visible
+        var estStdDevs = numTags > 1 ? kMultiTagStdDevs : kSingleTagStdDevs;
+        // Increase std devs based on (average) distance
+        if (numTags == 1 && avgDist > 4)
+            return VecBuilder.fill(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+        return estStdDevs.times(1 + (avgDist * avgDist / 30));
+    }
+
+    /**
+     * Runs the tag lookup and std dev heuristic for a made-up estimate, seeing each
+     * tag on the field in turn and then in pairs, so they are compiled before the
+     * first real frame. Changes nothing, so it is safe from any thread.
+     *
+     * @param robotPose the made-up estimate
+     * @return a sum of the results, so the work can't be optimised away
+     */
+    public double warmup(Pose2d robotPose) {
+        double sum = 0;
+        double lastDist = 0;
+        for (var tag : kTagLayout.getTags()) {
+            var tagPose = kTagLayout.getTagPose(tag.ID);
+            if (tagPose.isEmpty())
+                continue;
+            double dist = tagPose.get().toPose2d().getTranslation().getDistance(robotPose.getTranslation());
+            sum += stdDevsForTags(1, dist).get(0, 0);
+            sum += stdDevsForTags(2, dist + lastDist).get(0, 0);
+            lastDist = dist;
+        }
+        return sum;
+    }
+
     /**
      * Returns the latest standard deviations of the estimated pose from the left camera.
      */
@@ -0,0 +1,54 @@
+package frc.robot.util;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Waits until a condition is true, but never longer than a time budget.
+ *
+ * Replaces fixed waits that were only ever standing in for something the robot can
+ * see happen, like a coral leaving the shooter. Ending as soon as it does saves the
+ * rest of the wait, and the budget keeps the old behaviour when a sensor misses it.
+ * How long each wait took, and whether the condition or the budget ended it, is
+ * recorded in {@link WaitStats}.
+ */
+public class BudgetedWait extends Command {
+
+    private final String name;
+    private final BooleanSupplier condition;
+    private final double budget;
+    private final Timer timer = new Timer();
+    private boolean conditionMet;
+
+    /**
+     * @param name      name the wait is recorded under
+     * @param condition ends the wait once true
+     * @param budget    longest it will wait, in seconds
+     */
+    public BudgetedWait(String name, BooleanSupplier condition, double budget) {
+        this.name = name;
+        this.condition = condition;
+        this.budget = budget;
+    }
+
+    @Override
+    public void initialize() {
+        conditionMet = false;
+        timer.restart();
+    }
+
+    @Override
+    public boolean isFinished() {
+        conditionMet = condition.getAsBoolean();
+        return conditionMet || timer.hasElapsed(budget);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        timer.stop();
+        // Interrupted waits still cost the time they ran for
+        WaitStats.record(name, timer.get(), budget, conditionMet);
+    }
+}
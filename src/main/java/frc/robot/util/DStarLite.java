@@ -0,0 +1,471 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+
+/**
+ * Incremental shortest paths on an 8-connected grid (D* Lite).
+ *
+ * The search runs from the goal towards the start, so each cell's cost is its
+ * distance to the goal. When the start moves, nothing already worked out changes;
+ * the queue keys are shifted by how far it moved (km) and only the cells between the
+ * old and new start are looked at again. When cells are blocked or cleared only the
+ * cells whose cost to the goal depends on them are repaired. Changing the goal starts
+ * over.
+ *
+ * Everything lives in primitive arrays indexed by cell (y * width + x), including
+ * the priority queue, so planning allocates nothing. Not thread safe; one thread owns
+ * an instance.
+ */
+public class DStarLite {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+    // Keys closer than this are equal. The heuristic is exactly a neighbour's edge cost,
+    // so ties are everywhere and rounding would otherwise decide them.
+    private static final double KEY_TOLERANCE = 1e-9;
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final int width;
+    private final int height;
+    private final double nodeSize;
+    private final boolean[] staticBlocked;
+    // One bit per cell, cell / 64 picks the word and cell % 64 the bit
+    private final long[] dynamicBlocked;
+
+    // Cost to the goal as last settled (g) and as its neighbours say it should be (rhs)
+    private final double[] g;
+    private final double[] rhs;
+
+    // Binary min-heap of cells ordered by (key1, key2), with each cell's place in it
+    private final int[] heap;
+    private final int[] heapIndex;
+    private final double[] key1;
+    private final double[] key2;
+    private int heapSize = 0;
+
+    private int start = -1;
+    private int goal = -1;
+    private int lastStart = -1;
+    private double km = 0;
+
+    /**
+     * @param width    cells across
+     * @param height   cells up
+     * @param nodeSize meters per cell
+     * @param blocked  cells that never change, indexed y * width + x
+     */
+    public DStarLite(int width, int height, double nodeSize, boolean[] blocked) {
+        this.width = width;
+        this.height = height;
+        this.nodeSize = nodeSize;
+        int cells = width * height;
+        staticBlocked = Arrays.copyOf(blocked, cells);
+        dynamicBlocked = new long[maskWords(cells)];
+        g = new double[cells];
+        rhs = new double[cells];
+        heap = new int[cells];
+        heapIndex = new int[cells];
+        key1 = new double[cells];
+        key2 = new double[cells];
+        Arrays.fill(heapIndex, -1);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getNodeSize() {
+        return nodeSize;
+    }
+
+    public int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    public int cellX(int cell) {
+        return cell % width;
+    }
+
+    public int cellY(int cell) {
+        return cell / width;
+    }
+
+    /** Cell containing a field position, clamped to the grid */
+    public int cellAt(double x, double y) {
+        int cx = Math.max(0, Math.min(width - 1, (int) Math.floor(x / nodeSize)));
+        int cy = Math.max(0, Math.min(height - 1, (int) Math.floor(y / nodeSize)));
+        return cell(cx, cy);
+    }
+
+    /** Field position of a cell's center */
+    public double centerX(int cell) {
+        return (cellX(cell) + 0.5) * nodeSize;
+    }
+
+    public double centerY(int cell) {
+        return (cellY(cell) + 0.5) * nodeSize;
+    }
+
+    public boolean isBlocked(int cell) {
+        return staticBlocked[cell] || (dynamicBlocked[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Closest cell to this one that isn't blocked, searching outward ring by ring
+     *
+     * @return the cell itself if it is free, or -1 if every cell is blocked
+     */
+    public int nearestFree(int cell) {
+        if (!isBlocked(cell)) {
+            return cell;
+        }
+        int cx = cellX(cell);
+        int cy = cellY(cell);
+        for (int ring = 1; ring < Math.max(width, height); ring++) {
+            int best = -1;
+            double bestDistance = INF;
+            for (int dy = -ring; dy <= ring; dy++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+                        continue;
+                    }
+                    int x = cx + dx;
+                    int y = cy + dy;
+                    if (x < 0 || y < 0 || x >= width || y >= height || isBlocked(cell(x, y))) {
+                        continue;
+                    }
+                    double distance = Math.hypot(dx, dy);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        best = cell(x, y);
+                    }
+                }
+            }
+            if (best >= 0) {
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a new search to a goal; everything worked out so far is dropped
+     */
+    public void reset(int start, int goal) {
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        Arrays.fill(heapIndex, -1);
+        heapSize = 0;
+        km = 0;
+        this.start = start;
+        this.lastStart = start;
+        this.goal = goal;
+
+        rhs[goal] = 0;
+        insert(goal, heuristic(start, goal), 0);
+    }
+
+    /**
+     * Moves the start; only {@link #compute} has any work to do for it
+     */
+    public void moveStart(int newStart) {
+        if (newStart == start) {
+            return;
+        }
+        km += heuristic(lastStart, newStart);
+        lastStart = newStart;
+        start = newStart;
+    }
+
+    /**
+     * Replaces the cells blocked on top of the static grid, repairing only around the
+     * ones that changed. Whole words that match are skipped, so an unchanged mask
+     * costs one comparison per 64 cells.
+     *
+     * @param mask one bit per cell, laid out like {@link #maskWords}
+     * @return how many cells changed
+     */
+    public int setDynamicBlocked(long[] mask) {
+        int changed = 0;
+        for (int word = 0; word < dynamicBlocked.length; word++) {
+            long diff = dynamicBlocked[word] ^ mask[word];
+            dynamicBlocked[word] = mask[word];
+            while (diff != 0) {
+                int cell = (word << 6) | Long.numberOfTrailingZeros(diff);
+                diff &= diff - 1;
+                changed++;
+                if (goal >= 0) {
+                    updateAround(cell);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Longs needed for a mask with one bit per cell; bit (cell % 64) of word
+     * (cell / 64) is the cell
+     */
+    public static int maskWords(int cells) {
+        return (cells + 63) >>> 6;
+    }
+
+    /**
+     * Every edge touching this cell changed cost, and diagonals cutting past its corner
+     */
+    private void updateAround(int cell) {
+        updateVertex(cell);
+        int x = cellX(cell);
+        int y = cellY(cell);
+        for (int i = 0; i < 8; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                updateVertex(cell(nx, ny));
+            }
+        }
+    }
+
+    /**
+     * Settles costs until the start's is known
+     *
+     * @return cells expanded
+     */
+    public int compute() {
+        int expanded = 0;
+        while (heapSize > 0) {
+            int u = heap[0];
+            double startKey1 = Math.min(g[start], rhs[start]) + km;
+            double startKey2 = Math.min(g[start], rhs[start]);
+            boolean topBeforeStart = keyLess(key1[u], key2[u], startKey1, startKey2);
+            // Settling the start itself means every cell on its cheapest path is settled too
+            if (!topBeforeStart && rhs[start] == g[start]) {
+                break;
+            }
+            expanded++;
+
+            double k1 = Math.min(g[u], rhs[u]) + heuristic(start, u) + km;
+            double k2 = Math.min(g[u], rhs[u]);
+            if (keyLess(key1[u], key2[u], k1, k2)) {
+                // Key is out of date from the start moving
+                update(u, k1, k2);
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                remove(u);
+                updateNeighbours(u);
+            } else {
+                g[u] = INF;
+                updateVertex(u);
+                updateNeighbours(u);
+            }
+        }
+        return expanded;
+    }
+
+    /** Cost from the start to the goal in meters; infinite if there's no way there */
+    public double getCost() {
+        return start < 0 ? INF : g[start];
+    }
+
+    /**
+     * Cells from the start to the goal, following the cheapest neighbour each step
+     *
+     * @param out filled with the cells, start first; must hold width * height
+     * @return how many cells, or 0 if there is no path
+     */
+    public int extractPath(int[] out) {
+        if (getCost() == INF) {
+            return 0;
+        }
+        int count = 0;
+        int cell = start;
+        out[count++] = cell;
+        while (cell != goal && count < out.length) {
+            int best = -1;
+            double bestCost = INF;
+            int x = cellX(cell);
+            int y = cellY(cell);
+            for (int i = 0; i < 8; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int next = cell(nx, ny);
+                double cost = edgeCost(cell, next, i) + g[next];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = next;
+                }
+            }
+            if (best < 0) {
+                return 0;
+            }
+            cell = best;
+            out[count++] = cell;
+        }
+        return cell == goal ? count : 0;
+    }
+
+    /**
+     * Whether a straight line between two field positions stays off blocked cells
+     */
+    public boolean isLineClear(double x0, double y0, double x1, double y1) {
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        int steps = Math.max(1, (int) Math.ceil(length / (nodeSize / 4)));
+        for (int i = 0; i <= steps; i++) {
+            double t = (double) i / steps;
+            if (isBlocked(cellAt(x0 + (x1 - x0) * t, y0 + (y1 - y0) * t))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double heuristic(int a, int b) {
+        return Math.hypot(cellX(a) - cellX(b), cellY(a) - cellY(b)) * nodeSize;
+    }
+
+    /** Cost of moving from a cell to its neighbour in direction i */
+    private double edgeCost(int from, int to, int direction) {
+        if (isBlocked(from) || isBlocked(to)) {
+            return INF;
+        }
+        if (direction < 4) {
+            return nodeSize;
+        }
+        // No cutting past the corner of a blocked cell
+        int x = cellX(from);
+        int y = cellY(from);
+        if (isBlocked(cell(x + DX[direction], y)) || isBlocked(cell(x, y + DY[direction]))) {
+            return INF;
+        }
+        return nodeSize * SQRT2;
+    }
+
+    private void updateNeighbours(int u) {
+        int x = cellX(u);
+        int y = cellY(u);
+        for (int i = 0; i < 8; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                updateVertex(cell(nx, ny));
+            }
+        }
+    }
+
+    private void updateVertex(int u) {
+        if (u != goal) {
+            double best = INF;
+            int x = cellX(u);
+            int y = cellY(u);
+            for (int i = 0; i < 8; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if (nx >= 0 && ny >= 0 && nx < width && ny < height) {
+                    int s = cell(nx, ny);
+                    best = Math.min(best, edgeCost(u, s, i) + g[s]);
+                }
+            }
+            rhs[u] = best;
+        }
+
+        boolean queued = heapIndex[u] >= 0;
+        if (g[u] != rhs[u]) {
+            double k2 = Math.min(g[u], rhs[u]);
+            double k1 = k2 + heuristic(start, u) + km;
+            if (queued) {
+                update(u, k1, k2);
+            } else {
+                insert(u, k1, k2);
+            }
+        } else if (queued) {
+            remove(u);
+        }
+    }
+
+    // ----- Indexed binary heap
+
+    private static boolean keyLess(double a1, double a2, double b1, double b2) {
+        if (Math.abs(a1 - b1) > KEY_TOLERANCE) {
+            return a1 < b1;
+        }
+        return a2 < b2 - KEY_TOLERANCE;
+    }
+
+    private boolean less(int a, int b) {
+        return keyLess(key1[a], key2[a], key1[b], key2[b]);
+    }
+
+    private void insert(int u, double k1, double k2) {
+        key1[u] = k1;
+        key2[u] = k2;
+        heap[heapSize] = u;
+        heapIndex[u] = heapSize;
+        heapSize++;
+        siftUp(heapIndex[u]);
+    }
+
+    private void update(int u, double k1, double k2) {
+        key1[u] = k1;
+        key2[u] = k2;
+        siftUp(heapIndex[u]);
+        siftDown(heapIndex[u]);
+    }
+
+    private void remove(int u) {
+        int index = heapIndex[u];
+        heapSize--;
+        heapIndex[u] = -1;
+        if (index == heapSize) {
+            return;
+        }
+        int moved = heap[heapSize];
+        heap[index] = moved;
+        heapIndex[moved] = index;
+        siftUp(index);
+        siftDown(heapIndex[moved]);
+    }
+
+    private void siftUp(int index) {
+        int u = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!less(u, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heapIndex[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = u;
+        heapIndex[u] = index;
+    }
+
+    private void siftDown(int index) {
+        int u = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], u)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = u;
+        heapIndex[u] = index;
+    }
+}
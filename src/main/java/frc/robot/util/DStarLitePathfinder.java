@@ -0,0 +1,354 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.Pathfinder;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.PathfindingConstants;
+
+/**
+ * PathPlanner pathfinder that plans with {@link DStarLite} on its own thread.
+ *
+ * Uses the same navgrid.json as PathPlanner's default pathfinder. Requests from the
+ * robot thread (start, goal, dynamic obstacles) are only recorded; the planner
+ * thread wakes up, applies them incrementally and publishes the new path as one
+ * immutable result, so a reader never sees half of a plan. A new goal drops the
+ * plan for the old one, and a plan finished after the goal changed isn't
+ * published. The start moving while driving only costs a few cell expansions, and
+ * obstacles passed to Pathfinding.setDynamicObstacles or seen by vision
+ * ({@link #setObstacleMask}) only repair the cells that changed. A new goal starts
+ * the search over.
+ *
+ * The planner thread only runs once {@link #start} is called; requests made before
+ * then are planned as soon as it does.
+ *
+ * The cells found are cut down to the corners the robot has to turn at, by keeping
+ * only points that can't be seen from the last one kept, and turned into a
+ * PathPlanner path between the real start and goal positions.
+ */
+public class DStarLitePathfinder implements Pathfinder {
+
+    /** One published plan: the points to drive through, start and goal included */
+    private static final class Plan {
+        final double[] x;
+        final double[] y;
+
+        Plan(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    // Only touched by the planner thread
+    private final DStarLite planner;
+    private final int[] pathCells;
+    private final long[] boxMask;
+    private final long[] visionMask;
+    private final long[] obstacleMask;
+    private int plannedGoalCell = -1;
+
+    // Requests from the robot thread, guarded by the lock
+    private final Object lock = new Object();
+    private Translation2d requestedStart = Translation2d.kZero;
+    private Translation2d requestedGoal = null;
+    private List<Pair<Translation2d, Translation2d>> requestedObstacles = List.of();
+    private final long[] requestedMask;
+    private boolean startChanged = false;
+    private boolean goalChanged = false;
+    private boolean obstaclesChanged = false;
+
+    private volatile Plan plan = null;
+    private final AtomicBoolean newPathAvailable = new AtomicBoolean(false);
+
+    private final Thread thread;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    public DStarLitePathfinder() {
+        planner = loadNavGrid(new File(Filesystem.getDeployDirectory(), PathfindingConstants.NAVGRID_FILE));
+        int cells = planner.getWidth() * planner.getHeight();
+        pathCells = new int[cells];
+        boxMask = new long[DStarLite.maskWords(cells)];
+        visionMask = new long[boxMask.length];
+        obstacleMask = new long[boxMask.length];
+        requestedMask = new long[boxMask.length];
+
+        thread = RobotThreads.newThread("DStarLitePathfinder", RobotThreads.Priority.BACKGROUND, this::run);
+    }
+
+    /** Starts the planner thread */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Reads PathPlanner's navgrid; grid rows are y and true is blocked.
+     * Without one, plans on an open field so pathfinding still drives.
+     */
+    private static DStarLite loadNavGrid(File file) {
+        try {
+            JsonNode root = new ObjectMapper().readTree(file);
+            double nodeSize = root.path("nodeSizeMeters").asDouble();
+            JsonNode rows = root.path("grid");
+            int height = rows.size();
+            int width = rows.get(0).size();
+            boolean[] blocked = new boolean[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    blocked[y * width + x] = rows.get(y).get(x).asBoolean();
+                }
+            }
+            return new DStarLite(width, height, nodeSize, blocked);
+        } catch (IOException | RuntimeException e) {
+            DriverStation.reportError("Pathfinding without obstacles, couldn't read " + file + ": " + e.getMessage(), false);
+            int width = (int) Math.ceil(PathfindingConstants.FIELD_LENGTH / PathfindingConstants.DEFAULT_NODE_SIZE);
+            int height = (int) Math.ceil(PathfindingConstants.FIELD_WIDTH / PathfindingConstants.DEFAULT_NODE_SIZE);
+            return new DStarLite(width, height, PathfindingConstants.DEFAULT_NODE_SIZE, new boolean[width * height]);
+        }
+    }
+
+    @Override
+    public boolean isNewPathAvailable() {
+        return newPathAvailable.get();
+    }
+
+    @Override
+    public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+        // Cleared before reading so a plan published in between is reported next time
+        newPathAvailable.set(false);
+        Plan current = plan;
+        if (current == null) {
+            return null;
+        }
+
+        int count = current.x.length;
+        List<Pose2d> poses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Each point faces along the path, the last one along the segment into it
+            int from = i < count - 1 ? i : i - 1;
+            Rotation2d heading = new Rotation2d(current.x[from + 1] - current.x[from], current.y[from + 1] - current.y[from]);
+            poses.add(new Pose2d(current.x[i], current.y[i], heading));
+        }
+        List<Waypoint> waypoints = PathPlannerPath.waypointsFromPoses(poses);
+        return new PathPlannerPath(waypoints, constraints, null, goalEndState);
+    }
+
+    @Override
+    public void setStartPosition(Translation2d startPosition) {
+        synchronized (lock) {
+            // Moving within a cell changes nothing the planner can see
+            boolean sameCell = planner.cellAt(startPosition.getX(), startPosition.getY())
+                == planner.cellAt(requestedStart.getX(), requestedStart.getY());
+            requestedStart = startPosition;
+            if (!sameCell) {
+                startChanged = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void setGoalPosition(Translation2d goalPosition) {
+        synchronized (lock) {
+            requestedGoal = goalPosition;
+            goalChanged = true;
+            // A path to the old goal isn't new to whoever asked for this one
+            plan = null;
+            newPathAvailable.set(false);
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void setDynamicObstacles(List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+        synchronized (lock) {
+            requestedObstacles = List.copyOf(obs);
+            requestedStart = currentRobotPos;
+            obstaclesChanged = true;
+            startChanged = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Sets the cells seen blocked by vision, on top of the obstacles from
+     * Pathfinding.setDynamicObstacles
+     *
+     * @param mask an {@link ObstacleGrid} mask for this grid; copied
+     */
+    public void setObstacleMask(long[] mask) {
+        synchronized (lock) {
+            System.arraycopy(mask, 0, requestedMask, 0, requestedMask.length);
+            obstaclesChanged = true;
+            lock.notifyAll();
+        }
+    }
+
+    public int getWidth() {
+        return planner.getWidth();
+    }
+
+    public int getHeight() {
+        return planner.getHeight();
+    }
+
+    public double getNodeSize() {
+        return planner.getNodeSize();
+    }
+
+    private void run() {
+        while (true) {
+            Translation2d start;
+            Translation2d goal;
+            List<Pair<Translation2d, Translation2d>> obstacleBoxes = null;
+            boolean newGoal;
+            synchronized (lock) {
+                while (!startChanged && !goalChanged && !obstaclesChanged) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                start = requestedStart;
+                goal = requestedGoal;
+                newGoal = goalChanged;
+                if (obstaclesChanged) {
+                    obstacleBoxes = requestedObstacles;
+                    System.arraycopy(requestedMask, 0, visionMask, 0, visionMask.length);
+                }
+                startChanged = false;
+                goalChanged = false;
+                obstaclesChanged = false;
+            }
+
+            if (obstacleBoxes != null) {
+                markObstacles(obstacleBoxes);
+                for (int word = 0; word < obstacleMask.length; word++) {
+                    obstacleMask[word] = boxMask[word] | visionMask[word];
+                }
+                planner.setDynamicBlocked(obstacleMask);
+            }
+
+            // Obstacles are kept up to date before the first goal, but there's nothing to plan
+            if (goal == null) {
+                continue;
+            }
+            int startCell = planner.nearestFree(planner.cellAt(start.getX(), start.getY()));
+            int goalCell = planner.nearestFree(planner.cellAt(goal.getX(), goal.getY()));
+            if (startCell < 0 || goalCell < 0) {
+                continue;
+            }
+            // An obstacle landing on the goal moves it, which is a new search like any new goal
+            if (newGoal || goalCell != plannedGoalCell) {
+                planner.reset(startCell, goalCell);
+                plannedGoalCell = goalCell;
+            } else {
+                planner.moveStart(startCell);
+            }
+            planner.compute();
+
+            publish(start, goal, newGoal);
+        }
+    }
+
+    /**
+     * Blocks every cell each box (two opposite corners) touches
+     */
+    private void markObstacles(List<Pair<Translation2d, Translation2d>> boxes) {
+        Arrays.fill(boxMask, 0);
+        for (Pair<Translation2d, Translation2d> box : boxes) {
+            int corner1 = planner.cellAt(box.getFirst().getX(), box.getFirst().getY());
+            int corner2 = planner.cellAt(box.getSecond().getX(), box.getSecond().getY());
+            int minX = Math.min(planner.cellX(corner1), planner.cellX(corner2));
+            int maxX = Math.max(planner.cellX(corner1), planner.cellX(corner2));
+            int minY = Math.min(planner.cellY(corner1), planner.cellY(corner2));
+            int maxY = Math.max(planner.cellY(corner1), planner.cellY(corner2));
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int cell = planner.cell(x, y);
+                    boxMask[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the planner's cells into the corners of a path and publishes it
+     *
+     * @param always publish even if the corners haven't changed, for a command waiting on a new goal
+     */
+    private void publish(Translation2d start, Translation2d goal, boolean always) {
+        int count = planner.extractPath(pathCells);
+        if (count == 0 || start.getDistance(goal) < PathfindingConstants.MIN_PATH_LENGTH) {
+            return;
+        }
+
+        // Real start, the cells between, real goal
+        int pointCount = Math.max(2, count);
+        double[] pointsX = new double[pointCount];
+        double[] pointsY = new double[pointCount];
+        pointsX[0] = start.getX();
+        pointsY[0] = start.getY();
+        for (int i = 1; i < pointCount - 1; i++) {
+            pointsX[i] = planner.centerX(pathCells[i]);
+            pointsY[i] = planner.centerY(pathCells[i]);
+        }
+        pointsX[pointCount - 1] = goal.getX();
+        pointsY[pointCount - 1] = goal.getY();
+
+        // Keep the farthest point still in sight of the last one kept
+        double[] keptX = new double[pointCount];
+        double[] keptY = new double[pointCount];
+        int kept = 0;
+        keptX[kept] = pointsX[0];
+        keptY[kept++] = pointsY[0];
+        int from = 0;
+        while (from < pointCount - 1) {
+            int to = from + 1;
+            for (int next = pointCount - 1; next > from + 1; next--) {
+                if (planner.isLineClear(pointsX[from], pointsY[from], pointsX[next], pointsY[next])) {
+                    to = next;
+                    break;
+                }
+            }
+            keptX[kept] = pointsX[to];
+            keptY[kept++] = pointsY[to];
+            from = to;
+        }
+
+        // The same corners from a little further along isn't worth the follower starting over
+        Plan last = plan;
+        if (!always && last != null && last.x.length == kept
+                && Arrays.equals(last.x, 1, kept, keptX, 1, kept) && Arrays.equals(last.y, 1, kept, keptY, 1, kept)) {
+            return;
+        }
+        Plan next = new Plan(Arrays.copyOf(keptX, kept), Arrays.copyOf(keptY, kept));
+        synchronized (lock) {
+            // Planned for a goal that has since been replaced
+            if (goalChanged) {
+                return;
+            }
+            plan = next;
+            newPathAvailable.set(true);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package frc.robot.util;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands a mutable value from one thread to another without either waiting on the
+ * other's work.
+ *
+ * The writer fills the back buffer, which no reader is looking at, then swaps it to
+ * the front. The lock is only held for the swap. Readers copy the front buffer out
+ * optimistically and only take the lock if a swap happened while they were copying,
+ * so a reader always gets one whole published value, never parts of two. Nothing is
+ * allocated after construction.
+ *
+ * One writer at a time: {@link #back} and {@link #publish} must not be called from two
+ * threads at once.
+ *
+ * @param <T> a holder of primitive fields, copied by the copier
+ */
+public class DoubleBuffer<T> {
+
+    private final Object[] buffers;
+    private final BiConsumer<T, T> copier;
+    private final StampedLock lock = new StampedLock();
+    // Guarded by the lock for readers; the writer is the only one that changes it
+    private int front = 0;
+
+    /**
+     * @param factory makes each of the two buffers
+     * @param copier  copies every field of the first argument into the second
+     */
+    public DoubleBuffer(Supplier<T> factory, BiConsumer<T, T> copier) {
+        buffers = new Object[] {factory.get(), factory.get()};
+        this.copier = copier;
+    }
+
+    /**
+     * The buffer to fill before {@link #publish}; writer only
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[front ^ 1];
+    }
+
+    /**
+     * Makes the back buffer the one readers see; writer only
+     */
+    public void publish() {
+        long stamp = lock.writeLock();
+        front ^= 1;
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * Copies the last published value
+     *
+     * @param into where to copy it
+     */
+    @SuppressWarnings("unchecked")
+    public void read(T into) {
+        long stamp = lock.tryOptimisticRead();
+        copier.accept((T) buffers[front], into);
+        if (lock.validate(stamp)) {
+            return;
+        }
+        stamp = lock.readLock();
+        try {
+            copier.accept((T) buffers[front], into);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
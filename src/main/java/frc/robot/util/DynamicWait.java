@@ -11,10 +11,6 @@ import frc.robot.Constants.WaitTimeConstants;
  * accessed at runtime by name.
  */
 public class DynamicWait {
-    
-
-    public static int autoCounter;
-
 
     /**
      * Initializes all wait times with their default values.
@@ -30,10 +26,6 @@ public class DynamicWait {
                                 WaitTimeConstants.DEFAULT_SECOND_BALL_TIME);
         SmartDashboard.putNumber(WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.THIRD_BALL_TIME, 
                                 WaitTimeConstants.DEFAULT_THIRD_BALL_TIME);
-
-
-        autoCounter = 0;
-        
     }
     
     /**
@@ -48,39 +40,7 @@ public class DynamicWait {
         double waitTime = SmartDashboard.getNumber(key, 0.0);
         return new WaitCommand(waitTime);
     }
-    
-
-
-    public static double waitTimeWithIncrementAUTALGAEOONLY(){
-
-        double waitTime;
-
-        autoCounter++;
 
-        if(autoCounter == 1){
-            waitTime = SmartDashboard.getNumber(WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.INITIAL_PLACEMENT_TIME, 0.0);
-        }
-        else if(autoCounter == 2){
-            waitTime = SmartDashboard.getNumber(WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.FIRST_BALL_TIME, 0.0);
-        }
-        else if(autoCounter == 3){
-            waitTime = SmartDashboard.getNumber(WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.SECOND_BALL_TIME, 0.0);
-        }
-        else if(autoCounter == 4){
-            waitTime = SmartDashboard.getNumber(WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.THIRD_BALL_TIME, 0.0);
-        }
-        else{
-            autoCounter = 0;
-            waitTime = 0;
-        }
-        return waitTime;
-    }
-
-
-    public static void resetAutoCounter(){
-        autoCounter = 0;
-    }
-    
     /**
      * Creates a dynamic wait command that will evaluate the wait time when it executes.
      * 
@@ -89,6 +49,7 @@ public class DynamicWait {
      */
     public static Command dynamicWaitCommand(String waitTimeName) {
         return new Command() {
+            private double startTime;
             private double endTime;
             
             @Override
@@ -96,59 +57,34 @@ public class DynamicWait {
                 // Read directly from SmartDashboard at execution time
                 String key = WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + waitTimeName;
                 double waitTime = SmartDashboard.getNumber(key, 0.0);
-                endTime = edu.wpi.first.wpilibj.Timer.getFPGATimestamp() + waitTime;
+                startTime = edu.wpi.first.wpilibj.Timer.getFPGATimestamp();
+                endTime = startTime + waitTime;
             }
             
             @Override
             public boolean isFinished() {
                 return edu.wpi.first.wpilibj.Timer.getFPGATimestamp() >= endTime;
             }
+
+            @Override
+            public void end(boolean interrupted) {
+                WaitStats.record("DynamicWait " + waitTimeName, edu.wpi.first.wpilibj.Timer.getFPGATimestamp() - startTime);
+            }
         };
     }
 
     /**
-     * Creates a dynamic wait command that uses auto counter to determine which wait time to use.
-     * The wait time is read from SmartDashboard when the command executes.
-     * 
-     * @return A command that waits for the duration specified by the current auto counter
+     * Creates a dynamic wait for one of the auton's tuned waits, in the order they come in
+     * the routine: 0 is the initial placement time, then the first, second and third ball.
+     * AutonCompiler numbers them when it builds a routine, so nothing has to count them
+     * while it runs. The time is read from SmartDashboard when the wait starts.
+     *
+     * @param index which wait in the routine this is; past the last one it doesn't wait
      */
-    public static Command dynamicIncrementWaitCommand() {
-        return new Command() {
-            private double endTime;
-            private String key;
-            
-            @Override
-            public void initialize() {
-                // Increment counter when command starts
-                autoCounter++;
-                
-                // Get the correct key based on counter
-                if (autoCounter == 1) {
-                    key = WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.INITIAL_PLACEMENT_TIME;
-                } else if (autoCounter == 2) {
-                    key = WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.FIRST_BALL_TIME;
-                } else if (autoCounter == 3) {
-                    key = WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.SECOND_BALL_TIME;
-                } else if (autoCounter == 4) {
-                    key = WaitTimeConstants.WAIT_TIMES_KEY_PREFIX + WaitTimeConstants.THIRD_BALL_TIME;
-                } else {
-                    autoCounter = 0;
-                    key = "";
-                }
-                
-                // Read wait time from SmartDashboard at execution time
-                double waitTime = 0.0;
-                if (!key.isEmpty()) {
-                    waitTime = SmartDashboard.getNumber(key, 0.0);
-                }
-                
-                endTime = edu.wpi.first.wpilibj.Timer.getFPGATimestamp() + waitTime;
-            }
-            
-            @Override
-            public boolean isFinished() {
-                return edu.wpi.first.wpilibj.Timer.getFPGATimestamp() >= endTime;
-            }
-        };
+    public static Command sequenceWaitCommand(int index) {
+        if (index < 0 || index >= WaitTimeConstants.SEQUENCE.length) {
+            return dynamicWaitCommand("None");
+        }
+        return dynamicWaitCommand(WaitTimeConstants.SEQUENCE[index]);
     }
 }
@@ -0,0 +1,186 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.IdentificationConstants;
+
+/**
+ * Fits feedforward gains for a mechanism from the voltage it is actually being
+ * driven with, while it runs normally.
+ *
+ * The model is the one WPILib's ElevatorFeedforward and ArmFeedforward use:
+ *   volts = kS * sign(velocity) + kG * gravity + kV * velocity + kA * acceleration
+ * where gravity is 1 for an elevator and cos(angle) for an arm. Every sample while the
+ * mechanism is moving and not saturated updates a recursive least squares fit with
+ * exponential forgetting, so the estimate follows slow changes (a new game piece,
+ * a worn gearbox) without the old samples ever being stored.
+ *
+ * The suggested gains are published under Feedforward/ with the standard error of
+ * each, so they can be copied into Constants once the errors are small. Acceleration
+ * is the filtered derivative of the velocity given to {@link #update}.
+ */
+public class FeedforwardEstimator {
+
+    private static final int KS = 0;
+    private static final int KG = 1;
+    private static final int KV = 2;
+    private static final int KA = 3;
+    private static final int GAINS = 4;
+
+    private static final String[] GAIN_NAMES = {"kS", "kG", "kV", "kA"};
+
+    private final String name;
+    private final double minVelocity;
+
+    // Fit state: estimate, covariance, and the scratch vectors for an update
+    private final double[] gains = new double[GAINS];
+    private final double[][] covariance = new double[GAINS][GAINS];
+    private final double[] regressor = new double[GAINS];
+    private final double[] covarianceRegressor = new double[GAINS];
+    private final double[] correction = new double[GAINS];
+
+    private double residualVariance = 0;
+    private int samples = 0;
+
+    // Acceleration from the velocity
+    private double lastVelocity = Double.NaN;
+    private double lastTime = Double.NaN;
+    private double acceleration = 0;
+
+    /**
+     * @param name        used for the dashboard
+     * @param minVelocity slowest speed that is fitted, in the velocity's units; below it
+     *                    static friction makes the voltage ambiguous
+     */
+    public FeedforwardEstimator(String name, double minVelocity) {
+        this.name = name;
+        this.minVelocity = minVelocity;
+        reset();
+    }
+
+    /**
+     * Adds a sample. Call every loop while enabled; samples that can't be fitted are skipped.
+     *
+     * @param volts    voltage applied to the motor, in the feedforward's sign convention
+     * @param gravity  1 for an elevator, cos(angle from horizontal) for an arm
+     * @param velocity measured velocity in the units the feedforward takes
+     * @param time     timestamp of the sample in seconds
+     */
+    public void update(double volts, double gravity, double velocity, double time) {
+        double dt = time - lastTime;
+        if (!(dt > 0)) {
+            // First sample, or a duplicate
+            if (Double.isNaN(dt)) {
+                lastVelocity = velocity;
+                lastTime = time;
+            }
+            return;
+        }
+
+        double alpha = 1 - Math.exp(-dt / IdentificationConstants.ACCELERATION_TIME_CONSTANT);
+        acceleration += alpha * ((velocity - lastVelocity) / dt - acceleration);
+        lastVelocity = velocity;
+        lastTime = time;
+
+        // Stopped or against the rails, the voltage says nothing about kV and kA
+        if (Math.abs(velocity) < minVelocity || Math.abs(volts) > IdentificationConstants.SATURATION_VOLTAGE) {
+            return;
+        }
+
+        regressor[KS] = Math.signum(velocity);
+        regressor[KG] = gravity;
+        regressor[KV] = velocity;
+        regressor[KA] = acceleration;
+        fit(volts);
+    }
+
+    /**
+     * One recursive least squares step with forgetting factor lambda:
+     *   k = P x / (lambda + x' P x),  gains += k (y - x' gains),  P = (P - k x' P) / lambda
+     */
+    private void fit(double volts) {
+        double lambda = IdentificationConstants.FORGETTING_FACTOR;
+
+        double predicted = 0;
+        double denominator = lambda;
+        for (int i = 0; i < GAINS; i++) {
+            predicted += regressor[i] * gains[i];
+
+            double sum = 0;
+            for (int j = 0; j < GAINS; j++) {
+                sum += covariance[i][j] * regressor[j];
+            }
+            covarianceRegressor[i] = sum;
+            denominator += regressor[i] * sum;
+        }
+
+        double error = volts - predicted;
+        for (int i = 0; i < GAINS; i++) {
+            correction[i] = covarianceRegressor[i] / denominator;
+            gains[i] += correction[i] * error;
+        }
+
+        // P is symmetric, so x' P is the same vector as P x
+        for (int i = 0; i < GAINS; i++) {
+            for (int j = 0; j < GAINS; j++) {
+                covariance[i][j] = (covariance[i][j] - correction[i] * covarianceRegressor[j]) / lambda;
+            }
+        }
+
+        residualVariance = lambda * residualVariance + (1 - lambda) * error * error;
+        samples++;
+    }
+
+    /**
+     * Publishes the suggested gains; call from periodic
+     */
+    public void publish() {
+        String prefix = "Feedforward/" + name + " ";
+        for (int i = 0; i < GAINS; i++) {
+            SmartDashboard.putNumber(prefix + GAIN_NAMES[i], gains[i]);
+            SmartDashboard.putNumber(prefix + GAIN_NAMES[i] + " Error", getStandardError(i));
+        }
+        SmartDashboard.putNumber(prefix + "Fit RMS (V)", Math.sqrt(residualVariance));
+        SmartDashboard.putNumber(prefix + "Samples", samples);
+    }
+
+    /**
+     * Forgets everything fitted so far, e.g. after changing the mechanism
+     */
+    public void reset() {
+        for (int i = 0; i < GAINS; i++) {
+            gains[i] = 0;
+            for (int j = 0; j < GAINS; j++) {
+                covariance[i][j] = i == j ? IdentificationConstants.INITIAL_COVARIANCE : 0;
+            }
+        }
+        residualVariance = 0;
+        samples = 0;
+        lastTime = Double.NaN;
+        acceleration = 0;
+    }
+
+    /** Approximate standard error of a gain: sqrt(residual variance * its covariance entry) */
+    private double getStandardError(int gain) {
+        return Math.sqrt(residualVariance * Math.max(0, covariance[gain][gain]));
+    }
+
+    public double getKS() {
+        return gains[KS];
+    }
+
+    public double getKG() {
+        return gains[KG];
+    }
+
+    public double getKV() {
+        return gains[KV];
+    }
+
+    public double getKA() {
+        return gains[KA];
+    }
+
+    public int getSampleCount() {
+        return samples;
+    }
+}
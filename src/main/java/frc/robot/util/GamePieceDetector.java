@@ -0,0 +1,298 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Detects a game piece from a motor's current draw.
+ *
+ * Every detector is sampled by {@link #sampleAll}, which Robot runs faster than the
+ * main loop, at the rate the controllers send current while sensing. Each sample goes
+ * through a short median filter (drops single-frame spikes), an exponential moving
+ * average, and a derivative of that average.
+ *
+ * Detection uses hysteresis: the piece is detected once the filtered current has been
+ * at or above the detect threshold for the detect time, and released once it has been
+ * below the lower release threshold for the release time. A steep enough rise starts
+ * the detect timer before the threshold is crossed, so a clean current step is
+ * detected about as soon as it crosses. An optional stall velocity also requires the
+ * mechanism to have stopped, for rollers that stall against the piece.
+ *
+ * The time from the raw current first crossing the threshold to detection is
+ * published as the detection latency. Sampling does not allocate. {@link #close}
+ * stops a detector from being sampled.
+ */
+public class GamePieceDetector implements AutoCloseable {
+
+    private static final List<GamePieceDetector> detectors = new ArrayList<>();
+
+    private final String name;
+    private final DoubleSupplier current;
+    private DoubleSupplier velocity = null;
+
+    // Settings
+    private double detectThreshold;
+    private double releaseThreshold;
+    private double detectTime = 0;
+    private double releaseTime = 0;
+    private double riseRate = Double.POSITIVE_INFINITY;
+    private double stallVelocity = Double.NaN;
+    private double timeConstant = 0;
+    private boolean latching = false;
+
+    // Median filter ring buffer and its sort scratch
+    private double[] window = new double[1];
+    private double[] sorted = new double[1];
+    private int windowIndex = 0;
+    private int windowFill = 0;
+
+    // Filter state
+    private double lastSampleTime = Double.NaN;
+    private double filteredCurrent = 0;
+    private double currentRate = 0;
+    private double filteredVelocity = 0;
+
+    // Detection state
+    private boolean detected = false;
+    private double onsetTime = Double.NaN;
+    private double detectStartTime = Double.NaN;
+    private double releaseStartTime = Double.NaN;
+    private double lastLatency = Double.NaN;
+
+    /**
+     * Creates a detector and registers it with {@link #sampleAll}
+     *
+     * @param name             used for the dashboard
+     * @param current          the motor's output current in amps
+     * @param detectThreshold  filtered current that means a piece is present
+     * @param releaseThreshold filtered current below which it is gone, at or below detectThreshold
+     */
+    public GamePieceDetector(String name, DoubleSupplier current, double detectThreshold, double releaseThreshold) {
+        this.name = name;
+        this.current = current;
+        this.detectThreshold = detectThreshold;
+        this.releaseThreshold = Math.min(releaseThreshold, detectThreshold);
+
+        synchronized (detectors) {
+            detectors.add(this);
+        }
+    }
+
+    /**
+     * Sets how long the filtered current must stay past each threshold
+     *
+     * @param detectTime  seconds at or above the detect threshold before detecting
+     * @param releaseTime seconds below the release threshold before releasing
+     */
+    public GamePieceDetector withDebounce(double detectTime, double releaseTime) {
+        this.detectTime = detectTime;
+        this.releaseTime = releaseTime;
+        return this;
+    }
+
+    /**
+     * Sets the filter
+     *
+     * @param medianSize   samples in the median filter, 1 to disable
+     * @param timeConstant moving average time constant in seconds, 0 to disable
+     */
+    public GamePieceDetector withFilter(int medianSize, double timeConstant) {
+        window = new double[Math.max(1, medianSize)];
+        sorted = new double[window.length];
+        windowIndex = 0;
+        windowFill = 0;
+        this.timeConstant = timeConstant;
+        return this;
+    }
+
+    /**
+     * Starts the detect timer early on a rise at least this steep (amps per second),
+     * as long as the current is already above the release threshold
+     */
+    public GamePieceDetector withRiseRate(double riseRate) {
+        this.riseRate = riseRate;
+        return this;
+    }
+
+    /**
+     * Only detects while the mechanism is below a speed, in the velocity's units
+     */
+    public GamePieceDetector withStallVelocity(DoubleSupplier velocity, double stallVelocity) {
+        this.velocity = velocity;
+        this.stallVelocity = stallVelocity;
+        return this;
+    }
+
+    /**
+     * Stays detected until {@link #reset} instead of releasing when the current drops
+     */
+    public GamePieceDetector latching() {
+        latching = true;
+        return this;
+    }
+
+    /**
+     * Samples every detector; Robot runs this at DetectorConstants.SAMPLE_PERIOD
+     */
+    public static void sampleAll() {
+        sampleAll(Timer.getFPGATimestamp());
+    }
+
+    static void sampleAll(double now) {
+        synchronized (detectors) {
+            for (int i = 0; i < detectors.size(); i++) {
+                detectors.get(i).sample(now);
+            }
+        }
+    }
+
+    /**
+     * Takes one sample and updates the detection state
+     *
+     * @param now timestamp of the sample in seconds
+     */
+    public void sample(double now) {
+        double dt = now - lastSampleTime;
+        if (dt <= 0) {
+            return;
+        }
+
+        double raw = current.getAsDouble();
+        double median = median(raw);
+        if (Double.isNaN(dt)) {
+            // First sample since a reset: start the filter where the signal is
+            filteredCurrent = median;
+            filteredVelocity = velocity != null ? velocity.getAsDouble() : 0;
+            currentRate = 0;
+            lastSampleTime = now;
+            return;
+        }
+
+        double alpha = timeConstant > 0 ? 1 - Math.exp(-dt / timeConstant) : 1;
+        double previous = filteredCurrent;
+        filteredCurrent += alpha * (median - filteredCurrent);
+        currentRate = (filteredCurrent - previous) / dt;
+        if (velocity != null) {
+            filteredVelocity += alpha * (velocity.getAsDouble() - filteredVelocity);
+        }
+        lastSampleTime = now;
+
+        if (detected) {
+            updateRelease(now);
+        } else {
+            updateDetect(raw, now);
+        }
+    }
+
+    private void updateDetect(double raw, double now) {
+        // Latency is measured from the first raw sample past the threshold
+        if (raw >= detectThreshold) {
+            if (Double.isNaN(onsetTime)) {
+                onsetTime = now;
+            }
+        } else if (raw < releaseThreshold) {
+            onsetTime = Double.NaN;
+        }
+
+        boolean rising = filteredCurrent >= releaseThreshold && currentRate >= riseRate;
+        if (filteredCurrent >= detectThreshold || rising) {
+            if (Double.isNaN(detectStartTime)) {
+                detectStartTime = now;
+            }
+        } else {
+            detectStartTime = Double.NaN;
+        }
+
+        boolean stalled = Double.isNaN(stallVelocity) || Math.abs(filteredVelocity) <= stallVelocity;
+        if (filteredCurrent >= detectThreshold && stalled && now - detectStartTime >= detectTime) {
+            detected = true;
+            releaseStartTime = Double.NaN;
+
+            double onset = Double.isNaN(onsetTime) ? detectStartTime : Math.min(onsetTime, detectStartTime);
+            lastLatency = now - onset;
+            SmartDashboard.putNumber("Detectors/" + name + " Latency (ms)", lastLatency * 1000.0);
+        }
+    }
+
+    private void updateRelease(double now) {
+        if (latching || filteredCurrent >= releaseThreshold) {
+            releaseStartTime = Double.NaN;
+            return;
+        }
+
+        if (Double.isNaN(releaseStartTime)) {
+            releaseStartTime = now;
+        }
+        if (now - releaseStartTime >= releaseTime) {
+            detected = false;
+            onsetTime = Double.NaN;
+            detectStartTime = Double.NaN;
+        }
+    }
+
+    /**
+     * Adds a sample to the ring buffer and returns the median of what it holds
+     */
+    private double median(double sample) {
+        window[windowIndex] = sample;
+        windowIndex = (windowIndex + 1) % window.length;
+        windowFill = Math.min(windowFill + 1, window.length);
+
+        // Insertion sort; the window is only a few samples
+        for (int i = 0; i < windowFill; i++) {
+            double value = window[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+        return sorted[windowFill / 2];
+    }
+
+    /**
+     * Clears the detection and the filters, e.g. when a latched piece has been handled
+     */
+    public void reset() {
+        detected = false;
+        onsetTime = Double.NaN;
+        detectStartTime = Double.NaN;
+        releaseStartTime = Double.NaN;
+        windowIndex = 0;
+        windowFill = 0;
+        lastSampleTime = Double.NaN;
+    }
+
+    /**
+     * Removes the detector from {@link #sampleAll}
+     */
+    @Override
+    public void close() {
+        synchronized (detectors) {
+            detectors.remove(this);
+        }
+    }
+
+    public boolean isDetected() {
+        return detected;
+    }
+
+    public double getFilteredCurrent() {
+        return filteredCurrent;
+    }
+
+    /** Filtered current's rate of change in amps per second */
+    public double getCurrentRate() {
+        return currentRate;
+    }
+
+    /** Seconds from onset to the most recent detection, or NaN before the first */
+    public double getLastLatency() {
+        return lastLatency;
+    }
+}
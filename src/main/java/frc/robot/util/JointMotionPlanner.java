@@ -0,0 +1,273 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plans a move of several mechanisms at once through keep-out regions of their joint
+ * configuration space.
+ *
+ * Each axis follows its own trapezoid profile to its goal, the same way its subsystem
+ * profiles it. The only thing the planner chooses is when each axis starts. Every
+ * keep-out region couples two axes (e.g. the shooter arm may only swing low while the
+ * elevator is at intake height). {@link #plan} looks for the start delays that
+ * finish soonest without any sampled configuration entering a region. Axes that
+ * don't interact all start immediately, and an axis that does only waits as long as
+ * the other one needs to get out of its way.
+ *
+ * The search branches on the first collision found: either axis of that region can
+ * be delayed by the least amount that clears it. With the handful of regions on the
+ * robot this visits a few dozen plans.
+ *
+ * Starting an axis later than planned is not always safe: an axis that has to get
+ * out of another's way collides if it starts late. While a plan runs, {@link #isClear}
+ * checks the rest of the move against every region with the delays that actually
+ * happened, so the caller can hold a mechanism back or stop the move instead.
+ */
+public class JointMotionPlanner {
+
+    /** A forbidden region of two axes' positions */
+    @FunctionalInterface
+    public interface KeepOut {
+        boolean contains(double positionA, double positionB);
+    }
+
+    private static final class Region {
+        final int axisA;
+        final int axisB;
+        final KeepOut keepOut;
+
+        Region(int axisA, int axisB, KeepOut keepOut) {
+            this.axisA = axisA;
+            this.axisB = axisB;
+            this.keepOut = keepOut;
+        }
+    }
+
+    private final int axisCount;
+    private final double step;
+    private final MotionProfile[] profiles;
+    private final List<Region> regions = new ArrayList<>();
+
+    private final double[] start;
+    private final double[] duration;
+    private final double[] bestDelays;
+    private final double[] searchDelays;
+    private double bestTime;
+
+    private final MotionProfile.State sample = new MotionProfile.State();
+
+    /**
+     * @param maxVelocity     per axis, units per second
+     * @param maxAcceleration per axis, units per second squared
+     * @param step            time between collision checks, seconds
+     */
+    public JointMotionPlanner(double[] maxVelocity, double[] maxAcceleration, double step) {
+        axisCount = maxVelocity.length;
+        this.step = step;
+
+        profiles = new MotionProfile[axisCount];
+        for (int i = 0; i < axisCount; i++) {
+            profiles[i] = new MotionProfile(maxVelocity[i], maxAcceleration[i]);
+        }
+
+        start = new double[axisCount];
+        duration = new double[axisCount];
+        bestDelays = new double[axisCount];
+        searchDelays = new double[axisCount];
+    }
+
+    /**
+     * Forbids every configuration where keepOut contains the two axes' positions
+     */
+    public void addKeepOut(int axisA, int axisB, KeepOut keepOut) {
+        regions.add(new Region(axisA, axisB, keepOut));
+    }
+
+    /**
+     * Plans a move from rest. Axes whose goal equals their start stay put.
+     * Nothing is allocated, so this can run at the start of a command.
+     *
+     * @param from current position of every axis
+     * @param to   goal of every axis
+     * @return false if the goal is blocked or no set of delays avoids every region
+     */
+    public boolean plan(double[] from, double[] to) {
+        for (Region region : regions) {
+            boolean pairMoves = from[region.axisA] != to[region.axisA] || from[region.axisB] != to[region.axisB];
+
+            // Axes that are already parked in a region and stay there don't block the rest of the move
+            if (pairMoves && region.keepOut.contains(to[region.axisA], to[region.axisB])) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < axisCount; i++) {
+            start[i] = from[i];
+            profiles[i].generate(from[i], 0, to[i]);
+            duration[i] = profiles[i].getTotalTime();
+        }
+
+        Arrays.fill(searchDelays, 0);
+        bestTime = Double.POSITIVE_INFINITY;
+        search(0);
+        return bestTime != Double.POSITIVE_INFINITY;
+    }
+
+    /** Start delay of an axis in the last successful plan, seconds */
+    public double getDelay(int axis) {
+        return bestDelays[axis];
+    }
+
+    /** Time until the last axis of the last successful plan arrives, seconds */
+    public double getTotalTime() {
+        return bestTime;
+    }
+
+    /**
+     * Where the last plan expects an axis to be
+     *
+     * @param axis the axis
+     * @param time seconds since the move started
+     */
+    public double getPlannedPosition(int axis, double time) {
+        return position(axis, time - bestDelays[axis]);
+    }
+
+    /**
+     * When the last plan expects an axis to reach a position, the inverse of
+     * {@link #getPlannedPosition}. Positions short of the start or past the goal
+     * give the start or arrival time.
+     *
+     * @param axis     the axis
+     * @param position a position between the axis's start and goal
+     * @return seconds since the move started
+     */
+    public double getPlannedTime(int axis, double position) {
+        double distance = profiles[axis].getGoal() - start[axis];
+        double progress = distance == 0 ? 1 : (position - start[axis]) / distance;
+
+        // Profiles from rest only ever move toward the goal, so bisect on progress
+        double low = 0;
+        double high = duration[axis];
+        for (int i = 0; i < 40 && high - low > 1e-6; i++) {
+            double middle = (low + high) / 2.0;
+            if ((position(axis, middle) - start[axis]) / distance < progress) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return bestDelays[axis] + (progress <= 0 ? 0 : high);
+    }
+
+    /**
+     * Checks the rest of the last plan with different start delays, e.g. the times
+     * the axes really started, shifted by how far behind the plan each one is
+     *
+     * @param delays   start delay of every axis, seconds
+     * @param fromTime seconds since the move started; earlier collisions are ignored
+     * @return true if no region is entered from fromTime on
+     */
+    public boolean isClear(double[] delays, double fromTime) {
+        for (Region region : regions) {
+            if (collides(region, delays, fromTime)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void search(int depth) {
+        double finish = finishTime(searchDelays);
+        if (finish >= bestTime) {
+            // Delays only ever grow down this branch, so it can't beat the best plan
+            return;
+        }
+
+        int collision = firstCollision(searchDelays);
+        if (collision < 0) {
+            bestTime = finish;
+            System.arraycopy(searchDelays, 0, bestDelays, 0, axisCount);
+            return;
+        }
+        if (depth >= 2 * regions.size()) {
+            return;
+        }
+
+        Region region = regions.get(collision);
+        delayAndSearch(region, region.axisA, region.axisB, depth);
+        delayAndSearch(region, region.axisB, region.axisA, depth);
+    }
+
+    /**
+     * Delays one axis of a colliding region by the least amount that clears it, then keeps searching
+     */
+    private void delayAndSearch(Region region, int delayed, int other, int depth) {
+        double original = searchDelays[delayed];
+
+        // Once the other axis has arrived, waiting any longer can't help
+        double limit = searchDelays[other] + duration[other] + step;
+        for (double delay = original + step; delay <= limit; delay += step) {
+            searchDelays[delayed] = delay;
+            if (!collides(region, searchDelays, 0)) {
+                // One more step, since nothing checks the path between two checks
+                searchDelays[delayed] = delay + step;
+                search(depth + 1);
+                break;
+            }
+        }
+
+        searchDelays[delayed] = original;
+    }
+
+    /**
+     * @return index of the first region the move enters, or -1 if it is clear
+     */
+    private int firstCollision(double[] delays) {
+        for (int i = 0; i < regions.size(); i++) {
+            if (collides(regions.get(i), delays, 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean collides(Region region, double[] delays, double fromTime) {
+        double end = Math.max(delays[region.axisA] + duration[region.axisA], delays[region.axisB] + duration[region.axisB]);
+
+        // A region we start inside (sensor noise, or a manual move) only counts once we've left it
+        boolean escaping = region.keepOut.contains(
+            position(region.axisA, fromTime - delays[region.axisA]),
+            position(region.axisB, fromTime - delays[region.axisB]));
+
+        for (double time = fromTime; time <= end + step; time += step) {
+            boolean inside = region.keepOut.contains(
+                position(region.axisA, time - delays[region.axisA]),
+                position(region.axisB, time - delays[region.axisB]));
+
+            if (escaping) {
+                escaping = inside;
+            } else if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double finishTime(double[] delays) {
+        double finish = 0;
+        for (int i = 0; i < axisCount; i++) {
+            finish = Math.max(finish, delays[i] + duration[i]);
+        }
+        return finish;
+    }
+
+    private double position(int axis, double time) {
+        if (time <= 0) {
+            return start[axis];
+        }
+        return profiles[axis].sample(time, sample).position;
+    }
+}
@@ -0,0 +1,261 @@
+package frc.robot.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.wpi.first.wpilibj.AddressableLED;
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.LEDConstants;
+
+/**
+ * Renders the LED strip on its own low-priority thread ({@link RobotThreads}).
+ *
+ * Commands on the main thread post patterns into a mailbox per layer and zone.
+ * Each mailbox is a single atomic slot, so posting never blocks and the compositor
+ * always sees the most recent request. Every frame the compositor draws the layers
+ * bottom-up (base, overlay, flash) straight into one shared frame through zone
+ * views, applies the power budget, and sends the strip in a single write only when
+ * the output changed.
+ */
+public class LEDCompositor {
+
+    /** Layers from bottom to top */
+    public enum Layer {
+        BASE,
+        OVERLAY,
+        FLASH
+    }
+
+    /** A pattern posted to a zone, stamped with the time it was posted */
+    private static final class Request {
+        final LEDPattern pattern;
+        final double startTime;
+
+        Request(LEDPattern pattern, double startTime) {
+            this.pattern = pattern;
+            this.startTime = startTime;
+        }
+    }
+
+    private static final Layer[] LAYERS = Layer.values();
+    private static final LEDZone[] ZONES = LEDZone.values();
+
+    private final AddressableLED led;
+    private final AddressableLEDBuffer buffer;
+
+    // One mailbox per zone for each layer, indexed [layer][zone]
+    private final AtomicReferenceArray<Request>[] mailboxes;
+
+    // Owned by the compositor thread; every zone view writes into this one frame
+    private final LEDFrame outputFrame;
+    private final LEDSegment[] segments;
+
+    private final double periodSeconds;
+    private final Thread thread;
+    private final RobotThreads.LoopMonitor monitor;
+    private volatile boolean running = false;
+
+    private double currentBrightness = LEDConstants.DEFAULT_BRIGHTNESS;
+
+    // Published for telemetry on the main thread
+    private volatile double lastRenderSeconds = 0;
+    private volatile double estimatedCurrentAmps = 0;
+    private volatile Layer activeLayer = Layer.BASE;
+
+    @SuppressWarnings("unchecked")
+    public LEDCompositor(AddressableLED led, int length, double rateHz) {
+        this.led = led;
+        buffer = new AddressableLEDBuffer(length);
+        outputFrame = new LEDFrame(length);
+        periodSeconds = 1.0 / rateHz;
+
+        mailboxes = new AtomicReferenceArray[LAYERS.length];
+        for (int i = 0; i < LAYERS.length; i++) {
+            mailboxes[i] = new AtomicReferenceArray<>(ZONES.length);
+        }
+
+        segments = new LEDSegment[ZONES.length];
+        for (LEDZone zone : ZONES) {
+            segments[zone.ordinal()] = new LEDSegment(outputFrame, zone.start, zone.length);
+        }
+
+        thread = RobotThreads.newThread("LEDCompositor", RobotThreads.Priority.LOW, this::run);
+        monitor = RobotThreads.monitor("LEDCompositor", periodSeconds);
+    }
+
+    /** Starts the compositor thread */
+    public void start() {
+        if (!running) {
+            running = true;
+            thread.start();
+        }
+    }
+
+    /** Stops the compositor thread after the current frame */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Posts a pattern to the whole strip on a layer
+     */
+    public void post(Layer layer, LEDPattern pattern) {
+        post(layer, LEDZone.ALL, pattern);
+    }
+
+    /**
+     * Posts a pattern to one zone of a layer. Posting the pattern already in that zone
+     * is a no-op, so callers can post every loop without restarting the animation.
+     *
+     * @param layer   the layer to post to
+     * @param zone    the zone of the strip the pattern draws into
+     * @param pattern the pattern, or null to clear the zone
+     */
+    public void post(Layer layer, LEDZone zone, LEDPattern pattern) {
+        AtomicReferenceArray<Request> mailbox = mailboxes[layer.ordinal()];
+        Request current = mailbox.get(zone.ordinal());
+        if (pattern == null) {
+            mailbox.set(zone.ordinal(), null);
+        } else if (current == null || current.pattern != pattern) {
+            mailbox.set(zone.ordinal(), new Request(pattern, Timer.getFPGATimestamp()));
+        }
+    }
+
+    /**
+     * Posts a pattern to the whole strip on a layer, restarting it even if it is already showing
+     */
+    public void restart(Layer layer, LEDPattern pattern) {
+        restart(layer, LEDZone.ALL, pattern);
+    }
+
+    /**
+     * Posts a pattern to one zone of a layer, restarting it even if it is already showing
+     */
+    public void restart(Layer layer, LEDZone zone, LEDPattern pattern) {
+        mailboxes[layer.ordinal()].set(zone.ordinal(),
+            pattern == null ? null : new Request(pattern, Timer.getFPGATimestamp()));
+    }
+
+    /** Clears one zone of a layer */
+    public void clear(Layer layer, LEDZone zone) {
+        mailboxes[layer.ordinal()].set(zone.ordinal(), null);
+    }
+
+    /** Clears every zone of a layer */
+    public void clear(Layer layer) {
+        for (LEDZone zone : ZONES) {
+            clear(layer, zone);
+        }
+    }
+
+    /** Whether a zone of a layer currently has a pattern */
+    public boolean isActive(Layer layer, LEDZone zone) {
+        return mailboxes[layer.ordinal()].get(zone.ordinal()) != null;
+    }
+
+    /** Time spent rendering the last frame, in seconds */
+    public double getLastRenderSeconds() {
+        return lastRenderSeconds;
+    }
+
+    /** Estimated current draw of the last frame after brightness, in amps */
+    public double getEstimatedCurrentAmps() {
+        return estimatedCurrentAmps;
+    }
+
+    /** The top-most layer shown in the last frame */
+    public Layer getActiveLayer() {
+        return activeLayer;
+    }
+
+    private void run() {
+        while (running) {
+            monitor.start();
+            double start = Timer.getFPGATimestamp();
+            try {
+                renderFrame(start);
+            } catch (Exception e) {
+                // Never let a bad pattern kill the LED thread
+                DriverStation.reportError("LED compositor: " + e.getMessage(), e.getStackTrace());
+            }
+            double end = Timer.getFPGATimestamp();
+            lastRenderSeconds = end - start;
+            monitor.end();
+
+            long sleepMillis = (long) ((periodSeconds - (end - start)) * 1000);
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws every layer bottom-up into the shared frame and writes it out once
+     */
+    private void renderFrame(double now) {
+        // Nothing underneath the base layer, so start from black if it has no full-strip pattern
+        if (mailboxes[Layer.BASE.ordinal()].get(LEDZone.ALL.ordinal()) == null) {
+            outputFrame.fill(0, 0, 0);
+        }
+
+        Layer topLayer = Layer.BASE;
+        for (Layer layer : LAYERS) {
+            AtomicReferenceArray<Request> mailbox = mailboxes[layer.ordinal()];
+
+            // ALL is first in the zone order, so specific zones draw over it
+            for (LEDZone zone : ZONES) {
+                Request request = mailbox.get(zone.ordinal());
+                if (request == null) {
+                    continue;
+                }
+
+                double elapsed = now - request.startTime;
+                if (request.pattern.isFinished(elapsed)) {
+                    // Only clear if nobody posted a new pattern in the meantime
+                    mailbox.compareAndSet(zone.ordinal(), request, null);
+                    continue;
+                }
+
+                request.pattern.applyTo(segments[zone.ordinal()], elapsed);
+                topLayer = layer;
+            }
+        }
+        activeLayer = topLayer;
+
+        adjustBrightnessForPower();
+        estimatedCurrentAmps = outputFrame.getEstimatedCurrentAmps() * currentBrightness;
+
+        if (outputFrame.writeTo(buffer, currentBrightness)) {
+            led.setData(buffer);
+        }
+    }
+
+    /**
+     * Uses the output frame's running current estimate to adjust brightness if needed
+     */
+    private void adjustBrightnessForPower() {
+        double totalCurrentDraw = outputFrame.getEstimatedCurrentAmps();
+
+        if (totalCurrentDraw > 0) {
+            // How much we can scale up (or need to scale down) our brightness
+            double maxSafeBrightness = (LEDConstants.MAX_AMPERAGE * LEDConstants.POWER_SAFETY_MARGIN) / totalCurrentDraw;
+
+            if (maxSafeBrightness < currentBrightness) {
+                // Need to reduce brightness immediately to stay within power budget
+                currentBrightness = maxSafeBrightness;
+            } else if (maxSafeBrightness > currentBrightness) {
+                // Can increase brightness, but do it gradually
+                currentBrightness += (maxSafeBrightness - currentBrightness) * 0.1;
+            }
+
+            // Ensure brightness is within reasonable limits
+            currentBrightness = Math.max(0.05, Math.min(1.0, currentBrightness));
+        }
+    }
+}
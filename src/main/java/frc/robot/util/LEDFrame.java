@@ -0,0 +1,174 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.Constants.LEDConstants;
+
+/**
+ * Reusable RGB frame for the LED strip.
+ *
+ * Patterns render into a flat byte[] (3 bytes per LED) instead of allocating a
+ * Color for every pixel. The frame keeps a running sum of each channel as pixels
+ * are written, so the estimated current draw is available without another pass
+ * over the strip. Sine and gamma lookups are precomputed once so animations never
+ * call Math.sin in the loop.
+ */
+public class LEDFrame {
+
+    // Sine lookup table covering one full cycle
+    private static final int SINE_TABLE_SIZE = 1024;
+    private static final double[] SINE_TABLE = new double[SINE_TABLE_SIZE];
+
+    // Gamma table mapping a linear 0-255 channel value to the value sent to the strip
+    private static final int[] GAMMA_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < SINE_TABLE_SIZE; i++) {
+            SINE_TABLE[i] = Math.sin(2.0 * Math.PI * i / SINE_TABLE_SIZE);
+        }
+        for (int i = 0; i < 256; i++) {
+            GAMMA_TABLE[i] = (int) Math.round(255.0 * Math.pow(i / 255.0, LEDConstants.GAMMA));
+        }
+    }
+
+    private final int length;
+
+    // Rendered pattern, linear RGB
+    private final byte[] rgb;
+
+    // Last values actually written to the strip buffer (after brightness and gamma)
+    private final byte[] written;
+
+    // Running channel totals of the rendered frame (0-255 per LED)
+    private int redSum = 0;
+    private int greenSum = 0;
+    private int blueSum = 0;
+
+    public LEDFrame(int length) {
+        this.length = length;
+        rgb = new byte[length * 3];
+        written = new byte[length * 3];
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets one LED, updating the channel totals incrementally
+     */
+    public void setRGB(int index, int r, int g, int b) {
+        int offset = index * 3;
+        redSum += r - (rgb[offset] & 0xFF);
+        greenSum += g - (rgb[offset + 1] & 0xFF);
+        blueSum += b - (rgb[offset + 2] & 0xFF);
+        rgb[offset] = (byte) r;
+        rgb[offset + 1] = (byte) g;
+        rgb[offset + 2] = (byte) b;
+    }
+
+    /**
+     * Sets a range of LEDs to one color
+     */
+    public void fill(int start, int end, int r, int g, int b) {
+        for (int i = start; i < end; i++) {
+            setRGB(i, r, g, b);
+        }
+    }
+
+    /**
+     * Sets the whole strip to one color
+     */
+    public void fill(int r, int g, int b) {
+        fill(0, length, r, g, b);
+    }
+
+    /**
+     * Sets the whole strip to a color scaled by an intensity (0-1)
+     */
+    public void fill(int[] color, double intensity) {
+        fill(scale(color[0], intensity), scale(color[1], intensity), scale(color[2], intensity));
+    }
+
+    public int getRed(int index) {
+        return rgb[index * 3] & 0xFF;
+    }
+
+    public int getGreen(int index) {
+        return rgb[index * 3 + 1] & 0xFF;
+    }
+
+    public int getBlue(int index) {
+        return rgb[index * 3 + 2] & 0xFF;
+    }
+
+    /**
+     * Estimated current draw of the rendered frame at full brightness, in amps
+     */
+    public double getEstimatedCurrentAmps() {
+        double milliamps = (redSum * LEDConstants.MILLIAMPS_PER_RED
+                          + greenSum * LEDConstants.MILLIAMPS_PER_GREEN
+                          + blueSum * LEDConstants.MILLIAMPS_PER_BLUE) / 255.0;
+        return milliamps / 1000.0;
+    }
+
+    /**
+     * Copies the frame into the strip buffer with brightness and gamma applied.
+     * Only LEDs whose output changed are touched.
+     *
+     * @return true if any LED changed and the buffer needs to be sent to the strip
+     */
+    public boolean writeTo(AddressableLEDBuffer buffer, double brightness) {
+        int scale = (int) Math.round(Math.max(0.0, Math.min(1.0, brightness)) * 256);
+        boolean changed = false;
+
+        for (int i = 0; i < length; i++) {
+            int offset = i * 3;
+            int r = GAMMA_TABLE[((rgb[offset] & 0xFF) * scale) >> 8];
+            int g = GAMMA_TABLE[((rgb[offset + 1] & 0xFF) * scale) >> 8];
+            int b = GAMMA_TABLE[((rgb[offset + 2] & 0xFF) * scale) >> 8];
+
+            if ((written[offset] & 0xFF) != r || (written[offset + 1] & 0xFF) != g || (written[offset + 2] & 0xFF) != b) {
+                written[offset] = (byte) r;
+                written[offset + 1] = (byte) g;
+                written[offset + 2] = (byte) b;
+                buffer.setRGB(i, r, g, b);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Sine of a phase measured in cycles (1.0 = one full period), from the lookup table
+     */
+    public static double sin(double cycles) {
+        double wrapped = cycles - Math.floor(cycles);
+        return SINE_TABLE[(int) (wrapped * SINE_TABLE_SIZE) & (SINE_TABLE_SIZE - 1)];
+    }
+
+    /**
+     * Sine remapped to 0-1, convenient for breathing and wave effects
+     */
+    public static double wave(double cycles) {
+        return (sin(cycles) + 1.0) * 0.5;
+    }
+
+    /**
+     * Converts a WPILib color to 0-255 channel values once, at pattern construction
+     */
+    public static int[] toRGB(Color color) {
+        return new int[] {
+            (int) Math.round(color.red * 255),
+            (int) Math.round(color.green * 255),
+            (int) Math.round(color.blue * 255)
+        };
+    }
+
+    /**
+     * Scales a 0-255 channel value by an intensity (0-1)
+     */
+    public static int scale(int value, double intensity) {
+        return (int) (value * intensity);
+    }
+}
@@ -0,0 +1,65 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.Constants.LEDConstants;
+
+/**
+ * An LED animation that renders into an {@link LEDSegment}.
+ *
+ * Patterns are rendered on the LED compositor thread into whichever zone they
+ * were posted to. They should only read their own state and the elapsed time
+ * they are given, and should write every LED in the segment.
+ */
+public interface LEDPattern {
+
+    /**
+     * Render this pattern into a segment of the frame
+     *
+     * @param segment the segment to render into
+     * @param elapsed seconds since this pattern was posted to the compositor
+     */
+    void applyTo(LEDSegment segment, double elapsed);
+
+    /**
+     * Whether this pattern has finished and its zone should be cleared
+     *
+     * @param elapsed seconds since this pattern was posted to the compositor
+     */
+    default boolean isFinished(double elapsed) {
+        return false;
+    }
+
+    // Helper method to create solid color pattern
+    static LEDPattern solid(int[] color) {
+        return (segment, elapsed) -> segment.fill(color[0], color[1], color[2]);
+    }
+
+    static LEDPattern solid(Color color) {
+        return solid(LEDFrame.toRGB(color));
+    }
+
+    /**
+     * Creates a pattern that alternates between a color and black a number of times, then finishes
+     */
+    static LEDPattern flash(Color flashColor, int flashCount) {
+        int[] color = LEDFrame.toRGB(flashColor);
+        double period = LEDConstants.FLASH_ON_DURATION + LEDConstants.FLASH_OFF_DURATION;
+        return new LEDPattern() {
+            @Override
+            public void applyTo(LEDSegment segment, double elapsed) {
+                // ON for the first part of each cycle, OFF for the rest
+                boolean isOn = (elapsed % period) < LEDConstants.FLASH_ON_DURATION;
+                if (isOn) {
+                    segment.fill(color[0], color[1], color[2]);
+                } else {
+                    segment.fill(0, 0, 0);
+                }
+            }
+
+            @Override
+            public boolean isFinished(double elapsed) {
+                return elapsed >= period * flashCount;
+            }
+        };
+    }
+}
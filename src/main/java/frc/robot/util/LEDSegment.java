@@ -0,0 +1,53 @@
+package frc.robot.util;
+
+/**
+ * A view of a contiguous range of an {@link LEDFrame}.
+ *
+ * Writes go straight into the shared frame at an offset, so several segments can
+ * each run their own pattern and the strip is still sent in one write per frame.
+ */
+public class LEDSegment {
+
+    private final LEDFrame frame;
+    private final int start;
+    private final int length;
+
+    public LEDSegment(LEDFrame frame, int start, int length) {
+        if (start < 0 || length < 0 || start + length > frame.getLength()) {
+            throw new IllegalArgumentException(
+                "Segment [" + start + ", " + (start + length) + ") is outside a frame of " + frame.getLength() + " LEDs");
+        }
+        this.frame = frame;
+        this.start = start;
+        this.length = length;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets one LED, indexed from the start of this segment
+     */
+    public void setRGB(int index, int r, int g, int b) {
+        frame.setRGB(start + index, r, g, b);
+    }
+
+    /**
+     * Sets the whole segment to one color
+     */
+    public void fill(int r, int g, int b) {
+        frame.fill(start, start + length, r, g, b);
+    }
+
+    /**
+     * Sets the whole segment to a color scaled by an intensity (0-1)
+     */
+    public void fill(int[] color, double intensity) {
+        fill(LEDFrame.scale(color[0], intensity), LEDFrame.scale(color[1], intensity), LEDFrame.scale(color[2], intensity));
+    }
+}
@@ -0,0 +1,24 @@
+package frc.robot.util;
+
+import frc.robot.Constants.LEDConstants;
+
+/**
+ * Named ranges of the LED strip that can each run their own pattern.
+ *
+ * ALL covers the whole strip and is drawn first in every layer, so the other
+ * zones draw on top of it.
+ */
+public enum LEDZone {
+    ALL(0, LEDConstants.length),
+    ELEVATOR_LEFT(0, LEDConstants.LEFT_LEDS),
+    TOP(LEDConstants.LEFT_LEDS, LEDConstants.TOP_LEDS),
+    ELEVATOR_RIGHT(LEDConstants.LEFT_LEDS + LEDConstants.TOP_LEDS, LEDConstants.RIGHT_LEDS);
+
+    public final int start;
+    public final int length;
+
+    LEDZone(int start, int length) {
+        this.start = start;
+        this.length = length;
+    }
+}
@@ -0,0 +1,85 @@
+package frc.robot.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue of ints that any number of threads can offer to and one thread polls,
+ * without locks.
+ *
+ * Each slot has a sequence number saying whose turn it is: a producer claims a slot by
+ * advancing the tail with a compare-and-set, writes the value, then publishes it by
+ * bumping the slot's sequence; the consumer only reads a slot once its sequence says
+ * it has been published. Neither side ever waits on the other, and a full queue
+ * refuses the offer instead of blocking the producer. Nothing is allocated after
+ * construction.
+ */
+public class LockFreeIntQueue {
+
+    /** Returned by {@link #poll} when the queue is empty */
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    private final int mask;
+    private final int[] values;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0; // only touched by the consumer
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public LockFreeIntQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        mask = size - 1;
+        values = new int[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a value; safe from any thread
+     *
+     * @param value anything but {@link #EMPTY}
+     * @return false if the queue was full
+     */
+    public boolean offer(int value) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    values[slot] = value;
+                    // Release: the value is visible to the consumer once it sees this sequence
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The consumer hasn't freed this slot yet
+                return false;
+            }
+            // Another producer took this position; try the next one
+        }
+    }
+
+    /**
+     * Removes the oldest value; only call from the consuming thread
+     *
+     * @return the value, or {@link #EMPTY}
+     */
+    public int poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return EMPTY;
+        }
+
+        int value = values[slot];
+        // Hand the slot back to producers for the next time round
+        sequences.lazySet(slot, head + mask + 1);
+        head++;
+        return value;
+    }
+}
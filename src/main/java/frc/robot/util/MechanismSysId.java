@@ -0,0 +1,80 @@
+package frc.robot.util;
+
+import static edu.wpi.first.units.Units.Rotations;
+import static edu.wpi.first.units.Units.RotationsPerSecond;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.units.measure.MutAngle;
+import edu.wpi.first.units.measure.MutAngularVelocity;
+import edu.wpi.first.units.measure.MutVoltage;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import frc.robot.Constants.IdentificationConstants;
+
+/**
+ * SysId characterization of a single-motor mechanism, the same four tests the swerve's
+ * sysIdDriveMotorCommand runs, but stopping each test before the mechanism reaches the
+ * end of its travel. The log is written to the DataLog for the SysId tool; the
+ * subsystem's {@link FeedforwardEstimator} also fits the same motion as it happens.
+ */
+public final class MechanismSysId {
+
+    private MechanismSysId() {
+    }
+
+    /**
+     * Runs quasistatic and dynamic tests in both directions, with a pause between each
+     *
+     * @param subsystem    the mechanism's subsystem, required for the whole run
+     * @param name         motor name in the log
+     * @param drive        applies a voltage, positive in the forward direction
+     * @param position     position in rotations, increasing forward
+     * @param velocity     velocity in rotations per second, positive forward
+     * @param forwardLimit true once it is too close to the forward end of travel
+     * @param reverseLimit true once it is too close to the reverse end of travel
+     */
+    public static Command characterize(Subsystem subsystem, String name, DoubleConsumer drive,
+                                       DoubleSupplier position, DoubleSupplier velocity,
+                                       BooleanSupplier forwardLimit, BooleanSupplier reverseLimit) {
+        MutVoltage appliedVoltage = Volts.mutable(0);
+        MutAngle loggedPosition = Rotations.mutable(0);
+        MutAngularVelocity loggedVelocity = RotationsPerSecond.mutable(0);
+        double[] lastVolts = {0};
+
+        SysIdRoutine routine = new SysIdRoutine(
+            new SysIdRoutine.Config(
+                Volts.of(IdentificationConstants.SYSID_RAMP_RATE).per(Seconds),
+                Volts.of(IdentificationConstants.SYSID_STEP_VOLTAGE),
+                Seconds.of(IdentificationConstants.SYSID_TIMEOUT)),
+            new SysIdRoutine.Mechanism(
+                voltage -> {
+                    lastVolts[0] = voltage.in(Volts);
+                    drive.accept(lastVolts[0]);
+                },
+                log -> log.motor(name)
+                    .voltage(appliedVoltage.mut_replace(lastVolts[0], Volts))
+                    .angularPosition(loggedPosition.mut_replace(position.getAsDouble(), Rotations))
+                    .angularVelocity(loggedVelocity.mut_replace(velocity.getAsDouble(), RotationsPerSecond)),
+                subsystem));
+
+        double pause = IdentificationConstants.SYSID_PAUSE;
+        return Commands.sequence(
+            routine.quasistatic(Direction.kForward).until(forwardLimit),
+            Commands.waitSeconds(pause),
+            routine.quasistatic(Direction.kReverse).until(reverseLimit),
+            Commands.waitSeconds(pause),
+            routine.dynamic(Direction.kForward).until(forwardLimit),
+            Commands.waitSeconds(pause),
+            routine.dynamic(Direction.kReverse).until(reverseLimit))
+            .finallyDo(() -> drive.accept(0))
+            .withName(name + " SysId");
+    }
+}
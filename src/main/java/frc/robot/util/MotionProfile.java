@@ -0,0 +1,378 @@
+package frc.robot.util;
+
+/**
+ * A one-dimensional motion profile that is computed once per goal and then sampled
+ * at any time since it started.
+ *
+ * {@link #generate} builds the whole profile as a short table of segments, each with
+ * constant jerk. A trapezoid profile has up to 3 segments and an S-curve has up to
+ * 7, plus a stop first if the starting velocity is too fast to stop at the goal.
+ * {@link #sample} evaluates the segment containing the requested time in closed
+ * form, so callers can sample at the actual loop time instead of assuming a fixed
+ * period, and get the profile's acceleration for a kA feedforward term.
+ *
+ * The S-curve is the double-S profile from Biagiotti and Melchiorri, "Trajectory
+ * Planning for Automatic Machines and Robots", section 3.4. Both profile types
+ * start from the given velocity and end at rest on the goal. An S-curve can also
+ * start from a nonzero acceleration, which it first ramps to zero at max jerk, so
+ * replanning mid-move keeps the acceleration continuous. If the S-curve can't fit
+ * its phases in {@link #MAX_REDUCTIONS} tries, the move falls back to a trapezoid.
+ * Sampling does not allocate.
+ */
+public class MotionProfile {
+
+    /** Position, velocity and acceleration at one instant of the profile */
+    public static final class State {
+        public double position;
+        public double velocity;
+        public double acceleration;
+    }
+
+    // An acceleration ramp (1), a stop past the goal (up to 3) and an S-curve back (up to 7)
+    private static final int MAX_SEGMENTS = 11;
+
+    // When the S-curve can't reach max acceleration, it is retried with this much less
+    private static final double ACCELERATION_REDUCTION = 0.99;
+
+    // Tries before giving up on the S-curve; 0.99^1000 is under 1e-4 of max acceleration
+    static final int MAX_REDUCTIONS = 1000;
+
+    private final double maxVelocity;
+    private final double maxAcceleration;
+    private final double maxJerk;
+
+    // Segment table in profile-relative units: starts at 0 and moves in the positive direction
+    private final double[] segmentStart = new double[MAX_SEGMENTS];
+    private final double[] segmentPosition = new double[MAX_SEGMENTS];
+    private final double[] segmentVelocity = new double[MAX_SEGMENTS];
+    private final double[] segmentAcceleration = new double[MAX_SEGMENTS];
+    private final double[] segmentJerk = new double[MAX_SEGMENTS];
+    private int segmentCount = 0;
+
+    private double origin = 0;
+    private double direction = 1;
+    private double goal = 0;
+    private double totalTime = 0;
+
+    // End of the last segment added while generating
+    private double cursorTime;
+    private double cursorPosition;
+    private double cursorVelocity;
+    private double cursorAcceleration;
+
+    // Samples are usually in increasing time, so start the search where the last one ended
+    private int lastSegment = 0;
+
+    /**
+     * Creates a trapezoid profile
+     *
+     * @param maxVelocity     maximum velocity, units per second
+     * @param maxAcceleration maximum acceleration, units per second squared
+     */
+    public MotionProfile(double maxVelocity, double maxAcceleration) {
+        this(maxVelocity, maxAcceleration, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Creates an S-curve (jerk limited) profile
+     *
+     * @param maxVelocity     maximum velocity, units per second
+     * @param maxAcceleration maximum acceleration, units per second squared
+     * @param maxJerk         maximum jerk, units per second cubed, or infinity for a trapezoid
+     */
+    public MotionProfile(double maxVelocity, double maxAcceleration, double maxJerk) {
+        if (maxVelocity <= 0 || maxAcceleration <= 0 || maxJerk <= 0) {
+            throw new IllegalArgumentException("Motion profile constraints must be positive");
+        }
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk = maxJerk;
+        generate(0, 0, 0);
+    }
+
+    public boolean isSCurve() {
+        return Double.isFinite(maxJerk);
+    }
+
+    /**
+     * Computes a new profile from the given state to rest at the goal
+     *
+     * @param position starting position
+     * @param velocity starting velocity
+     * @param goal     goal position
+     */
+    public void generate(double position, double velocity, double goal) {
+        generate(position, velocity, 0, goal);
+    }
+
+    /**
+     * Computes a new profile from the given state to rest at the goal. Use this to
+     * replan from a sampled setpoint so the S-curve picks up its acceleration.
+     *
+     * @param position     starting position
+     * @param velocity     starting velocity
+     * @param acceleration starting acceleration, ignored by a trapezoid profile
+     * @param goal         goal position
+     */
+    public void generate(double position, double velocity, double acceleration, double goal) {
+        this.origin = position;
+        this.goal = goal;
+        direction = goal >= position ? 1 : -1;
+        segmentCount = 0;
+        lastSegment = 0;
+        cursorTime = 0;
+        cursorPosition = 0;
+        cursorAcceleration = 0;
+
+        double distance = Math.abs(goal - position);
+        // Never start faster than the profile allows, same as TrapezoidProfile
+        cursorVelocity = Math.max(-maxVelocity, Math.min(maxVelocity, velocity * direction));
+
+        double startAcceleration = Math.max(-maxAcceleration, Math.min(maxAcceleration, acceleration * direction));
+        if (isSCurve() && Math.abs(startAcceleration) > 1e-9) {
+            // Bring the acceleration to zero first, then plan from wherever that leaves us
+            append(Math.abs(startAcceleration) / maxJerk, startAcceleration, -Math.signum(startAcceleration) * maxJerk);
+            cursorAcceleration = 0;
+        }
+
+        // Distance left to the goal, negative if the ramp carried us past it
+        double remaining = distance - cursorPosition;
+        double sign = remaining >= 0 ? 1 : -1;
+        double towardGoal = cursorVelocity * sign;
+        if (towardGoal > 0 && Math.abs(remaining) < stoppingDistance(towardGoal)) {
+            // Too fast to stop at the goal: stop past it, then come back
+            appendStop(sign, towardGoal);
+            remaining = distance - cursorPosition;
+            sign = remaining >= 0 ? 1 : -1;
+        }
+        buildMove(sign, Math.abs(remaining));
+        totalTime = cursorTime;
+    }
+
+    /**
+     * Distance needed to stop from a velocity toward the goal
+     */
+    private double stoppingDistance(double velocity) {
+        if (!isSCurve()) {
+            return velocity * velocity / (2 * maxAcceleration);
+        }
+        if (velocity * maxJerk < maxAcceleration * maxAcceleration) {
+            return velocity * Math.sqrt(velocity / maxJerk);
+        }
+        return velocity / 2.0 * (maxAcceleration / maxJerk + velocity / maxAcceleration);
+    }
+
+    /**
+     * Appends the fastest stop from a speed in the given direction
+     *
+     * @param sign  +1 if moving in the positive direction, -1 if negative
+     * @param speed speed to stop from, not negative
+     */
+    private void appendStop(double sign, double speed) {
+        if (!isSCurve()) {
+            append(speed / maxAcceleration, -sign * maxAcceleration, 0);
+        } else if (speed * maxJerk < maxAcceleration * maxAcceleration) {
+            double jerkTime = Math.sqrt(speed / maxJerk);
+            append(jerkTime, 0, -sign * maxJerk);
+            append(jerkTime, cursorAcceleration, sign * maxJerk);
+        } else {
+            double jerkTime = maxAcceleration / maxJerk;
+            append(jerkTime, 0, -sign * maxJerk);
+            append(speed / maxAcceleration - jerkTime, cursorAcceleration, 0);
+            append(jerkTime, cursorAcceleration, sign * maxJerk);
+        }
+        // Land exactly at rest so the next move starts clean
+        cursorVelocity = 0;
+        cursorAcceleration = 0;
+    }
+
+    /**
+     * Appends a move of the given distance from the cursor to rest
+     *
+     * @param sign     +1 to move toward the goal, -1 to move back toward it after overshooting
+     * @param distance distance to move, not negative
+     */
+    private void buildMove(double sign, double distance) {
+        double startVelocity = cursorVelocity * sign;
+        if (distance < 1e-9 && Math.abs(startVelocity) < 1e-9) {
+            return;
+        }
+        if (!isSCurve() || !buildSCurve(sign, distance, startVelocity)) {
+            buildTrapezoid(sign, distance, startVelocity);
+        }
+    }
+
+    /**
+     * Accelerate, cruise and decelerate, following TrapezoidProfile's timing
+     */
+    private void buildTrapezoid(double sign, double distance, double startVelocity) {
+        double cutoffBegin = startVelocity / maxAcceleration;
+        double cutoffDistBegin = cutoffBegin * cutoffBegin * maxAcceleration / 2.0;
+
+        double fullTrapezoidDist = cutoffDistBegin + distance;
+        double accelerationTime = maxVelocity / maxAcceleration;
+        double fullSpeedDist = fullTrapezoidDist - accelerationTime * accelerationTime * maxAcceleration;
+
+        // Too short to reach max velocity; it's a triangle
+        if (fullSpeedDist < 0) {
+            accelerationTime = Math.sqrt(fullTrapezoidDist / maxAcceleration);
+            fullSpeedDist = 0;
+        }
+
+        double accelTime = Math.max(0, accelerationTime - cutoffBegin);
+        double peakVelocity = startVelocity + accelTime * maxAcceleration;
+
+        append(accelTime, sign * maxAcceleration, 0);
+        append(fullSpeedDist / maxVelocity, 0, 0);
+        append(peakVelocity / maxAcceleration, -sign * maxAcceleration, 0);
+    }
+
+    /**
+     * Seven-phase double-S profile from startVelocity to rest
+     *
+     * @return false, with nothing appended, if the phases didn't fit
+     */
+    private boolean buildSCurve(double sign, double distance, double startVelocity) {
+        double jerk = maxJerk;
+        double accel = maxAcceleration;
+        double v0 = startVelocity;
+
+        double jerkTimeAccel;
+        double accelTime;
+        double jerkTimeDecel;
+        double decelTime;
+        double cruiseTime;
+
+        // Assume max velocity is reached
+        if ((maxVelocity - v0) * jerk < accel * accel) {
+            jerkTimeAccel = Math.sqrt(Math.max(0, maxVelocity - v0) / jerk);
+            accelTime = 2 * jerkTimeAccel;
+        } else {
+            jerkTimeAccel = accel / jerk;
+            accelTime = jerkTimeAccel + (maxVelocity - v0) / accel;
+        }
+        if (maxVelocity * jerk < accel * accel) {
+            jerkTimeDecel = Math.sqrt(maxVelocity / jerk);
+            decelTime = 2 * jerkTimeDecel;
+        } else {
+            jerkTimeDecel = accel / jerk;
+            decelTime = jerkTimeDecel + maxVelocity / accel;
+        }
+        cruiseTime = distance / maxVelocity
+            - accelTime / 2.0 * (1 + v0 / maxVelocity)
+            - decelTime / 2.0;
+
+        if (cruiseTime < 0) {
+            // Max velocity isn't reached; shrink the acceleration limit until the phases fit
+            cruiseTime = 0;
+            boolean fits = false;
+            for (int i = 0; i < MAX_REDUCTIONS && !fits; i++) {
+                double jerkTime = accel / jerk;
+                double delta = Math.pow(accel, 4) / (jerk * jerk) + 2 * v0 * v0
+                    + accel * (4 * distance - 2 * accel / jerk * v0);
+                accelTime = (accel * accel / jerk - 2 * v0 + Math.sqrt(delta)) / (2 * accel);
+                decelTime = (accel * accel / jerk + Math.sqrt(delta)) / (2 * accel);
+                jerkTimeAccel = jerkTime;
+                jerkTimeDecel = jerkTime;
+
+                if (accelTime < 0) {
+                    // Already fast enough; only decelerate. Stopping fits, generate() checked that.
+                    accelTime = 0;
+                    jerkTimeAccel = 0;
+                    decelTime = 2 * distance / v0;
+                    jerkTimeDecel = (jerk * distance
+                        - Math.sqrt(Math.max(0, jerk * (jerk * distance * distance - v0 * v0 * v0))))
+                        / (jerk * v0);
+                    fits = true;
+                } else if (accelTime >= 2 * jerkTime && decelTime >= 2 * jerkTime) {
+                    fits = true;
+                } else {
+                    accel *= ACCELERATION_REDUCTION;
+                }
+            }
+            if (!fits || !Double.isFinite(accelTime + decelTime + jerkTimeAccel + jerkTimeDecel)) {
+                return false;
+            }
+        }
+
+        // Seven phases; jerk is always +-maxJerk or zero and acceleration is continuous
+        append(jerkTimeAccel, cursorAcceleration, sign * jerk);
+        append(accelTime - 2 * jerkTimeAccel, cursorAcceleration, 0);
+        append(jerkTimeAccel, cursorAcceleration, -sign * jerk);
+        append(cruiseTime, cursorAcceleration, 0);
+        append(jerkTimeDecel, cursorAcceleration, -sign * jerk);
+        append(decelTime - 2 * jerkTimeDecel, cursorAcceleration, 0);
+        append(jerkTimeDecel, cursorAcceleration, sign * jerk);
+        return true;
+    }
+
+    /**
+     * Adds a segment starting at the cursor and moves the cursor to its end.
+     * Empty segments are skipped.
+     */
+    private void append(double duration, double acceleration, double jerk) {
+        if (duration <= 1e-12) {
+            return;
+        }
+        segmentStart[segmentCount] = cursorTime;
+        segmentPosition[segmentCount] = cursorPosition;
+        segmentVelocity[segmentCount] = cursorVelocity;
+        segmentAcceleration[segmentCount] = acceleration;
+        segmentJerk[segmentCount] = jerk;
+        segmentCount++;
+
+        double t = duration;
+        cursorPosition += cursorVelocity * t + acceleration * t * t / 2.0 + jerk * t * t * t / 6.0;
+        cursorVelocity += acceleration * t + jerk * t * t / 2.0;
+        cursorAcceleration = acceleration + jerk * t;
+        cursorTime += t;
+    }
+
+    /**
+     * Samples the profile
+     *
+     * @param time seconds since the profile was generated
+     * @param out  state to write the sample into
+     * @return out, for chaining
+     */
+    public State sample(double time, State out) {
+        if (time >= totalTime || segmentCount == 0) {
+            out.position = goal;
+            out.velocity = 0;
+            out.acceleration = 0;
+            return out;
+        }
+
+        time = Math.max(0, time);
+        if (time < segmentStart[lastSegment]) {
+            lastSegment = 0;
+        }
+        while (lastSegment + 1 < segmentCount && time >= segmentStart[lastSegment + 1]) {
+            lastSegment++;
+        }
+
+        int i = lastSegment;
+        double t = time - segmentStart[i];
+        double j = segmentJerk[i];
+        double a = segmentAcceleration[i];
+        double v = segmentVelocity[i];
+
+        out.position = origin + direction * (segmentPosition[i] + v * t + a * t * t / 2.0 + j * t * t * t / 6.0);
+        out.velocity = direction * (v + a * t + j * t * t / 2.0);
+        out.acceleration = direction * (a + j * t);
+        return out;
+    }
+
+    /** Length of the current profile in seconds */
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    public double getGoal() {
+        return goal;
+    }
+
+    public boolean isFinished(double time) {
+        return time >= totalTime;
+    }
+}
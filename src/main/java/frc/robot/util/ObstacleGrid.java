@@ -0,0 +1,125 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+
+/**
+ * Cells of the navigation grid something was recently seen in, forgotten after a
+ * while unless it is seen again.
+ *
+ * Each cell keeps the time it is clear again, and the occupied ones are also kept as
+ * a bitmask in {@link DStarLite}'s layout so the pathfinder can diff it 64 cells at a
+ * time. Marking an obstacle touches a fixed square of cells around it, and decaying
+ * only visits cells whose bit is set, so neither depends on the size of the field.
+ * Not thread safe; hand {@link #getMask} to other threads as a copy.
+ */
+public class ObstacleGrid {
+
+    private final int width;
+    private final int height;
+    private final double nodeSize;
+
+    // FPGA time each cell is clear again
+    private final double[] clearAt;
+    private final long[] mask;
+    private boolean changed = false;
+
+    public ObstacleGrid(int width, int height, double nodeSize) {
+        this.width = width;
+        this.height = height;
+        this.nodeSize = nodeSize;
+        clearAt = new double[width * height];
+        mask = new long[DStarLite.maskWords(width * height)];
+    }
+
+    /**
+     * Marks every cell whose center is within a radius of a point as occupied until a
+     * time, or later if it already was
+     *
+     * @param x      field meters
+     * @param y      field meters
+     * @param radius meters, including room for our own robot to get past
+     * @param until  FPGA time to forget it at if it isn't seen again
+     */
+    public void mark(double x, double y, double radius, double until) {
+        int centerX = (int) Math.floor(x / nodeSize);
+        int centerY = (int) Math.floor(y / nodeSize);
+        int reach = (int) Math.ceil(radius / nodeSize);
+        double radiusSquared = radius * radius;
+
+        for (int cellY = Math.max(0, centerY - reach); cellY <= Math.min(height - 1, centerY + reach); cellY++) {
+            double dy = (cellY + 0.5) * nodeSize - y;
+            for (int cellX = Math.max(0, centerX - reach); cellX <= Math.min(width - 1, centerX + reach); cellX++) {
+                double dx = (cellX + 0.5) * nodeSize - x;
+                if (dx * dx + dy * dy > radiusSquared) {
+                    continue;
+                }
+                int cell = cellY * width + cellX;
+                clearAt[cell] = Math.max(clearAt[cell], until);
+                long bit = 1L << cell;
+                if ((mask[cell >>> 6] & bit) == 0) {
+                    mask[cell >>> 6] |= bit;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets cells that haven't been seen in time
+     *
+     * @param now FPGA time
+     */
+    public void decay(double now) {
+        for (int word = 0; word < mask.length; word++) {
+            long bits = mask[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (clearAt[(word << 6) | bit] <= now) {
+                    mask[word] &= ~(1L << bit);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /** Forgets everything */
+    public void clear() {
+        Arrays.fill(mask, 0);
+        Arrays.fill(clearAt, 0);
+        changed = true;
+    }
+
+    /**
+     * @return whether the mask changed since the last call
+     */
+    public boolean takeChanged() {
+        boolean result = changed;
+        changed = false;
+        return result;
+    }
+
+    /**
+     * The occupied cells, one bit each in {@link DStarLite}'s layout. Live; it changes
+     * on the next mark or decay.
+     */
+    public long[] getMask() {
+        return mask;
+    }
+
+    public boolean isOccupied(int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getNodeSize() {
+        return nodeSize;
+    }
+}
@@ -0,0 +1,72 @@
+package frc.robot.util;
+
+import com.revrobotics.spark.ClosedLoopSlot;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.MotorConfigConstants;
+
+/**
+ * Sends goals to a SparkMax running MAXMotion, so the controller profiles the move
+ * itself at 1 kHz instead of the roboRIO sending a new setpoint every loop.
+ *
+ * Subsystems call {@link #setGoal} every loop like they would call setReference.
+ * The goal only goes out over CAN when it changes, when the gravity feedforward has
+ * moved by more than {@link MotorConfigConstants#MAXMOTION_FF_TOLERANCE}, or every
+ * {@link MotorConfigConstants#MAXMOTION_RESEND_PERIOD} in case a frame was dropped.
+ *
+ * The MAXMotion velocity and acceleration limits come from the controller's config.
+ */
+public class OnboardProfile {
+
+    private final SparkClosedLoopController controller;
+
+    private double lastGoal = Double.NaN;
+    private double lastFeedforward = Double.NaN;
+    private double lastSendTime = 0;
+
+    public OnboardProfile(SparkClosedLoopController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * @param goal        final position in the controller's feedback units
+     * @param feedforward arbitrary feedforward in volts, normally gravity from our models
+     * @return true if a new reference was sent
+     */
+    public boolean setGoal(double goal, double feedforward) {
+        double now = Timer.getFPGATimestamp();
+
+        if (goal == lastGoal
+                && Math.abs(feedforward - lastFeedforward) < MotorConfigConstants.MAXMOTION_FF_TOLERANCE
+                && now - lastSendTime < MotorConfigConstants.MAXMOTION_RESEND_PERIOD) {
+            return false;
+        }
+
+        controller.setReference(
+            goal,
+            ControlType.kMAXMotionPositionControl,
+            ClosedLoopSlot.kSlot0,
+            feedforward,
+            ArbFFUnits.kVoltage
+        );
+
+        lastGoal = goal;
+        lastFeedforward = feedforward;
+        lastSendTime = now;
+        return true;
+    }
+
+    /**
+     * Forces the next {@link #setGoal} to be sent, e.g. after the roboRIO path has been driving the controller
+     */
+    public void invalidate() {
+        lastGoal = Double.NaN;
+    }
+
+    public double getGoal() {
+        return lastGoal;
+    }
+}
@@ -0,0 +1,126 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import choreo.trajectory.EventMarker;
+import choreo.trajectory.SwerveSample;
+import choreo.trajectory.Trajectory;
+
+/**
+ * A Choreo swerve trajectory copied into flat arrays of primitives.
+ *
+ * Choreo keeps a trajectory as a list of sample objects and interpolates by making
+ * new ones. Copying the samples into one array per field once at boot means
+ * following it only reads arrays: nothing is allocated or boxed each loop. Times are
+ * in seconds from the start, poses and speeds are blue alliance field coordinates,
+ * and module forces are field relative newtons in Choreo's module order (front left,
+ * front right, back left, back right).
+ */
+public final class PresampledTrajectory {
+
+    public final String name;
+    public final int length;
+
+    public final double[] time;
+    public final double[] x;
+    public final double[] y;
+    public final double[] heading;
+    public final double[] vx;
+    public final double[] vy;
+    public final double[] omega;
+    /** [module][sample] */
+    public final double[][] forceX;
+    public final double[][] forceY;
+
+    /** Event markers, in time order */
+    public final String[] eventNames;
+    public final double[] eventTimes;
+
+    private PresampledTrajectory(String name, int length, int modules, int events) {
+        this.name = name;
+        this.length = length;
+        time = new double[length];
+        x = new double[length];
+        y = new double[length];
+        heading = new double[length];
+        vx = new double[length];
+        vy = new double[length];
+        omega = new double[length];
+        forceX = new double[modules][length];
+        forceY = new double[modules][length];
+        eventNames = new String[events];
+        eventTimes = new double[events];
+    }
+
+    /**
+     * Copies a loaded Choreo trajectory
+     *
+     * @throws IllegalArgumentException if it has no samples or isn't a swerve trajectory
+     */
+    public static PresampledTrajectory fromChoreo(String name, Trajectory<SwerveSample> trajectory) {
+        List<SwerveSample> samples = trajectory.samples();
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("no samples");
+        }
+        for (Object sample : samples) {
+            if (!(sample instanceof SwerveSample)) {
+                throw new IllegalArgumentException("not a swerve trajectory");
+            }
+        }
+
+        List<EventMarker> events = new ArrayList<>(trajectory.events());
+        int modules = samples.get(0).moduleForcesX().length;
+        PresampledTrajectory result = new PresampledTrajectory(name, samples.size(), modules, events.size());
+
+        for (int i = 0; i < samples.size(); i++) {
+            SwerveSample sample = samples.get(i);
+            result.time[i] = sample.t;
+            result.x[i] = sample.x;
+            result.y[i] = sample.y;
+            result.heading[i] = sample.heading;
+            result.vx[i] = sample.vx;
+            result.vy[i] = sample.vy;
+            result.omega[i] = sample.omega;
+            double[] fx = sample.moduleForcesX();
+            double[] fy = sample.moduleForcesY();
+            for (int module = 0; module < modules; module++) {
+                result.forceX[module][i] = fx[module];
+                result.forceY[module][i] = fy[module];
+            }
+        }
+
+        events.sort((a, b) -> Double.compare(a.timestamp, b.timestamp));
+        for (int i = 0; i < events.size(); i++) {
+            result.eventNames[i] = events.get(i).event;
+            result.eventTimes[i] = events.get(i).timestamp;
+        }
+        return result;
+    }
+
+    public int getModuleCount() {
+        return forceX.length;
+    }
+
+    public double getTotalTime() {
+        return time[length - 1];
+    }
+
+    /**
+     * Index of the last sample at or before a time, searching forward from a hint so a
+     * follower stepping through in order only ever looks one or two samples ahead
+     *
+     * @param time seconds from the start
+     * @param hint an index at or before the answer, such as the last one returned
+     */
+    public int indexAt(double time, int hint) {
+        int index = Math.max(0, Math.min(hint, length - 1));
+        if (this.time[index] > time) {
+            index = 0;
+        }
+        while (index < length - 1 && this.time[index + 1] <= time) {
+            index++;
+        }
+        return index;
+    }
+}
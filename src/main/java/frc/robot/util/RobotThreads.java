@@ -0,0 +1,217 @@
+package frc.robot.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.ThreadConstants;
+
+/**
+ * Priorities for the robot's threads, how late their loops run, and how long the
+ * garbage collector stops them.
+ *
+ * Every thread the robot code starts gets a {@link Priority}. Linux ignores Java
+ * thread priorities, so what decides who runs is real-time or not: the drive loop and
+ * the main robot loop are real-time (SCHED_FIFO) and preempt everything else, the
+ * drive loop above the main loop. Planning, LEDs, warm-up and logging stay ordinary
+ * threads and get the CPU whenever those two are waiting. A priority has to be set
+ * from the thread itself, so {@link #newThread} applies it first thing in the new
+ * thread, and threads WPILib starts (Notifier callbacks, the main thread) call
+ * {@link #apply} themselves. Real-time priorities are only set on the robot. The JVM
+ * can't pin threads to a core, so there is no CPU affinity here.
+ *
+ * A periodic thread gets a {@link LoopMonitor} and marks the start and end of each
+ * iteration. {@link #publishTelemetry} posts, for each one, the latest it started past
+ * when it was due and the longest it ran since the last post, along with garbage
+ * collection counts and time from the JVM's collector beans.
+ */
+public final class RobotThreads {
+
+    public enum Priority {
+        /** The 100 Hz drive loop; preempts everything */
+        CONTROL(true, ThreadConstants.CONTROL_PRIORITY, Thread.MAX_PRIORITY),
+        /** The main robot loop running the command scheduler */
+        MAIN(true, ThreadConstants.MAIN_PRIORITY, Thread.NORM_PRIORITY),
+        /** Work the robot waits on, but not every loop: path planning */
+        BACKGROUND(false, 0, Thread.NORM_PRIORITY),
+        /** Work nobody waits on: LEDs, warm-up */
+        LOW(false, 0, Thread.MIN_PRIORITY);
+
+        final boolean realTime;
+        final int realTimePriority;
+        final int javaPriority;
+
+        Priority(boolean realTime, int realTimePriority, int javaPriority) {
+            this.realTime = realTime;
+            this.realTimePriority = realTimePriority;
+            this.javaPriority = javaPriority;
+        }
+    }
+
+    /**
+     * Timing of one periodic thread's loop. Marked only from that thread; read from
+     * the main thread, where a reading can miss an iteration that ends at the same time.
+     */
+    public static final class LoopMonitor {
+        private final String name;
+        private final double periodSeconds;
+
+        // Owning thread only
+        private double lastStart = 0;
+        private double iterationStart = 0;
+
+        private volatile double worstLateSeconds = 0;
+        private volatile double worstRunSeconds = 0;
+
+        private LoopMonitor(String name, double periodSeconds) {
+            this.name = name;
+            this.periodSeconds = periodSeconds;
+        }
+
+        /** Call at the top of each iteration */
+        public void start() {
+            double now = Timer.getFPGATimestamp();
+            if (lastStart > 0) {
+                double late = now - lastStart - periodSeconds;
+                if (late > worstLateSeconds) {
+                    worstLateSeconds = late;
+                }
+            }
+            lastStart = now;
+            iterationStart = now;
+        }
+
+        /** Call when the iteration's work is done */
+        public void end() {
+            double run = Timer.getFPGATimestamp() - iterationStart;
+            if (run > worstRunSeconds) {
+                worstRunSeconds = run;
+            }
+        }
+
+        private void publish() {
+            SmartDashboard.putNumber("Threads/" + name + "/Worst Late ms", worstLateSeconds * 1000);
+            SmartDashboard.putNumber("Threads/" + name + "/Worst Run ms", worstRunSeconds * 1000);
+            worstLateSeconds = 0;
+            worstRunSeconds = 0;
+        }
+    }
+
+    private static final List<LoopMonitor> monitors = new CopyOnWriteArrayList<>();
+    private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    // Main thread only
+    private static long lastGcCount = totalGcCount();
+    private static long lastGcMillis = totalGcMillis();
+    private static long worstGcMillis = 0;
+    private static double lastPublish = 0;
+
+    private RobotThreads() {}
+
+    /**
+     * A daemon thread that sets its priority before running the body
+     */
+    public static Thread newThread(String name, Priority priority, Runnable body) {
+        Thread thread = new Thread(() -> {
+            apply(priority);
+            body.run();
+        }, name);
+        thread.setDaemon(true);
+        thread.setPriority(priority.javaPriority);
+        return thread;
+    }
+
+    /**
+     * Gives the calling thread a priority
+     *
+     * @return false if the operating system refused it
+     */
+    public static boolean apply(Priority priority) {
+        Thread.currentThread().setPriority(priority.javaPriority);
+        if (!RobotBase.isReal()) {
+            return true;
+        }
+        boolean applied = Threads.setCurrentThreadPriority(priority.realTime, priority.realTimePriority);
+        if (!applied) {
+            DriverStation.reportWarning("Couldn't set " + Thread.currentThread().getName() + " to " + priority, false);
+        }
+        return applied;
+    }
+
+    /**
+     * Puts the HAL thread that wakes Notifiers above the threads it wakes, so a
+     * Notifier callback can't be late because its wake-up was waiting on the CPU
+     */
+    public static void raiseNotifierPriority() {
+        if (RobotBase.isReal()) {
+            Notifier.setHALThreadPriority(true, ThreadConstants.NOTIFIER_PRIORITY);
+        }
+    }
+
+    /**
+     * Starts reporting a periodic thread's timing
+     *
+     * @param periodSeconds how often its iterations are meant to start
+     */
+    public static LoopMonitor monitor(String name, double periodSeconds) {
+        LoopMonitor monitor = new LoopMonitor(name, periodSeconds);
+        monitors.add(monitor);
+        return monitor;
+    }
+
+    /**
+     * Posts loop timing and garbage collection to the dashboard every
+     * ThreadConstants.TELEMETRY_PERIOD; call from the main loop
+     */
+    public static void publishTelemetry() {
+        // Collections finishing this loop, noted every loop so the worst one isn't averaged away
+        long gcCount = totalGcCount();
+        long gcMillis = totalGcMillis();
+        long loopGcMillis = gcMillis - lastGcMillis;
+        if (loopGcMillis > worstGcMillis) {
+            worstGcMillis = loopGcMillis;
+        }
+
+        double now = Timer.getFPGATimestamp();
+        if (now - lastPublish < ThreadConstants.TELEMETRY_PERIOD) {
+            lastGcMillis = gcMillis;
+            return;
+        }
+        lastPublish = now;
+
+        for (LoopMonitor monitor : monitors) {
+            monitor.publish();
+        }
+        SmartDashboard.putNumber("Threads/GC/Collections", gcCount);
+        SmartDashboard.putNumber("Threads/GC/Total ms", gcMillis);
+        SmartDashboard.putNumber("Threads/GC/New Collections", gcCount - lastGcCount);
+        SmartDashboard.putNumber("Threads/GC/Worst Loop ms", worstGcMillis);
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+        worstGcMillis = 0;
+    }
+
+    // Collector beans report -1 for what they don't track
+    private static long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long totalGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,182 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.revrobotics.REVLibError;
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.SparkBase.PersistMode;
+import com.revrobotics.spark.SparkBase.ResetMode;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkBaseConfig;
+import com.revrobotics.spark.config.SparkMaxConfigAccessor;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.MotorConfigConstants;
+
+/**
+ * Configures motor controllers in parallel at boot.
+ *
+ * Every controller still gets its config applied (reset safe parameters, so the
+ * running config is always exactly what Configs says). The slow flash write only
+ * happens when the config differs from the one last persisted to that CAN ID. The
+ * controller can't report its whole config back, so the fingerprint of what was
+ * last persisted is kept in Preferences on the roboRIO. So that a controller swapped
+ * in or factory reset under the same CAN ID isn't mistaken for the one that was
+ * persisted, the fingerprint also covers the firmware version and a handful of
+ * parameters read back from the controller, which a fresh one holds its defaults for.
+ *
+ * Subsystems call {@link #configure} from their constructors, which returns
+ * immediately. RobotContainer calls {@link #awaitAll()} once every subsystem is
+ * built, which waits for the controllers and publishes boot timing per device.
+ *
+ * {@link #update} sends small runtime changes (like status frame rates) without
+ * blocking the robot loop. Updates go through one thread so they arrive in order.
+ */
+public final class SparkConfigurator {
+
+    /** Outcome of configuring one controller */
+    private static final class Result {
+        final String name;
+        final double millis;
+        final boolean persisted;
+        final REVLibError error;
+
+        Result(String name, double millis, boolean persisted, REVLibError error) {
+            this.name = name;
+            this.millis = millis;
+            this.persisted = persisted;
+            this.error = error;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+        MotorConfigConstants.CONFIG_THREADS,
+        runnable -> {
+            Thread thread = new Thread(runnable, "SparkConfigurator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // Single thread so runtime updates to one controller can't be reordered
+    private static final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "SparkConfigurator Updates");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private static final List<CompletableFuture<Result>> pending = new ArrayList<>();
+
+    // Time the first controller was submitted, for the total boot time
+    private static long firstSubmitNanos = 0;
+
+    private SparkConfigurator() {}
+
+    /**
+     * Starts configuring a controller in the background
+     *
+     * @param name   name used for the dashboard timing report
+     * @param spark  the controller to configure
+     * @param config the desired config from Configs
+     * @return a future that completes once the controller is configured
+     */
+    public static synchronized CompletableFuture<Void> configure(String name, SparkMax spark, SparkBaseConfig config) {
+        if (pending.isEmpty()) {
+            firstSubmitNanos = System.nanoTime();
+        }
+
+        CompletableFuture<Result> future = CompletableFuture.supplyAsync(() -> apply(name, spark, config), executor);
+        pending.add(future);
+        return future.thenAccept(result -> {});
+    }
+
+    /**
+     * Applies a partial config at runtime in the background, without resetting or persisting
+     *
+     * @param spark  the controller to update
+     * @param config a config containing only the parameters to change
+     */
+    public static void update(SparkBase spark, SparkBaseConfig config) {
+        updateExecutor.execute(() -> {
+            REVLibError error = spark.configure(config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters);
+            if (error != REVLibError.kOk) {
+                DriverStation.reportWarning("Failed to update SparkMax " + spark.getDeviceId() + ": " + error, false);
+            }
+        });
+    }
+
+    /**
+     * Applies a config, persisting only when it changed since the last persist
+     */
+    private static Result apply(String name, SparkMax spark, SparkBaseConfig config) {
+        long start = System.nanoTime();
+
+        String key = MotorConfigConstants.FINGERPRINT_KEY_PREFIX + spark.getDeviceId();
+        int configHash = config.flatten().hashCode();
+        // Before configuring, the controller still holds what its flash was loaded with
+        boolean changed = Preferences.getInt(key, 0) != Objects.hash(configHash, readBack(spark));
+
+        REVLibError error = spark.configure(
+            config,
+            ResetMode.kResetSafeParameters,
+            changed ? PersistMode.kPersistParameters : PersistMode.kNoPersistParameters);
+
+        // Only remember the fingerprint once the flash write actually succeeded
+        if (changed && error == REVLibError.kOk) {
+            Preferences.setInt(key, Objects.hash(configHash, readBack(spark)));
+        }
+
+        return new Result(name, (System.nanoTime() - start) / 1e6, changed, error);
+    }
+
+    /**
+     * Hash of what the controller itself reports for its firmware and for parameters
+     * every config here sets; a controller with another config or none reads differently
+     */
+    private static int readBack(SparkMax spark) {
+        SparkMaxConfigAccessor accessor = spark.configAccessor;
+        return Objects.hash(
+            spark.getFirmwareVersion(),
+            accessor.getIdleMode(),
+            accessor.getInverted(),
+            accessor.getSmartCurrentLimit(),
+            accessor.encoder.getPositionConversionFactor(),
+            accessor.closedLoop.getP());
+    }
+
+    /**
+     * Waits for every submitted controller and publishes per-device boot timing.
+     * Controllers that fail or time out are reported to the Driver Station.
+     */
+    public static synchronized void awaitAll() {
+        long deadline = System.nanoTime() + (long) (MotorConfigConstants.CONFIG_TIMEOUT * 1e9);
+
+        for (CompletableFuture<Result> future : pending) {
+            try {
+                Result result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                SmartDashboard.putNumber("Boot/" + result.name + " Config (ms)", result.millis);
+                SmartDashboard.putBoolean("Boot/" + result.name + " Persisted", result.persisted);
+
+                if (result.error != REVLibError.kOk) {
+                    DriverStation.reportError("Failed to configure " + result.name + ": " + result.error, false);
+                }
+            } catch (Exception e) {
+                DriverStation.reportError("Motor config did not finish: " + e, false);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            SmartDashboard.putNumber("Boot/Motor Config Total (ms)", (System.nanoTime() - firstSubmitNanos) / 1e6);
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,42 @@
+package frc.robot.util;
+
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.config.SparkBaseConfig;
+
+/**
+ * Temporarily raises a controller's status frame rates while a subsystem is
+ * actively sensing, then drops them back.
+ *
+ * Subsystems call {@link #setBoosted} every loop; the controller is only
+ * reconfigured when the state actually changes.
+ */
+public class StatusFrameBoost {
+
+    private final SparkBase spark;
+    private final SparkBaseConfig sensingSignals;
+    private final SparkBaseConfig normalSignals;
+
+    private boolean boosted = false;
+
+    /**
+     * @param spark          the controller to boost
+     * @param sensingSignals signal periods to use while sensing
+     * @param normalSignals  signal periods to return to afterwards
+     */
+    public StatusFrameBoost(SparkBase spark, SparkBaseConfig sensingSignals, SparkBaseConfig normalSignals) {
+        this.spark = spark;
+        this.sensingSignals = sensingSignals;
+        this.normalSignals = normalSignals;
+    }
+
+    public void setBoosted(boolean boost) {
+        if (boost != boosted) {
+            boosted = boost;
+            SparkConfigurator.update(spark, boost ? sensingSignals : normalSignals);
+        }
+    }
+
+    public boolean isBoosted() {
+        return boosted;
+    }
+}
@@ -0,0 +1,77 @@
+package frc.robot.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Adds up how long the robot spent in each named wait.
+ *
+ * Waits in the autons ({@link BudgetedWait} and the DynamicWait commands) record here
+ * when they end, so the auton benchmark can show where a run spent its time. Each wait
+ * is also published to the dashboard.
+ *
+ * Once {@link #startLog} is called every wait is also written to the match log as
+ * Waits/name = [seconds waited, 1 if its condition ended it or 0 if it used its whole
+ * budget, budget]. WaitBudgetReport reads those back to suggest tighter budgets.
+ */
+public final class WaitStats {
+
+    private static final Map<String, Double> totals = new LinkedHashMap<>();
+    private static final Map<String, DoubleArrayLogEntry> logEntries = new HashMap<>();
+    private static final double[] logRecord = new double[3];
+    private static DataLog log = null;
+
+    private WaitStats() {}
+
+    /**
+     * Writes every wait from now on to a log, normally the one DataLogManager keeps per match
+     */
+    public static synchronized void startLog(DataLog dataLog) {
+        log = dataLog;
+        logEntries.clear();
+    }
+
+    /**
+     * Records time spent in a fixed wait
+     *
+     * @param name    name of the wait
+     * @param seconds how long it waited
+     */
+    public static void record(String name, double seconds) {
+        record(name, seconds, seconds, false);
+    }
+
+    /**
+     * Records time spent in a wait that could end early
+     *
+     * @param name         name of the wait
+     * @param seconds      how long it waited
+     * @param budget       the most it was allowed to wait
+     * @param conditionMet whether it ended because its condition became true
+     */
+    public static synchronized void record(String name, double seconds, double budget, boolean conditionMet) {
+        totals.merge(name, seconds, Double::sum);
+        SmartDashboard.putNumber("Waits/" + name, seconds);
+
+        if (log != null) {
+            logRecord[0] = seconds;
+            logRecord[1] = conditionMet ? 1 : 0;
+            logRecord[2] = budget;
+            logEntries.computeIfAbsent(name, key -> new DoubleArrayLogEntry(log, "Waits/" + key)).append(logRecord);
+        }
+    }
+
+    /** Total seconds spent in each wait since the last reset, in the order first seen */
+    public static synchronized Map<String, Double> getTotals() {
+        return new LinkedHashMap<>(totals);
+    }
+
+    public static synchronized void reset() {
+        totals.clear();
+    }
+}
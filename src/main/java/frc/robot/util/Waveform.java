@@ -0,0 +1,119 @@
+package frc.robot.util;
+
+/**
+ * Periodic signal generator for shaking mechanisms.
+ *
+ * The phase is integrated from the frequency each sample instead of computed from
+ * the elapsed time, so the shape, amplitude and frequency can be changed while it
+ * runs without the output jumping. A chirp sweeps linearly from the frequency to
+ * the end frequency over the sweep time, then starts the sweep again.
+ */
+public class Waveform {
+
+    public enum Shape {
+        SINE,
+        SQUARE,
+        CHIRP
+    }
+
+    private Shape shape;
+    private double amplitude;
+    private double frequency;
+    private double endFrequency;
+    private double sweepTime = 1;
+    private double phaseOffset = 0;
+
+    private double phase = 0;
+    private double startTime = 0;
+    private double lastTime = Double.NaN;
+
+    /**
+     * @param shape     the waveform
+     * @param amplitude peak output
+     * @param frequency in Hz; the starting frequency of a chirp
+     */
+    public Waveform(Shape shape, double amplitude, double frequency) {
+        this.shape = shape;
+        this.amplitude = amplitude;
+        this.frequency = frequency;
+        this.endFrequency = frequency;
+    }
+
+    /**
+     * Sets where a chirp sweeps to and how long each sweep takes
+     */
+    public Waveform withSweep(double endFrequency, double sweepTime) {
+        this.endFrequency = endFrequency;
+        this.sweepTime = sweepTime;
+        return this;
+    }
+
+    /**
+     * Shifts the output by a phase in radians
+     */
+    public Waveform withPhase(double phaseOffset) {
+        this.phaseOffset = phaseOffset;
+        return this;
+    }
+
+    /**
+     * Restarts the waveform at zero phase
+     *
+     * @param time timestamp in seconds
+     */
+    public void start(double time) {
+        phase = 0;
+        startTime = time;
+        lastTime = time;
+    }
+
+    /**
+     * Advances to a time and returns the output there
+     *
+     * @param time timestamp in seconds, from the same clock as {@link #start}
+     */
+    public double sample(double time) {
+        if (Double.isNaN(lastTime)) {
+            start(time);
+        }
+
+        double dt = Math.max(0, time - lastTime);
+        lastTime = time;
+        phase = (phase + 2 * Math.PI * getCurrentFrequency(time) * dt) % (2 * Math.PI);
+
+        double sine = Math.sin(phase + phaseOffset);
+        double value = shape == Shape.SQUARE ? (sine >= 0 ? 1.0 : -1.0) : sine;
+        return amplitude * value;
+    }
+
+    /**
+     * Frequency at a time; changes over each sweep for a chirp
+     */
+    private double getCurrentFrequency(double time) {
+        if (shape != Shape.CHIRP || sweepTime <= 0) {
+            return frequency;
+        }
+        double sweep = ((time - startTime) % sweepTime) / sweepTime;
+        return frequency + (endFrequency - frequency) * sweep;
+    }
+
+    public void setShape(Shape shape) {
+        this.shape = shape;
+    }
+
+    public void setAmplitude(double amplitude) {
+        this.amplitude = amplitude;
+    }
+
+    public void setFrequency(double frequency) {
+        this.frequency = frequency;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+}
@@ -0,0 +1,84 @@
+package frc.robot.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants.AutonConstants;
+
+class AutonCompilerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private AutonCompiler.Routine parse(String json) throws IOException {
+        return AutonCompiler.parse(mapper.readTree(json), "Test", Map.of());
+    }
+
+    private String error(String json) {
+        return assertThrows(IllegalArgumentException.class, () -> parse(json)).getMessage();
+    }
+
+    @Test
+    void everyDeployedRoutineParses() throws IOException {
+        File[] files = new File("src/main/deploy", AutonConstants.ROUTINE_DIRECTORY)
+            .listFiles((dir, fileName) -> fileName.endsWith(".json"));
+        assertTrue(files != null && files.length > 0, "no routines found");
+
+        for (File file : files) {
+            JsonNode root = mapper.readTree(file);
+            AutonCompiler.Routine routine = AutonCompiler.parse(root, file.getName(), Map.of());
+            assertEquals(root.path("steps").size(), routine.steps.size(), file.getName());
+        }
+    }
+
+    @Test
+    void parsesEachKindOfStep() throws IOException {
+        AutonCompiler.Routine routine = parse(
+            "{\"name\": \"Demo\", \"start\": \"Left\", \"steps\": [\"target S431\", \"  wait   1.5 \", \"dynamicWait\", \"score\"]}");
+
+        assertEquals("Demo", routine.label);
+        assertEquals("Left", routine.start);
+        assertEquals(4, routine.steps.size());
+
+        AutonCompiler.Step target = routine.steps.get(0);
+        assertEquals(AutonCompiler.Action.TARGET, target.action);
+        assertEquals("S431", target.target.getName());
+
+        AutonCompiler.Step wait = routine.steps.get(1);
+        assertEquals(AutonCompiler.Action.WAIT, wait.action);
+        assertEquals(1.5, wait.seconds, 1e-9);
+
+        assertEquals(AutonCompiler.Action.DYNAMIC_WAIT, routine.steps.get(2).action);
+        AutonCompiler.Step score = routine.steps.get(3);
+        assertEquals(AutonCompiler.Action.SCORE, score.action);
+        assertNull(score.target);
+    }
+
+    @Test
+    void labelDefaultsToTheRoutineName() throws IOException {
+        assertEquals("Test", parse("{\"start\": \"Right\", \"steps\": [\"clear\"]}").label);
+    }
+
+    @Test
+    void reportsWhatIsWrong() {
+        assertTrue(error("{\"start\": \"Middle\", \"steps\": [\"clear\"]}").contains("start must be one of"));
+        assertTrue(error("{\"start\": \"Left\"}").contains("no steps"));
+        assertTrue(error("{\"start\": \"Left\", \"steps\": []}").contains("no steps"));
+        assertEquals("step 2: unknown action \"jump\"", error("{\"start\": \"Left\", \"steps\": [\"clear\", \"jump\"]}"));
+        assertEquals("step 1: unknown target \"S999\"", error("{\"start\": \"Left\", \"steps\": [\"target S999\"]}"));
+        assertEquals("step 1: \"wait\" takes one argument", error("{\"start\": \"Left\", \"steps\": [\"wait\"]}"));
+        assertEquals("step 1: \"score\" takes no arguments", error("{\"start\": \"Left\", \"steps\": [\"score now\"]}"));
+        assertEquals("step 1: \"soon\" is not a number of seconds", error("{\"start\": \"Left\", \"steps\": [\"wait soon\"]}"));
+        assertEquals("step 1: no Choreo trajectory \"Missing\"", error("{\"start\": \"Left\", \"steps\": [\"choreo Missing\"]}"));
+    }
+}
@@ -0,0 +1,220 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks D* Lite's costs against a plain Dijkstra search of the same grid, from
+ * scratch and after the start moves and cells are blocked and cleared.
+ */
+class DStarLiteTest {
+
+    private static final int WIDTH = 24;
+    private static final int HEIGHT = 16;
+    private static final double NODE_SIZE = 0.3;
+    private static final double TOLERANCE = 1e-9;
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    @Test
+    void matchesDijkstraFromScratch() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 200; trial++) {
+            boolean[] blocked = randomBlocked(random, 0.25);
+            DStarLite planner = new DStarLite(WIDTH, HEIGHT, NODE_SIZE, blocked);
+            int start = random.nextInt(WIDTH * HEIGHT);
+            int goal = random.nextInt(WIDTH * HEIGHT);
+
+            planner.reset(start, goal);
+            planner.compute();
+
+            assertCost(dijkstra(blocked, goal)[start], planner.getCost(), "trial " + trial);
+        }
+    }
+
+    @Test
+    void matchesDijkstraAfterMoveStart() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 50; trial++) {
+            boolean[] blocked = randomBlocked(random, 0.2);
+            DStarLite planner = new DStarLite(WIDTH, HEIGHT, NODE_SIZE, blocked);
+            int goal = random.nextInt(WIDTH * HEIGHT);
+            double[] expected = dijkstra(blocked, goal);
+
+            int start = random.nextInt(WIDTH * HEIGHT);
+            planner.reset(start, goal);
+            planner.compute();
+            for (int move = 0; move < 20; move++) {
+                // Mostly a step to a neighbour, like a robot driving, sometimes a jump
+                start = random.nextInt(4) == 0 ? random.nextInt(WIDTH * HEIGHT) : neighbour(random, start);
+                planner.moveStart(start);
+                planner.compute();
+
+                assertCost(expected[start], planner.getCost(), "trial " + trial + " move " + move);
+            }
+        }
+    }
+
+    @Test
+    void matchesDijkstraAfterSetDynamicBlocked() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 50; trial++) {
+            boolean[] staticBlocked = randomBlocked(random, 0.15);
+            DStarLite planner = new DStarLite(WIDTH, HEIGHT, NODE_SIZE, staticBlocked);
+            int goal = random.nextInt(WIDTH * HEIGHT);
+            int start = random.nextInt(WIDTH * HEIGHT);
+            planner.reset(start, goal);
+            planner.compute();
+
+            boolean[] dynamicBlocked = new boolean[WIDTH * HEIGHT];
+            for (int change = 0; change < 20; change++) {
+                // Obstacles appear, move and disappear a few cells at a time
+                for (int i = 0; i < 6; i++) {
+                    int cell = random.nextInt(WIDTH * HEIGHT);
+                    dynamicBlocked[cell] = !dynamicBlocked[cell];
+                }
+                planner.setDynamicBlocked(mask(dynamicBlocked));
+                if (random.nextBoolean()) {
+                    start = neighbour(random, start);
+                    planner.moveStart(start);
+                }
+                planner.compute();
+
+                boolean[] blocked = new boolean[WIDTH * HEIGHT];
+                for (int cell = 0; cell < blocked.length; cell++) {
+                    blocked[cell] = staticBlocked[cell] || dynamicBlocked[cell];
+                }
+                assertCost(dijkstra(blocked, goal)[start], planner.getCost(), "trial " + trial + " change " + change);
+            }
+        }
+    }
+
+    @Test
+    void unchangedMaskChangesNothing() {
+        DStarLite planner = new DStarLite(WIDTH, HEIGHT, NODE_SIZE, new boolean[WIDTH * HEIGHT]);
+        boolean[] dynamicBlocked = new boolean[WIDTH * HEIGHT];
+        dynamicBlocked[planner.cell(5, 5)] = true;
+        dynamicBlocked[planner.cell(20, 3)] = true;
+
+        assertEquals(2, planner.setDynamicBlocked(mask(dynamicBlocked)));
+        assertEquals(0, planner.setDynamicBlocked(mask(dynamicBlocked)));
+    }
+
+    @Test
+    void extractedPathStepsThroughFreeNeighboursToTheGoal() {
+        Random random = new Random(4);
+        boolean[] blocked = randomBlocked(random, 0.2);
+        DStarLite planner = new DStarLite(WIDTH, HEIGHT, NODE_SIZE, blocked);
+        int start = planner.nearestFree(planner.cell(0, 0));
+        int goal = planner.nearestFree(planner.cell(WIDTH - 1, HEIGHT - 1));
+        planner.reset(start, goal);
+        planner.compute();
+
+        int[] path = new int[WIDTH * HEIGHT];
+        int count = planner.extractPath(path);
+        if (planner.getCost() == Double.POSITIVE_INFINITY) {
+            assertEquals(0, count);
+            return;
+        }
+
+        assertEquals(start, path[0]);
+        assertEquals(goal, path[count - 1]);
+        double length = 0;
+        for (int i = 1; i < count; i++) {
+            int dx = Math.abs(planner.cellX(path[i]) - planner.cellX(path[i - 1]));
+            int dy = Math.abs(planner.cellY(path[i]) - planner.cellY(path[i - 1]));
+            assertTrue(dx <= 1 && dy <= 1 && dx + dy > 0, "step " + i + " isn't to a neighbour");
+            assertTrue(!planner.isBlocked(path[i]), "step " + i + " is blocked");
+            length += Math.hypot(dx, dy) * NODE_SIZE;
+        }
+        assertEquals(planner.getCost(), length, TOLERANCE);
+    }
+
+    private static void assertCost(double expected, double actual, String message) {
+        if (expected == Double.POSITIVE_INFINITY) {
+            assertEquals(expected, actual, message);
+        } else {
+            assertEquals(expected, actual, TOLERANCE, message);
+        }
+    }
+
+    private static boolean[] randomBlocked(Random random, double density) {
+        boolean[] blocked = new boolean[WIDTH * HEIGHT];
+        for (int cell = 0; cell < blocked.length; cell++) {
+            blocked[cell] = random.nextDouble() < density;
+        }
+        return blocked;
+    }
+
+    private static long[] mask(boolean[] blocked) {
+        long[] mask = new long[DStarLite.maskWords(blocked.length)];
+        for (int cell = 0; cell < blocked.length; cell++) {
+            if (blocked[cell]) {
+                mask[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return mask;
+    }
+
+    private static int neighbour(Random random, int cell) {
+        while (true) {
+            int direction = random.nextInt(8);
+            int x = cell % WIDTH + DX[direction];
+            int y = cell / WIDTH + DY[direction];
+            if (x >= 0 && y >= 0 && x < WIDTH && y < HEIGHT) {
+                return y * WIDTH + x;
+            }
+        }
+    }
+
+    /**
+     * Cost from every cell to the goal, with the same moves as DStarLite: 8 neighbours,
+     * nothing into or out of a blocked cell, no diagonal past a blocked corner
+     */
+    private static double[] dijkstra(boolean[] blocked, int goal) {
+        double[] cost = new double[WIDTH * HEIGHT];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        cost[goal] = 0;
+        PriorityQueue<double[]> open = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        open.add(new double[] {0, goal});
+
+        while (!open.isEmpty()) {
+            double[] top = open.poll();
+            int cell = (int) top[1];
+            if (top[0] > cost[cell] || blocked[cell]) {
+                continue;
+            }
+            int x = cell % WIDTH;
+            int y = cell / WIDTH;
+            for (int i = 0; i < 8; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if (nx < 0 || ny < 0 || nx >= WIDTH || ny >= HEIGHT) {
+                    continue;
+                }
+                int next = ny * WIDTH + nx;
+                if (blocked[next]) {
+                    continue;
+                }
+                double step = NODE_SIZE;
+                if (i >= 4) {
+                    if (blocked[y * WIDTH + nx] || blocked[ny * WIDTH + x]) {
+                        continue;
+                    }
+                    step = NODE_SIZE * Math.sqrt(2);
+                }
+                if (cost[cell] + step < cost[next]) {
+                    cost[next] = cost[cell] + step;
+                    open.add(new double[] {cost[next], next});
+                }
+            }
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,73 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class DoubleBufferTest {
+
+    /** Two fields the writer always keeps equal, so a torn read shows up as a mismatch */
+    private static final class Pair {
+        long a;
+        long b;
+
+        static void copy(Pair from, Pair into) {
+            into.a = from.a;
+            into.b = from.b;
+        }
+    }
+
+    @Test
+    void readsTheLastPublishedValue() {
+        DoubleBuffer<Pair> buffer = new DoubleBuffer<>(Pair::new, Pair::copy);
+        Pair read = new Pair();
+
+        buffer.back().a = 1;
+        buffer.back().b = 1;
+        // Not published yet
+        buffer.read(read);
+        assertEquals(0, read.a);
+
+        buffer.publish();
+        buffer.read(read);
+        assertEquals(1, read.a);
+
+        // Filling the next value doesn't show until it is published
+        buffer.back().a = 2;
+        buffer.read(read);
+        assertEquals(1, read.a);
+    }
+
+    @Test
+    void readerNeverSeesHalfOfAValueOrGoesBackwards() throws InterruptedException {
+        DoubleBuffer<Pair> buffer = new DoubleBuffer<>(Pair::new, Pair::copy);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread writer = new Thread(() -> {
+            for (long value = 1; running.get(); value++) {
+                Pair back = buffer.back();
+                back.a = value;
+                back.b = value;
+                buffer.publish();
+            }
+        });
+        writer.start();
+
+        Pair read = new Pair();
+        long last = 0;
+        try {
+            for (int i = 0; i < 1_000_000; i++) {
+                buffer.read(read);
+                assertEquals(read.a, read.b, "torn read");
+                assertTrue(read.a >= last, "went backwards");
+                last = read.a;
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
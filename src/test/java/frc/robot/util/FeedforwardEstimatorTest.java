@@ -0,0 +1,78 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FeedforwardEstimatorTest {
+
+    private static final double PERIOD = 0.02;
+
+    private static final double KS = 0.3;
+    private static final double KG = 0.8;
+    private static final double KV = 1.6;
+    private static final double KA = 0.2;
+
+    /** Slow enough that the estimator's filtered acceleration barely lags */
+    private static double velocity(double time) {
+        return 1.5 * Math.sin(0.9 * time) + 0.6 * Math.sin(2.3 * time);
+    }
+
+    private static double acceleration(double time) {
+        return 1.35 * Math.cos(0.9 * time) + 1.38 * Math.cos(2.3 * time);
+    }
+
+    /**
+     * Drives the estimator with the voltage an ideal arm needs, for a while
+     */
+    private static void drive(FeedforwardEstimator estimator, double seconds) {
+        for (double time = 0; time < seconds; time += PERIOD) {
+            double v = velocity(time);
+            double gravity = Math.cos(0.4 * time);
+            double volts = KS * Math.signum(v) + KG * gravity + KV * v + KA * acceleration(time);
+            estimator.update(volts, gravity, v, time);
+        }
+    }
+
+    @Test
+    void recoversTheGainsOfAnIdealArm() {
+        FeedforwardEstimator estimator = new FeedforwardEstimator("Test", 0.05);
+        drive(estimator, 60);
+
+        assertEquals(KS, estimator.getKS(), 0.03);
+        assertEquals(KG, estimator.getKG(), 0.03);
+        assertEquals(KV, estimator.getKV(), 0.03);
+        // kA sees the filtered derivative, which lags a little
+        assertEquals(KA, estimator.getKA(), 0.05);
+    }
+
+    @Test
+    void skipsSlowAndSaturatedSamples() {
+        FeedforwardEstimator estimator = new FeedforwardEstimator("Test", 0.05);
+        for (int i = 0; i < 50; i++) {
+            // Barely moving, then moving but at the rails
+            estimator.update(1, 1, 0.01, i * PERIOD);
+        }
+        for (int i = 50; i < 100; i++) {
+            estimator.update(12, 1, 1, i * PERIOD);
+        }
+
+        assertEquals(0, estimator.getSampleCount());
+        assertEquals(0, estimator.getKV(), 1e-9);
+    }
+
+    @Test
+    void resetForgetsTheFit() {
+        FeedforwardEstimator estimator = new FeedforwardEstimator("Test", 0.05);
+        drive(estimator, 10);
+        assertTrue(estimator.getSampleCount() > 0);
+
+        estimator.reset();
+        assertEquals(0, estimator.getSampleCount());
+        assertEquals(0, estimator.getKS(), 1e-9);
+        assertEquals(0, estimator.getKG(), 1e-9);
+        assertEquals(0, estimator.getKV(), 1e-9);
+        assertEquals(0, estimator.getKA(), 1e-9);
+    }
+}
@@ -0,0 +1,209 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GamePieceDetectorTest {
+
+    private static final double PERIOD = 0.002;
+
+    /** Current the detector reads, set by the test */
+    private double current = 0;
+    private double now = 0;
+
+    private GamePieceDetector detector() {
+        // Thresholds out of reach, so only the filter is under test; no moving average
+        return new GamePieceDetector("Test", () -> current, 1000, 900)
+            .withFilter(3, 0);
+    }
+
+    private void sample(GamePieceDetector detector, double amps) {
+        current = amps;
+        now += PERIOD;
+        detector.sample(now);
+    }
+
+    /** Detector with the shooter's thresholds and debounce, no filtering */
+    private GamePieceDetector thresholdDetector() {
+        return new GamePieceDetector("Test", () -> current, 15, 10)
+            .withFilter(1, 0)
+            .withDebounce(0.04, 0.076);
+    }
+
+    /** Samples a constant current for a while and returns how long until it was detected, or NaN */
+    private double timeToDetect(GamePieceDetector detector, double amps, double seconds) {
+        double start = now;
+        for (double t = 0; t < seconds - 1e-9; t += PERIOD) {
+            sample(detector, amps);
+            if (detector.isDetected()) {
+                return now - start;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /** Samples a constant current for a while and returns how long until it was released, or NaN */
+    private double timeToRelease(GamePieceDetector detector, double amps, double seconds) {
+        double start = now;
+        for (double t = 0; t < seconds - 1e-9; t += PERIOD) {
+            sample(detector, amps);
+            if (!detector.isDetected()) {
+                return now - start;
+            }
+        }
+        return Double.NaN;
+    }
+
+    @Test
+    void medianDropsASingleSpike() {
+        GamePieceDetector detector = detector();
+        sample(detector, 5);
+        sample(detector, 5);
+        sample(detector, 80);
+
+        assertEquals(5, detector.getFilteredCurrent(), 1e-9);
+    }
+
+    @Test
+    void medianAfterResetOnlySeesNewSamples() {
+        GamePieceDetector detector = detector();
+        // Fill the window and leave its write index part way round
+        for (int i = 0; i < 4; i++) {
+            sample(detector, 50);
+        }
+
+        detector.reset();
+        sample(detector, 5);
+        assertEquals(5, detector.getFilteredCurrent(), 1e-9);
+        sample(detector, 7);
+        assertEquals(7, detector.getFilteredCurrent(), 1e-9);
+        sample(detector, 6);
+        assertEquals(6, detector.getFilteredCurrent(), 1e-9);
+    }
+
+    @Test
+    void resetEveryLoopNeverMixesInOldSamples() {
+        GamePieceDetector detector = detector();
+        // Like Funnel.detectCoralImpact while it isn't monitoring
+        for (int loop = 0; loop < 10; loop++) {
+            sample(detector, 50 + loop);
+            detector.reset();
+        }
+
+        sample(detector, 3);
+        assertEquals(3, detector.getFilteredCurrent(), 1e-9);
+    }
+
+    @Test
+    void detectsAfterTheDetectTime() {
+        GamePieceDetector detector = thresholdDetector();
+        sample(detector, 0);
+
+        // The timer starts on the first sample at the threshold, and detects the detect time later
+        assertEquals(0.04 + PERIOD, timeToDetect(detector, 15, 1), 1e-9);
+    }
+
+    @Test
+    void aBlipShorterThanTheDetectTimeIsIgnored() {
+        GamePieceDetector detector = thresholdDetector();
+        sample(detector, 0);
+
+        assertTrue(Double.isNaN(timeToDetect(detector, 40, 0.03)));
+        sample(detector, 5);
+        assertTrue(Double.isNaN(timeToDetect(detector, 40, 0.03)));
+    }
+
+    @Test
+    void hysteresisHoldsBetweenTheThresholds() {
+        GamePieceDetector detector = thresholdDetector();
+        sample(detector, 0);
+        timeToDetect(detector, 20, 1);
+        assertTrue(detector.isDetected());
+
+        // Below detect but above release: still there
+        assertTrue(Double.isNaN(timeToRelease(detector, 12, 1)));
+
+        // Below release, but not for the release time
+        assertTrue(Double.isNaN(timeToRelease(detector, 5, 0.05)));
+        sample(detector, 12);
+        assertTrue(detector.isDetected());
+
+        assertEquals(0.076 + PERIOD, timeToRelease(detector, 5, 1), 1e-9);
+
+        // Between the thresholds again doesn't detect a new piece
+        assertTrue(Double.isNaN(timeToDetect(detector, 12, 1)));
+    }
+
+    @Test
+    void aSteepRiseStartsTheDetectTimerEarly() {
+        // The moving average makes a current step rise over a few samples
+        GamePieceDetector plain = new GamePieceDetector("Test", () -> current, 15, 10)
+            .withFilter(1, 0.01)
+            .withDebounce(0.04, 0.076);
+        GamePieceDetector rising = new GamePieceDetector("Test", () -> current, 15, 10)
+            .withFilter(1, 0.01)
+            .withDebounce(0.04, 0.076)
+            .withRiseRate(200);
+        current = 0;
+        plain.sample(now);
+        rising.sample(now);
+
+        double plainTime = Double.NaN;
+        double risingTime = Double.NaN;
+        current = 20;
+        for (int i = 1; i < 100; i++) {
+            now += PERIOD;
+            plain.sample(now);
+            rising.sample(now);
+            if (plain.isDetected() && Double.isNaN(plainTime)) {
+                plainTime = i * PERIOD;
+            }
+            if (rising.isDetected() && Double.isNaN(risingTime)) {
+                risingTime = i * PERIOD;
+            }
+        }
+
+        assertTrue(risingTime < plainTime, "rise rate " + risingTime + "s, plain " + plainTime + "s");
+        // It still waits for the filtered current to reach the threshold
+        assertTrue(rising.getFilteredCurrent() >= 15);
+    }
+
+    @Test
+    void aRiseThatStaysBelowTheThresholdIsNotDetected() {
+        GamePieceDetector detector = thresholdDetector().withRiseRate(200);
+        sample(detector, 0);
+
+        assertTrue(Double.isNaN(timeToDetect(detector, 14, 1)));
+    }
+
+    @Test
+    void latchingStaysDetectedUntilReset() {
+        GamePieceDetector detector = thresholdDetector().latching();
+        sample(detector, 0);
+        timeToDetect(detector, 20, 1);
+        assertTrue(detector.isDetected());
+
+        assertTrue(Double.isNaN(timeToRelease(detector, 0, 1)));
+
+        detector.reset();
+        assertFalse(detector.isDetected());
+        sample(detector, 0);
+        assertTrue(Double.isNaN(timeToDetect(detector, 0, 0.1)));
+    }
+
+    @Test
+    void aClosedDetectorIsNoLongerSampled() {
+        int[] reads = {0};
+        GamePieceDetector detector = new GamePieceDetector("Test", () -> reads[0]++, 15, 10);
+
+        GamePieceDetector.sampleAll(1.0);
+        assertEquals(1, reads[0]);
+
+        detector.close();
+        GamePieceDetector.sampleAll(2.0);
+        assertEquals(1, reads[0]);
+    }
+}
@@ -0,0 +1,168 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class JointMotionPlannerTest {
+
+    // Same layout as MotionCoordinator
+    private static final int ELEVATOR = 0;
+    private static final int SHOOTER_ARM = 1;
+    private static final int ALGAE_ARM = 2;
+    private static final int FUNNEL = 3;
+
+    private static final double PICKUP = 0;
+    private static final double INTAKE_MARGIN = 0.1;
+    private static final double CLEAR_ANGLE = 0.5;
+    private static final double FUNNEL_HOME = 1;
+    private static final double FUNNEL_MARGIN = 0.02;
+    private static final double SAFE_ALGAE = 0.3;
+
+    private static final double STEP = 0.01;
+
+    private static final JointMotionPlanner.KeepOut ARM_LOW_AWAY_FROM_INTAKE = (height, angle) ->
+        angle < CLEAR_ANGLE && Math.abs(height - PICKUP) > INTAKE_MARGIN;
+
+    private static final JointMotionPlanner.KeepOut FUNNEL_OUT_WITH_ALGAE_IN_THE_WAY = (funnel, algae) ->
+        funnel < FUNNEL_HOME - FUNNEL_MARGIN && algae < SAFE_ALGAE;
+
+    private static JointMotionPlanner planner() {
+        JointMotionPlanner planner = new JointMotionPlanner(
+            new double[] {2, 4, 4, 4},
+            new double[] {8, 16, 16, 16},
+            STEP);
+        planner.addKeepOut(ELEVATOR, SHOOTER_ARM, ARM_LOW_AWAY_FROM_INTAKE);
+        planner.addKeepOut(FUNNEL, ALGAE_ARM, FUNNEL_OUT_WITH_ALGAE_IN_THE_WAY);
+        return planner;
+    }
+
+    /**
+     * Walks the planned move finely and checks it never enters either region
+     */
+    private static void assertPlanClear(JointMotionPlanner planner) {
+        for (double time = 0; time <= planner.getTotalTime() + STEP; time += STEP / 10) {
+            double height = planner.getPlannedPosition(ELEVATOR, time);
+            double angle = planner.getPlannedPosition(SHOOTER_ARM, time);
+            double algae = planner.getPlannedPosition(ALGAE_ARM, time);
+            double funnel = planner.getPlannedPosition(FUNNEL, time);
+            assertFalse(ARM_LOW_AWAY_FROM_INTAKE.contains(height, angle), "arm low away from intake at " + time);
+            assertFalse(FUNNEL_OUT_WITH_ALGAE_IN_THE_WAY.contains(funnel, algae), "funnel out with the algae arm in the way at " + time);
+        }
+    }
+
+    private static double[] delays(JointMotionPlanner planner) {
+        return new double[] {
+            planner.getDelay(ELEVATOR), planner.getDelay(SHOOTER_ARM),
+            planner.getDelay(ALGAE_ARM), planner.getDelay(FUNNEL)};
+    }
+
+    @Test
+    void elevatorWaitsForTheArmToSwingClear() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {PICKUP, 0.2, 0, FUNNEL_HOME}, new double[] {1, 1, 0, FUNNEL_HOME}));
+
+        assertEquals(0, planner.getDelay(SHOOTER_ARM), 1e-9);
+        assertTrue(planner.getDelay(ELEVATOR) > 0);
+        // It leaves the intake band right as the arm clears, not after the arm arrives
+        double leavesIntake = planner.getPlannedTime(ELEVATOR, PICKUP + INTAKE_MARGIN);
+        double armClear = planner.getPlannedTime(SHOOTER_ARM, CLEAR_ANGLE);
+        assertTrue(leavesIntake >= armClear, "leaves intake at " + leavesIntake + ", arm clear at " + armClear);
+        assertTrue(leavesIntake < armClear + 2 * STEP, "waited too long");
+        assertTrue(planner.getDelay(ELEVATOR) < planner.getPlannedTime(SHOOTER_ARM, 1));
+        assertPlanClear(planner);
+    }
+
+    @Test
+    void armWaitsForTheElevatorToReachIntake() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {1, 1, 0, FUNNEL_HOME}, new double[] {PICKUP, 0.2, 0, FUNNEL_HOME}));
+
+        assertEquals(0, planner.getDelay(ELEVATOR), 1e-9);
+        assertTrue(planner.getDelay(SHOOTER_ARM) > 0);
+        assertPlanClear(planner);
+    }
+
+    @Test
+    void funnelWaitsForTheAlgaeArmInBothDirections() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {PICKUP, 1, 0, FUNNEL_HOME}, new double[] {PICKUP, 1, 0.5, 0.5}));
+        assertEquals(0, planner.getDelay(ALGAE_ARM), 1e-9);
+        assertTrue(planner.getDelay(FUNNEL) > 0);
+        assertPlanClear(planner);
+
+        assertTrue(planner.plan(new double[] {PICKUP, 1, 0.5, 0.5}, new double[] {PICKUP, 1, 0, FUNNEL_HOME}));
+        assertEquals(0, planner.getDelay(FUNNEL), 1e-9);
+        assertTrue(planner.getDelay(ALGAE_ARM) > 0);
+        assertPlanClear(planner);
+    }
+
+    @Test
+    void bothRegionsAtOnce() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {PICKUP, 0.2, 0, FUNNEL_HOME}, new double[] {1, 1, 0.5, 0.5}));
+
+        assertTrue(planner.getDelay(ELEVATOR) > 0);
+        assertTrue(planner.getDelay(FUNNEL) > 0);
+        assertEquals(0, planner.getDelay(SHOOTER_ARM), 1e-9);
+        assertEquals(0, planner.getDelay(ALGAE_ARM), 1e-9);
+        assertPlanClear(planner);
+    }
+
+    @Test
+    void unrelatedMovesStartTogether() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {0.5, 0.8, 0.5, FUNNEL_HOME}, new double[] {1, 1, 0.8, FUNNEL_HOME}));
+
+        for (double delay : delays(planner)) {
+            assertEquals(0, delay, 1e-9);
+        }
+    }
+
+    @Test
+    void goalsOnTheBoundariesAreAllowedAndInsideAreRejected() {
+        JointMotionPlanner planner = planner();
+        // Exactly at the clear angle, and exactly at the edge of the intake band
+        assertTrue(planner.plan(new double[] {1, 1, 0, FUNNEL_HOME}, new double[] {1, CLEAR_ANGLE, 0, FUNNEL_HOME}));
+        assertTrue(planner.plan(new double[] {1, 1, 0, FUNNEL_HOME}, new double[] {PICKUP + INTAKE_MARGIN, 0.2, 0, FUNNEL_HOME}));
+        assertPlanClear(planner);
+        // Exactly at the funnel margin, and the algae arm exactly at the safe angle
+        assertTrue(planner.plan(new double[] {PICKUP, 1, 0, FUNNEL_HOME}, new double[] {PICKUP, 1, 0, FUNNEL_HOME - FUNNEL_MARGIN}));
+        assertTrue(planner.plan(new double[] {PICKUP, 1, 0, FUNNEL_HOME}, new double[] {PICKUP, 1, SAFE_ALGAE, 0.5}));
+        assertPlanClear(planner);
+
+        assertFalse(planner.plan(new double[] {1, 1, 0, FUNNEL_HOME}, new double[] {1, CLEAR_ANGLE - 0.01, 0, FUNNEL_HOME}));
+        assertFalse(planner.plan(new double[] {PICKUP, 1, 0.5, 0.5}, new double[] {PICKUP, 1, SAFE_ALGAE - 0.01, 0.5}));
+    }
+
+    @Test
+    void startingALateEscapeIsNotClear() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {PICKUP, 0.2, 0, FUNNEL_HOME}, new double[] {1, 1, 0, FUNNEL_HOME}));
+        double[] delays = delays(planner);
+        assertTrue(planner.isClear(delays, 0));
+
+        // The elevator starting later than planned only waits longer
+        delays[ELEVATOR] += 0.2;
+        assertTrue(planner.isClear(delays, 0));
+
+        // The arm starting later than planned still has to get out of the way, so it isn't safe
+        delays = delays(planner);
+        delays[SHOOTER_ARM] += 0.1;
+        assertFalse(planner.isClear(delays, 0));
+    }
+
+    @Test
+    void plannedTimeInvertsPlannedPosition() {
+        JointMotionPlanner planner = planner();
+        assertTrue(planner.plan(new double[] {PICKUP, 0.2, 0, FUNNEL_HOME}, new double[] {1, 1, 0, FUNNEL_HOME}));
+
+        for (double time = planner.getDelay(ELEVATOR) + STEP; time < planner.getTotalTime(); time += STEP) {
+            assertEquals(time, planner.getPlannedTime(ELEVATOR, planner.getPlannedPosition(ELEVATOR, time)), 1e-4);
+        }
+        assertEquals(planner.getDelay(ELEVATOR), planner.getPlannedTime(ELEVATOR, PICKUP - 0.1), 1e-9);
+        assertEquals(planner.getTotalTime(), planner.getPlannedTime(ELEVATOR, 2), 1e-4);
+    }
+}
@@ -0,0 +1,106 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class LockFreeIntQueueTest {
+
+    @Test
+    void emptyQueuePollsEmpty() {
+        LockFreeIntQueue queue = new LockFreeIntQueue(4);
+
+        assertEquals(LockFreeIntQueue.EMPTY, queue.poll());
+        assertTrue(queue.offer(7));
+        assertEquals(7, queue.poll());
+        assertEquals(LockFreeIntQueue.EMPTY, queue.poll());
+    }
+
+    @Test
+    void fullQueueRefusesUntilPolled() {
+        // Rounded up to 8
+        LockFreeIntQueue queue = new LockFreeIntQueue(5);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i), "offer " + i);
+        }
+
+        assertFalse(queue.offer(8));
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(8));
+        assertFalse(queue.offer(9));
+
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertEquals(LockFreeIntQueue.EMPTY, queue.poll());
+    }
+
+    @Test
+    void keepsOrderWhileWrappingAround() {
+        LockFreeIntQueue queue = new LockFreeIntQueue(4);
+        int next = 0;
+        int expected = 0;
+        // Uneven batches so the head and tail land on every slot many times over
+        for (int round = 0; round < 1000; round++) {
+            int batch = 1 + round % 4;
+            for (int i = 0; i < batch; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            for (int i = 0; i < batch; i++) {
+                assertEquals(expected++, queue.poll());
+            }
+            assertEquals(LockFreeIntQueue.EMPTY, queue.poll());
+        }
+    }
+
+    @Test
+    void everyOfferFromManyThreadsIsPolledOnceInProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20000;
+        LockFreeIntQueue queue = new LockFreeIntQueue(64);
+        CountDownLatch go = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    // Producer in the high bits, its count in the low ones
+                    int value = (producer << 24) | i;
+                    while (!queue.offer(value)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        go.countDown();
+
+        int[] nextFrom = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int value = queue.poll();
+            if (value == LockFreeIntQueue.EMPTY) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = value >>> 24;
+            assertEquals(nextFrom[producer], value & 0xFFFFFF, "producer " + producer);
+            nextFrom[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(LockFreeIntQueue.EMPTY, queue.poll());
+    }
+}
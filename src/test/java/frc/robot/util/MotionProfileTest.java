@@ -0,0 +1,131 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MotionProfileTest {
+
+    private static final double MAX_VELOCITY = 2.0;
+    private static final double MAX_ACCELERATION = 4.0;
+    private static final double MAX_JERK = 20.0;
+    private static final double DT = 1e-4;
+    private static final double EPSILON = 1e-6;
+
+    private static MotionProfile sCurve() {
+        return new MotionProfile(MAX_VELOCITY, MAX_ACCELERATION, MAX_JERK);
+    }
+
+    private static MotionProfile trapezoid() {
+        return new MotionProfile(MAX_VELOCITY, MAX_ACCELERATION);
+    }
+
+    /**
+     * Samples the whole profile, checks the limits and that velocity matches the
+     * change in position, and returns the peak speed
+     */
+    private static double checkProfile(MotionProfile profile, double goal) {
+        MotionProfile.State last = profile.sample(0, new MotionProfile.State());
+        MotionProfile.State state = new MotionProfile.State();
+        double peakSpeed = Math.abs(last.velocity);
+
+        for (double t = DT; t <= profile.getTotalTime(); t += DT) {
+            profile.sample(t, state);
+            assertTrue(Math.abs(state.velocity) <= MAX_VELOCITY + EPSILON, "velocity " + state.velocity + " at " + t);
+            assertTrue(Math.abs(state.acceleration) <= MAX_ACCELERATION + EPSILON, "acceleration " + state.acceleration + " at " + t);
+            assertEquals((last.velocity + state.velocity) / 2.0, (state.position - last.position) / DT, 1e-3);
+            if (profile.isSCurve()) {
+                assertTrue(Math.abs(state.acceleration - last.acceleration) <= MAX_JERK * DT + EPSILON, "jerk at " + t);
+            }
+            peakSpeed = Math.max(peakSpeed, Math.abs(state.velocity));
+
+            MotionProfile.State swap = last;
+            last = state;
+            state = swap;
+        }
+
+        profile.sample(profile.getTotalTime(), state);
+        assertEquals(goal, state.position, 1e-6);
+        assertEquals(0, state.velocity, 1e-6);
+        // The last sample before the end lands on the goal too, so the end isn't a jump
+        assertEquals(goal, last.position, 1e-3);
+        return peakSpeed;
+    }
+
+    @Test
+    void longMoveCruisesAtMaxVelocity() {
+        for (MotionProfile profile : new MotionProfile[] {sCurve(), trapezoid()}) {
+            profile.generate(0, 0, 5);
+            assertEquals(MAX_VELOCITY, checkProfile(profile, 5), 1e-3);
+
+            profile.generate(5, 0, -1);
+            assertEquals(MAX_VELOCITY, checkProfile(profile, -1), 1e-3);
+        }
+    }
+
+    @Test
+    void shortMoveNeverReachesMaxVelocity() {
+        MotionProfile trapezoid = trapezoid();
+        trapezoid.generate(0, 0, 0.25);
+        // A triangle: accelerate halfway, decelerate the rest
+        assertEquals(Math.sqrt(MAX_ACCELERATION * 0.25), checkProfile(trapezoid, 0.25), 1e-3);
+
+        MotionProfile sCurve = sCurve();
+        sCurve.generate(1, 0, 0.75);
+        double peak = checkProfile(sCurve, 0.75);
+        assertTrue(peak > 0 && peak < MAX_VELOCITY, "peak " + peak);
+        // Jerk limiting makes it slower than the triangle
+        assertTrue(sCurve.getTotalTime() > 2 * Math.sqrt(0.25 / MAX_ACCELERATION));
+    }
+
+    @Test
+    void shortMovesFromAnyStartVelocityReachTheGoal() {
+        for (MotionProfile profile : new MotionProfile[] {sCurve(), trapezoid()}) {
+            for (double distance = 1e-4; distance < 1.5; distance *= 1.7) {
+                for (double velocity = -MAX_VELOCITY; velocity <= MAX_VELOCITY; velocity += 0.25) {
+                    profile.generate(0, velocity, distance);
+                    checkProfile(profile, distance);
+                }
+            }
+        }
+    }
+
+    @Test
+    void replanContinuesFromTheSampledSetpoint() {
+        MotionProfile profile = sCurve();
+        profile.generate(0, 0, 3);
+        MotionProfile.State setpoint = profile.sample(0.15, new MotionProfile.State());
+        assertTrue(Math.abs(setpoint.acceleration) > 1, "still ramping up at the replan");
+
+        // Same call Elevator makes when the goal changes mid-move
+        profile.generate(setpoint.position, setpoint.velocity, setpoint.acceleration, 1);
+        MotionProfile.State start = profile.sample(0, new MotionProfile.State());
+        assertEquals(setpoint.position, start.position, 1e-9);
+        assertEquals(setpoint.velocity, start.velocity, 1e-9);
+        assertEquals(setpoint.acceleration, start.acceleration, 1e-9);
+        checkProfile(profile, 1);
+    }
+
+    @Test
+    void replanBehindAFastMoveStopsAndComesBack() {
+        MotionProfile profile = sCurve();
+        profile.generate(0, 0, 5);
+        MotionProfile.State setpoint = profile.sample(1.0, new MotionProfile.State());
+
+        // New goal just behind where it is going full speed
+        double goal = setpoint.position - 0.05;
+        profile.generate(setpoint.position, setpoint.velocity, setpoint.acceleration, goal);
+        assertEquals(setpoint.velocity, profile.sample(0, new MotionProfile.State()).velocity, 1e-9);
+        checkProfile(profile, goal);
+    }
+
+    @Test
+    void trapezoidReplanIgnoresAcceleration() {
+        MotionProfile profile = trapezoid();
+        profile.generate(0, 1, 3, 2);
+        MotionProfile.State start = profile.sample(0, new MotionProfile.State());
+        assertEquals(MAX_ACCELERATION, start.acceleration, 1e-9);
+        checkProfile(profile, 2);
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ObstacleGridTest {
+
+    private static final int WIDTH = 20;
+    private static final int HEIGHT = 10;
+    private static final double NODE_SIZE = 0.5;
+
+    private static int cell(int x, int y) {
+        return y * WIDTH + x;
+    }
+
+    @Test
+    void marksCellsWhoseCentersAreInTheRadius() {
+        ObstacleGrid grid = new ObstacleGrid(WIDTH, HEIGHT, NODE_SIZE);
+        // Middle of cell (5, 5); its four side neighbours' centers are 0.5 away, the diagonals 0.71
+        grid.mark(2.75, 2.75, 0.6, 1.0);
+
+        int occupied = 0;
+        for (int cell = 0; cell < WIDTH * HEIGHT; cell++) {
+            if (grid.isOccupied(cell)) {
+                occupied++;
+            }
+        }
+        assertEquals(5, occupied);
+        assertTrue(grid.isOccupied(cell(5, 5)));
+        assertTrue(grid.isOccupied(cell(4, 5)));
+        assertTrue(grid.isOccupied(cell(5, 6)));
+        assertFalse(grid.isOccupied(cell(6, 6)));
+        assertTrue(grid.takeChanged());
+        assertFalse(grid.takeChanged());
+    }
+
+    @Test
+    void markingOffTheFieldOnlyTouchesCellsOnIt() {
+        ObstacleGrid grid = new ObstacleGrid(WIDTH, HEIGHT, NODE_SIZE);
+        grid.mark(-0.1, -0.1, 0.6, 1.0);
+
+        assertTrue(grid.isOccupied(cell(0, 0)));
+        assertFalse(grid.isOccupied(cell(2, 0)));
+    }
+
+    @Test
+    void forgetsCellsOnlyOnceTheyAreDue() {
+        ObstacleGrid grid = new ObstacleGrid(WIDTH, HEIGHT, NODE_SIZE);
+        grid.mark(1.25, 1.25, 0.1, 1.0);
+        grid.mark(8.25, 4.25, 0.1, 3.0);
+        grid.takeChanged();
+
+        grid.decay(0.5);
+        assertFalse(grid.takeChanged());
+        assertTrue(grid.isOccupied(cell(2, 2)));
+
+        grid.decay(1.0);
+        assertTrue(grid.takeChanged());
+        assertFalse(grid.isOccupied(cell(2, 2)));
+        assertTrue(grid.isOccupied(cell(16, 8)));
+
+        grid.decay(3.0);
+        assertFalse(grid.isOccupied(cell(16, 8)));
+    }
+
+    @Test
+    void seeingAgainKeepsTheLaterTime() {
+        ObstacleGrid grid = new ObstacleGrid(WIDTH, HEIGHT, NODE_SIZE);
+        grid.mark(1.25, 1.25, 0.1, 2.0);
+        grid.mark(1.25, 1.25, 0.1, 1.0);
+        grid.takeChanged();
+
+        grid.decay(1.5);
+        assertTrue(grid.isOccupied(cell(2, 2)));
+        // Already occupied, so nothing changed
+        assertFalse(grid.takeChanged());
+    }
+
+    @Test
+    void maskMatchesTheOccupiedCells() {
+        ObstacleGrid grid = new ObstacleGrid(WIDTH, HEIGHT, NODE_SIZE);
+        grid.mark(3.0, 3.0, 1.0, 1.0);
+        grid.mark(9.75, 4.75, 0.1, 1.0);
+
+        long[] mask = grid.getMask();
+        assertEquals(DStarLite.maskWords(WIDTH * HEIGHT), mask.length);
+        for (int cell = 0; cell < WIDTH * HEIGHT; cell++) {
+            assertEquals(grid.isOccupied(cell), (mask[cell >>> 6] & (1L << cell)) != 0);
+        }
+
+        grid.clear();
+        for (long word : mask) {
+            assertEquals(0L, word);
+        }
+    }
+}
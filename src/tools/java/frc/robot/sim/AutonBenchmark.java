@@ -0,0 +1,346 @@
+package frc.robot.sim;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants.SimConstants;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.ButtonBox;
+import frc.robot.subsystems.TargetClass;
+import frc.robot.util.GamePieceDetector;
+import frc.robot.util.WaitStats;
+
+/**
+ * Runs the autons headless in simulation and reports how long they take.
+ *
+ * Time is simulated: the HAL clock is paused and stepped one robot loop at a time,
+ * so a run takes as long as the CPU needs instead of real match time, and the same
+ * seed always gives the same result. Each run reports its total time, the time for
+ * each scoring cycle, and the time spent in each timed wait (see {@link WaitStats}).
+ * The seed drives the noise, which for now is how long coral takes to drop in at
+ * the station.
+ *
+ * The HAL, the command scheduler and the subsystems are all process-wide, so each
+ * run happens in its own JVM. The parent process launches the runs across cores
+ * and prints a summary per auton.
+ *
+ * Run with: ./gradlew autonBenchmark -Pautos=Left,Right -Pseeds=200 -Pthreads=8
+ */
+public final class AutonBenchmark {
+
+    private static final String[] DEFAULT_AUTOS = {"Left", "LeftCenter", "RightCenter", "Right"};
+    private static final String RESULT_PREFIX = "RESULT\t";
+
+    /** One run of one auton with one seed */
+    private static final class RunResult {
+        final String auto;
+        final long seed;
+        final boolean finished;
+        final double totalSeconds;
+        final List<Double> cycleSeconds;
+        final Map<String, Double> waitSeconds;
+
+        RunResult(String auto, long seed, boolean finished, double totalSeconds,
+                  List<Double> cycleSeconds, Map<String, Double> waitSeconds) {
+            this.auto = auto;
+            this.seed = seed;
+            this.finished = finished;
+            this.totalSeconds = totalSeconds;
+            this.cycleSeconds = cycleSeconds;
+            this.waitSeconds = waitSeconds;
+        }
+
+        /** Tab separated so wait names can contain spaces */
+        String encode() {
+            List<String> cycles = new ArrayList<>();
+            for (double cycle : cycleSeconds) {
+                cycles.add(Double.toString(cycle));
+            }
+            List<String> waits = new ArrayList<>();
+            for (Map.Entry<String, Double> wait : waitSeconds.entrySet()) {
+                waits.add(wait.getKey() + "=" + wait.getValue());
+            }
+            return String.join("\t", auto, Long.toString(seed), Boolean.toString(finished),
+                Double.toString(totalSeconds), String.join(",", cycles), String.join(";", waits));
+        }
+
+        static RunResult decode(String line) {
+            String[] fields = line.split("\t", -1);
+
+            List<Double> cycles = new ArrayList<>();
+            if (!fields[4].isEmpty()) {
+                for (String cycle : fields[4].split(",")) {
+                    cycles.add(Double.parseDouble(cycle));
+                }
+            }
+            Map<String, Double> waits = new LinkedHashMap<>();
+            if (!fields[5].isEmpty()) {
+                for (String wait : fields[5].split(";")) {
+                    int split = wait.lastIndexOf('=');
+                    waits.put(wait.substring(0, split), Double.parseDouble(wait.substring(split + 1)));
+                }
+            }
+            return new RunResult(fields[0], Long.parseLong(fields[1]), Boolean.parseBoolean(fields[2]),
+                Double.parseDouble(fields[3]), cycles, waits);
+        }
+    }
+
+    private AutonBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        if (options.containsKey("child")) {
+            RunResult result = runOnce(options.get("auto"), Long.parseLong(options.get("seed")),
+                options.getOrDefault("alliance", "Blue"));
+            System.out.println(RESULT_PREFIX + result.encode());
+            System.out.flush();
+            // Vision, LED and NT threads would otherwise keep the JVM alive
+            System.exit(0);
+        }
+
+        String[] autos = options.getOrDefault("autos", String.join(",", DEFAULT_AUTOS)).split(",");
+        int seeds = Integer.parseInt(options.getOrDefault("seeds", "100"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            Integer.toString(Runtime.getRuntime().availableProcessors())));
+        String alliance = options.getOrDefault("alliance", "Blue");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Map<String, List<Future<RunResult>>> runs = new LinkedHashMap<>();
+        for (String auto : autos) {
+            List<Future<RunResult>> futures = new ArrayList<>();
+            for (long seed = 0; seed < seeds; seed++) {
+                final long runSeed = seed;
+                futures.add(pool.submit(() -> runChild(auto, runSeed, alliance)));
+            }
+            runs.put(auto, futures);
+        }
+
+        for (Map.Entry<String, List<Future<RunResult>>> entry : runs.entrySet()) {
+            List<RunResult> results = new ArrayList<>();
+            for (Future<RunResult> future : entry.getValue()) {
+                try {
+                    results.add(future.get());
+                } catch (Exception e) {
+                    System.err.println(entry.getKey() + ": run failed: " + e.getMessage());
+                }
+            }
+            printSummary(entry.getKey(), results);
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Runs one auton with one seed in this process, stepping simulated time until it
+     * finishes or runs out of time
+     */
+    private static RunResult runOnce(String auto, long seed, String alliance) {
+        Random random = new Random(seed);
+
+        HAL.initialize(500, 0);
+        SimHooks.pauseTiming();
+
+        DriverStationSim.setAllianceStationId(
+            alliance.equals("Red") ? AllianceStationID.Red1 : AllianceStationID.Blue1);
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+        DriverStation.refreshData();
+
+        RobotContainer container = new RobotContainer();
+        container.selectAutonomous(auto);
+        ButtonBox buttonBox = container.getButtonBox();
+
+        // Coral drops in a random time after the robot reaches the station
+        Trigger atStation = container.coralStationLeftTrigger().or(container.coralStationRightTrigger());
+        boolean[] coralAvailable = {false};
+        container.getShooter().setSimCoralAvailable(() -> coralAvailable[0]);
+        double loadDelay = nextLoadDelay(random);
+        double stationArrivalTime = -1;
+
+        Command auton = container.getAutonomousCommand();
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        WaitStats.reset();
+
+        double startTime = Timer.getFPGATimestamp();
+        double lastCycleEnd = startTime;
+        boolean inScoringCycle = false;
+        List<Double> cycles = new ArrayList<>();
+
+        auton.schedule();
+        while (auton.isScheduled() && Timer.getFPGATimestamp() - startTime < SimConstants.BENCHMARK_MAX_TIME) {
+            SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+            DriverStation.refreshData();
+            double now = Timer.getFPGATimestamp();
+
+            if (atStation.getAsBoolean()) {
+                if (stationArrivalTime < 0) {
+                    stationArrivalTime = now;
+                }
+                coralAvailable[0] = now - stationArrivalTime >= loadDelay;
+            } else if (stationArrivalTime >= 0) {
+                stationArrivalTime = -1;
+                coralAvailable[0] = false;
+                loadDelay = nextLoadDelay(random);
+            }
+
+            // Robot samples detectors on its own faster periodic; once a step is enough here
+            GamePieceDetector.sampleAll();
+
+            // Runs subsystem periodic and simulationPeriodic, same as Robot.robotPeriodic
+            scheduler.run();
+            SimBattery.update();
+
+            // A cycle ends when a scoring target is cleared from the queue
+            TargetClass target = buttonBox.peekNextTarget();
+            if (target != null && !target.isSource()) {
+                inScoringCycle = true;
+            } else if (target == null && inScoringCycle) {
+                cycles.add(now - lastCycleEnd);
+                lastCycleEnd = now;
+                inScoringCycle = false;
+            }
+        }
+
+        boolean finished = !auton.isScheduled();
+        double totalSeconds = Timer.getFPGATimestamp() - startTime;
+        auton.cancel();
+
+        return new RunResult(auto, seed, finished, totalSeconds, cycles, WaitStats.getTotals());
+    }
+
+    private static double nextLoadDelay(Random random) {
+        return SimConstants.CORAL_LOAD_DELAY_MIN
+            + random.nextDouble() * (SimConstants.CORAL_LOAD_DELAY_MAX - SimConstants.CORAL_LOAD_DELAY_MIN);
+    }
+
+    /**
+     * Runs one auton with one seed in a fresh JVM and reads back its result
+     */
+    private static RunResult runChild(String auto, long seed, String alliance) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(
+            java,
+            "-cp", System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            AutonBenchmark.class.getName(),
+            "--child", "--auto=" + auto, "--seed=" + seed, "--alliance=" + alliance);
+        builder.redirectErrorStream(true);
+
+        Process process = builder.start();
+        RunResult result = null;
+        String lastLine = "";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = RunResult.decode(line.substring(RESULT_PREFIX.length()));
+                } else if (!line.isBlank()) {
+                    lastLine = line;
+                }
+            }
+        }
+        process.waitFor();
+
+        if (result == null) {
+            throw new IllegalStateException(auto + " seed " + seed + " exited " + process.exitValue() + ": " + lastLine);
+        }
+        return result;
+    }
+
+    private static void printSummary(String auto, List<RunResult> results) {
+        List<Double> totals = new ArrayList<>();
+        Map<Integer, List<Double>> cyclesByIndex = new HashMap<>();
+        Map<String, Double> waitTotals = new LinkedHashMap<>();
+        int finished = 0;
+
+        for (RunResult result : results) {
+            if (!result.finished) {
+                continue;
+            }
+            finished++;
+            totals.add(result.totalSeconds);
+            for (int i = 0; i < result.cycleSeconds.size(); i++) {
+                cyclesByIndex.computeIfAbsent(i, index -> new ArrayList<>()).add(result.cycleSeconds.get(i));
+            }
+            for (Map.Entry<String, Double> wait : result.waitSeconds.entrySet()) {
+                waitTotals.merge(wait.getKey(), wait.getValue(), Double::sum);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("== %s: %d/%d runs finished within %.0f s%n",
+            auto, finished, results.size(), SimConstants.BENCHMARK_MAX_TIME);
+        if (finished == 0) {
+            return;
+        }
+
+        Collections.sort(totals);
+        System.out.printf("   total   mean %6.2f  p50 %6.2f  p90 %6.2f  max %6.2f%n",
+            mean(totals), percentile(totals, 0.5), percentile(totals, 0.9), totals.get(totals.size() - 1));
+
+        for (int i = 0; i < cyclesByIndex.size(); i++) {
+            List<Double> cycle = cyclesByIndex.get(i);
+            Collections.sort(cycle);
+            System.out.printf("   cycle %d mean %6.2f  p50 %6.2f  p90 %6.2f  (%d runs)%n",
+                i + 1, mean(cycle), percentile(cycle, 0.5), percentile(cycle, 0.9), cycle.size());
+        }
+
+        for (Map.Entry<String, Double> wait : waitTotals.entrySet()) {
+            System.out.printf("   wait  %-30s %6.2f s per run%n", wait.getKey(), wait.getValue() / finished);
+        }
+    }
+
+    private static double mean(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.size();
+    }
+
+    /** Nearest-rank percentile of an already sorted list */
+    private static double percentile(List<Double> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    /** Parses --key=value and --flag arguments */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int split = arg.indexOf('=');
+            if (split < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,137 @@
+package frc.robot.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.robot.Constants.WaitTimeConstants;
+
+/**
+ * Reads match logs and suggests a budget for each auton wait.
+ *
+ * Every wait is written to the match log by {@link frc.robot.util.WaitStats} as
+ * Waits/name = [seconds, condition met, budget]. For each wait this prints how often
+ * its condition ended it early and how long those took, and suggests a budget that
+ * covers WaitTimeConstants.REPORT_PERCENTILE of them plus REPORT_MARGIN. Waits that
+ * used their whole budget say nothing about how long the condition takes, so they
+ * only count towards the timeout rate. A suggestion is never longer than the budget
+ * the logs were recorded with; a wait that times out a lot needs a look at its
+ * sensor, not a longer budget.
+ *
+ * Run with: ./gradlew waitReport -Plogs=path/to/logs (a .wpilog file or a directory of them)
+ */
+public final class WaitBudgetReport {
+
+    private static final String PREFIX = "Waits/";
+
+    /** Everything logged for one wait, across all the logs read */
+    private static final class WaitSamples {
+        final List<Double> metSeconds = new ArrayList<>();
+        int count = 0;
+        double budget = 0;
+    }
+
+    private WaitBudgetReport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: WaitBudgetReport <log.wpilog or directory>...");
+            System.exit(1);
+        }
+
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            File file = new File(arg);
+            File[] logs = file.isDirectory() ? file.listFiles((dir, name) -> name.endsWith(".wpilog")) : new File[] {file};
+            if (logs != null) {
+                Arrays.sort(logs);
+                files.addAll(Arrays.asList(logs));
+            }
+        }
+
+        Map<String, WaitSamples> waits = new TreeMap<>();
+        for (File file : files) {
+            read(file, waits);
+        }
+
+        System.out.printf("%d logs%n", files.size());
+        for (Map.Entry<String, WaitSamples> wait : waits.entrySet()) {
+            printWait(wait.getKey(), wait.getValue());
+        }
+    }
+
+    private static void read(File file, Map<String, WaitSamples> waits) throws IOException {
+        DataLogReader reader = new DataLogReader(file.getPath());
+        if (!reader.isValid()) {
+            System.err.println("Not a data log: " + file);
+            return;
+        }
+
+        // Entry ids are only unique within one log
+        Map<Integer, WaitSamples> entries = new HashMap<>();
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.name.startsWith(PREFIX) && start.type.equals("double[]")) {
+                    entries.put(start.entry, waits.computeIfAbsent(start.name.substring(PREFIX.length()), name -> new WaitSamples()));
+                }
+                continue;
+            }
+
+            WaitSamples samples = entries.get(record.getEntry());
+            if (samples == null || record.isControl()) {
+                continue;
+            }
+            double[] value = record.getDoubleArray();
+            if (value.length < 3) {
+                continue;
+            }
+            samples.count++;
+            samples.budget = value[2];
+            if (value[1] != 0) {
+                samples.metSeconds.add(value[0]);
+            }
+        }
+    }
+
+    private static void printWait(String name, WaitSamples samples) {
+        List<Double> met = samples.metSeconds;
+        Collections.sort(met);
+        int timedOut = samples.count - met.size();
+
+        System.out.println();
+        System.out.printf("== %s: %d waits, %d ended early, %d used the whole %.2f s budget%n",
+            name, samples.count, met.size(), timedOut, samples.budget);
+        if (met.isEmpty()) {
+            return;
+        }
+        System.out.printf("   ended early  p50 %5.3f  p%.0f %5.3f  max %5.3f s%n",
+            percentile(met, 0.5), WaitTimeConstants.REPORT_PERCENTILE * 100,
+            percentile(met, WaitTimeConstants.REPORT_PERCENTILE), met.get(met.size() - 1));
+
+        if (met.size() < WaitTimeConstants.REPORT_MIN_SAMPLES) {
+            System.out.printf("   need %d early endings to suggest a budget%n", WaitTimeConstants.REPORT_MIN_SAMPLES);
+            return;
+        }
+        double suggested = Math.min(samples.budget,
+            percentile(met, WaitTimeConstants.REPORT_PERCENTILE) + WaitTimeConstants.REPORT_MARGIN);
+        System.out.printf("   suggested budget %.2f s (now %.2f s)%n", suggested, samples.budget);
+        if (timedOut > samples.count * (1 - WaitTimeConstants.REPORT_PERCENTILE)) {
+            System.out.printf("   times out in %.0f%% of waits: check what it waits for%n", 100.0 * timedOut / samples.count);
+        }
+    }
+
+    /** Nearest-rank percentile of an already sorted list */
+    private static double percentile(List<Double> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+}